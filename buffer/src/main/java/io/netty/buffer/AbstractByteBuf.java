@@ -987,6 +987,13 @@ public abstract class AbstractByteBuf extends ByteBuf {
             return -1;
         }
 
+        if (length >= ByteBufUtil.SwarMatcher.MIN_LENGTH) {
+            ByteBufUtil.SwarMatcher matcher = ByteBufUtil.swarMatcher(processor);
+            if (matcher != null) {
+                return matcher.indexOf(this, index, index + length);
+            }
+        }
+
         final int endIndex = index + length;
         int i = index;
         try {
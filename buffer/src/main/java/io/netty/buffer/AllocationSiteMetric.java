@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+/**
+ * Metrics for the sampled allocations of a call site, as collected by a {@link ProfilingByteBufAllocator}.
+ * All numbers only account for sampled allocations, multiply them by the sampling interval to get an estimate of
+ * the real numbers.
+ */
+public interface AllocationSiteMetric {
+
+    /**
+     * Returns the stack trace elements which identify the call site, in the same format which is used by the
+     * records of a leak report.
+     */
+    String callSite();
+
+    /**
+     * Return the number of sampled allocations done by the call site.
+     */
+    long numAllocations();
+
+    /**
+     * Return the number of sampled allocations of direct buffers done by the call site.
+     */
+    long numDirectAllocations();
+
+    /**
+     * Return the number of sampled buffers allocated by the call site which were released since then.
+     */
+    long numDeallocations();
+
+    /**
+     * Return the number of sampled buffers allocated by the call site which were not released yet.
+     */
+    long numActiveAllocations();
+
+    /**
+     * Return the sum of the capacities of all sampled buffers allocated by the call site.
+     */
+    long numAllocatedBytes();
+
+    /**
+     * Return the sum of the initial capacities of all sampled buffers allocated by the call site which were not
+     * released yet.
+     */
+    long numActiveBytes();
+
+    /**
+     * Returns a histogram of the initial capacities of the sampled buffers. The element at index {@code i} is the
+     * number of buffers with a capacity in the range of {@code [2^(i-1), 2^i)}, index {@code 0} counts empty buffers.
+     */
+    long[] capacityHistogram();
+
+    /**
+     * Returns a histogram of the lifetimes of the released sampled buffers, in nanoseconds. The element at index
+     * {@code i} is the number of buffers which lived for {@code [2^(i-1), 2^i)} nanoseconds.
+     */
+    long[] lifetimeHistogram();
+}
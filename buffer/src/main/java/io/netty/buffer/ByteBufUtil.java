@@ -421,6 +421,11 @@ public final class ByteBufUtil {
             return -1;
         }
 
+        if (toIndex - fromIndex >= SwarMatcher.MIN_LENGTH && buffer instanceof AbstractByteBuf) {
+            AbstractByteBuf buf = (AbstractByteBuf) buffer;
+            buf.checkIndex(fromIndex, toIndex - fromIndex);
+            return new SwarMatcher(value, value, false).indexOf(buf, fromIndex, toIndex);
+        }
         return buffer.forEachByte(fromIndex, toIndex - fromIndex, new ByteProcessor.IndexOfProcessor(value));
     }
 
@@ -790,6 +795,167 @@ public final class ByteBufUtil {
         }
     }
 
+    /**
+     * Returns a {@link SwarMatcher} which finds the same byte as the given {@link ByteProcessor} or {@code null} if
+     * the {@link ByteProcessor} is not one of the well-known processors that can be searched a word at a time.
+     */
+    static SwarMatcher swarMatcher(ByteProcessor processor) {
+        if (processor == ByteProcessor.FIND_CRLF) {
+            return SwarMatcher.FIND_CRLF;
+        }
+        if (processor == ByteProcessor.FIND_LF) {
+            return SwarMatcher.FIND_LF;
+        }
+        if (processor == ByteProcessor.FIND_NON_LINEAR_WHITESPACE) {
+            return SwarMatcher.FIND_NON_LINEAR_WHITESPACE;
+        }
+        if (processor == ByteProcessor.FIND_NUL) {
+            return SwarMatcher.FIND_NUL;
+        }
+        if (processor == ByteProcessor.FIND_CR) {
+            return SwarMatcher.FIND_CR;
+        }
+        if (processor == ByteProcessor.FIND_LINEAR_WHITESPACE) {
+            return SwarMatcher.FIND_LINEAR_WHITESPACE;
+        }
+        if (processor == ByteProcessor.FIND_NON_CRLF) {
+            return SwarMatcher.FIND_NON_CRLF;
+        }
+        if (processor == ByteProcessor.FIND_NON_NUL) {
+            return SwarMatcher.FIND_NON_NUL;
+        }
+        return null;
+    }
+
+    /**
+     * Finds the first byte which is equal to one of two bytes, or the first byte which is equal to neither of them,
+     * by inspecting 8 bytes at a time (SIMD within a register).
+     */
+    static final class SwarMatcher {
+        // Below this length the setup costs more than it saves.
+        static final int MIN_LENGTH = 16;
+
+        static final SwarMatcher FIND_NUL = new SwarMatcher((byte) 0, (byte) 0, false);
+        static final SwarMatcher FIND_NON_NUL = new SwarMatcher((byte) 0, (byte) 0, true);
+        static final SwarMatcher FIND_CR = new SwarMatcher((byte) '\r', (byte) '\r', false);
+        static final SwarMatcher FIND_LF = new SwarMatcher((byte) '\n', (byte) '\n', false);
+        static final SwarMatcher FIND_CRLF = new SwarMatcher((byte) '\r', (byte) '\n', false);
+        static final SwarMatcher FIND_NON_CRLF = new SwarMatcher((byte) '\r', (byte) '\n', true);
+        static final SwarMatcher FIND_LINEAR_WHITESPACE = new SwarMatcher((byte) ' ', (byte) '\t', false);
+        static final SwarMatcher FIND_NON_LINEAR_WHITESPACE = new SwarMatcher((byte) ' ', (byte) '\t', true);
+
+        private static final boolean BIG_ENDIAN_NATIVE_ORDER = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+        private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+        private static final long HIGH_BITS = 0x8080808080808080L;
+
+        private final byte first;
+        private final byte second;
+        private final boolean negate;
+        private final long firstPattern;
+        private final long secondPattern;
+        private final long flip;
+
+        SwarMatcher(byte first, byte second, boolean negate) {
+            this.first = first;
+            this.second = second;
+            this.negate = negate;
+            firstPattern = (first & 0xFFL) * 0x0101010101010101L;
+            secondPattern = (second & 0xFFL) * 0x0101010101010101L;
+            flip = negate ? HIGH_BITS : 0;
+        }
+
+        /**
+         * Returns the index of the first matching byte in {@code [index, endIndex)} of {@code buffer} or {@code -1}.
+         * The caller is responsible for the bounds checks.
+         */
+        int indexOf(AbstractByteBuf buffer, int index, int endIndex) {
+            if (buffer.hasMemoryAddress()) {
+                return indexOf(buffer.memoryAddress(), index, endIndex);
+            }
+            if (buffer.hasArray() && PlatformDependent.hasUnsafe()) {
+                int arrayOffset = buffer.arrayOffset();
+                int i = indexOf(buffer.array(), arrayOffset + index, arrayOffset + endIndex);
+                return i < 0 ? i : i - arrayOffset;
+            }
+
+            int i = index;
+            for (; i <= endIndex - 8; i += 8) {
+                // _getLong(...) is always big endian.
+                long mask = match(buffer._getLong(i));
+                if (mask != 0) {
+                    return i + (Long.numberOfLeadingZeros(mask) >>> 3);
+                }
+            }
+            for (; i < endIndex; i ++) {
+                if (match(buffer._getByte(i))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int indexOf(long address, int index, int endIndex) {
+            int i = index;
+            for (; i <= endIndex - 8; i += 8) {
+                long mask = match(PlatformDependent.getLong(address + i));
+                if (mask != 0) {
+                    return i + firstMatch(mask);
+                }
+            }
+            for (; i < endIndex; i ++) {
+                if (match(PlatformDependent.getByte(address + i))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int indexOf(byte[] array, int index, int endIndex) {
+            int i = index;
+            for (; i <= endIndex - 8; i += 8) {
+                long mask = match(PlatformDependent.getLong(array, i));
+                if (mask != 0) {
+                    return i + firstMatch(mask);
+                }
+            }
+            for (; i < endIndex; i ++) {
+                if (match(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Returns a word which has the high bit of every matching byte of {@code word} set and all other bits
+         * cleared.
+         */
+        private long match(long word) {
+            return (zeroBytes(word ^ firstPattern) | zeroBytes(word ^ secondPattern)) ^ flip;
+        }
+
+        private boolean match(byte value) {
+            return (value == first || value == second) != negate;
+        }
+
+        /**
+         * Returns a word which has the high bit of every zero byte of {@code word} set and all other bits cleared.
+         * Unlike the well-known {@code (word - 0x01..) & ~word & 0x80..} this never reports false positives, as no
+         * carry can propagate from one byte to the next.
+         */
+        private static long zeroBytes(long word) {
+            long t = (word & LOW_BITS) + LOW_BITS;
+            return ~(t | word | LOW_BITS);
+        }
+
+        /**
+         * Returns the offset of the first matching byte of a word which was read in the native byte order.
+         */
+        private static int firstMatch(long mask) {
+            return (BIG_ENDIAN_NATIVE_ORDER ? Long.numberOfLeadingZeros(mask) : Long.numberOfTrailingZeros(mask)) >>> 3;
+        }
+    }
+
     static final class ThreadLocalUnsafeDirectByteBuf extends UnpooledUnsafeDirectByteBuf {
 
         private static final Recycler<ThreadLocalUnsafeDirectByteBuf> RECYCLER =
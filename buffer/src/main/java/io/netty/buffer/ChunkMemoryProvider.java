@@ -0,0 +1,58 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.internal.PlatformDependent;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Provides the memory which backs the chunks of the direct arenas of a {@link PooledByteBufAllocator}.
+ * Implementations must be thread-safe.
+ */
+public interface ChunkMemoryProvider {
+
+    /**
+     * The default {@link ChunkMemoryProvider} which uses {@link ByteBuffer#allocateDirect(int)}.
+     */
+    ChunkMemoryProvider DEFAULT = new ChunkMemoryProvider() {
+        @Override
+        public ByteBuffer allocate(int capacity) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+
+        @Override
+        public void free(ByteBuffer memory) {
+            PlatformDependent.freeDirectBuffer(memory);
+        }
+
+        @Override
+        public String toString() {
+            return "ChunkMemoryProvider.DEFAULT";
+        }
+    };
+
+    /**
+     * Allocate a direct {@link ByteBuffer} of exactly {@code capacity} bytes which will back a chunk.
+     */
+    ByteBuffer allocate(int capacity);
+
+    /**
+     * Release the given {@link ByteBuffer} which was returned by {@link #allocate(int)} before. The memory is not
+     * accessed anymore after this method was called.
+     */
+    void free(ByteBuffer memory);
+}
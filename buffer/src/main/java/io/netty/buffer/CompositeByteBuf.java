@@ -26,6 +26,7 @@ import java.nio.ByteOrder;
 import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.ScatteringByteChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
@@ -49,6 +50,9 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
     private final boolean direct;
     private final List<Component> components = new ArrayList<Component>();
     private final int maxNumComponents;
+    // Index of the component that was found by the last lookup. As components never overlap it is only used if its
+    // offsets still contain the requested offset, so it does not need to be reset when the components change.
+    private int lastAccessedComponent;
 
     private boolean freed;
 
@@ -211,18 +215,27 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
             throw new NullPointerException("buffers");
         }
 
+        int numBuffers = 0;
+        while (numBuffers < buffers.length && buffers[numBuffers] != null) {
+            numBuffers ++;
+        }
+        if (numBuffers == 0) {
+            return cIndex;
+        }
+        if (numBuffers == 1) {
+            return addComponent0(cIndex, buffers[0]) + 1;
+        }
+
+        // Insert all components at once and update the offsets only one time, so adding n components in the middle
+        // does not need to update the offsets of all following components n times.
         // No need for consolidation
-        for (ByteBuf b: buffers) {
-            if (b == null) {
-                break;
-            }
-            cIndex = addComponent0(cIndex, b) + 1;
-            int size = components.size();
-            if (cIndex > size) {
-                cIndex = size;
-            }
+        List<Component> added = new ArrayList<Component>(numBuffers);
+        for (int i = 0; i < numBuffers; i ++) {
+            added.add(new Component(buffers[i].order(ByteOrder.BIG_ENDIAN).slice()));
         }
-        return cIndex;
+        components.addAll(cIndex, added);
+        updateComponentOffsets(cIndex);
+        return cIndex + numBuffers;
     }
 
     /**
@@ -591,8 +604,30 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
      */
     public int toComponentIndex(int offset) {
         checkIndex(offset);
+        return toComponentIndex0(offset);
+    }
+
+    private int toComponentIndex0(int offset) {
+        final int size = components.size();
+        int last = lastAccessedComponent;
+        if (last < size) {
+            Component c = components.get(last);
+            if (offset >= c.offset) {
+                if (offset < c.endOffset) {
+                    return last;
+                }
+                // Sequential access will most likely hit the next component.
+                if (++ last < size) {
+                    c = components.get(last);
+                    if (offset >= c.offset && offset < c.endOffset) {
+                        lastAccessedComponent = last;
+                        return last;
+                    }
+                }
+            }
+        }
 
-        for (int low = 0, high = components.size(); low <= high;) {
+        for (int low = 0, high = size; low <= high;) {
             int mid = low + high >>> 1;
             Component c = components.get(mid);
             if (offset >= c.endOffset) {
@@ -600,6 +635,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
             } else if (offset < c.offset) {
                 high = mid - 1;
             } else {
+                lastAccessedComponent = mid;
                 return mid;
             }
         }
@@ -1096,21 +1132,9 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
 
     private Component findComponent(int offset) {
         checkIndex(offset);
-
-        for (int low = 0, high = components.size(); low <= high;) {
-            int mid = low + high >>> 1;
-            Component c = components.get(mid);
-            if (offset >= c.endOffset) {
-                low = mid + 1;
-            } else if (offset < c.offset) {
-                high = mid - 1;
-            } else {
-                assert c.length != 0;
-                return c;
-            }
-        }
-
-        throw new Error("should not reach here");
+        Component c = components.get(toComponentIndex0(offset));
+        assert c.length != 0;
+        return c;
     }
 
     @Override
@@ -1175,8 +1199,11 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
             return new ByteBuffer[] { EMPTY_NIO_BUFFER };
         }
 
-        List<ByteBuffer> buffers = new ArrayList<ByteBuffer>(components.size());
-        int i = toComponentIndex(index);
+        int i = toComponentIndex0(index);
+        // Most components map to exactly one ByteBuffer, so size the array by the number of components in the range
+        // and fill it directly.
+        ByteBuffer[] buffers = new ByteBuffer[toComponentIndex0(index + length - 1) - i + 1];
+        int count = 0;
         while (length > 0) {
             Component c = components.get(i);
             ByteBuf s = c.buf;
@@ -1186,10 +1213,18 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
                 case 0:
                     throw new UnsupportedOperationException();
                 case 1:
-                    buffers.add(s.nioBuffer(index - adjustment, localLength));
+                    if (count == buffers.length) {
+                        buffers = Arrays.copyOf(buffers, count + 1);
+                    }
+                    buffers[count ++] = s.nioBuffer(index - adjustment, localLength);
                     break;
                 default:
-                    Collections.addAll(buffers, s.nioBuffers(index - adjustment, localLength));
+                    ByteBuffer[] nioBuffers = s.nioBuffers(index - adjustment, localLength);
+                    if (buffers.length - count < nioBuffers.length) {
+                        buffers = Arrays.copyOf(buffers, count + nioBuffers.length + components.size() - i);
+                    }
+                    System.arraycopy(nioBuffers, 0, buffers, count, nioBuffers.length);
+                    count += nioBuffers.length;
             }
 
             index += localLength;
@@ -1197,7 +1232,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
             i ++;
         }
 
-        return buffers.toArray(new ByteBuffer[buffers.size()]);
+        return count == buffers.length ? buffers : Arrays.copyOf(buffers, count);
     }
 
     /**
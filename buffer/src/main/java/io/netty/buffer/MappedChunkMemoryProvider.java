@@ -0,0 +1,207 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * {@link ChunkMemoryProvider} which backs chunks by shared memory mappings of unlinked files.
+ * <p>
+ * If the directory is a mount point of {@code hugetlbfs} (for example {@code /dev/hugepages}) the chunks are backed
+ * by huge pages, which reduces the number of TLB misses when large buffers are accessed. A {@code tmpfs} mount point
+ * (for example {@code /dev/shm}) may be used to get memory which is zeroed lazily by the kernel instead of eagerly
+ * by {@link ByteBuffer#allocateDirect(int)}.
+ * <p>
+ * If {@code preTouch} is {@code true} every page of a new chunk is touched once when it is created, so no page
+ * faults happen later while the chunk is used.
+ * <p>
+ * If a mapping can not be created, for example because no huge pages are left, the provider falls back to
+ * {@link ByteBuffer#allocateDirect(int)}.
+ * <p>
+ * The directory must be on a memory backed file system ({@code hugetlbfs}, {@code tmpfs} or {@code ramfs}). On a disk
+ * backed file system the kernel would write the dirty pages of the mapped files back to the disk.
+ */
+public final class MappedChunkMemoryProvider implements ChunkMemoryProvider {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(MappedChunkMemoryProvider.class);
+
+    // Touching every 4 KiB works for normal and huge pages.
+    private static final int TOUCH_STEP = 4096;
+
+    private static final String[] MEMORY_FILE_SYSTEMS = { "hugetlbfs", "tmpfs", "ramfs" };
+
+    private final File directory;
+    private final boolean preTouch;
+
+    /**
+     * Create a new instance.
+     *
+     * @param directory     the directory in which the files that are mapped are created. It must be on a memory
+     *                      backed file system.
+     * @param preTouch      {@code true} if all pages of a chunk should be touched when it is created
+     */
+    public MappedChunkMemoryProvider(File directory, boolean preTouch) {
+        if (directory == null) {
+            throw new NullPointerException("directory");
+        }
+        if (!directory.isDirectory()) {
+            throw new IllegalArgumentException("directory: " + directory + " (expected: an existing directory)");
+        }
+        String fileSystem = fileSystemType(directory);
+        if (fileSystem == null) {
+            logger.warn("Could not detect the file system of {}, make sure it is memory backed (for example tmpfs " +
+                    "or hugetlbfs) as otherwise the mapped chunks are written back to the disk.", directory);
+        } else if (!isMemoryFileSystem(fileSystem)) {
+            throw new IllegalArgumentException("directory: " + directory + " is on a " + fileSystem +
+                    " file system (expected: hugetlbfs, tmpfs or ramfs)");
+        }
+        this.directory = directory;
+        this.preTouch = preTouch;
+    }
+
+    private static boolean isMemoryFileSystem(String fileSystem) {
+        for (String type: MEMORY_FILE_SYSTEMS) {
+            if (type.equals(fileSystem)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the type of the file system the directory is on, or {@code null} if it can not be detected.
+     */
+    static String fileSystemType(File directory) {
+        File mounts = new File("/proc/self/mounts");
+        if (!mounts.isFile()) {
+            return null;
+        }
+        try {
+            String path = directory.getCanonicalPath();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(mounts), "US-ASCII"));
+            try {
+                // The last matching mount with the longest mount point is the one that is visible for the path.
+                String type = null;
+                int longestMatch = -1;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split(" ");
+                    if (fields.length < 3) {
+                        continue;
+                    }
+                    String mountPoint = unescapeMountPoint(fields[1]);
+                    if (mountPoint.length() >= longestMatch && isParentOrSame(mountPoint, path)) {
+                        longestMatch = mountPoint.length();
+                        type = fields[2];
+                    }
+                }
+                return type;
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            logger.debug("Failed to read {}", mounts, e);
+            return null;
+        }
+    }
+
+    private static boolean isParentOrSame(String mountPoint, String path) {
+        if (!path.startsWith(mountPoint)) {
+            return false;
+        }
+        return path.length() == mountPoint.length() || mountPoint.endsWith("/")
+                || path.charAt(mountPoint.length()) == '/';
+    }
+
+    // Spaces, tabs, newlines and backslashes are escaped as octal numbers like \040.
+    private static String unescapeMountPoint(String mountPoint) {
+        if (mountPoint.indexOf('\\') < 0) {
+            return mountPoint;
+        }
+        StringBuilder buf = new StringBuilder(mountPoint.length());
+        for (int i = 0; i < mountPoint.length(); i++) {
+            char c = mountPoint.charAt(i);
+            if (c == '\\' && i + 3 < mountPoint.length()) {
+                buf.append((char) Integer.parseInt(mountPoint.substring(i + 1, i + 4), 8));
+                i += 3;
+            } else {
+                buf.append(c);
+            }
+        }
+        return buf.toString();
+    }
+
+    @Override
+    public ByteBuffer allocate(int capacity) {
+        try {
+            return map(capacity);
+        } catch (IOException e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Failed to map a chunk of {} bytes in {}, falling back to direct memory",
+                        capacity, directory, e);
+            }
+            return ByteBuffer.allocateDirect(capacity);
+        }
+    }
+
+    private ByteBuffer map(int capacity) throws IOException {
+        File file = File.createTempFile("netty-chunk-", ".mem", directory);
+        try {
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                raf.setLength(capacity);
+                MappedByteBuffer memory = raf.getChannel().map(MapMode.READ_WRITE, 0, capacity);
+                if (preTouch) {
+                    for (int i = 0; i < capacity; i += TOUCH_STEP) {
+                        memory.put(i, (byte) 0);
+                    }
+                }
+                return memory;
+            } finally {
+                // The mapping stays valid after the channel was closed.
+                raf.close();
+            }
+        } finally {
+            // Unlink the file so the memory is released once the mapping is gone.
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    @Override
+    public void free(ByteBuffer memory) {
+        // Unmaps the memory or frees it if it was allocated via ByteBuffer.allocateDirect(...).
+        PlatformDependent.freeDirectBuffer(memory);
+    }
+
+    @Override
+    public String toString() {
+        return "MappedChunkMemoryProvider(" + directory + ", preTouch: " + preTouch + ')';
+    }
+}
@@ -24,6 +24,7 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 abstract class PoolArena<T> implements PoolArenaMetric {
 
@@ -35,43 +36,71 @@ abstract class PoolArena<T> implements PoolArenaMetric {
 
     static final int numTinySubpagePools = 512 >>> 4;
 
+    // Number of small size classes between two powers of two, like in jemalloc. The small sizes are spaced by
+    // 1/4 of the power of two below them, so the internal fragmentation of a small allocation is at most 20%.
+    private static final int SMALL_CLASSES_PER_DOUBLING_SHIFT = 2;
+
+    // Maximal number of pages a run which is split into small sub-pages may consist of.
+    private static final int MAX_SUBPAGE_RUN_PAGES = 8;
+
     final PooledByteBufAllocator parent;
 
-    private final int maxOrder;
+    final int maxOrder;
     final int pageSize;
     final int pageShifts;
     final int chunkSize;
     final int subpageOverflowMask;
+    final int remoteFreeBatchSize;
     final int numSmallSubpagePools;
+    // The size of the run which is split into sub-pages, for each small size class.
+    private final int[] smallSubpageRunSizes;
     private final PoolSubpage<T>[] tinySubpagePools;
     private final PoolSubpage<T>[] smallSubpagePools;
 
-    private final PoolChunkList<T> q050;
-    private final PoolChunkList<T> q025;
-    private final PoolChunkList<T> q000;
-    private final PoolChunkList<T> qInit;
-    private final PoolChunkList<T> q075;
-    private final PoolChunkList<T> q100;
+    private final PoolArenaStripe<T>[] stripes;
+    private final AtomicInteger stripeIndex = new AtomicInteger();
 
     private final List<PoolChunkListMetric> chunkListMetrics;
 
     // Metrics for allocations and deallocations
     private long allocationsTiny;
     private long allocationsSmall;
-    private long allocationsNormal;
+    // We need to use the LongCounter here as this is guarded by the lock of the stripe and so may be updated
+    // concurrently if more than one stripe is used.
+    private final LongCounter allocationsNormal = PlatformDependent.newLongCounter();
     // We need to use the LongCounter here as this is not guarded via synchronized block.
     private final LongCounter allocationsHuge = PlatformDependent.newLongCounter();
 
-    private long deallocationsTiny;
-    private long deallocationsSmall;
-    private long deallocationsNormal;
+    // We need to use the LongCounter here as these are guarded by the lock of the stripe and so may be updated
+    // concurrently if more than one stripe is used.
+    private final LongCounter deallocationsTiny = PlatformDependent.newLongCounter();
+    private final LongCounter deallocationsSmall = PlatformDependent.newLongCounter();
+    private final LongCounter deallocationsNormal = PlatformDependent.newLongCounter();
     // We need to use the LongCounter here as this is not guarded via synchronized block.
     private final LongCounter deallocationsHuge = PlatformDependent.newLongCounter();
 
+    // Number of bytes which are currently held by pooled chunks and huge allocations of this arena.
+    private final LongCounter activeBytes = PlatformDependent.newLongCounter();
+
+    // Sum of the requested and of the normalized capacities of all allocations, including those served by the
+    // thread-local caches. The difference is the memory that is lost due internal fragmentation.
+    private final LongCounter requestedBytes = PlatformDependent.newLongCounter();
+    private final LongCounter allocatedBytes = PlatformDependent.newLongCounter();
+    private final LongCounter trimmedChunks = PlatformDependent.newLongCounter();
+
     // TODO: Test if adding padding helps under contention
     //private long pad0, pad1, pad2, pad3, pad4, pad5, pad6, pad7;
 
-    protected PoolArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize) {
+    protected PoolArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize,
+                        int numStripes, int remoteFreeBatchSize) {
+        if (numStripes < 1) {
+            throw new IllegalArgumentException("numStripes: " + numStripes + " (expected: > 0)");
+        }
+        if (remoteFreeBatchSize < 0) {
+            throw new IllegalArgumentException(
+                    "remoteFreeBatchSize: " + remoteFreeBatchSize + " (expected: >= 0)");
+        }
+        this.remoteFreeBatchSize = remoteFreeBatchSize;
         this.parent = parent;
         this.pageSize = pageSize;
         this.maxOrder = maxOrder;
@@ -83,36 +112,48 @@ abstract class PoolArena<T> implements PoolArenaMetric {
             tinySubpagePools[i] = newSubpagePoolHead(pageSize);
         }
 
-        numSmallSubpagePools = pageShifts - 9;
+        // All small size classes are smaller than pageSize.
+        numSmallSubpagePools = pageSize > 512 ? smallIdx(pageSize) : 0;
         smallSubpagePools = newSubpagePoolArray(numSmallSubpagePools);
+        smallSubpageRunSizes = new int[numSmallSubpagePools];
         for (int i = 0; i < smallSubpagePools.length; i ++) {
             smallSubpagePools[i] = newSubpagePoolHead(pageSize);
+            smallSubpageRunSizes[i] = subpageRunSize(smallClassSize(i), pageSize, chunkSize);
         }
 
-        q100 = new PoolChunkList<T>(null, 100, Integer.MAX_VALUE);
-        q075 = new PoolChunkList<T>(q100, 75, 100);
-        q050 = new PoolChunkList<T>(q075, 50, 100);
-        q025 = new PoolChunkList<T>(q050, 25, 75);
-        q000 = new PoolChunkList<T>(q025, 1, 50);
-        qInit = new PoolChunkList<T>(q000, Integer.MIN_VALUE, 25);
-
-        q100.prevList(q075);
-        q075.prevList(q050);
-        q050.prevList(q025);
-        q025.prevList(q000);
-        q000.prevList(null);
-        qInit.prevList(qInit);
-
-        List<PoolChunkListMetric> metrics = new ArrayList<PoolChunkListMetric>(6);
-        metrics.add(qInit);
-        metrics.add(q000);
-        metrics.add(q025);
-        metrics.add(q050);
-        metrics.add(q075);
-        metrics.add(q100);
+        stripes = newStripeArray(numStripes);
+        List<PoolChunkListMetric> metrics = new ArrayList<PoolChunkListMetric>(6 * numStripes);
+        for (int i = 0; i < stripes.length; i ++) {
+            PoolArenaStripe<T> stripe = new PoolArenaStripe<T>(this);
+            stripe.addChunkListMetrics(metrics);
+            stripes[i] = stripe;
+        }
         chunkListMetrics = Collections.unmodifiableList(metrics);
     }
 
+    /**
+     * Returns the size of the run that is split into sub-pages of {@code elemSize}. This is the smallest run of up to
+     * {@link #MAX_SUBPAGE_RUN_PAGES} pages that wastes at most 1/8 of its memory, or the run which wastes the least
+     * memory if there is no such run.
+     */
+    private static int subpageRunSize(int elemSize, int pageSize, int chunkSize) {
+        int bestRunSize = pageSize;
+        int bestWaste = pageSize % elemSize;
+        for (int runSize = pageSize; runSize <= chunkSize && runSize <= pageSize * MAX_SUBPAGE_RUN_PAGES;
+             runSize <<= 1) {
+            int waste = runSize % elemSize;
+            if (waste <= runSize >>> 3) {
+                return runSize;
+            }
+            // Compare the fraction of the run which is wasted.
+            if ((long) waste * bestRunSize < (long) bestWaste * runSize) {
+                bestRunSize = runSize;
+                bestWaste = waste;
+            }
+        }
+        return bestRunSize;
+    }
+
     private PoolSubpage<T> newSubpagePoolHead(int pageSize) {
         PoolSubpage<T> head = new PoolSubpage<T>(pageSize);
         head.prev = head;
@@ -125,6 +166,19 @@ abstract class PoolArena<T> implements PoolArenaMetric {
         return new PoolSubpage[size];
     }
 
+    @SuppressWarnings("unchecked")
+    private PoolArenaStripe<T>[] newStripeArray(int size) {
+        return new PoolArenaStripe[size];
+    }
+
+    /**
+     * Returns the index of the stripe which should be preferred by the next {@link PoolThreadCache} that uses this
+     * arena. Stripes are handed out round-robin so threads which share the arena are spread over all stripes.
+     */
+    int nextStripeIndex() {
+        return Math.abs(stripeIndex.getAndIncrement() % stripes.length);
+    }
+
     abstract boolean isDirect();
 
     PooledByteBuf<T> allocate(PoolThreadCache cache, int reqCapacity, int maxCapacity) {
@@ -137,14 +191,43 @@ abstract class PoolArena<T> implements PoolArenaMetric {
         return normCapacity >>> 4;
     }
 
+    // normCapacity must be a small size class, that is 512 or a value returned by normalizeSmallCapacity(int)
     static int smallIdx(int normCapacity) {
-        int tableIdx = 0;
-        int i = normCapacity >>> 10;
-        while (i != 0) {
-            i >>>= 1;
-            tableIdx ++;
+        if (normCapacity == 512) {
+            return 0;
         }
-        return tableIdx;
+        // normCapacity is in (2^log2Group, 2^(log2Group+1)]
+        int log2Group = log2(normCapacity - 1);
+        int log2Delta = log2Group - SMALL_CLASSES_PER_DOUBLING_SHIFT;
+        return ((log2Group - 9) << SMALL_CLASSES_PER_DOUBLING_SHIFT) + (normCapacity - (1 << log2Group) >>> log2Delta);
+    }
+
+    // Returns the size of the small size class with the given index, the inverse of smallIdx(int).
+    static int smallClassSize(int smallIdx) {
+        if (smallIdx == 0) {
+            return 512;
+        }
+        int log2Group = 9 + (smallIdx - 1 >>> SMALL_CLASSES_PER_DOUBLING_SHIFT);
+        int log2Delta = log2Group - SMALL_CLASSES_PER_DOUBLING_SHIFT;
+        int numDeltas = (smallIdx - 1 & (1 << SMALL_CLASSES_PER_DOUBLING_SHIFT) - 1) + 1;
+        return (1 << log2Group) + (numDeltas << log2Delta);
+    }
+
+    // Round up to the next small size class, reqCapacity must be >= 512.
+    private static int normalizeSmallCapacity(int reqCapacity) {
+        int delta = 1 << log2(reqCapacity - 1) - SMALL_CLASSES_PER_DOUBLING_SHIFT;
+        return reqCapacity + delta - 1 & -delta;
+    }
+
+    private static int log2(int val) {
+        return Integer.SIZE - 1 - Integer.numberOfLeadingZeros(val);
+    }
+
+    /**
+     * Returns the size of the run of pages which is split into sub-pages of the given tiny or small size.
+     */
+    int subpageRunSize(int normCapacity) {
+        return isTiny(normCapacity) ? pageSize : smallSubpageRunSizes[smallIdx(normCapacity)];
     }
 
     // capacity < pageSize
@@ -166,6 +249,7 @@ abstract class PoolArena<T> implements PoolArenaMetric {
             if (tiny) { // < 512
                 if (cache.allocateTiny(this, buf, reqCapacity, normCapacity)) {
                     // was able to allocate out of the cache so move on
+                    incrementAllocatedBytes(reqCapacity, normCapacity);
                     return;
                 }
                 tableIdx = tinyIdx(normCapacity);
@@ -173,6 +257,7 @@ abstract class PoolArena<T> implements PoolArenaMetric {
             } else {
                 if (cache.allocateSmall(this, buf, reqCapacity, normCapacity)) {
                     // was able to allocate out of the cache so move on
+                    incrementAllocatedBytes(reqCapacity, normCapacity);
                     return;
                 }
                 tableIdx = smallIdx(normCapacity);
@@ -198,55 +283,85 @@ abstract class PoolArena<T> implements PoolArenaMetric {
                     } else {
                         ++allocationsSmall;
                     }
+                    incrementAllocatedBytes(reqCapacity, normCapacity);
                     return;
                 }
             }
-            allocateNormal(buf, reqCapacity, normCapacity);
+            allocateNormal(cache, buf, reqCapacity, normCapacity);
             return;
         }
         if (normCapacity <= chunkSize) {
             if (cache.allocateNormal(this, buf, reqCapacity, normCapacity)) {
                 // was able to allocate out of the cache so move on
+                incrementAllocatedBytes(reqCapacity, normCapacity);
                 return;
             }
-            allocateNormal(buf, reqCapacity, normCapacity);
+            allocateNormal(cache, buf, reqCapacity, normCapacity);
         } else {
             // Huge allocations are never served via the cache so just call allocateHuge
             allocateHuge(buf, reqCapacity);
         }
     }
 
-    private synchronized void allocateNormal(PooledByteBuf<T> buf, int reqCapacity, int normCapacity) {
-            ++allocationsNormal;
-        if (q050.allocate(buf, reqCapacity, normCapacity) || q025.allocate(buf, reqCapacity, normCapacity) ||
-            q000.allocate(buf, reqCapacity, normCapacity) || qInit.allocate(buf, reqCapacity, normCapacity) ||
-            q075.allocate(buf, reqCapacity, normCapacity) || q100.allocate(buf, reqCapacity, normCapacity)) {
-            return;
-        }
+    private void allocateNormal(PoolThreadCache cache, PooledByteBuf<T> buf, int reqCapacity, int normCapacity) {
+        allocationsNormal.increment();
+        incrementAllocatedBytes(reqCapacity, normCapacity);
 
-        // Add a new chunk.
-        PoolChunk<T> c = newChunk(pageSize, maxOrder, pageShifts, chunkSize);
-        long handle = c.allocate(normCapacity);
-        assert handle > 0;
-        c.initBuf(buf, handle, reqCapacity);
-        qInit.add(c);
+        // Only use the chunks of the stripe which is assigned to the cache, so threads which use different stripes
+        // never contend on the same lock.
+        if (stripes[cache.stripeIndex(this)].allocate(buf, reqCapacity, normCapacity) && parent != null) {
+            // A new chunk was added, check if we exceed the memory limits of the allocator. This needs to be done
+            // without holding the lock of the stripe as trimming will acquire the locks of all stripes.
+            parent.onChunkAllocated(this);
+        }
     }
 
     private void allocateHuge(PooledByteBuf<T> buf, int reqCapacity) {
         allocationsHuge.increment();
-        buf.initUnpooled(newUnpooledChunk(reqCapacity), reqCapacity);
+        incrementAllocatedBytes(reqCapacity, reqCapacity);
+        PoolChunk<T> chunk = newUnpooledChunk(reqCapacity);
+        activeBytes.add(chunk.chunkSize());
+        buf.initUnpooled(chunk, reqCapacity);
+    }
+
+    private void incrementAllocatedBytes(int reqCapacity, int normCapacity) {
+        requestedBytes.add(reqCapacity);
+        allocatedBytes.add(normCapacity);
+    }
+
+    /**
+     * Create a new pooled {@link PoolChunk} and account for its memory.
+     */
+    PoolChunk<T> newPooledChunk() {
+        PoolChunk<T> chunk = newChunk(pageSize, maxOrder, pageShifts, chunkSize);
+        activeBytes.add(chunkSize);
+        return chunk;
+    }
+
+    /**
+     * Destroy the given {@link PoolChunk}, which must not be used anymore, and release the memory it accounted for.
+     */
+    void releaseChunk(PoolChunk<T> chunk) {
+        activeBytes.add(-chunk.chunkSize());
+        destroyChunk(chunk);
     }
 
     void free(PoolChunk<T> chunk, long handle, int normCapacity, PoolThreadCache cache) {
         if (chunk.unpooled) {
-            allocationsHuge.decrement();
-            destroyChunk(chunk);
+            deallocationsHuge.increment();
+            releaseChunk(chunk);
         } else {
             SizeClass sizeClass = sizeClass(normCapacity);
             if (cache != null && cache.add(this, chunk, handle, normCapacity, sizeClass)) {
                 // cached so not free it.
                 return;
             }
+            if (remoteFreeBatchSize > 0 && cache != null && !cache.isOwnedByCurrentThread()) {
+                // Released by another thread than the one that allocated the buffer, queue the free so it can be
+                // applied in a batch and we not need to acquire the lock for each buffer.
+                chunk.stripe.freeRemote(chunk, handle, sizeClass, remoteFreeBatchSize);
+                return;
+            }
 
             freeChunk(chunk, handle, sizeClass);
         }
@@ -260,26 +375,45 @@ abstract class PoolArena<T> implements PoolArenaMetric {
     }
 
     void freeChunk(PoolChunk<T> chunk, long handle, SizeClass sizeClass) {
-        final boolean destroyChunk;
-        synchronized (this) {
-            switch (sizeClass) {
-            case Normal:
-                ++deallocationsNormal;
-                break;
-            case Small:
-                ++deallocationsSmall;
-                break;
-            case Tiny:
-                ++deallocationsTiny;
-                break;
-            default:
-                throw new Error();
-            }
-            destroyChunk = !chunk.parent.free(chunk, handle);
-        }
-        if (destroyChunk) {
+        incrementDeallocations(sizeClass);
+        if (!chunk.stripe.free(chunk, handle)) {
             // destroyChunk not need to be called while holding the synchronized lock.
-            destroyChunk(chunk);
+            releaseChunk(chunk);
+        }
+    }
+
+    /**
+     * Destroy all pooled {@link PoolChunk}s which are completely unused since at least {@code idleNanos}.
+     * Returns the number of destroyed chunks.
+     */
+    int trimChunks(long idleNanos) {
+        List<PoolChunk<T>> unused = new ArrayList<PoolChunk<T>>();
+        long nowNanos = System.nanoTime();
+        for (PoolArenaStripe<T> stripe: stripes) {
+            stripe.removeUnusedChunks(nowNanos, idleNanos, unused);
+        }
+
+        // destroyChunk not need to be called while holding the synchronized lock.
+        for (PoolChunk<T> chunk: unused) {
+            releaseChunk(chunk);
+        }
+        trimmedChunks.add(unused.size());
+        return unused.size();
+    }
+
+    void incrementDeallocations(SizeClass sizeClass) {
+        switch (sizeClass) {
+        case Normal:
+            deallocationsNormal.increment();
+            break;
+        case Small:
+            deallocationsSmall.increment();
+            break;
+        case Tiny:
+            deallocationsTiny.increment();
+            break;
+        default:
+            throw new Error();
         }
     }
 
@@ -290,12 +424,7 @@ abstract class PoolArena<T> implements PoolArenaMetric {
             tableIdx = elemSize >>> 4;
             table = tinySubpagePools;
         } else {
-            tableIdx = 0;
-            elemSize >>>= 10;
-            while (elemSize != 0) {
-                elemSize >>>= 1;
-                tableIdx ++;
-            }
+            tableIdx = smallIdx(elemSize);
             table = smallSubpagePools;
         }
 
@@ -311,6 +440,11 @@ abstract class PoolArena<T> implements PoolArenaMetric {
         }
 
         if (!isTiny(reqCapacity)) { // >= 512
+            if (reqCapacity < pageSize) {
+                // Small size classes, the result may be equal to pageSize
+                return normalizeSmallCapacity(reqCapacity);
+            }
+
             // Doubled
 
             int normalizedCapacity = reqCapacity;
@@ -395,6 +529,11 @@ abstract class PoolArena<T> implements PoolArenaMetric {
         return chunkListMetrics.size();
     }
 
+    @Override
+    public int numStripes() {
+        return stripes.length;
+    }
+
     @Override
     public List<PoolSubpageMetric> tinySubpages() {
         return subPageMetricList(tinySubpagePools);
@@ -412,7 +551,7 @@ abstract class PoolArena<T> implements PoolArenaMetric {
 
     private static List<PoolSubpageMetric> subPageMetricList(PoolSubpage<?>[] pages) {
         List<PoolSubpageMetric> metrics = new ArrayList<PoolSubpageMetric>();
-        for (int i = 1; i < pages.length; i ++) {
+        for (int i = 0; i < pages.length; i ++) {
             PoolSubpage<?> head = pages[i];
             if (head.next == head) {
                 continue;
@@ -431,7 +570,7 @@ abstract class PoolArena<T> implements PoolArenaMetric {
 
     @Override
     public long numAllocations() {
-        return allocationsTiny + allocationsSmall + allocationsNormal + allocationsHuge.value();
+        return allocationsTiny + allocationsSmall + allocationsNormal.value() + allocationsHuge.value();
     }
 
     @Override
@@ -446,27 +585,28 @@ abstract class PoolArena<T> implements PoolArenaMetric {
 
     @Override
     public long numNormalAllocations() {
-        return allocationsNormal;
+        return allocationsNormal.value();
     }
 
     @Override
     public long numDeallocations() {
-        return deallocationsTiny + deallocationsSmall + allocationsNormal + deallocationsHuge.value();
+        return deallocationsTiny.value() + deallocationsSmall.value() + deallocationsNormal.value() +
+               deallocationsHuge.value();
     }
 
     @Override
     public long numTinyDeallocations() {
-        return deallocationsTiny;
+        return deallocationsTiny.value();
     }
 
     @Override
     public long numSmallDeallocations() {
-        return deallocationsSmall;
+        return deallocationsSmall.value();
     }
 
     @Override
     public long numNormalDeallocations() {
-        return deallocationsNormal;
+        return deallocationsNormal.value();
     }
 
     @Override
@@ -509,6 +649,27 @@ abstract class PoolArena<T> implements PoolArenaMetric {
         return val >= 0 ? val : 0;
     }
 
+    @Override
+    public long numActiveBytes() {
+        long val = activeBytes.value();
+        return val >= 0 ? val : 0;
+    }
+
+    @Override
+    public long numTrimmedChunks() {
+        return trimmedChunks.value();
+    }
+
+    @Override
+    public long numRequestedBytes() {
+        return requestedBytes.value();
+    }
+
+    @Override
+    public long numAllocatedBytes() {
+        return allocatedBytes.value();
+    }
+
     protected abstract PoolChunk<T> newChunk(int pageSize, int maxOrder, int pageShifts, int chunkSize);
     protected abstract PoolChunk<T> newUnpooledChunk(int capacity);
     protected abstract PooledByteBuf<T> newByteBuf(int maxCapacity);
@@ -516,33 +677,19 @@ abstract class PoolArena<T> implements PoolArenaMetric {
     protected abstract void destroyChunk(PoolChunk<T> chunk);
 
     @Override
-    public synchronized String toString() {
-        StringBuilder buf = new StringBuilder()
-            .append("Chunk(s) at 0~25%:")
-            .append(StringUtil.NEWLINE)
-            .append(qInit)
-            .append(StringUtil.NEWLINE)
-            .append("Chunk(s) at 0~50%:")
-            .append(StringUtil.NEWLINE)
-            .append(q000)
-            .append(StringUtil.NEWLINE)
-            .append("Chunk(s) at 25~75%:")
-            .append(StringUtil.NEWLINE)
-            .append(q025)
-            .append(StringUtil.NEWLINE)
-            .append("Chunk(s) at 50~100%:")
-            .append(StringUtil.NEWLINE)
-            .append(q050)
-            .append(StringUtil.NEWLINE)
-            .append("Chunk(s) at 75~100%:")
-            .append(StringUtil.NEWLINE)
-            .append(q075)
-            .append(StringUtil.NEWLINE)
-            .append("Chunk(s) at 100%:")
-            .append(StringUtil.NEWLINE)
-            .append(q100)
-            .append(StringUtil.NEWLINE)
-            .append("tiny subpages:");
+    public String toString() {
+        StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < stripes.length; i ++) {
+            if (stripes.length > 1) {
+                buf.append("Stripe ")
+                   .append(i)
+                   .append(':')
+                   .append(StringUtil.NEWLINE);
+            }
+            buf.append(stripes[i])
+               .append(StringUtil.NEWLINE);
+        }
+        buf.append("tiny subpages:");
         for (int i = 1; i < tinySubpagePools.length; i ++) {
             PoolSubpage<T> head = tinySubpagePools[i];
             if (head.next == head) {
@@ -563,7 +710,7 @@ abstract class PoolArena<T> implements PoolArenaMetric {
         }
         buf.append(StringUtil.NEWLINE)
            .append("small subpages:");
-        for (int i = 1; i < smallSubpagePools.length; i ++) {
+        for (int i = 0; i < smallSubpagePools.length; i ++) {
             PoolSubpage<T> head = smallSubpagePools[i];
             if (head.next == head) {
                 continue;
@@ -588,8 +735,9 @@ abstract class PoolArena<T> implements PoolArenaMetric {
 
     static final class HeapArena extends PoolArena<byte[]> {
 
-        HeapArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize) {
-            super(parent, pageSize, maxOrder, pageShifts, chunkSize);
+        HeapArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize,
+                  int numStripes, int remoteFreeBatchSize) {
+            super(parent, pageSize, maxOrder, pageShifts, chunkSize, numStripes, remoteFreeBatchSize);
         }
 
         @Override
@@ -631,8 +779,15 @@ abstract class PoolArena<T> implements PoolArenaMetric {
 
         private static final boolean HAS_UNSAFE = PlatformDependent.hasUnsafe();
 
-        DirectArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize) {
-            super(parent, pageSize, maxOrder, pageShifts, chunkSize);
+        private final ChunkMemoryProvider memoryProvider;
+
+        DirectArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize,
+                    int numStripes, int remoteFreeBatchSize, ChunkMemoryProvider memoryProvider) {
+            super(parent, pageSize, maxOrder, pageShifts, chunkSize, numStripes, remoteFreeBatchSize);
+            if (memoryProvider == null) {
+                throw new NullPointerException("memoryProvider");
+            }
+            this.memoryProvider = memoryProvider;
         }
 
         @Override
@@ -643,7 +798,7 @@ abstract class PoolArena<T> implements PoolArenaMetric {
         @Override
         protected PoolChunk<ByteBuffer> newChunk(int pageSize, int maxOrder, int pageShifts, int chunkSize) {
             return new PoolChunk<ByteBuffer>(
-                    this, ByteBuffer.allocateDirect(chunkSize), pageSize, maxOrder, pageShifts, chunkSize);
+                    this, memoryProvider.allocate(chunkSize), pageSize, maxOrder, pageShifts, chunkSize);
         }
 
         @Override
@@ -653,7 +808,11 @@ abstract class PoolArena<T> implements PoolArenaMetric {
 
         @Override
         protected void destroyChunk(PoolChunk<ByteBuffer> chunk) {
-            PlatformDependent.freeDirectBuffer(chunk.memory);
+            if (chunk.unpooled) {
+                PlatformDependent.freeDirectBuffer(chunk.memory);
+            } else {
+                memoryProvider.free(chunk.memory);
+            }
         }
 
         @Override
@@ -38,6 +38,11 @@ public interface PoolArenaMetric {
      */
     int numChunkLists();
 
+    /**
+     * Returns the number of stripes the chunks of the arena are spread over. Each stripe is guarded by its own lock.
+     */
+    int numStripes();
+
     /**
      * Returns an unmodifiable {@link List} which holds {@link PoolSubpageMetric}s for tiny sub-pages.
      */
@@ -127,4 +132,28 @@ public interface PoolArenaMetric {
      * Return the number of currently active huge allocations.
      */
     long numActiveHugeAllocations();
+
+    /**
+     * Return the number of bytes that are currently held by the arena. This includes the memory of all pooled
+     * chunks, whether it is in use or not, and of all huge allocations.
+     */
+    long numActiveBytes();
+
+    /**
+     * Return the number of completely unused chunks that were released by trimming the arena.
+     */
+    long numTrimmedChunks();
+
+    /**
+     * Return the sum of the capacities that were requested by the allocations done via the arena. Unlike the
+     * allocation counters this includes the allocations that were served by a thread-local cache.
+     */
+    long numRequestedBytes();
+
+    /**
+     * Return the sum of the normalized capacities of the allocations done via the arena, including the ones that were
+     * served by a thread-local cache, which is the memory that was reserved for them. The difference to
+     * {@link #numRequestedBytes()} is the memory which is lost due internal fragmentation.
+     */
+    long numAllocatedBytes();
 }
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.buffer.PoolArena.SizeClass;
+import io.netty.util.Recycler;
+import io.netty.util.Recycler.Handle;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.StringUtil;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A set of {@link PoolChunkList}s which is guarded by its own monitor. Every pooled {@link PoolChunk} of a
+ * {@link PoolArena} belongs to exactly one stripe for its whole lifetime, so allocations and deallocations of
+ * normal sized runs which hit different stripes never contend on the same lock.
+ */
+final class PoolArenaStripe<T> {
+
+    private final PoolArena<T> arena;
+
+    private final PoolChunkList<T> q050;
+    private final PoolChunkList<T> q025;
+    private final PoolChunkList<T> q000;
+    private final PoolChunkList<T> qInit;
+    private final PoolChunkList<T> q075;
+    private final PoolChunkList<T> q100;
+
+    // Frees which were done by threads other than the one that allocated the buffer and which are waiting to be
+    // applied in a batch while holding the lock of this stripe.
+    private final Queue<RemoteFree<T>> remoteFrees = PlatformDependent.newMpscQueue();
+    private final AtomicInteger numRemoteFrees = new AtomicInteger();
+
+    PoolArenaStripe(PoolArena<T> arena) {
+        this.arena = arena;
+
+        q100 = new PoolChunkList<T>(null, 100, Integer.MAX_VALUE);
+        q075 = new PoolChunkList<T>(q100, 75, 100);
+        q050 = new PoolChunkList<T>(q075, 50, 100);
+        q025 = new PoolChunkList<T>(q050, 25, 75);
+        q000 = new PoolChunkList<T>(q025, 1, 50);
+        qInit = new PoolChunkList<T>(q000, Integer.MIN_VALUE, 25);
+
+        q100.prevList(q075);
+        q075.prevList(q050);
+        q050.prevList(q025);
+        q025.prevList(q000);
+        q000.prevList(null);
+        qInit.prevList(qInit);
+    }
+
+    /**
+     * Allocate a run out of the chunks of this stripe, adding a new {@link PoolChunk} if none of the existing chunks
+     * can satisfy the request. Returns {@code true} if a new {@link PoolChunk} was added.
+     */
+    synchronized boolean allocate(PooledByteBuf<T> buf, int reqCapacity, int normCapacity) {
+        // We hold the lock anyway so apply pending remote frees first, this also allows to reuse the memory.
+        drainRemoteFrees();
+
+        if (q050.allocate(buf, reqCapacity, normCapacity) || q025.allocate(buf, reqCapacity, normCapacity) ||
+            q000.allocate(buf, reqCapacity, normCapacity) || qInit.allocate(buf, reqCapacity, normCapacity) ||
+            q075.allocate(buf, reqCapacity, normCapacity) || q100.allocate(buf, reqCapacity, normCapacity)) {
+            return false;
+        }
+
+        // Add a new chunk.
+        PoolChunk<T> c = arena.newPooledChunk();
+        c.stripe = this;
+        long handle = c.allocate(normCapacity);
+        assert handle > 0;
+        c.initBuf(buf, handle, reqCapacity);
+        qInit.add(c);
+        return true;
+    }
+
+    /**
+     * Remove all {@link PoolChunk}s which are completely unused since at least {@code idleNanos} from this stripe
+     * and add them to {@code unused}. The caller is responsible for destroying them.
+     */
+    synchronized void removeUnusedChunks(long nowNanos, long idleNanos, List<PoolChunk<T>> unused) {
+        // Apply pending frees first as these may make chunks unused.
+        drainRemoteFrees();
+
+        // Chunks which become completely unused are destroyed directly, except if they never left qInit.
+        qInit.removeUnusedChunks(nowNanos, idleNanos, unused);
+    }
+
+    /**
+     * Free the run or subpage identified by {@code handle}. Returns {@code false} if the {@link PoolChunk} is now
+     * completely unused and so was removed from this stripe and should be destroyed by the caller.
+     */
+    synchronized boolean free(PoolChunk<T> chunk, long handle) {
+        assert chunk.stripe == this;
+        return chunk.parent.free(chunk, handle);
+    }
+
+    /**
+     * Queue the free of the run or subpage identified by {@code handle} without acquiring the lock of this stripe.
+     * The free is applied later, either by the next allocation that uses this stripe or by the thread which pushes
+     * the number of pending frees to {@code batchSize}.
+     */
+    void freeRemote(PoolChunk<T> chunk, long handle, SizeClass sizeClass, int batchSize) {
+        assert chunk.stripe == this;
+        remoteFrees.offer(RemoteFree.newInstance(chunk, handle, sizeClass));
+        if (numRemoteFrees.incrementAndGet() >= batchSize) {
+            synchronized (this) {
+                drainRemoteFrees();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of frees that were queued via {@link #freeRemote(PoolChunk, long, SizeClass, int)} and not
+     * applied yet.
+     */
+    int numPendingRemoteFrees() {
+        return numRemoteFrees.get();
+    }
+
+    private void drainRemoteFrees() {
+        assert Thread.holdsLock(this);
+        if (numRemoteFrees.get() == 0) {
+            return;
+        }
+
+        int numDrained = 0;
+        for (;;) {
+            RemoteFree<T> remoteFree = remoteFrees.poll();
+            if (remoteFree == null) {
+                break;
+            }
+            PoolChunk<T> chunk = remoteFree.chunk;
+            long handle = remoteFree.handle;
+            SizeClass sizeClass = remoteFree.sizeClass;
+            // recycle now so PoolChunk can be GC'ed.
+            remoteFree.recycle();
+
+            arena.incrementDeallocations(sizeClass);
+            if (!chunk.parent.free(chunk, handle)) {
+                // This only happens if the chunk is completely unused which is rare, so it is fine to destroy it
+                // while holding the lock.
+                arena.releaseChunk(chunk);
+            }
+            numDrained ++;
+        }
+        if (numDrained != 0) {
+            numRemoteFrees.addAndGet(-numDrained);
+        }
+    }
+
+    void addChunkListMetrics(List<PoolChunkListMetric> metrics) {
+        metrics.add(qInit);
+        metrics.add(q000);
+        metrics.add(q025);
+        metrics.add(q050);
+        metrics.add(q075);
+        metrics.add(q100);
+    }
+
+    static final class RemoteFree<T> {
+        private final Handle<RemoteFree<T>> recyclerHandle;
+        PoolChunk<T> chunk;
+        long handle = -1;
+        SizeClass sizeClass;
+
+        RemoteFree(Handle<RemoteFree<T>> recyclerHandle) {
+            this.recyclerHandle = recyclerHandle;
+        }
+
+        void recycle() {
+            chunk = null;
+            handle = -1;
+            sizeClass = null;
+            recyclerHandle.recycle(this);
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> RemoteFree<T> newInstance(PoolChunk<T> chunk, long handle, SizeClass sizeClass) {
+            RemoteFree<T> remoteFree = RECYCLER.get();
+            remoteFree.chunk = chunk;
+            remoteFree.handle = handle;
+            remoteFree.sizeClass = sizeClass;
+            return remoteFree;
+        }
+
+        @SuppressWarnings("rawtypes")
+        private static final Recycler<RemoteFree> RECYCLER = new Recycler<RemoteFree>() {
+            @SuppressWarnings("unchecked")
+            @Override
+            protected RemoteFree newObject(Handle<RemoteFree> handle) {
+                return new RemoteFree(handle);
+            }
+        };
+    }
+
+    @Override
+    public synchronized String toString() {
+        return new StringBuilder()
+            .append("Chunk(s) at 0~25%:")
+            .append(StringUtil.NEWLINE)
+            .append(qInit)
+            .append(StringUtil.NEWLINE)
+            .append("Chunk(s) at 0~50%:")
+            .append(StringUtil.NEWLINE)
+            .append(q000)
+            .append(StringUtil.NEWLINE)
+            .append("Chunk(s) at 25~75%:")
+            .append(StringUtil.NEWLINE)
+            .append(q025)
+            .append(StringUtil.NEWLINE)
+            .append("Chunk(s) at 50~100%:")
+            .append(StringUtil.NEWLINE)
+            .append(q050)
+            .append(StringUtil.NEWLINE)
+            .append("Chunk(s) at 75~100%:")
+            .append(StringUtil.NEWLINE)
+            .append(q075)
+            .append(StringUtil.NEWLINE)
+            .append("Chunk(s) at 100%:")
+            .append(StringUtil.NEWLINE)
+            .append(q100)
+            .toString();
+    }
+}
@@ -87,7 +87,8 @@ package io.netty.buffer;
  *
  * Algorithm: [allocateSubpage(size)]
  * ----------
- * 1) use allocateNode(maxOrder) to find an empty (i.e., unused) leaf (i.e., page)
+ * 1) use allocateNode(d) to find an empty (i.e., unused) run of pages which is split into sub-pages, this is a leaf
+ *    (i.e., page) unless the size class does not fit into a single page without wasting too much memory
  * 2) use this handle to construct the PoolSubpage object or if it already exists just call init(normCapacity)
  *    note that this PoolSubpage object is added to subpagesPool in the PoolArena when we init() it
  *
@@ -121,7 +122,10 @@ final class PoolChunk<T> implements PoolChunkMetric {
     private final byte unusable;
 
     private int freeBytes;
+    // The value of System.nanoTime() when this chunk became completely unused the last time.
+    private long unusedSinceNanos;
 
+    PoolArenaStripe<T> stripe;
     PoolChunkList<T> parent;
     PoolChunk<T> prev;
     PoolChunk<T> next;
@@ -141,6 +145,7 @@ final class PoolChunk<T> implements PoolChunkMetric {
         log2ChunkSize = log2(chunkSize);
         subpageOverflowMask = ~(pageSize - 1);
         freeBytes = chunkSize;
+        unusedSinceNanos = System.nanoTime();
 
         assert maxOrder < 30 : "maxOrder should be < 30, but is: " + maxOrder;
         maxSubpageAllocs = 1 << maxOrder;
@@ -306,21 +311,23 @@ final class PoolChunk<T> implements PoolChunkMetric {
      * @return index in memoryMap
      */
     private long allocateSubpage(int normCapacity) {
-        int d = maxOrder; // subpages are only be allocated from pages i.e., leaves
+        // subpages are allocated from pages i.e., leaves, or from small runs of pages
+        final int runSize = arena.subpageRunSize(normCapacity);
+        int d = maxOrder - (log2(runSize) - pageShifts);
         int id = allocateNode(d);
         if (id < 0) {
             return id;
         }
 
         final PoolSubpage<T>[] subpages = this.subpages;
-        final int pageSize = this.pageSize;
 
-        freeBytes -= pageSize;
+        freeBytes -= runSize;
 
         int subpageIdx = subpageIdx(id);
         PoolSubpage<T> subpage = subpages[subpageIdx];
-        if (subpage == null) {
-            subpage = new PoolSubpage<T>(this, id, runOffset(id), pageSize, normCapacity);
+        if (subpage == null || subpage.memoryMapIdx != id) {
+            // The first page of the run was used by a run of another size before.
+            subpage = new PoolSubpage<T>(this, id, runOffset(id), runSize, normCapacity);
             subpages[subpageIdx] = subpage;
         } else {
             subpage.init(normCapacity);
@@ -350,6 +357,24 @@ final class PoolChunk<T> implements PoolChunkMetric {
         freeBytes += runLength(memoryMapIdx);
         setValue(memoryMapIdx, depth(memoryMapIdx));
         updateParentsFree(memoryMapIdx);
+        if (freeBytes == chunkSize) {
+            unusedSinceNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Returns {@code true} if no memory of this chunk is in use.
+     */
+    boolean isUnused() {
+        return freeBytes == chunkSize;
+    }
+
+    /**
+     * Returns the value of {@link System#nanoTime()} when this chunk became completely unused the last time.
+     * Only meaningful if {@link #isUnused()} returns {@code true}.
+     */
+    long unusedSinceNanos() {
+        return unusedSinceNanos;
     }
 
     void initBuf(PooledByteBuf<T> buf, long handle, int reqCapacity) {
@@ -413,7 +438,8 @@ final class PoolChunk<T> implements PoolChunkMetric {
     }
 
     private int subpageIdx(int memoryMapIdx) {
-        return memoryMapIdx ^ maxSubpageAllocs; // remove highest set bit, to get offset
+        // use the first page of the run, and remove highest set bit, to get offset
+        return memoryMapIdx << maxOrder - depth(memoryMapIdx) ^ maxSubpageAllocs;
     }
 
     @Override
@@ -86,6 +86,21 @@ final class PoolChunkList<T> implements PoolChunkListMetric {
         return true;
     }
 
+    /**
+     * Remove all {@link PoolChunk}s of this list which are completely unused since at least {@code idleNanos} and
+     * add them to {@code unused}.
+     */
+    void removeUnusedChunks(long nowNanos, long idleNanos, List<PoolChunk<T>> unused) {
+        for (PoolChunk<T> cur = head; cur != null;) {
+            PoolChunk<T> next = cur.next;
+            if (cur.isUnused() && nowNanos - cur.unusedSinceNanos() >= idleNanos) {
+                remove(cur);
+                unused.add(cur);
+            }
+            cur = next;
+        }
+    }
+
     void add(PoolChunk<T> chunk) {
         if (chunk.usage() >= maxUsage) {
             nextList.add(chunk);
@@ -19,7 +19,7 @@ package io.netty.buffer;
 final class PoolSubpage<T> implements PoolSubpageMetric {
 
     final PoolChunk<T> chunk;
-    private final int memoryMapIdx;
+    final int memoryMapIdx;
     private final int runOffset;
     private final int pageSize;
     private final long[] bitmap;
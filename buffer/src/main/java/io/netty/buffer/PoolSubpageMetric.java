@@ -36,7 +36,8 @@ public interface PoolSubpageMetric {
     int elementSize();
 
     /**
-     * Return the size (in bytes) of this page.
+     * Return the size (in bytes) of this page. This is the size of the whole run of pages if the elements are too big
+     * to be packed into a single page without wasting too much memory.
      */
     int pageSize();
 }
@@ -27,6 +27,7 @@ import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.nio.ByteBuffer;
 import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Acts a Thread cache for allocations. This implementation is moduled after
@@ -52,7 +53,13 @@ final class PoolThreadCache {
     // Used for bitshifting when calculate the index of normal caches later
     private final int numShiftsNormalDirect;
     private final int numShiftsNormalHeap;
+    // The stripes of the arenas which are preferred for normal allocations done by this cache
+    private final int heapStripeIndex;
+    private final int directStripeIndex;
     private final int freeSweepAllocationThreshold;
+    // Incremented by the allocator whenever all caches should be trimmed. Checked on cache misses and sweeps only.
+    private final AtomicInteger trimRequests;
+    private int lastTrimRequest;
 
     private int allocations;
 
@@ -69,7 +76,7 @@ final class PoolThreadCache {
 
     PoolThreadCache(PoolArena<byte[]> heapArena, PoolArena<ByteBuffer> directArena,
                     int tinyCacheSize, int smallCacheSize, int normalCacheSize,
-                    int maxCachedBufferCapacity, int freeSweepAllocationThreshold) {
+                    int maxCachedBufferCapacity, int freeSweepAllocationThreshold, AtomicInteger trimRequests) {
         if (maxCachedBufferCapacity < 0) {
             throw new IllegalArgumentException("maxCachedBufferCapacity: "
                     + maxCachedBufferCapacity + " (expected: >= 0)");
@@ -79,9 +86,12 @@ final class PoolThreadCache {
                     + maxCachedBufferCapacity + " (expected: > 0)");
         }
         this.freeSweepAllocationThreshold = freeSweepAllocationThreshold;
+        this.trimRequests = trimRequests;
+        lastTrimRequest = trimRequests.get();
         this.heapArena = heapArena;
         this.directArena = directArena;
         if (directArena != null) {
+            directStripeIndex = directArena.nextStripeIndex();
             tinySubPageDirectCaches = createSubPageCaches(
                     tinyCacheSize, PoolArena.numTinySubpagePools, SizeClass.Tiny);
             smallSubPageDirectCaches = createSubPageCaches(
@@ -96,8 +106,11 @@ final class PoolThreadCache {
             smallSubPageDirectCaches = null;
             normalDirectCaches = null;
             numShiftsNormalDirect = -1;
+            directStripeIndex = -1;
         }
         if (heapArena != null) {
+            heapStripeIndex = heapArena.nextStripeIndex();
+
             // Create the caches for the heap allocations
             tinySubPageHeapCaches = createSubPageCaches(
                     tinyCacheSize, PoolArena.numTinySubpagePools, SizeClass.Tiny);
@@ -113,6 +126,7 @@ final class PoolThreadCache {
             smallSubPageHeapCaches = null;
             normalHeapCaches = null;
             numShiftsNormalHeap = -1;
+            heapStripeIndex = -1;
         }
 
         // The thread-local cache will keep a list of pooled buffers which must be returned to
@@ -161,6 +175,21 @@ final class PoolThreadCache {
         return res;
     }
 
+    /**
+     * Returns {@code true} if the calling thread is the one this cache belongs to.
+     */
+    boolean isOwnedByCurrentThread() {
+        return thread == Thread.currentThread();
+    }
+
+    /**
+     * Returns the index of the stripe of the given {@link PoolArena} which should be preferred when allocating
+     * runs on behalf of this cache.
+     */
+    int stripeIndex(PoolArena<?> area) {
+        return area.isDirect() ? directStripeIndex : heapStripeIndex;
+    }
+
     /**
      * Try to allocate a tiny buffer out of the cache. Returns {@code true} if successful {@code false} otherwise
      */
@@ -191,7 +220,17 @@ final class PoolThreadCache {
         boolean allocated = cache.allocate(buf, reqCapacity);
         if (++ allocations >= freeSweepAllocationThreshold) {
             allocations = 0;
+            lastTrimRequest = trimRequests.get();
             trim();
+        } else if (!allocated) {
+            // Only check for trim requests of the allocator (for example because of memory pressure) if the cache
+            // could not serve the allocation, so the fast path does not need to read the shared counter.
+            int trimRequest = trimRequests.get();
+            if (trimRequest != lastTrimRequest) {
+                lastTrimRequest = trimRequest;
+                allocations = 0;
+                trim();
+            }
         }
         return allocated;
     }
@@ -383,6 +422,10 @@ final class PoolThreadCache {
 
         /**
          * Add to cache if not already full.
+         *
+         * This may be called by a thread other than the one this cache belongs to, if the buffer is released there.
+         * Such frees are not queued via {@link PoolArenaStripe#freeRemote(PoolChunk, long, SizeClass, int)}, as the
+         * {@link Entry} is just offered to the cache queue.
          */
         @SuppressWarnings("unchecked")
         public final boolean add(PoolChunk<T> chunk, long handle) {
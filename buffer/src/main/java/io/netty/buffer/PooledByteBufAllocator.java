@@ -16,17 +16,25 @@
 
 package io.netty.buffer;
 
+import io.netty.util.concurrent.DefaultThreadFactory;
 import io.netty.util.concurrent.FastThreadLocal;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
+import java.io.File;
+import java.lang.ref.WeakReference;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class PooledByteBufAllocator extends AbstractByteBufAllocator {
 
@@ -41,6 +49,12 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
     private static final int DEFAULT_NORMAL_CACHE_SIZE;
     private static final int DEFAULT_MAX_CACHED_BUFFER_CAPACITY;
     private static final int DEFAULT_CACHE_TRIM_INTERVAL;
+    private static final int DEFAULT_ARENA_STRIPES;
+    private static final int DEFAULT_REMOTE_FREE_BATCH_SIZE;
+    private static final long DEFAULT_TRIM_INTERVAL_MILLIS;
+    private static final long DEFAULT_DIRECT_MEMORY_TRIM_THRESHOLD;
+    private static final long MIN_PRESSURE_TRIM_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final ChunkMemoryProvider DEFAULT_CHUNK_MEMORY_PROVIDER;
 
     private static final int MIN_PAGE_SIZE = 4096;
     private static final int MAX_CHUNK_SIZE = (int) (((long) Integer.MAX_VALUE + 1) / 2);
@@ -103,6 +117,42 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
         DEFAULT_CACHE_TRIM_INTERVAL = SystemPropertyUtil.getInt(
                 "io.netty.allocator.cacheTrimInterval", 8192);
 
+        // the number of independently locked stripes each arena spreads its chunks over. Using more than one stripe
+        // reduces lock contention if many threads share the same arena.
+        DEFAULT_ARENA_STRIPES = Math.max(1, SystemPropertyUtil.getInt("io.netty.allocator.arenaStripes", 1));
+
+        // the number of frees done by threads other than the allocating one which are queued before they are applied
+        // to the arena in one batch. 0 disables the queueing.
+        DEFAULT_REMOTE_FREE_BATCH_SIZE = Math.max(0,
+                SystemPropertyUtil.getInt("io.netty.allocator.remoteFreeBatchSize", 0));
+
+        // the interval in which the pool is trimmed in the background. Chunks which were completely unused for at
+        // least this interval are released and the thread-local caches are trimmed the next time they are used.
+        // 0 disables background trimming.
+        DEFAULT_TRIM_INTERVAL_MILLIS = Math.max(0,
+                SystemPropertyUtil.getLong("io.netty.allocator.trimIntervalMillis", 0));
+
+        // the number of bytes of pooled direct memory, summed up over all direct arenas, above which the pool is
+        // trimmed when a new chunk needs to be allocated, at most once per second. 0 disables trimming because of
+        // memory pressure.
+        DEFAULT_DIRECT_MEMORY_TRIM_THRESHOLD = Math.max(0,
+                SystemPropertyUtil.getLong("io.netty.allocator.directMemoryTrimThreshold", 0));
+
+        // the directory in which the files are created that back the chunks of the direct arenas via memory mappings,
+        // for example a hugetlbfs mount point. If not set the chunks are allocated via ByteBuffer.allocateDirect(...).
+        String mappedChunkDirectory = SystemPropertyUtil.get("io.netty.allocator.mappedChunkDirectory");
+        ChunkMemoryProvider chunkMemoryProvider = ChunkMemoryProvider.DEFAULT;
+        Throwable chunkMemoryProviderFallbackCause = null;
+        if (mappedChunkDirectory != null) {
+            try {
+                chunkMemoryProvider = new MappedChunkMemoryProvider(new File(mappedChunkDirectory),
+                        SystemPropertyUtil.getBoolean("io.netty.allocator.mappedChunkPreTouch", true));
+            } catch (Throwable t) {
+                chunkMemoryProviderFallbackCause = t;
+            }
+        }
+        DEFAULT_CHUNK_MEMORY_PROVIDER = chunkMemoryProvider;
+
         if (logger.isDebugEnabled()) {
             logger.debug("-Dio.netty.allocator.numHeapArenas: {}", DEFAULT_NUM_HEAP_ARENA);
             logger.debug("-Dio.netty.allocator.numDirectArenas: {}", DEFAULT_NUM_DIRECT_ARENA);
@@ -122,6 +172,16 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
             logger.debug("-Dio.netty.allocator.normalCacheSize: {}", DEFAULT_NORMAL_CACHE_SIZE);
             logger.debug("-Dio.netty.allocator.maxCachedBufferCapacity: {}", DEFAULT_MAX_CACHED_BUFFER_CAPACITY);
             logger.debug("-Dio.netty.allocator.cacheTrimInterval: {}", DEFAULT_CACHE_TRIM_INTERVAL);
+            logger.debug("-Dio.netty.allocator.arenaStripes: {}", DEFAULT_ARENA_STRIPES);
+            logger.debug("-Dio.netty.allocator.remoteFreeBatchSize: {}", DEFAULT_REMOTE_FREE_BATCH_SIZE);
+            logger.debug("-Dio.netty.allocator.trimIntervalMillis: {}", DEFAULT_TRIM_INTERVAL_MILLIS);
+            logger.debug("-Dio.netty.allocator.directMemoryTrimThreshold: {}", DEFAULT_DIRECT_MEMORY_TRIM_THRESHOLD);
+            if (chunkMemoryProviderFallbackCause == null) {
+                logger.debug("-Dio.netty.allocator.mappedChunkDirectory: {}", mappedChunkDirectory);
+            } else {
+                logger.debug("-Dio.netty.allocator.mappedChunkDirectory: {}", mappedChunkDirectory,
+                        chunkMemoryProviderFallbackCause);
+            }
         }
     }
 
@@ -133,6 +193,13 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
     private final int tinyCacheSize;
     private final int smallCacheSize;
     private final int normalCacheSize;
+    private final int arenaStripes;
+    private final int remoteFreeBatchSize;
+    private final long trimIntervalMillis;
+    private final long directMemoryTrimThreshold;
+    private final AtomicInteger trimRequests = new AtomicInteger();
+    private final AtomicLong lastPressureTrimNanos =
+            new AtomicLong(System.nanoTime() - MIN_PRESSURE_TRIM_INTERVAL_NANOS);
     private final List<PoolArenaMetric> heapArenaMetrics;
     private final List<PoolArenaMetric> directArenaMetrics;
     private final PoolThreadLocalCache threadCache;
@@ -156,11 +223,33 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
 
     public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
                                   int tinyCacheSize, int smallCacheSize, int normalCacheSize) {
+        this(preferDirect, nHeapArena, nDirectArena, pageSize, maxOrder,
+                tinyCacheSize, smallCacheSize, normalCacheSize, new Options());
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param options   the {@link Options} which hold the settings that are not part of the other parameters. The
+     *                  settings are copied, so changing the {@link Options} later has no effect on this allocator.
+     */
+    public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
+                                  int tinyCacheSize, int smallCacheSize, int normalCacheSize, Options options) {
         super(preferDirect);
+        if (options == null) {
+            throw new NullPointerException("options");
+        }
+        final int arenaStripes = options.arenaStripes;
+        final int remoteFreeBatchSize = options.remoteFreeBatchSize;
+        final ChunkMemoryProvider chunkMemoryProvider = options.chunkMemoryProvider;
+        trimIntervalMillis = options.trimIntervalMillis;
+        directMemoryTrimThreshold = options.directMemoryTrimThreshold;
         threadCache = new PoolThreadLocalCache();
         this.tinyCacheSize = tinyCacheSize;
         this.smallCacheSize = smallCacheSize;
         this.normalCacheSize = normalCacheSize;
+        this.arenaStripes = arenaStripes;
+        this.remoteFreeBatchSize = remoteFreeBatchSize;
         final int chunkSize = validateAndCalculateChunkSize(pageSize, maxOrder);
 
         if (nHeapArena < 0) {
@@ -176,7 +265,8 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
             heapArenas = newArenaArray(nHeapArena);
             List<PoolArenaMetric> metrics = new ArrayList<PoolArenaMetric>(heapArenas.length);
             for (int i = 0; i < heapArenas.length; i ++) {
-                PoolArena.HeapArena arena = new PoolArena.HeapArena(this, pageSize, maxOrder, pageShifts, chunkSize);
+                PoolArena.HeapArena arena = new PoolArena.HeapArena(
+                        this, pageSize, maxOrder, pageShifts, chunkSize, arenaStripes, remoteFreeBatchSize);
                 heapArenas[i] = arena;
                 metrics.add(arena);
             }
@@ -190,8 +280,8 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
             directArenas = newArenaArray(nDirectArena);
             List<PoolArenaMetric> metrics = new ArrayList<PoolArenaMetric>(directArenas.length);
             for (int i = 0; i < directArenas.length; i ++) {
-                PoolArena.DirectArena arena = new PoolArena.DirectArena(
-                        this, pageSize, maxOrder, pageShifts, chunkSize);
+                PoolArena.DirectArena arena = new PoolArena.DirectArena(this, pageSize, maxOrder, pageShifts,
+                        chunkSize, arenaStripes, remoteFreeBatchSize, chunkMemoryProvider);
                 directArenas[i] = arena;
                 metrics.add(arena);
             }
@@ -200,6 +290,10 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
             directArenas = null;
             directArenaMetrics = Collections.emptyList();
         }
+
+        if (trimIntervalMillis > 0) {
+            TrimTask.schedule(this, trimIntervalMillis);
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -271,6 +365,71 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
         return toLeakAwareBuffer(buf);
     }
 
+    /**
+     * Release pooled memory which is not in use. All completely unused chunks are released and each thread-local
+     * cache frees the buffers which were not allocated out of it since it was trimmed the last time, the next time
+     * it is used by its thread.
+     */
+    public void trim() {
+        trim(0);
+    }
+
+    private void trim(long chunkIdleNanos) {
+        trimRequests.incrementAndGet();
+        trimChunks(heapArenas, chunkIdleNanos);
+        trimChunks(directArenas, chunkIdleNanos);
+    }
+
+    private static void trimChunks(PoolArena<?>[] arenas, long chunkIdleNanos) {
+        if (arenas == null) {
+            return;
+        }
+        for (PoolArena<?> arena: arenas) {
+            arena.trimChunks(chunkIdleNanos);
+        }
+    }
+
+    /**
+     * Called by a {@link PoolArena} after it allocated a new chunk.
+     */
+    void onChunkAllocated(PoolArena<?> arena) {
+        if (directMemoryTrimThreshold > 0 && arena.isDirect() && usedDirectMemory() > directMemoryTrimThreshold) {
+            // Memory pressure, trim everything which is not in use. Under sustained pressure almost every allocation
+            // may need a new chunk, so trim at most once per interval and only from one thread.
+            long now = System.nanoTime();
+            long last = lastPressureTrimNanos.get();
+            if (now - last >= MIN_PRESSURE_TRIM_INTERVAL_NANOS && lastPressureTrimNanos.compareAndSet(last, now)) {
+                trimRequests.incrementAndGet();
+                trimChunks(directArenas, 0);
+            }
+        }
+    }
+
+    /**
+     * Return the number of bytes of direct memory that are currently held by all direct arenas.
+     */
+    public long usedDirectMemory() {
+        return usedMemory(directArenas);
+    }
+
+    /**
+     * Return the number of bytes of heap memory that are currently held by all heap arenas.
+     */
+    public long usedHeapMemory() {
+        return usedMemory(heapArenas);
+    }
+
+    private static long usedMemory(PoolArena<?>[] arenas) {
+        if (arenas == null) {
+            return 0;
+        }
+        long used = 0;
+        for (PoolArena<?> arena: arenas) {
+            used += arena.numActiveBytes();
+        }
+        return used;
+    }
+
     @Override
     public boolean isDirectBufferPooled() {
         return directArenas != null;
@@ -300,7 +459,7 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
             }
             return new PoolThreadCache(
                     heapArena, directArena, tinyCacheSize, smallCacheSize, normalCacheSize,
-                    DEFAULT_MAX_CACHED_BUFFER_CAPACITY, DEFAULT_CACHE_TRIM_INTERVAL);
+                    DEFAULT_MAX_CACHED_BUFFER_CAPACITY, DEFAULT_CACHE_TRIM_INTERVAL, trimRequests);
         }
 
         @Override
@@ -310,6 +469,123 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
         }
     }
 
+    /**
+     * Settings of a {@link PooledByteBufAllocator} which are rarely changed. Every setting defaults to the value of
+     * its system property.
+     */
+    public static final class Options {
+        private int arenaStripes = DEFAULT_ARENA_STRIPES;
+        private int remoteFreeBatchSize = DEFAULT_REMOTE_FREE_BATCH_SIZE;
+        private ChunkMemoryProvider chunkMemoryProvider = DEFAULT_CHUNK_MEMORY_PROVIDER;
+        private long trimIntervalMillis = DEFAULT_TRIM_INTERVAL_MILLIS;
+        private long directMemoryTrimThreshold = DEFAULT_DIRECT_MEMORY_TRIM_THRESHOLD;
+
+        /**
+         * The number of stripes each arena spreads its chunks over. Each stripe is guarded by its own lock, so using
+         * more than one stripe allows threads which share an arena to allocate and release normal sized buffers
+         * concurrently at the cost of a higher memory footprint.
+         */
+        public Options arenaStripes(int arenaStripes) {
+            if (arenaStripes < 1) {
+                throw new IllegalArgumentException("arenaStripes: " + arenaStripes + " (expected: > 0)");
+            }
+            this.arenaStripes = arenaStripes;
+            return this;
+        }
+
+        /**
+         * The number of buffers released by threads other than the allocating one, which could not be put into the
+         * thread-local cache of the allocating thread, that are queued before they are returned to the arena in one
+         * batch. {@code 0} disables queueing and so returns each such buffer to the arena directly.
+         */
+        public Options remoteFreeBatchSize(int remoteFreeBatchSize) {
+            if (remoteFreeBatchSize < 0) {
+                throw new IllegalArgumentException(
+                        "remoteFreeBatchSize: " + remoteFreeBatchSize + " (expected: >= 0)");
+            }
+            this.remoteFreeBatchSize = remoteFreeBatchSize;
+            return this;
+        }
+
+        /**
+         * The {@link ChunkMemoryProvider} which provides the memory for the chunks of the direct arenas.
+         */
+        public Options chunkMemoryProvider(ChunkMemoryProvider chunkMemoryProvider) {
+            if (chunkMemoryProvider == null) {
+                throw new NullPointerException("chunkMemoryProvider");
+            }
+            this.chunkMemoryProvider = chunkMemoryProvider;
+            return this;
+        }
+
+        /**
+         * The interval in milliseconds in which the pool is trimmed in the background. Chunks which were completely
+         * unused for at least this interval are released and the thread-local caches are trimmed the next time they
+         * are used. {@code 0} disables background trimming.
+         */
+        public Options trimIntervalMillis(long trimIntervalMillis) {
+            if (trimIntervalMillis < 0) {
+                throw new IllegalArgumentException(
+                        "trimIntervalMillis: " + trimIntervalMillis + " (expected: >= 0)");
+            }
+            this.trimIntervalMillis = trimIntervalMillis;
+            return this;
+        }
+
+        /**
+         * The number of bytes of pooled direct memory, summed up over all direct arenas, above which the pool is
+         * trimmed when a new chunk needs to be allocated. Such trims are done at most once per second.
+         * {@code 0} disables trimming because of memory pressure.
+         */
+        public Options directMemoryTrimThreshold(long directMemoryTrimThreshold) {
+            if (directMemoryTrimThreshold < 0) {
+                throw new IllegalArgumentException(
+                        "directMemoryTrimThreshold: " + directMemoryTrimThreshold + " (expected: >= 0)");
+            }
+            this.directMemoryTrimThreshold = directMemoryTrimThreshold;
+            return this;
+        }
+    }
+
+    /**
+     * Periodically trims a {@link PooledByteBufAllocator} until it is garbage collected.
+     */
+    private static final class TrimTask implements Runnable {
+        private static ScheduledExecutorService executor;
+
+        private final WeakReference<PooledByteBufAllocator> allocatorRef;
+        private final long intervalNanos;
+        private volatile ScheduledFuture<?> future;
+
+        private TrimTask(PooledByteBufAllocator allocator, long intervalNanos) {
+            allocatorRef = new WeakReference<PooledByteBufAllocator>(allocator);
+            this.intervalNanos = intervalNanos;
+        }
+
+        static synchronized void schedule(PooledByteBufAllocator allocator, long intervalMillis) {
+            if (executor == null) {
+                executor = Executors.newSingleThreadScheduledExecutor(
+                        new DefaultThreadFactory("pooledByteBufAllocatorTrimmer", true));
+            }
+            TrimTask task = new TrimTask(allocator, TimeUnit.MILLISECONDS.toNanos(intervalMillis));
+            task.future = executor.scheduleWithFixedDelay(task, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void run() {
+            PooledByteBufAllocator allocator = allocatorRef.get();
+            if (allocator == null) {
+                future.cancel(false);
+                return;
+            }
+            try {
+                allocator.trim(intervalNanos);
+            } catch (Throwable t) {
+                logger.warn("Unexpected exception while trimming the pool.", t);
+            }
+        }
+    }
+
     /**
      * Return the number of heap arenas.
      */
@@ -366,6 +642,37 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
         return normalCacheSize;
     }
 
+    /**
+     * Return the number of stripes each arena spreads its chunks over.
+     */
+    public int arenaStripes() {
+        return arenaStripes;
+    }
+
+    /**
+     * Return the number of buffers released by foreign threads that are queued before they are returned to the
+     * arena, or {@code 0} if such buffers are returned directly.
+     */
+    public int remoteFreeBatchSize() {
+        return remoteFreeBatchSize;
+    }
+
+    /**
+     * Return the interval in milliseconds in which the pool is trimmed in the background, or {@code 0} if background
+     * trimming is disabled.
+     */
+    public long trimIntervalMillis() {
+        return trimIntervalMillis;
+    }
+
+    /**
+     * Return the number of bytes of pooled direct memory above which the pool is trimmed when a new chunk is
+     * allocated, or {@code 0} if trimming because of memory pressure is disabled.
+     */
+    public long directMemoryTrimThreshold() {
+        return directMemoryTrimThreshold;
+    }
+
     final PoolThreadCache threadCache() {
         return threadCache.get();
     }
@@ -0,0 +1,554 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.ResourceLeakDetector;
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.ThreadLocalRandom;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link ByteBufAllocator} which delegates all allocations to another {@link ByteBufAllocator} and samples them to
+ * find out which call sites allocate which amount of memory and for how long. One out of
+ * {@link #samplingInterval()} buffers is sampled on average: its call site is captured in the same way as the
+ * access records of the advanced leak detection and the buffer is wrapped, so its lifetime can be recorded once it is
+ * released. All other buffers are returned as they are, so the overhead is negligible when the sampling interval is
+ * high. {@link CompositeByteBuf}s are never sampled, but their components may be if they are allocated via this
+ * allocator.
+ */
+public final class ProfilingByteBufAllocator implements ByteBufAllocator {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(ProfilingByteBufAllocator.class);
+
+    private static final int DEFAULT_SAMPLING_INTERVAL;
+    private static final int DEFAULT_MAX_CALL_SITE_FRAMES;
+    private static final int DEFAULT_MAX_CALL_SITES;
+
+    private static final int CAPACITY_HISTOGRAM_SIZE = 32;
+    private static final int LIFETIME_HISTOGRAM_SIZE = 64;
+    private static final String OTHER_CALL_SITES = "<other call sites>";
+
+    static {
+        DEFAULT_SAMPLING_INTERVAL = Math.max(0,
+                SystemPropertyUtil.getInt("io.netty.allocator.profiler.samplingInterval", 1024));
+        DEFAULT_MAX_CALL_SITE_FRAMES = Math.max(1,
+                SystemPropertyUtil.getInt("io.netty.allocator.profiler.maxCallSiteFrames", 4));
+        DEFAULT_MAX_CALL_SITES = Math.max(1,
+                SystemPropertyUtil.getInt("io.netty.allocator.profiler.maxCallSites", 1024));
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.allocator.profiler.samplingInterval: {}", DEFAULT_SAMPLING_INTERVAL);
+            logger.debug("-Dio.netty.allocator.profiler.maxCallSiteFrames: {}", DEFAULT_MAX_CALL_SITE_FRAMES);
+            logger.debug("-Dio.netty.allocator.profiler.maxCallSites: {}", DEFAULT_MAX_CALL_SITES);
+        }
+    }
+
+    private final ByteBufAllocator delegate;
+    private final int maxCallSiteFrames;
+    private final int maxCallSites;
+    private final ConcurrentMap<String, AllocationSite> sites = PlatformDependent.newConcurrentHashMap();
+    // Collects the samples of all call sites which did not fit into sites anymore.
+    private volatile AllocationSite otherSites = new AllocationSite(OTHER_CALL_SITES);
+    private volatile int samplingInterval;
+
+    public ProfilingByteBufAllocator(ByteBufAllocator delegate) {
+        this(delegate, DEFAULT_SAMPLING_INTERVAL);
+    }
+
+    public ProfilingByteBufAllocator(ByteBufAllocator delegate, int samplingInterval) {
+        this(delegate, samplingInterval, DEFAULT_MAX_CALL_SITE_FRAMES, DEFAULT_MAX_CALL_SITES);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param delegate          the {@link ByteBufAllocator} to which all allocations are delegated
+     * @param samplingInterval  one out of {@code samplingInterval} allocations is sampled on average, {@code 0}
+     *                          disables sampling
+     * @param maxCallSiteFrames the maximal number of stack trace elements which are used to identify a call site
+     * @param maxCallSites      the maximal number of distinct call sites to track, samples of other call sites are
+     *                          accounted together
+     */
+    public ProfilingByteBufAllocator(
+            ByteBufAllocator delegate, int samplingInterval, int maxCallSiteFrames, int maxCallSites) {
+        if (delegate == null) {
+            throw new NullPointerException("delegate");
+        }
+        if (maxCallSiteFrames <= 0) {
+            throw new IllegalArgumentException("maxCallSiteFrames: " + maxCallSiteFrames + " (expected: 1+)");
+        }
+        if (maxCallSites <= 0) {
+            throw new IllegalArgumentException("maxCallSites: " + maxCallSites + " (expected: 1+)");
+        }
+        this.delegate = delegate;
+        this.maxCallSiteFrames = maxCallSiteFrames;
+        this.maxCallSites = maxCallSites;
+        samplingInterval(samplingInterval);
+    }
+
+    /**
+     * Returns the {@link ByteBufAllocator} to which all allocations are delegated.
+     */
+    public ByteBufAllocator delegate() {
+        return delegate;
+    }
+
+    /**
+     * Returns the sampling interval, {@code 0} if sampling is disabled.
+     */
+    public int samplingInterval() {
+        return samplingInterval;
+    }
+
+    /**
+     * Sets the sampling interval. One out of {@code samplingInterval} allocations is sampled on average,
+     * {@code 0} disables sampling.
+     */
+    public void samplingInterval(int samplingInterval) {
+        if (samplingInterval < 0) {
+            throw new IllegalArgumentException("samplingInterval: " + samplingInterval + " (expected: 0+)");
+        }
+        this.samplingInterval = samplingInterval;
+    }
+
+    /**
+     * Returns a snapshot of the metrics of all call sites that were sampled since the creation of this allocator or
+     * the last call of {@link #reset()}, ordered by the number of bytes they hold in buffers which were not released
+     * yet.
+     */
+    public List<AllocationSiteMetric> allocationSites() {
+        List<AllocationSiteMetric> metrics = new ArrayList<AllocationSiteMetric>(sites.size() + 1);
+        for (AllocationSite site: sites.values()) {
+            metrics.add(site.snapshot());
+        }
+        AllocationSiteMetric other = otherSites.snapshot();
+        if (other.numAllocations() != 0) {
+            metrics.add(other);
+        }
+        Collections.sort(metrics, ACTIVE_BYTES_COMPARATOR);
+        return Collections.unmodifiableList(metrics);
+    }
+
+    /**
+     * Discards all samples which were collected so far.
+     */
+    public void reset() {
+        sites.clear();
+        otherSites = new AllocationSite(OTHER_CALL_SITES);
+    }
+
+    @Override
+    public ByteBuf buffer() {
+        return profile(delegate.buffer());
+    }
+
+    @Override
+    public ByteBuf buffer(int initialCapacity) {
+        return profile(delegate.buffer(initialCapacity));
+    }
+
+    @Override
+    public ByteBuf buffer(int initialCapacity, int maxCapacity) {
+        return profile(delegate.buffer(initialCapacity, maxCapacity));
+    }
+
+    @Override
+    public ByteBuf ioBuffer() {
+        return profile(delegate.ioBuffer());
+    }
+
+    @Override
+    public ByteBuf ioBuffer(int initialCapacity) {
+        return profile(delegate.ioBuffer(initialCapacity));
+    }
+
+    @Override
+    public ByteBuf ioBuffer(int initialCapacity, int maxCapacity) {
+        return profile(delegate.ioBuffer(initialCapacity, maxCapacity));
+    }
+
+    @Override
+    public ByteBuf heapBuffer() {
+        return profile(delegate.heapBuffer());
+    }
+
+    @Override
+    public ByteBuf heapBuffer(int initialCapacity) {
+        return profile(delegate.heapBuffer(initialCapacity));
+    }
+
+    @Override
+    public ByteBuf heapBuffer(int initialCapacity, int maxCapacity) {
+        return profile(delegate.heapBuffer(initialCapacity, maxCapacity));
+    }
+
+    @Override
+    public ByteBuf directBuffer() {
+        return profile(delegate.directBuffer());
+    }
+
+    @Override
+    public ByteBuf directBuffer(int initialCapacity) {
+        return profile(delegate.directBuffer(initialCapacity));
+    }
+
+    @Override
+    public ByteBuf directBuffer(int initialCapacity, int maxCapacity) {
+        return profile(delegate.directBuffer(initialCapacity, maxCapacity));
+    }
+
+    @Override
+    public CompositeByteBuf compositeBuffer() {
+        return delegate.compositeBuffer();
+    }
+
+    @Override
+    public CompositeByteBuf compositeBuffer(int maxNumComponents) {
+        return delegate.compositeBuffer(maxNumComponents);
+    }
+
+    @Override
+    public CompositeByteBuf compositeHeapBuffer() {
+        return delegate.compositeHeapBuffer();
+    }
+
+    @Override
+    public CompositeByteBuf compositeHeapBuffer(int maxNumComponents) {
+        return delegate.compositeHeapBuffer(maxNumComponents);
+    }
+
+    @Override
+    public CompositeByteBuf compositeDirectBuffer() {
+        return delegate.compositeDirectBuffer();
+    }
+
+    @Override
+    public CompositeByteBuf compositeDirectBuffer(int maxNumComponents) {
+        return delegate.compositeDirectBuffer(maxNumComponents);
+    }
+
+    @Override
+    public boolean isDirectBufferPooled() {
+        return delegate.isDirectBufferPooled();
+    }
+
+    @Override
+    public int calculateNewCapacity(int minNewCapacity, int maxCapacity) {
+        return delegate.calculateNewCapacity(minNewCapacity, maxCapacity);
+    }
+
+    private ByteBuf profile(ByteBuf buf) {
+        int samplingInterval = this.samplingInterval;
+        if (samplingInterval == 0 ||
+            samplingInterval != 1 && ThreadLocalRandom.current().nextInt(samplingInterval) != 0) {
+            return buf;
+        }
+        return sample(buf);
+    }
+
+    private ByteBuf sample(ByteBuf buf) {
+        if (buf.maxCapacity() == 0) {
+            // An empty buffer can never be released, so there is nothing to track.
+            return buf;
+        }
+        AllocationSite site = site(ResourceLeakDetector.newCallSiteRecord(maxCallSiteFrames));
+        int capacity = buf.capacity();
+        site.allocated(capacity, buf.isDirect());
+        return new ProfiledByteBuf(buf, new Sample(site, capacity, System.nanoTime()));
+    }
+
+    private AllocationSite site(String callSite) {
+        AllocationSite site = sites.get(callSite);
+        if (site == null) {
+            if (sites.size() >= maxCallSites) {
+                return otherSites;
+            }
+            AllocationSite newSite = new AllocationSite(callSite);
+            site = sites.putIfAbsent(callSite, newSite);
+            if (site == null) {
+                site = newSite;
+            }
+        }
+        return site;
+    }
+
+    static int histogramIndex(long value) {
+        return 64 - Long.numberOfLeadingZeros(value);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder()
+            .append(StringUtil.simpleClassName(this))
+            .append("(delegate: ")
+            .append(delegate)
+            .append(", samplingInterval: ")
+            .append(samplingInterval)
+            .append(')');
+        for (AllocationSiteMetric site: allocationSites()) {
+            buf.append(StringUtil.NEWLINE)
+               .append(site);
+        }
+        return buf.toString();
+    }
+
+    private static final Comparator<AllocationSiteMetric> ACTIVE_BYTES_COMPARATOR =
+            new Comparator<AllocationSiteMetric>() {
+        @Override
+        public int compare(AllocationSiteMetric o1, AllocationSiteMetric o2) {
+            long b1 = o1.numActiveBytes();
+            long b2 = o2.numActiveBytes();
+            if (b1 != b2) {
+                return b1 > b2 ? -1 : 1;
+            }
+            b1 = o1.numAllocatedBytes();
+            b2 = o2.numAllocatedBytes();
+            return b1 > b2 ? -1 : b1 == b2 ? 0 : 1;
+        }
+    };
+
+    /**
+     * Accumulates the samples of a call site.
+     */
+    private static final class AllocationSite {
+        private final String callSite;
+        private final LongCounter allocations = PlatformDependent.newLongCounter();
+        private final LongCounter directAllocations = PlatformDependent.newLongCounter();
+        private final LongCounter deallocations = PlatformDependent.newLongCounter();
+        private final LongCounter allocatedBytes = PlatformDependent.newLongCounter();
+        private final LongCounter deallocatedBytes = PlatformDependent.newLongCounter();
+        private final AtomicLongArray capacityHistogram = new AtomicLongArray(CAPACITY_HISTOGRAM_SIZE);
+        private final AtomicLongArray lifetimeHistogram = new AtomicLongArray(LIFETIME_HISTOGRAM_SIZE);
+
+        AllocationSite(String callSite) {
+            this.callSite = callSite;
+        }
+
+        void allocated(int capacity, boolean direct) {
+            allocations.increment();
+            if (direct) {
+                directAllocations.increment();
+            }
+            allocatedBytes.add(capacity);
+            capacityHistogram.incrementAndGet(histogramIndex(capacity));
+        }
+
+        void deallocated(int capacity, long lifetimeNanos) {
+            deallocations.increment();
+            deallocatedBytes.add(capacity);
+            lifetimeHistogram.incrementAndGet(histogramIndex(Math.max(0, lifetimeNanos)));
+        }
+
+        AllocationSiteMetric snapshot() {
+            // Read the deallocations first so the number of active allocations is never negative.
+            long deallocations = this.deallocations.value();
+            long deallocatedBytes = this.deallocatedBytes.value();
+            return new AllocationSiteSnapshot(
+                    callSite, allocations.value(), directAllocations.value(), deallocations,
+                    allocatedBytes.value(), deallocatedBytes,
+                    toArray(capacityHistogram), toArray(lifetimeHistogram));
+        }
+
+        private static long[] toArray(AtomicLongArray histogram) {
+            long[] array = new long[histogram.length()];
+            for (int i = 0; i < array.length; i ++) {
+                array[i] = histogram.get(i);
+            }
+            return array;
+        }
+    }
+
+    private static final class AllocationSiteSnapshot implements AllocationSiteMetric {
+        private final String callSite;
+        private final long allocations;
+        private final long directAllocations;
+        private final long deallocations;
+        private final long allocatedBytes;
+        private final long deallocatedBytes;
+        private final long[] capacityHistogram;
+        private final long[] lifetimeHistogram;
+
+        AllocationSiteSnapshot(String callSite, long allocations, long directAllocations, long deallocations,
+                               long allocatedBytes, long deallocatedBytes,
+                               long[] capacityHistogram, long[] lifetimeHistogram) {
+            this.callSite = callSite;
+            this.allocations = allocations;
+            this.directAllocations = directAllocations;
+            this.deallocations = deallocations;
+            this.allocatedBytes = allocatedBytes;
+            this.deallocatedBytes = deallocatedBytes;
+            this.capacityHistogram = capacityHistogram;
+            this.lifetimeHistogram = lifetimeHistogram;
+        }
+
+        @Override
+        public String callSite() {
+            return callSite;
+        }
+
+        @Override
+        public long numAllocations() {
+            return allocations;
+        }
+
+        @Override
+        public long numDirectAllocations() {
+            return directAllocations;
+        }
+
+        @Override
+        public long numDeallocations() {
+            return deallocations;
+        }
+
+        @Override
+        public long numActiveAllocations() {
+            return allocations - deallocations;
+        }
+
+        @Override
+        public long numAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        @Override
+        public long numActiveBytes() {
+            return allocatedBytes - deallocatedBytes;
+        }
+
+        @Override
+        public long[] capacityHistogram() {
+            return capacityHistogram.clone();
+        }
+
+        @Override
+        public long[] lifetimeHistogram() {
+            return lifetimeHistogram.clone();
+        }
+
+        @Override
+        public String toString() {
+            return new StringBuilder()
+                .append("allocations: ")
+                .append(allocations)
+                .append(", direct allocations: ")
+                .append(directAllocations)
+                .append(", active allocations: ")
+                .append(numActiveAllocations())
+                .append(", allocated bytes: ")
+                .append(allocatedBytes)
+                .append(", active bytes: ")
+                .append(numActiveBytes())
+                .append(", capacities (log2): ")
+                .append(Arrays.toString(capacityHistogram))
+                .append(", lifetimes (log2 ns): ")
+                .append(Arrays.toString(lifetimeHistogram))
+                .append(StringUtil.NEWLINE)
+                .append(callSite)
+                .toString();
+        }
+    }
+
+    private static final class Sample {
+        final AllocationSite site;
+        final int capacity;
+        final long allocationNanos;
+
+        Sample(AllocationSite site, int capacity, long allocationNanos) {
+            this.site = site;
+            this.capacity = capacity;
+            this.allocationNanos = allocationNanos;
+        }
+
+        void deallocated() {
+            site.deallocated(capacity, System.nanoTime() - allocationNanos);
+        }
+    }
+
+    /**
+     * Wraps a sampled buffer and all buffers derived from it, so that the lifetime of the sample is recorded once the
+     * buffer is released.
+     */
+    private static final class ProfiledByteBuf extends WrappedByteBuf {
+
+        private final Sample sample;
+
+        ProfiledByteBuf(ByteBuf buf, Sample sample) {
+            super(buf);
+            this.sample = sample;
+        }
+
+        @Override
+        public boolean release() {
+            boolean deallocated = super.release();
+            if (deallocated) {
+                sample.deallocated();
+            }
+            return deallocated;
+        }
+
+        @Override
+        public boolean release(int decrement) {
+            boolean deallocated = super.release(decrement);
+            if (deallocated) {
+                sample.deallocated();
+            }
+            return deallocated;
+        }
+
+        @Override
+        public ByteBuf order(ByteOrder endianness) {
+            if (order() == endianness) {
+                return this;
+            } else {
+                return new ProfiledByteBuf(super.order(endianness), sample);
+            }
+        }
+
+        @Override
+        public ByteBuf slice() {
+            return new ProfiledByteBuf(super.slice(), sample);
+        }
+
+        @Override
+        public ByteBuf slice(int index, int length) {
+            return new ProfiledByteBuf(super.slice(index, length), sample);
+        }
+
+        @Override
+        public ByteBuf duplicate() {
+            return new ProfiledByteBuf(super.duplicate(), sample);
+        }
+
+        @Override
+        public ByteBuf readSlice(int length) {
+            return new ProfiledByteBuf(super.readSlice(length), sample);
+        }
+    }
+}
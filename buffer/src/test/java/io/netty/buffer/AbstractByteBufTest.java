@@ -1683,6 +1683,52 @@ public abstract class AbstractByteBufTest {
         assertThat(lastIndex.get(), is(CAPACITY * 3 / 4 - 1));
     }
 
+    @Test
+    public void testForEachByteWellKnownProcessors() {
+        final byte[] alphabet = { 'a', 'b', 'c', 'd', ' ', '\t', '\r', '\n', 0, (byte) 0x80, (byte) 0xFF };
+        ByteProcessor[] processors = {
+                ByteProcessor.FIND_NUL, ByteProcessor.FIND_NON_NUL, ByteProcessor.FIND_CR, ByteProcessor.FIND_LF,
+                ByteProcessor.FIND_CRLF, ByteProcessor.FIND_NON_CRLF, ByteProcessor.FIND_LINEAR_WHITESPACE,
+                ByteProcessor.FIND_NON_LINEAR_WHITESPACE
+        };
+
+        for (int round = 0; round < 16; round ++) {
+            buffer.clear();
+            // Use long runs of the same byte so that matches are sparse.
+            while (buffer.isWritable()) {
+                byte value = alphabet[random.nextInt(alphabet.length)];
+                int run = Math.min(buffer.writableBytes(), random.nextInt(64) + 1);
+                for (int i = 0; i < run; i ++) {
+                    buffer.writeByte(value);
+                }
+            }
+
+            for (final ByteProcessor processor: processors) {
+                int index = random.nextInt(CAPACITY);
+                int length = random.nextInt(CAPACITY - index + 1);
+                // Hide the identity of the processor so the byte at a time implementation is used.
+                int expected = buffer.forEachByte(index, length, new ByteProcessor() {
+                    @Override
+                    public boolean process(byte value) throws Exception {
+                        return processor.process(value);
+                    }
+                });
+                assertEquals(expected, buffer.forEachByte(index, length, processor));
+            }
+
+            byte value = alphabet[random.nextInt(alphabet.length)];
+            int fromIndex = random.nextInt(CAPACITY);
+            int expected = -1;
+            for (int i = fromIndex; i < CAPACITY; i ++) {
+                if (buffer.getByte(i) == value) {
+                    expected = i;
+                    break;
+                }
+            }
+            assertEquals(expected, buffer.indexOf(fromIndex, CAPACITY, value));
+        }
+    }
+
     @Test
     public void testForEachByteAbort() {
         buffer.clear();
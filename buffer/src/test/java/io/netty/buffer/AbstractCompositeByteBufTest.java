@@ -869,6 +869,54 @@ public abstract class AbstractCompositeByteBufTest extends AbstractByteBufTest {
         cbuf.release();
     }
 
+    @Test
+    public void testAddComponentsInMiddle() {
+        CompositeByteBuf cbuf = releaseLater(compositeBuffer(Integer.MAX_VALUE));
+        cbuf.addComponents(wrappedBuffer(new byte[] { 1 }), wrappedBuffer(new byte[] { 5, 6 }));
+        // Populate the cache of the last accessed component before inserting.
+        assertEquals((byte) 6, cbuf.getByte(2));
+        cbuf.addComponents(1, wrappedBuffer(new byte[] { 2, 3 }), EMPTY_BUFFER, wrappedBuffer(new byte[] { 4 }));
+        cbuf.writerIndex(cbuf.capacity());
+
+        assertEquals(5, cbuf.numComponents());
+        assertEquals(6, cbuf.capacity());
+        for (int i = 0; i < 6; i ++) {
+            assertEquals((byte) (i + 1), cbuf.getByte(i));
+        }
+        assertEquals(1, cbuf.toComponentIndex(2));
+        assertEquals(3, cbuf.toComponentIndex(3));
+        assertEquals(4, cbuf.toComponentIndex(5));
+        assertEquals(4, cbuf.toByteIndex(4));
+
+        cbuf.removeComponent(1);
+        assertEquals(4, cbuf.capacity());
+        assertEquals((byte) 4, cbuf.getByte(1));
+        assertEquals((byte) 6, cbuf.getByte(3));
+    }
+
+    @Test
+    public void testNioBuffersOfManyComponents() {
+        CompositeByteBuf cbuf = releaseLater(compositeBuffer(Integer.MAX_VALUE));
+        for (int i = 0; i < 100; i ++) {
+            cbuf.addComponent(wrappedBuffer(new byte[] { (byte) i, (byte) i }));
+        }
+        // A component which is itself made of two components.
+        cbuf.addComponent(wrappedBuffer(wrappedBuffer(new byte[] { 100 }), wrappedBuffer(new byte[] { 100 })));
+        cbuf.writerIndex(cbuf.capacity());
+
+        ByteBuffer[] buffers = cbuf.nioBuffers(1, cbuf.capacity() - 1);
+        assertEquals(102, buffers.length);
+        assertEquals(1, buffers[0].remaining());
+        int expected = 1;
+        for (ByteBuffer buffer: buffers) {
+            while (buffer.hasRemaining()) {
+                assertEquals((byte) (expected ++ / 2), buffer.get());
+            }
+        }
+        assertEquals(202, expected);
+        assertEquals(1, cbuf.nioBuffers(3, 1).length);
+    }
+
     @Test
     public void testIterator() {
         CompositeByteBuf cbuf = compositeBuffer();
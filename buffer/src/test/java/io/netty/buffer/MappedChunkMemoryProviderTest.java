@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+public class MappedChunkMemoryProviderTest {
+
+    private static final File SHM_DIR = new File("/dev/shm");
+
+    @Before
+    public void setUp() {
+        assumeTrue("tmpfs".equals(MappedChunkMemoryProvider.fileSystemType(SHM_DIR)));
+    }
+
+    @Test
+    public void testAllocateAndFree() {
+        ChunkMemoryProvider provider = new MappedChunkMemoryProvider(SHM_DIR, true);
+        ByteBuffer memory = provider.allocate(1024 * 1024);
+        assertTrue(memory.isDirect());
+        assertEquals(1024 * 1024, memory.capacity());
+        assertEquals(0, memory.get(4096));
+        memory.put(1024 * 1024 - 1, (byte) 1);
+        assertEquals(1, memory.get(1024 * 1024 - 1));
+        provider.free(memory);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotExistingDirectory() {
+        new MappedChunkMemoryProvider(new File(SHM_DIR, "netty-does-not-exist-" + System.nanoTime()), false);
+    }
+
+    @Test
+    public void testDiskBackedDirectoryIsRejected() {
+        File dir = new File(System.getProperty("java.io.tmpdir"));
+        String fileSystem = MappedChunkMemoryProvider.fileSystemType(dir);
+        assumeTrue(fileSystem != null && !"tmpfs".equals(fileSystem) && !"ramfs".equals(fileSystem));
+        try {
+            new MappedChunkMemoryProvider(dir, false);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testPooledAllocator() {
+        PooledByteBufAllocator.Options options = new PooledByteBufAllocator.Options()
+                .chunkMemoryProvider(new MappedChunkMemoryProvider(SHM_DIR, false));
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 0, 1, 8192, 11, 0, 0, 0, options);
+        ByteBuf buf = allocator.directBuffer(8192);
+        try {
+            assertTrue(buf.isDirect());
+            buf.writeLong(Long.MAX_VALUE);
+            assertEquals(Long.MAX_VALUE, buf.readLong());
+            assertEquals(8192 << 11, allocator.usedDirectMemory());
+        } finally {
+            buf.release();
+        }
+        allocator.trim();
+        assertEquals(0, allocator.usedDirectMemory());
+    }
+}
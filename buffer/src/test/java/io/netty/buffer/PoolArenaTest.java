@@ -20,16 +20,242 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 public class PoolArenaTest {
 
     @Test
     public void testNormalizeCapacity() throws Exception {
-        PoolArena<ByteBuffer> arena = new PoolArena.DirectArena(null, 0, 0, 9, 999999);
+        PoolArena<ByteBuffer> arena = new PoolArena.DirectArena(
+                null, 0, 0, 9, 999999, 1, 0, ChunkMemoryProvider.DEFAULT);
         int[] reqCapacities = {0, 15, 510, 1024, 1023, 1025};
         int[] expectedResult = {0, 16, 512, 1024, 1024, 2048};
         for (int i = 0; i < reqCapacities.length; i ++) {
             Assert.assertEquals(expectedResult[i], arena.normalizeCapacity(reqCapacities[i]));
         }
     }
+
+    @Test
+    public void testNormalizeSmallCapacity() throws Exception {
+        PoolArena<ByteBuffer> arena = new PoolArena.DirectArena(
+                null, 8192, 11, 13, 8192 << 11, 1, 0, ChunkMemoryProvider.DEFAULT);
+        int[] reqCapacities = {512, 513, 600, 1024, 1025, 1500, 3000, 4097, 7168, 7169, 8192, 8193};
+        int[] expectedResult = {512, 640, 640, 1024, 1280, 1536, 3072, 5120, 7168, 8192, 8192, 16384};
+        for (int i = 0; i < reqCapacities.length; i ++) {
+            Assert.assertEquals(expectedResult[i], arena.normalizeCapacity(reqCapacities[i]));
+        }
+        Assert.assertEquals(16, arena.numSmallSubpagePools);
+    }
+
+    @Test
+    public void testSmallSizeClasses() throws Exception {
+        int lastSize = 512;
+        Assert.assertEquals(0, PoolArena.smallIdx(lastSize));
+        for (int i = 1; i < 32; i ++) {
+            int size = PoolArena.smallClassSize(i);
+            Assert.assertTrue(size > lastSize);
+            // The small size classes waste at most 20% of the memory.
+            Assert.assertTrue((size - lastSize - 1) * 5 <= size);
+            Assert.assertEquals(i, PoolArena.smallIdx(size));
+            lastSize = size;
+        }
+    }
+
+    @Test
+    public void testAllocateSmallSizeClasses() throws Exception {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 11, 0, 0, 0);
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+        List<ByteBuf> buffers = new ArrayList<ByteBuf>();
+        for (int size = 512; size <= 7168; size += 100) {
+            for (int i = 0; i < 8; i ++) {
+                ByteBuf buf = allocator.heapBuffer(size);
+                Assert.assertEquals(size, buf.capacity());
+                buf.writeZero(size);
+                buffers.add(buf);
+            }
+        }
+        Assert.assertEquals(buffers.size(), metric.numActiveAllocations());
+
+        // The sizes between 4096 and 8192 are split into runs of more than a single page.
+        int maxSubpageSize = 0;
+        for (PoolSubpageMetric subpage: metric.smallSubpages()) {
+            Assert.assertEquals(0, subpage.pageSize() % 8192);
+            maxSubpageSize = Math.max(maxSubpageSize, subpage.pageSize());
+        }
+        Assert.assertTrue(maxSubpageSize > 8192);
+
+        // Every buffer must use its own memory.
+        for (int i = 0; i < buffers.size(); i ++) {
+            ByteBuf buf = buffers.get(i);
+            buf.setInt(0, i);
+            buf.setInt(buf.capacity() - 4, i);
+        }
+        for (int i = 0; i < buffers.size(); i ++) {
+            ByteBuf buf = buffers.get(i);
+            Assert.assertEquals(i, buf.getInt(0));
+            Assert.assertEquals(i, buf.getInt(buf.capacity() - 4));
+            Assert.assertTrue(buf.release());
+        }
+        Assert.assertEquals(0, metric.numActiveAllocations());
+    }
+
+    @Test
+    public void testInternalFragmentationMetrics() throws Exception {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 11, 0, 0, 0);
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+        allocator.heapBuffer(600).release();
+        allocator.heapBuffer(3000).release();
+        allocator.heapBuffer(10000).release();
+        Assert.assertEquals(600 + 3000 + 10000, metric.numRequestedBytes());
+        Assert.assertEquals(640 + 3072 + 16384, metric.numAllocatedBytes());
+    }
+
+    @Test
+    public void testInternalFragmentationMetricsIncludeCachedAllocations() throws Exception {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 11);
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+        allocator.heapBuffer(600).release();
+        // Served by the thread-local cache.
+        allocator.heapBuffer(600).release();
+        Assert.assertEquals(1, metric.numAllocations());
+        Assert.assertEquals(600 + 600, metric.numRequestedBytes());
+        Assert.assertEquals(640 + 640, metric.numAllocatedBytes());
+    }
+
+    @Test
+    public void testAllocateWithMultipleStripes() throws Exception {
+        final PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 11, 0, 0, 0,
+                new PooledByteBufAllocator.Options().arenaStripes(4));
+        final int numThreads = 8;
+        final CountDownLatch allocated = new CountDownLatch(numThreads);
+        final CountDownLatch release = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<Thread>(numThreads);
+        for (int i = 0; i < numThreads; i ++) {
+            Thread t = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    List<ByteBuf> buffers = new ArrayList<ByteBuf>();
+                    for (int i = 0; i < 64; i ++) {
+                        buffers.add(allocator.heapBuffer(16384));
+                    }
+                    allocated.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    for (ByteBuf buf: buffers) {
+                        buf.release();
+                    }
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+        allocated.await();
+
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+        Assert.assertEquals(4, metric.numStripes());
+        Assert.assertEquals(4 * 6, metric.numChunkLists());
+        Assert.assertEquals(numThreads * 64, metric.numActiveNormalAllocations());
+
+        // Every thread prefers another stripe, so all stripes must have chunks by now.
+        int usedChunkLists = 0;
+        for (PoolChunkListMetric list: metric.chunkLists()) {
+            if (list.iterator().hasNext()) {
+                usedChunkLists ++;
+            }
+        }
+        Assert.assertTrue(usedChunkLists >= 4);
+
+        release.countDown();
+        for (Thread t: threads) {
+            t.join();
+        }
+        Assert.assertEquals(0, metric.numActiveNormalAllocations());
+        Assert.assertEquals(metric.numAllocations(), metric.numDeallocations());
+    }
+
+    @Test
+    public void testRemoteFreesAreBatched() throws Exception {
+        // Disable the thread-local caches so the release can not be cached by the allocating thread.
+        final PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 11, 0, 0, 0,
+                new PooledByteBufAllocator.Options().remoteFreeBatchSize(4));
+        final List<ByteBuf> buffers = new ArrayList<ByteBuf>();
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 5; i ++) {
+                    buffers.add(allocator.heapBuffer(8192));
+                }
+            }
+        });
+        t.start();
+        t.join();
+
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+        Assert.assertEquals(5, metric.numActiveNormalAllocations());
+
+        // Release from another thread than the allocating one, the frees are queued until the batch is full.
+        for (int i = 0; i < 3; i ++) {
+            Assert.assertTrue(buffers.get(i).release());
+        }
+        Assert.assertEquals(5, metric.numActiveNormalAllocations());
+        Assert.assertTrue(buffers.get(3).release());
+        Assert.assertEquals(1, metric.numActiveNormalAllocations());
+
+        // The next allocation which uses the stripe applies all pending frees.
+        Assert.assertTrue(buffers.get(4).release());
+        Assert.assertEquals(1, metric.numActiveNormalAllocations());
+        ByteBuf buf = allocator.heapBuffer(8192);
+        Assert.assertEquals(1, metric.numActiveNormalAllocations());
+        buf.release();
+        Assert.assertEquals(0, metric.numActiveNormalAllocations());
+    }
+
+    @Test
+    public void testTrimReleasesUnusedChunks() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 11, 0, 0, 0);
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+        Assert.assertEquals(0, metric.numActiveBytes());
+
+        // Use less than 25% of the chunk so it stays in qInit and so is not released when it becomes unused.
+        ByteBuf buf1 = allocator.heapBuffer(1024 * 1024);
+        ByteBuf buf2 = allocator.heapBuffer(1024 * 1024);
+        Assert.assertEquals(8192 << 11, metric.numActiveBytes());
+        Assert.assertEquals(8192 << 11, allocator.usedHeapMemory());
+        buf1.release();
+
+        allocator.trim();
+        Assert.assertEquals(8192 << 11, metric.numActiveBytes());
+        Assert.assertEquals(0, metric.numTrimmedChunks());
+
+        buf2.release();
+        Assert.assertEquals(8192 << 11, metric.numActiveBytes());
+
+        allocator.trim();
+        Assert.assertEquals(0, metric.numActiveBytes());
+        Assert.assertEquals(0, allocator.usedHeapMemory());
+        Assert.assertEquals(1, metric.numTrimmedChunks());
+    }
+
+    @Test(timeout = 10000)
+    public void testTrimIntervalMillis() throws Exception {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 11, 0, 0, 0,
+                new PooledByteBufAllocator.Options().trimIntervalMillis(100));
+        Assert.assertEquals(100, allocator.trimIntervalMillis());
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+
+        // Use less than 25% of the chunk so it stays in qInit and so is not released when it becomes unused.
+        allocator.heapBuffer(1024 * 1024).release();
+        Assert.assertEquals(8192 << 11, metric.numActiveBytes());
+
+        // The chunk is released by the background trim once it was unused for at least the interval.
+        while (metric.numTrimmedChunks() == 0) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(0, metric.numActiveBytes());
+    }
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ProfilingByteBufAllocatorTest {
+
+    @Test
+    public void testNoSampling() {
+        ProfilingByteBufAllocator allocator = new ProfilingByteBufAllocator(UnpooledByteBufAllocator.DEFAULT, 0);
+        ByteBuf buf = allocator.heapBuffer(16);
+        assertTrue(buf instanceof UnpooledHeapByteBuf);
+        assertTrue(buf.release());
+        assertTrue(allocator.allocationSites().isEmpty());
+    }
+
+    @Test
+    public void testSampleEveryAllocation() {
+        ProfilingByteBufAllocator allocator = new ProfilingByteBufAllocator(UnpooledByteBufAllocator.DEFAULT, 1);
+        ByteBuf buf = allocator.heapBuffer(100);
+        ByteBuf buf2 = allocator.directBuffer(1000);
+
+        List<AllocationSiteMetric> sites = allocator.allocationSites();
+        assertEquals(2, sites.size());
+        // Ordered by active bytes.
+        AllocationSiteMetric directSite = sites.get(0);
+        AllocationSiteMetric heapSite = sites.get(1);
+        assertTrue(directSite.callSite().contains("testSampleEveryAllocation"));
+        assertFalse(directSite.callSite().contains(ProfilingByteBufAllocator.class.getName() + '.'));
+        assertEquals(1, directSite.numAllocations());
+        assertEquals(1, directSite.numDirectAllocations());
+        assertEquals(1000, directSite.numActiveBytes());
+        assertEquals(1, directSite.capacityHistogram()[10]);
+        assertEquals(1, heapSite.numActiveAllocations());
+        assertEquals(0, heapSite.numDirectAllocations());
+        assertEquals(1, heapSite.capacityHistogram()[7]);
+
+        assertTrue(buf.release());
+        assertTrue(buf2.release());
+        sites = allocator.allocationSites();
+        for (AllocationSiteMetric site: sites) {
+            assertEquals(1, site.numDeallocations());
+            assertEquals(0, site.numActiveAllocations());
+            assertEquals(0, site.numActiveBytes());
+            long lifetimes = 0;
+            for (long count: site.lifetimeHistogram()) {
+                lifetimes += count;
+            }
+            assertEquals(1, lifetimes);
+        }
+
+        allocator.reset();
+        assertTrue(allocator.allocationSites().isEmpty());
+    }
+
+    @Test
+    public void testReleaseViaDerivedBuffer() {
+        ProfilingByteBufAllocator allocator = new ProfilingByteBufAllocator(UnpooledByteBufAllocator.DEFAULT, 1);
+        ByteBuf buf = allocator.buffer(8).writeLong(1);
+        ByteBuf slice = buf.readSlice(4);
+        assertEquals(1, allocator.allocationSites().get(0).numActiveAllocations());
+        assertTrue(slice.release());
+        assertEquals(0, buf.refCnt());
+        assertEquals(0, allocator.allocationSites().get(0).numActiveAllocations());
+    }
+
+    @Test
+    public void testMaxCallSites() {
+        ProfilingByteBufAllocator allocator =
+                new ProfilingByteBufAllocator(UnpooledByteBufAllocator.DEFAULT, 1, 1, 1);
+        allocator.buffer(8).release();
+        allocator.buffer(8).release();
+        List<AllocationSiteMetric> sites = allocator.allocationSites();
+        assertEquals(2, sites.size());
+        assertEquals(1, sites.get(0).numAllocations());
+        assertEquals(1, sites.get(1).numAllocations());
+    }
+
+    @Test
+    public void testEmptyBufferIsNotSampled() {
+        ProfilingByteBufAllocator allocator = new ProfilingByteBufAllocator(UnpooledByteBufAllocator.DEFAULT, 1);
+        allocator.buffer(0, 0);
+        assertTrue(allocator.allocationSites().isEmpty());
+    }
+}
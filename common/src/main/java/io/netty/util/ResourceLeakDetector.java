@@ -245,7 +245,7 @@ public final class ResourceLeakDetector<T> {
             if (referent != null) {
                 Level level = getLevel();
                 if (level.ordinal() >= Level.ADVANCED.ordinal()) {
-                    creationRecord = newRecord(null, 3);
+                    creationRecord = newRecord(null, 3, Integer.MAX_VALUE);
                 } else {
                     creationRecord = null;
                 }
@@ -277,7 +277,7 @@ public final class ResourceLeakDetector<T> {
 
         private void record0(Object hint, int recordsToSkip) {
             if (creationRecord != null) {
-                String value = newRecord(hint, recordsToSkip);
+                String value = newRecord(hint, recordsToSkip, Integer.MAX_VALUE);
 
                 synchronized (lastRecords) {
                     int size = lastRecords.size();
@@ -346,10 +346,23 @@ public final class ResourceLeakDetector<T> {
             "io.netty.util.ReferenceCountUtil.touch(",
             "io.netty.buffer.AdvancedLeakAwareByteBuf.touch(",
             "io.netty.buffer.AbstractByteBufAllocator.toLeakAwareBuffer(",
-            "io.netty.buffer.AdvancedLeakAwareByteBuf.recordLeakNonRefCountingOperation("
+            "io.netty.buffer.AdvancedLeakAwareByteBuf.recordLeakNonRefCountingOperation(",
+            "io.netty.buffer.ProfilingByteBufAllocator."
     };
 
-    static String newRecord(Object hint, int recordsToSkip) {
+    /**
+     * Returns a record of the current call stack in the same format that is used for the access records of a leak
+     * report. At most {@code maxFrames} stack trace elements are included, not counting the ones that are stripped
+     * because they belong to the buffer and leak detection machinery.
+     */
+    public static String newCallSiteRecord(int maxFrames) {
+        if (maxFrames <= 0) {
+            throw new IllegalArgumentException("maxFrames: " + maxFrames + " (expected: 1+)");
+        }
+        return newRecord(null, 2, maxFrames);
+    }
+
+    static String newRecord(Object hint, int recordsToSkip, int maxFrames) {
         StringBuilder buf = new StringBuilder(4096);
 
         // Append the hint first if available.
@@ -385,6 +398,9 @@ public final class ResourceLeakDetector<T> {
                     buf.append('\t');
                     buf.append(estr);
                     buf.append(NEWLINE);
+                    if (-- maxFrames == 0) {
+                        break;
+                    }
                 }
             }
         }
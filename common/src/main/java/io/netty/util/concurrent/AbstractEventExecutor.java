@@ -159,4 +159,13 @@ public abstract class AbstractEventExecutor extends AbstractExecutorService impl
     public void close() throws Exception {
         shutdownGracefully().syncUninterruptibly();
     }
+
+    /**
+     * Marker interface for a {@link Runnable} that does not need to run right away. An {@link EventExecutor} does
+     * not need to wake up for it when it is passed to {@link #execute(Runnable)}, but may run it once it wakes up
+     * for another reason.
+     *
+     * @see SingleThreadEventExecutor#lazyExecute(Runnable)
+     */
+    public interface LazyRunnable extends Runnable { }
 }
@@ -664,6 +664,23 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
 
     @Override
     public void execute(Runnable task) {
+        execute(task, !(task instanceof LazyRunnable) && wakesUpForTask(task));
+    }
+
+    /**
+     * Adds the given task like {@link #execute(Runnable)}, but does not wake up this executor if it is waiting for
+     * work. The task runs once the executor wakes up for another reason, like I/O, another task or a scheduled
+     * task, so it may be delayed indefinitely if nothing else happens. This spares the cost of the wakeup for tasks
+     * that are not urgent, for example when many tasks are submitted from another thread in a row and only the last
+     * one needs to wake up the executor.
+     *
+     * @see LazyRunnable
+     */
+    public void lazyExecute(Runnable task) {
+        execute(task, false);
+    }
+
+    private void execute(Runnable task, boolean immediate) {
         if (task == null) {
             throw new NullPointerException("task");
         }
@@ -679,7 +696,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
             }
         }
 
-        if (!addTaskWakesUp && wakesUpForTask(task)) {
+        if (!addTaskWakesUp && immediate) {
             wakeup(inEventLoop);
         }
     }
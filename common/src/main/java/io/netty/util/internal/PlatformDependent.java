@@ -334,6 +334,10 @@ public final class PlatformDependent {
         return PlatformDependent0.getLong(address);
     }
 
+    public static long getLong(byte[] data, int index) {
+        return PlatformDependent0.getLong(data, index);
+    }
+
     public static void putOrderedObject(Object object, long address, Object value) {
         PlatformDependent0.putOrderedObject(object, address, value);
     }
@@ -239,6 +239,30 @@ final class PlatformDependent0 {
         }
     }
 
+    static long getLong(byte[] data, int index) {
+        if (UNALIGNED) {
+            return UNSAFE.getLong(data, ARRAY_BASE_OFFSET + index);
+        } else if (BIG_ENDIAN) {
+            return (long) data[index] << 56 |
+                  ((long) data[index + 1] & 0xff) << 48 |
+                  ((long) data[index + 2] & 0xff) << 40 |
+                  ((long) data[index + 3] & 0xff) << 32 |
+                  ((long) data[index + 4] & 0xff) << 24 |
+                  ((long) data[index + 5] & 0xff) << 16 |
+                  ((long) data[index + 6] & 0xff) <<  8 |
+                   (long) data[index + 7] & 0xff;
+        } else {
+            return (long) data[index + 7] << 56 |
+                  ((long) data[index + 6] & 0xff) << 48 |
+                  ((long) data[index + 5] & 0xff) << 40 |
+                  ((long) data[index + 4] & 0xff) << 32 |
+                  ((long) data[index + 3] & 0xff) << 24 |
+                  ((long) data[index + 2] & 0xff) << 16 |
+                  ((long) data[index + 1] & 0xff) <<  8 |
+                   (long) data[index] & 0xff;
+        }
+    }
+
     static void putOrderedObject(Object object, long address, Object value) {
         UNSAFE.putOrderedObject(object, address, value);
     }
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.flush;
+
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class FlushConsolidationHandlerTest {
+
+    @Test
+    public void testFlushViaReadComplete() {
+        AtomicInteger flushCount = new AtomicInteger();
+        EmbeddedChannel channel = newChannel(flushCount, new FlushConsolidationHandler());
+        // Flushes of all responses written while in the read loop are consolidated.
+        assertFalse(channel.writeInbound(1, 2, 3));
+        assertEquals(1, flushCount.get());
+        assertEquals(Integer.valueOf(1), channel.readOutbound());
+        assertEquals(Integer.valueOf(2), channel.readOutbound());
+        assertEquals(Integer.valueOf(3), channel.readOutbound());
+        assertNull(channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testFlushViaExplicitFlushAfterFlushesInReadLoop() {
+        AtomicInteger flushCount = new AtomicInteger();
+        EmbeddedChannel channel = newChannel(flushCount, new FlushConsolidationHandler(2));
+        channel.pipeline().fireChannelRead(1);
+        channel.pipeline().fireChannelRead(2);
+        assertEquals(1, flushCount.get());
+        channel.pipeline().fireChannelRead(3);
+        assertEquals(1, flushCount.get());
+        channel.pipeline().fireChannelReadComplete();
+        assertEquals(2, flushCount.get());
+        assertEquals(Integer.valueOf(1), channel.readOutbound());
+        assertEquals(Integer.valueOf(2), channel.readOutbound());
+        assertEquals(Integer.valueOf(3), channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testImmediateFlushWhenNoReadInProgress() {
+        AtomicInteger flushCount = new AtomicInteger();
+        EmbeddedChannel channel = newChannel(flushCount, new FlushConsolidationHandler());
+        channel.writeAndFlush(1);
+        assertEquals(1, flushCount.get());
+        assertEquals(Integer.valueOf(1), channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testConsolidateWhenNoReadInProgress() {
+        AtomicInteger flushCount = new AtomicInteger();
+        EmbeddedChannel channel = newChannel(flushCount, new FlushConsolidationHandler(2, true));
+        channel.writeAndFlush(1);
+        assertEquals(0, flushCount.get());
+        channel.writeAndFlush(2);
+        assertEquals(1, flushCount.get());
+        channel.writeAndFlush(3);
+        assertEquals(1, flushCount.get());
+        channel.runPendingTasks();
+        assertEquals(2, flushCount.get());
+        assertEquals(Integer.valueOf(1), channel.readOutbound());
+        assertEquals(Integer.valueOf(2), channel.readOutbound());
+        assertEquals(Integer.valueOf(3), channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testFlushAfterMaxFlushDelay() throws Exception {
+        AtomicInteger flushCount = new AtomicInteger();
+        EmbeddedChannel channel = newChannel(flushCount, new FlushConsolidationHandler(
+                FlushConsolidationHandler.DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES, 100, TimeUnit.MILLISECONDS));
+        channel.writeAndFlush(1);
+        channel.writeAndFlush(2);
+        channel.runPendingTasks();
+        assertEquals(0, flushCount.get());
+
+        Thread.sleep(200);
+        channel.runPendingTasks();
+        assertEquals(1, flushCount.get());
+        assertEquals(Integer.valueOf(1), channel.readOutbound());
+        assertEquals(Integer.valueOf(2), channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testFlushOnClose() {
+        AtomicInteger flushCount = new AtomicInteger();
+        EmbeddedChannel channel = newChannel(flushCount, new FlushConsolidationHandler());
+        channel.pipeline().fireChannelRead(1);
+        assertEquals(0, flushCount.get());
+        channel.close();
+        assertEquals(1, flushCount.get());
+        assertEquals(Integer.valueOf(1), channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testFlushOnRemove() {
+        AtomicInteger flushCount = new AtomicInteger();
+        EmbeddedChannel channel = newChannel(flushCount, new FlushConsolidationHandler());
+        channel.pipeline().fireChannelRead(1);
+        assertEquals(0, flushCount.get());
+        channel.pipeline().remove(FlushConsolidationHandler.class);
+        assertEquals(1, flushCount.get());
+        assertEquals(Integer.valueOf(1), channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    private static EmbeddedChannel newChannel(final AtomicInteger flushCount, FlushConsolidationHandler handler) {
+        return new EmbeddedChannel(
+                new ChannelHandlerAdapter() {
+                    @Override
+                    public void flush(ChannelHandlerContext ctx) throws Exception {
+                        flushCount.incrementAndGet();
+                        ctx.flush();
+                    }
+                },
+                handler,
+                new ChannelHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                        // Echo back every message
+                        ctx.writeAndFlush(msg);
+                    }
+                });
+    }
+}
@@ -19,6 +19,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.ByteProcessor;
 import io.netty.util.CharsetUtil;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Measurement;
@@ -43,6 +44,20 @@ public class
     private StringBuilder utf8Sequence;
     private String utf8;
 
+    // Buffers which contain a line of SEARCH_LENGTH bytes that is terminated by a CRLF and a NUL.
+    private static final int SEARCH_LENGTH = 1024;
+    private ByteBuf searchHeap;
+    private ByteBuf searchDirect;
+    // Buffers which start with SEARCH_LENGTH linear whitespaces.
+    private ByteBuf whitespaceHeap;
+    private ByteBuf whitespaceDirect;
+    private final ByteProcessor findCrlfByteAtATime = new ByteProcessor() {
+        @Override
+        public boolean process(byte value) throws Exception {
+            return value != '\r' && value != '\n';
+        }
+    };
+
     @Setup
     public void setup() {
         // Use buffer sizes that will also allow to write UTF-8 without grow the buffer
@@ -62,12 +77,28 @@ public class
         }
         utf8 = utf8Sequence.toString();
         asciiSequence = utf8Sequence;
+
+        searchHeap = newSearchBuffer(Unpooled.buffer(SEARCH_LENGTH + 3), 'a');
+        searchDirect = newSearchBuffer(Unpooled.directBuffer(SEARCH_LENGTH + 3), 'a');
+        whitespaceHeap = newSearchBuffer(Unpooled.buffer(SEARCH_LENGTH + 3), ' ');
+        whitespaceDirect = newSearchBuffer(Unpooled.directBuffer(SEARCH_LENGTH + 3), ' ');
+    }
+
+    private static ByteBuf newSearchBuffer(ByteBuf buffer, char c) {
+        for (int i = 0; i < SEARCH_LENGTH; i++) {
+            buffer.writeByte(c);
+        }
+        return buffer.writeByte('\r').writeByte('\n').writeByte(0);
     }
 
     @TearDown
     public void tearDown() {
         buffer.release();
         wrapped.release();
+        searchHeap.release();
+        searchDirect.release();
+        whitespaceHeap.release();
+        whitespaceDirect.release();
     }
 
     @Benchmark
@@ -165,4 +196,64 @@ public class
         wrapped.resetWriterIndex();
         ByteBufUtil.writeUtf8(wrapped, utf8Sequence);
     }
+
+    @Benchmark
+    public int findCrlfHeap() {
+        return searchHeap.forEachByte(ByteProcessor.FIND_CRLF);
+    }
+
+    @Benchmark
+    public int findCrlfDirect() {
+        return searchDirect.forEachByte(ByteProcessor.FIND_CRLF);
+    }
+
+    @Benchmark
+    public int findCrlfByteAtATimeHeap() {
+        return searchHeap.forEachByte(findCrlfByteAtATime);
+    }
+
+    @Benchmark
+    public int findCrlfByteAtATimeDirect() {
+        return searchDirect.forEachByte(findCrlfByteAtATime);
+    }
+
+    @Benchmark
+    public int findLfHeap() {
+        return searchHeap.forEachByte(ByteProcessor.FIND_LF);
+    }
+
+    @Benchmark
+    public int findLfDirect() {
+        return searchDirect.forEachByte(ByteProcessor.FIND_LF);
+    }
+
+    @Benchmark
+    public int findNulHeap() {
+        return searchHeap.forEachByte(ByteProcessor.FIND_NUL);
+    }
+
+    @Benchmark
+    public int findNulDirect() {
+        return searchDirect.forEachByte(ByteProcessor.FIND_NUL);
+    }
+
+    @Benchmark
+    public int findNonLinearWhitespaceHeap() {
+        return whitespaceHeap.forEachByte(ByteProcessor.FIND_NON_LINEAR_WHITESPACE);
+    }
+
+    @Benchmark
+    public int findNonLinearWhitespaceDirect() {
+        return whitespaceDirect.forEachByte(ByteProcessor.FIND_NON_LINEAR_WHITESPACE);
+    }
+
+    @Benchmark
+    public int indexOfHeap() {
+        return ByteBufUtil.indexOf(searchHeap, 0, searchHeap.writerIndex(), (byte) '\n');
+    }
+
+    @Benchmark
+    public int indexOfDirect() {
+        return ByteBufUtil.indexOf(searchDirect, 0, searchDirect.writerIndex(), (byte) '\n');
+    }
 }
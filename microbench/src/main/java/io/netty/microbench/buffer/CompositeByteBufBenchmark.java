@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class benchmarks a {@link CompositeByteBuf} that aggregates many small components, like the DATA frames of a
+ * HTTP/2 stream.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 10)
+@Measurement(iterations = 25)
+public class CompositeByteBufBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "16", "256", "4096" })
+    public int numComponents;
+
+    @Param({ "64" })
+    public int componentSize;
+
+    // The components are never released, so they can be added to as many composites as needed.
+    private ByteBuf[] components;
+    private CompositeByteBuf composite;
+
+    @Setup
+    public void setup() {
+        components = new ByteBuf[numComponents];
+        for (int i = 0; i < numComponents; i++) {
+            components[i] = Unpooled.unreleasableBuffer(Unpooled.directBuffer(componentSize).writeZero(componentSize));
+        }
+        composite = newComposite();
+        for (ByteBuf component: components) {
+            composite.addComponent(component);
+        }
+        composite.writerIndex(composite.capacity());
+    }
+
+    @TearDown
+    public void tearDown() {
+        composite.release();
+    }
+
+    private CompositeByteBuf newComposite() {
+        return Unpooled.compositeBuffer(Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public CompositeByteBuf addComponents() {
+        CompositeByteBuf buf = newComposite();
+        for (ByteBuf component: components) {
+            buf.addComponent(component);
+        }
+        buf.release();
+        return buf;
+    }
+
+    @Benchmark
+    public CompositeByteBuf addComponentsInMiddle() {
+        CompositeByteBuf buf = newComposite();
+        buf.addComponents(components[0], components[0]);
+        buf.addComponents(1, components);
+        buf.release();
+        return buf;
+    }
+
+    @Benchmark
+    public long sequentialGetByte() {
+        CompositeByteBuf buf = composite;
+        long sum = 0;
+        for (int i = 0, capacity = buf.capacity(); i < capacity; i++) {
+            sum += buf.getByte(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long sequentialGetLong() {
+        CompositeByteBuf buf = composite;
+        long sum = 0;
+        for (int i = 0, capacity = buf.capacity() - 7; i < capacity; i += 8) {
+            sum += buf.getLong(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public ByteBuffer[] nioBuffers() {
+        return composite.nioBuffers();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.Random;
+
+/**
+ * This class benchmarks the {@link PooledByteBufAllocator} when many threads share a single arena and so contend
+ * on its locks, using different numbers of arena stripes.
+ */
+@Threads(8)
+@State(Scope.Benchmark)
+public class PooledByteBufAllocatorContentionBenchmark extends AbstractMicrobenchmark {
+
+    private static final int MAX_LIVE_BUFFERS = 1024;
+
+    @Param({ "1", "2", "4", "8" })
+    public int stripes;
+
+    @Param({ "08192", "16384", "65536" })
+    public int size;
+
+    PooledByteBufAllocator allocator;
+
+    @State(Scope.Thread)
+    public static class LiveBuffers {
+        final Random rand = new Random();
+        final ByteBuf[] buffers = new ByteBuf[MAX_LIVE_BUFFERS];
+
+        @TearDown
+        public void releaseBuffers() {
+            for (int i = 0; i < buffers.length; i ++) {
+                ByteBuf buf = buffers[i];
+                if (buf != null) {
+                    buf.release();
+                    buffers[i] = null;
+                }
+            }
+        }
+    }
+
+    @Setup
+    public void setup() {
+        // Use only one arena and disable the thread-local cache so all threads contend on the arena.
+        allocator = new PooledByteBufAllocator(true, 1, 1, 8192, 11, 0, 0, 0,
+                new PooledByteBufAllocator.Options().arenaStripes(stripes));
+    }
+
+    @Benchmark
+    public void pooledHeapAllocAndFree(LiveBuffers live) {
+        int idx = live.rand.nextInt(live.buffers.length);
+        ByteBuf oldBuf = live.buffers[idx];
+        if (oldBuf != null) {
+            oldBuf.release();
+        }
+        live.buffers[idx] = allocator.heapBuffer(size);
+    }
+
+    @Benchmark
+    public void pooledDirectAllocAndFree(LiveBuffers live) {
+        int idx = live.rand.nextInt(live.buffers.length);
+        ByteBuf oldBuf = live.buffers[idx];
+        if (oldBuf != null) {
+            oldBuf.release();
+        }
+        live.buffers[idx] = allocator.directBuffer(size);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.NetUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class benchmarks the round trip latency of a one byte message over a loopback TCP connection between two
+ * epoll event loops, with and without spinning before the event loops block. The sampling mode reports the latency
+ * percentiles, whose tail is what spinning and pinning the event loop threads to CPUs improve.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EpollSocketPingPongBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "0", "50000" })
+    public long spinNanos;
+
+    /**
+     * The CPU to pin the server event loop to, the client event loop is pinned to the next one. {@code -1} does not
+     * pin the event loops.
+     */
+    @Param({ "-1" })
+    public int cpuAffinity;
+
+    private EpollEventLoopGroup serverGroup;
+    private EpollEventLoopGroup clientGroup;
+    private Channel serverChannel;
+    private Channel clientChannel;
+    private long sent;
+    private volatile long received;
+
+    @Setup
+    public void setup() throws Exception {
+        serverGroup = new EpollEventLoopGroup(1);
+        clientGroup = new EpollEventLoopGroup(1);
+        serverGroup.setSpinNanos(spinNanos);
+        clientGroup.setSpinNanos(spinNanos);
+        if (cpuAffinity >= 0) {
+            serverGroup.setCpuAffinity(cpuAffinity);
+            clientGroup.setCpuAffinity(cpuAffinity + 1);
+        }
+
+        serverChannel = new ServerBootstrap()
+                .group(serverGroup)
+                .channel(EpollServerSocketChannel.class)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        // Echo the ping back.
+                        ctx.writeAndFlush(msg);
+                    }
+                })
+                .bind(new InetSocketAddress(NetUtil.LOCALHOST, 0)).sync().channel();
+
+        clientChannel = new Bootstrap()
+                .group(clientGroup)
+                .channel(EpollSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .handler(new ChannelHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ByteBuf buf = (ByteBuf) msg;
+                        // Only written by the event loop.
+                        received += buf.readableBytes();
+                        buf.release();
+                    }
+                })
+                .connect(serverChannel.localAddress()).sync().channel();
+    }
+
+    @TearDown
+    public void teardown() throws Exception {
+        clientChannel.close().sync();
+        serverChannel.close().sync();
+        clientGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        serverGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+    }
+
+    @Benchmark
+    public void pingPong() {
+        final long expected = ++ sent;
+        clientChannel.writeAndFlush(clientChannel.alloc().directBuffer(1).writeByte(1));
+        // Spin instead of blocking so the benchmark thread does not add the latency of waking it up.
+        while (received < expected) {
+            Thread.yield();
+        }
+    }
+}
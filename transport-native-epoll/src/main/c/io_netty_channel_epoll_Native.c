@@ -20,9 +20,12 @@
 #include <errno.h>
 #include <sys/epoll.h>
 #include <sys/eventfd.h>
+#include <sys/timerfd.h>
 #include <sys/sendfile.h>
 #include <sys/un.h>
 #include <linux/tcp.h> // TCP_NOTSENT_LOWAT is a linux specific define
+#include <linux/errqueue.h>
+#include <linux/filter.h>
 #include <netinet/in.h>
 #include <sys/types.h>
 #include <sys/socket.h>
@@ -34,6 +37,7 @@
 #include <stddef.h>
 #include <limits.h>
 #include <inttypes.h>
+#include <sched.h>
 #include "io_netty_channel_epoll_Native.h"
 #include "exception_helper.h"
 
@@ -56,6 +60,76 @@
 #endif
 #endif
 
+// UDP_SEGMENT is defined in linux 4.18 and UDP_GRO in linux 5.0. We define these here so older kernels can compile.
+#ifndef SOL_UDP
+#define SOL_UDP 17
+#endif
+
+#ifndef UDP_SEGMENT
+#define UDP_SEGMENT 103
+#endif
+
+#ifndef UDP_GRO
+#define UDP_GRO 104
+#endif
+
+// SO_BUSY_POLL is defined in linux 3.11 and SO_INCOMING_CPU in linux 3.19.
+#ifndef SO_BUSY_POLL
+#define SO_BUSY_POLL 46
+#endif
+
+#ifndef SO_INCOMING_CPU
+#define SO_INCOMING_CPU 49
+#endif
+
+// SO_ZEROCOPY and MSG_ZEROCOPY are defined in linux 4.14.
+#ifndef SO_ZEROCOPY
+#define SO_ZEROCOPY 60
+#endif
+
+#ifndef MSG_ZEROCOPY
+#define MSG_ZEROCOPY 0x4000000
+#endif
+
+#ifndef SO_EE_ORIGIN_ZEROCOPY
+#define SO_EE_ORIGIN_ZEROCOPY 5
+#endif
+
+#ifndef SO_EE_CODE_ZEROCOPY_COPIED
+#define SO_EE_CODE_ZEROCOPY_COPIED 1
+#endif
+
+// TCP_ULP and the kernel TLS options are defined in linux 4.13 (TLS_RX in linux 4.17).
+#ifndef TCP_ULP
+#define TCP_ULP 31
+#endif
+
+#ifndef SOL_TLS
+#define SOL_TLS 282
+#endif
+
+#ifndef TLS_TX
+#define TLS_TX 1
+#endif
+
+#ifndef TLS_RX
+#define TLS_RX 2
+#endif
+
+// SO_ATTACH_REUSEPORT_CBPF is defined in linux 4.5.
+#ifndef SO_ATTACH_REUSEPORT_CBPF
+#define SO_ATTACH_REUSEPORT_CBPF 51
+#endif
+
+// The size of each remote address in the array filled by acceptBatch0, see EpollServerSocketUnsafe.
+#define ACCEPTED_ADDRESS_SIZE 26
+// Keep in sync with Native.DOMAIN_DATAGRAM_META_SIZE and Native.DOMAIN_DATAGRAM_ADDRESS_SIZE.
+#define DOMAIN_DATAGRAM_META_SIZE 7
+#define DOMAIN_DATAGRAM_ADDRESS_SIZE 109
+
+// struct tls_crypto_info followed by the largest iv, key, salt and rec_seq of the supported ciphers.
+#define TLS_CRYPTO_INFO_MAX_SIZE (4 + 12 + 32 + 4 + 8)
+
 /**
  * On older Linux kernels, epoll can't handle timeout
  * values bigger than (LONG_MAX - 999ULL)/HZ.
@@ -79,6 +153,8 @@ struct mmsghdr {
     struct msghdr msg_hdr;  /* Message header */
     unsigned int  msg_len;  /* Number of bytes transmitted */
 };
+
+extern int recvmmsg(int sockfd, struct mmsghdr* msgvec, unsigned int vlen, int flags, struct timespec* timeout) __attribute__((weak));
 #endif
 #endif
 
@@ -98,6 +174,8 @@ jfieldID packetScopeIdFieldId = NULL;
 jfieldID packetPortFieldId = NULL;
 jfieldID packetMemoryAddressFieldId = NULL;
 jfieldID packetCountFieldId = NULL;
+jfieldID packetSenderFieldId = NULL;
+jfieldID packetSegmentSizeFieldId = NULL;
 
 jmethodID inetSocketAddrMethodId = NULL;
 jmethodID datagramSocketAddrMethodId = NULL;
@@ -314,7 +392,7 @@ static jbyteArray createInetSocketAddressArray(JNIEnv* env, const struct sockadd
     return bArray;
 }
 
-static jobject createDatagramSocketAddress(JNIEnv* env, const struct sockaddr_storage* addr, int len) {
+static jobject createDatagramSocketAddress(JNIEnv* env, const struct sockaddr_storage* addr, int len, int segmentSize) {
     char ipstr[INET6_ADDRSTRLEN];
     int port;
     jstring ipString;
@@ -339,7 +417,7 @@ static jobject createDatagramSocketAddress(JNIEnv* env, const struct sockaddr_st
             ipString = (*env)->NewStringUTF(env, ipstr);
         }
     }
-    jobject socketAddr = (*env)->NewObject(env, datagramSocketAddressClass, datagramSocketAddrMethodId, ipString, port, len);
+    jobject socketAddr = (*env)->NewObject(env, datagramSocketAddressClass, datagramSocketAddrMethodId, ipString, port, len, segmentSize);
     return socketAddr;
 }
 
@@ -616,7 +694,7 @@ jint JNI_OnLoad(JavaVM* vm, void* reserved) {
         }
         socketType = socket_type(env);
 
-        datagramSocketAddrMethodId = (*env)->GetMethodID(env, datagramSocketAddressClass, "<init>", "(Ljava/lang/String;II)V");
+        datagramSocketAddrMethodId = (*env)->GetMethodID(env, datagramSocketAddressClass, "<init>", "(Ljava/lang/String;III)V");
         if (datagramSocketAddrMethodId == NULL) {
             throwRuntimeException(env, "failed to get method ID: DatagramSocketAddress.<init>(String, int, int)");
             return JNI_ERR;
@@ -654,6 +732,17 @@ jint JNI_OnLoad(JavaVM* vm, void* reserved) {
             return JNI_ERR;
         }
 
+        packetSenderFieldId = (*env)->GetFieldID(env, nativeDatagramPacketCls, "sender", "Lio/netty/channel/epoll/EpollDatagramChannel$DatagramSocketAddress;");
+        if (packetSenderFieldId == NULL) {
+            throwRuntimeException(env, "failed to get field ID: NativeDatagramPacket.sender");
+            return JNI_ERR;
+        }
+        packetSegmentSizeFieldId = (*env)->GetFieldID(env, nativeDatagramPacketCls, "segmentSize", "I");
+        if (packetSegmentSizeFieldId == NULL) {
+            throwRuntimeException(env, "failed to get field ID: NativeDatagramPacket.segmentSize");
+            return JNI_ERR;
+        }
+
         return JNI_VERSION_1_6;
     }
 }
@@ -717,6 +806,53 @@ JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_eventFdRead(JNIEnv* en
     }
 }
 
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_timerFd(JNIEnv* env, jclass clazz) {
+    jint timerFD = timerfd_create(CLOCK_MONOTONIC, TFD_CLOEXEC | TFD_NONBLOCK);
+
+    if (timerFD < 0) {
+        int err = errno;
+        throwChannelExceptionErrorNo(env, "timerfd_create() failed: ", err);
+    }
+    return timerFD;
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_timerFdSetTime(JNIEnv* env, jclass clazz, jint fd, jint tvSec, jint tvNsec) {
+    struct itimerspec ts;
+    memset(&ts.it_interval, 0, sizeof(struct timespec));
+    ts.it_value.tv_sec = tvSec;
+    ts.it_value.tv_nsec = tvNsec;
+    if (timerfd_settime(fd, 0, &ts, NULL) < 0) {
+        int err = errno;
+        throwChannelExceptionErrorNo(env, "timerfd_settime() failed: ", err);
+    }
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_timerFdRead(JNIEnv* env, jclass clazz, jint fd) {
+    uint64_t timerFireCount;
+
+    if (read(fd, &timerFireCount, sizeof(uint64_t)) < 0) {
+        int err = errno;
+        // EAGAIN is fine as the timer may have been re-armed since it fired.
+        if (err != EAGAIN) {
+            throwChannelExceptionErrorNo(env, "read() of timerfd failed: ", err);
+        }
+    }
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_setCpuAffinity0(JNIEnv* env, jclass clazz, jint cpu) {
+    if (cpu < 0 || cpu >= CPU_SETSIZE) {
+        return -EINVAL;
+    }
+    cpu_set_t set;
+    CPU_ZERO(&set);
+    CPU_SET(cpu, &set);
+    // A pid of 0 applies the mask to the calling thread only.
+    if (sched_setaffinity(0, sizeof(set), &set) < 0) {
+        return -errno;
+    }
+    return 0;
+}
+
 JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_epollCreate(JNIEnv* env, jclass clazz) {
     jint efd;
     if (epoll_create1) {
@@ -819,6 +955,62 @@ JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_writeAddress0(JNIEnv*
     return _write(env, clazz, fd, (void*) address, pos, limit);
 }
 
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_sendAddressZerocopy0(JNIEnv* env, jclass clazz, jint fd, jlong address, jint pos, jint limit) {
+    ssize_t res;
+    int err;
+    do {
+       res = send(fd, ((void*) address) + pos, (size_t) (limit - pos), MSG_ZEROCOPY);
+       // keep on writing if it was interrupted
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        return -err;
+    }
+    return (jint) res;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_recvZerocopyCompletion0(JNIEnv* env, jclass clazz, jint fd, jintArray range) {
+    char control[CMSG_SPACE(sizeof(struct sock_extended_err)) + 64];
+    struct msghdr msg;
+    struct cmsghdr* cmsg;
+
+    for (;;) {
+        memset(&msg, 0, sizeof(struct msghdr));
+        msg.msg_control = control;
+        msg.msg_controllen = sizeof(control);
+
+        ssize_t res;
+        int err;
+        do {
+            res = recvmsg(fd, &msg, MSG_ERRQUEUE);
+            // keep on reading if it was interrupted
+        } while (res == -1 && ((err = errno) == EINTR));
+
+        if (res < 0) {
+            return -err;
+        }
+
+        for (cmsg = CMSG_FIRSTHDR(&msg); cmsg != NULL; cmsg = CMSG_NXTHDR(&msg, cmsg)) {
+            if (!((cmsg->cmsg_level == SOL_IP && cmsg->cmsg_type == IP_RECVERR) ||
+                    (cmsg->cmsg_level == SOL_IPV6 && cmsg->cmsg_type == IPV6_RECVERR))) {
+                continue;
+            }
+            struct sock_extended_err* serr = (struct sock_extended_err*) CMSG_DATA(cmsg);
+            if (serr->ee_errno != 0 || serr->ee_origin != SO_EE_ORIGIN_ZEROCOPY) {
+                continue;
+            }
+            // The notification covers all sends with MSG_ZEROCOPY from ee_info to ee_data (both inclusive).
+            jint values[3];
+            values[0] = (jint) serr->ee_info;
+            values[1] = (jint) serr->ee_data;
+            values[2] = (serr->ee_code & SO_EE_CODE_ZEROCOPY_COPIED) ? 1 : 0;
+            (*env)->SetIntArrayRegion(env, range, 0, 3, values);
+            return 1;
+        }
+        // Not a MSG_ZEROCOPY notification, so just drop it and try the next one.
+    }
+}
+
 static inline jint _sendTo(JNIEnv* env, jint fd, void* buffer, jint pos, jint limit, jbyteArray address, jint scopeId, jint port) {
     struct sockaddr_storage addr;
     if (init_sockaddr(env, address, scopeId, port, &addr) == -1) {
@@ -879,27 +1071,42 @@ JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_sendToAddresses(JNIEnv
 
 JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_sendmmsg0(JNIEnv* env, jclass clazz, jint fd, jobjectArray packets, jint offset, jint len) {
     struct mmsghdr msg[len];
+    struct sockaddr_storage addr[len];
+    char control[len][CMSG_SPACE(sizeof(uint16_t))];
     int i;
 
     memset(msg, 0, sizeof(msg));
+    memset(control, 0, sizeof(control));
 
     for (i = 0; i < len; i++) {
-        struct sockaddr_storage addr;
-
         jobject packet = (*env)->GetObjectArrayElement(env, packets, i + offset);
         jbyteArray address = (jbyteArray) (*env)->GetObjectField(env, packet, packetAddrFieldId);
         jint scopeId = (*env)->GetIntField(env, packet, packetScopeIdFieldId);
         jint port = (*env)->GetIntField(env, packet, packetPortFieldId);
 
-        if (init_sockaddr(env, address, scopeId, port, &addr) == -1) {
+        jint segmentSize = (*env)->GetIntField(env, packet, packetSegmentSizeFieldId);
+
+        if (init_sockaddr(env, address, scopeId, port, &addr[i]) == -1) {
             return -1;
         }
 
-        msg[i].msg_hdr.msg_name = &addr;
-        msg[i].msg_hdr.msg_namelen = sizeof(addr);
+        msg[i].msg_hdr.msg_name = &addr[i];
+        msg[i].msg_hdr.msg_namelen = sizeof(addr[i]);
 
         msg[i].msg_hdr.msg_iov = (struct iovec*) (*env)->GetLongField(env, packet, packetMemoryAddressFieldId);
-        msg[i].msg_hdr.msg_iovlen = (*env)->GetIntField(env, packet, packetCountFieldId);;
+        msg[i].msg_hdr.msg_iovlen = (*env)->GetIntField(env, packet, packetCountFieldId);
+
+        if (segmentSize > 0) {
+            // Let the kernel (or the NIC) split the payload into datagrams of segmentSize bytes.
+            struct cmsghdr* cm;
+            msg[i].msg_hdr.msg_control = control[i];
+            msg[i].msg_hdr.msg_controllen = sizeof(control[i]);
+            cm = CMSG_FIRSTHDR(&msg[i].msg_hdr);
+            cm->cmsg_level = SOL_UDP;
+            cm->cmsg_type = UDP_SEGMENT;
+            cm->cmsg_len = CMSG_LEN(sizeof(uint16_t));
+            *((uint16_t*) CMSG_DATA(cm)) = (uint16_t) segmentSize;
+        }
     }
 
     ssize_t res;
@@ -915,6 +1122,51 @@ JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_sendmmsg0(JNIEnv* env,
     return (jint) res;
 }
 
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_recvmmsg0(JNIEnv* env, jclass clazz, jint fd, jobjectArray packets, jint offset, jint len) {
+    struct mmsghdr msg[len];
+    struct sockaddr_storage addr[len];
+    int i;
+
+    memset(msg, 0, sizeof(msg));
+
+    for (i = 0; i < len; i++) {
+        jobject packet = (*env)->GetObjectArrayElement(env, packets, i + offset);
+
+        msg[i].msg_hdr.msg_name = &addr[i];
+        msg[i].msg_hdr.msg_namelen = (socklen_t) sizeof(struct sockaddr_storage);
+
+        msg[i].msg_hdr.msg_iov = (struct iovec*) (*env)->GetLongField(env, packet, packetMemoryAddressFieldId);
+        msg[i].msg_hdr.msg_iovlen = (*env)->GetIntField(env, packet, packetCountFieldId);
+
+        (*env)->DeleteLocalRef(env, packet);
+    }
+
+    ssize_t res;
+    int err;
+    do {
+       res = recvmmsg(fd, msg, len, 0, NULL);
+       // Keep on reading if we was interrupted
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        return -err;
+    }
+
+    for (i = 0; i < res; i++) {
+        jobject sender = createDatagramSocketAddress(env, &addr[i], msg[i].msg_len, 0);
+        if (sender == NULL) {
+            // pending exception...
+            return -1;
+        }
+        jobject packet = (*env)->GetObjectArrayElement(env, packets, i + offset);
+        (*env)->SetObjectField(env, packet, packetSenderFieldId, sender);
+
+        (*env)->DeleteLocalRef(env, packet);
+        (*env)->DeleteLocalRef(env, sender);
+    }
+    return (jint) res;
+}
+
 static inline jobject recvFrom0(JNIEnv* env, jint fd, void* buffer, jint pos, jint limit) {
     struct sockaddr_storage addr;
     socklen_t addrlen = sizeof(addr);
@@ -939,7 +1191,62 @@ static inline jobject recvFrom0(JNIEnv* env, jint fd, void* buffer, jint pos, ji
         return NULL;
     }
 
-    return createDatagramSocketAddress(env, &addr, res);
+    return createDatagramSocketAddress(env, &addr, res, 0);
+}
+
+static inline jobject recvFromGro0(JNIEnv* env, jint fd, void* buffer, jint pos, jint limit) {
+    struct sockaddr_storage addr;
+    struct iovec iov;
+    struct msghdr msg;
+    struct cmsghdr* cm;
+    char control[CMSG_SPACE(sizeof(int))];
+    int segmentSize = 0;
+    ssize_t res;
+    int err;
+
+    memset(&msg, 0, sizeof(msg));
+    iov.iov_base = buffer + pos;
+    iov.iov_len = (size_t) (limit - pos);
+    msg.msg_name = &addr;
+    msg.msg_namelen = (socklen_t) sizeof(addr);
+    msg.msg_iov = &iov;
+    msg.msg_iovlen = 1;
+    msg.msg_control = control;
+    msg.msg_controllen = sizeof(control);
+
+    do {
+        res = recvmsg(fd, &msg, 0);
+        // Keep on reading if we was interrupted
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        if (err == EAGAIN || err == EWOULDBLOCK) {
+            // Nothing left to read
+            return NULL;
+        }
+        if (err == EBADF) {
+            throwClosedChannelException(env);
+            return NULL;
+        }
+        throwIOExceptionErrorNo(env, "recvmsg() failed: ", err);
+        return NULL;
+    }
+
+    if (msg.msg_flags & MSG_TRUNC) {
+        // The buffer was too small for the coalesced datagrams, so the last segments are incomplete. As we can not
+        // tell which segment was cut off the whole read must be dropped.
+        throwIOException(env, "recvmsg() failed: coalesced datagrams were truncated, receive buffer too small");
+        return NULL;
+    }
+
+    // The kernel only adds the control message if it coalesced more than one datagram.
+    for (cm = CMSG_FIRSTHDR(&msg); cm != NULL; cm = CMSG_NXTHDR(&msg, cm)) {
+        if (cm->cmsg_level == SOL_UDP && cm->cmsg_type == UDP_GRO) {
+            segmentSize = *((int*) CMSG_DATA(cm));
+            break;
+        }
+    }
+    return createDatagramSocketAddress(env, &addr, res, segmentSize);
 }
 
 JNIEXPORT jobject JNICALL Java_io_netty_channel_epoll_Native_recvFrom(JNIEnv* env, jclass clazz, jint fd, jobject jbuffer, jint pos, jint limit) {
@@ -956,6 +1263,20 @@ JNIEXPORT jobject JNICALL Java_io_netty_channel_epoll_Native_recvFromAddress(JNI
     return recvFrom0(env, fd, (void*) address, pos, limit);
 }
 
+JNIEXPORT jobject JNICALL Java_io_netty_channel_epoll_Native_recvFromGro(JNIEnv* env, jclass clazz, jint fd, jobject jbuffer, jint pos, jint limit) {
+    void* buffer = (*env)->GetDirectBufferAddress(env, jbuffer);
+    if (buffer == NULL) {
+        throwRuntimeException(env, "failed to get direct buffer address");
+        return NULL;
+    }
+
+    return recvFromGro0(env, fd, buffer, pos, limit);
+}
+
+JNIEXPORT jobject JNICALL Java_io_netty_channel_epoll_Native_recvFromAddressGro(JNIEnv* env, jclass clazz, jint fd, jlong address, jint pos, jint limit) {
+    return recvFromGro0(env, fd, (void*) address, pos, limit);
+}
+
 static inline jlong _writev(JNIEnv* env, jclass clazz, jint fd, struct iovec* iov, jint length) {
     ssize_t res;
     int err;
@@ -1050,6 +1371,14 @@ JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_close0(JNIEnv* env, jc
    return 0;
 }
 
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_dup0(JNIEnv* env, jclass clazz, jint fd) {
+    int res = fcntl(fd, F_DUPFD_CLOEXEC, 0);
+    if (res < 0) {
+        return -errno;
+    }
+    return res;
+}
+
 JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_shutdown0(JNIEnv* env, jclass clazz, jint fd, jboolean read, jboolean write) {
     int mode;
     if (read && write) {
@@ -1147,17 +1476,16 @@ JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_finishConnect0(JNIEnv*
     return -optval;
 }
 
-JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_accept0(JNIEnv* env, jclass clazz, jint fd, jbyteArray acceptedAddress) {
+static jint acceptNonBlocking(jint fd, struct sockaddr_storage* addr) {
     jint socketFd;
     int err;
-    struct sockaddr_storage addr;
-    socklen_t address_len = sizeof(addr);
+    socklen_t address_len = sizeof(*addr);
 
     do {
         if (accept4) {
-            socketFd = accept4(fd, (struct sockaddr*) &addr, &address_len, SOCK_NONBLOCK | SOCK_CLOEXEC);
+            socketFd = accept4(fd, (struct sockaddr*) addr, &address_len, SOCK_NONBLOCK | SOCK_CLOEXEC);
         } else  {
-            socketFd = accept(fd, (struct sockaddr*) &addr, &address_len);
+            socketFd = accept(fd, (struct sockaddr*) addr, &address_len);
         }
     } while (socketFd == -1 && ((err = errno) == EINTR));
 
@@ -1165,24 +1493,75 @@ JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_accept0(JNIEnv* env, j
         return -err;
     }
 
+    if (!accept4)  {
+        // accept4 was not present so need two more sys-calls ...
+        if (fcntl(socketFd, F_SETFD, FD_CLOEXEC) == -1 || fcntl(socketFd, F_SETFL, O_NONBLOCK) == -1) {
+            err = errno;
+            close(socketFd);
+            return -err;
+        }
+    }
+    return socketFd;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_accept0(JNIEnv* env, jclass clazz, jint fd, jbyteArray acceptedAddress) {
+    struct sockaddr_storage addr;
+    jint socketFd = acceptNonBlocking(fd, &addr);
+    if (socketFd < 0) {
+        return socketFd;
+    }
+
     int len = addressLength(&addr);
 
     // Fill in remote address details
     (*env)->SetByteArrayRegion(env, acceptedAddress, 0, 4, (jbyte*) &len);
     initInetSocketAddressArray(env, &addr, acceptedAddress, 1, len);
+    return socketFd;
+}
 
-    if (accept4)  {
-        return socketFd;
-    } else  {
-        // accept4 was not present so need two more sys-calls ...
-        if (fcntl(socketFd, F_SETFD, FD_CLOEXEC) == -1) {
-            return -errno;
-        }
-        if (fcntl(socketFd, F_SETFL, O_NONBLOCK) == -1) {
-            return -errno;
-        }
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_acceptBatch0(JNIEnv* env, jclass clazz, jint fd, jintArray acceptedFds, jbyteArray acceptedAddresses) {
+    // The last slot is reserved for the result of the accept call which stopped the batch.
+    jint max = (*env)->GetArrayLength(env, acceptedFds) - 1;
+    jint fds[max + 1];
+    struct sockaddr_storage addr;
+    jint accepted = 0;
+    jint res = 0;
+
+    while (accepted < max) {
+        res = acceptNonBlocking(fd, &addr);
+        if (res < 0) {
+            break;
+        }
+        fds[accepted] = res;
+
+        // Fill in remote address details, prefixed by their length.
+        jbyte len = (jbyte) addressLength(&addr);
+        int offset = accepted * ACCEPTED_ADDRESS_SIZE;
+        (*env)->SetByteArrayRegion(env, acceptedAddresses, offset, 1, &len);
+        initInetSocketAddressArray(env, &addr, acceptedAddresses, offset + 1, len);
+        accepted++;
+    }
+    // Store the result of the accept call which stopped the batch after the accepted file descriptors.
+    fds[accepted] = res;
+    (*env)->SetIntArrayRegion(env, acceptedFds, 0, accepted + 1, fds);
+    return accepted;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_attachReusePortCpuSteering0(JNIEnv* env, jclass clazz, jint fd, jint groupSize) {
+    // Select the socket of the SO_REUSEPORT group with the index (cpu % groupSize), where cpu is the CPU which
+    // processes the incoming packet.
+    struct sock_filter code[] = {
+        { BPF_LD | BPF_W | BPF_ABS, 0, 0, SKF_AD_OFF + SKF_AD_CPU },
+        { BPF_ALU | BPF_MOD | BPF_K, 0, 0, (uint32_t) groupSize },
+        { BPF_RET | BPF_A, 0, 0, 0 }
+    };
+    struct sock_fprog prog;
+    prog.len = sizeof(code) / sizeof(code[0]);
+    prog.filter = code;
+    if (setsockopt(fd, SOL_SOCKET, SO_ATTACH_REUSEPORT_CBPF, &prog, sizeof(prog)) == -1) {
+        return -errno;
     }
-    return socketFd;
+    return 0;
 }
 
 JNIEXPORT jlong JNICALL Java_io_netty_channel_epoll_Native_sendfile0(JNIEnv* env, jclass clazz, jint fd, jobject fileRegion, jlong base_off, jlong off, jlong len) {
@@ -1248,6 +1627,30 @@ JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_setReusePort(JNIEnv* e
     setOption(env, fd, SOL_SOCKET, SO_REUSEPORT, &optval, sizeof(optval));
 }
 
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_setUdpSegment(JNIEnv* env, jclass clazz, jint fd, jint optval) {
+    setOption(env, fd, SOL_UDP, UDP_SEGMENT, &optval, sizeof(optval));
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_setUdpGro(JNIEnv* env, jclass clazz, jint fd, jint optval) {
+    setOption(env, fd, SOL_UDP, UDP_GRO, &optval, sizeof(optval));
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_setSoBusyPoll(JNIEnv* env, jclass clazz, jint fd, jint optval) {
+    setOption(env, fd, SOL_SOCKET, SO_BUSY_POLL, &optval, sizeof(optval));
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_setSoIncomingCpu(JNIEnv* env, jclass clazz, jint fd, jint optval) {
+    setOption(env, fd, SOL_SOCKET, SO_INCOMING_CPU, &optval, sizeof(optval));
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_setSoPassCred(JNIEnv* env, jclass clazz, jint fd, jint optval) {
+    setOption(env, fd, SOL_SOCKET, SO_PASSCRED, &optval, sizeof(optval));
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_setSoZerocopy(JNIEnv* env, jclass clazz, jint fd, jint optval) {
+    setOption(env, fd, SOL_SOCKET, SO_ZEROCOPY, &optval, sizeof(optval));
+}
+
 JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_setTcpNoDelay(JNIEnv* env, jclass clazz, jint fd, jint optval) {
     setOption(env, fd, IPPROTO_TCP, TCP_NODELAY, &optval, sizeof(optval));
 }
@@ -1332,6 +1735,92 @@ JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_isReusePort(JNIEnv* en
     return optval;
 }
 
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_getUdpSegment(JNIEnv* env, jclass clazz, jint fd) {
+    int optval;
+    if (getOption(env, fd, SOL_UDP, UDP_SEGMENT, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_getSoBusyPoll(JNIEnv* env, jclass clazz, jint fd) {
+    int optval;
+    if (getOption(env, fd, SOL_SOCKET, SO_BUSY_POLL, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_getSoPassCred(JNIEnv* env, jclass clazz, jint fd) {
+    int optval;
+    if (getOption(env, fd, SOL_SOCKET, SO_PASSCRED, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_isSeqPacket(JNIEnv* env, jclass clazz, jint fd) {
+    int optval;
+    if (getOption(env, fd, SOL_SOCKET, SO_TYPE, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval == SOCK_SEQPACKET ? 1 : 0;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_getSoIncomingCpu(JNIEnv* env, jclass clazz, jint fd) {
+    int optval;
+    if (getOption(env, fd, SOL_SOCKET, SO_INCOMING_CPU, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_setTcpUlpTls0(JNIEnv* env, jclass clazz, jint fd) {
+    if (setsockopt(fd, SOL_TCP, TCP_ULP, "tls", sizeof("tls")) < 0) {
+        return -errno;
+    }
+    return 0;
+}
+
+static inline int copyTlsCryptoInfoBytes(JNIEnv* env, jbyteArray bytes, unsigned char* info, int offset) {
+    jsize len = (*env)->GetArrayLength(env, bytes);
+    (*env)->GetByteArrayRegion(env, bytes, 0, len, (jbyte*) info + offset);
+    return offset + len;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_setTlsCryptoInfo0(JNIEnv* env, jclass clazz, jint fd, jboolean tx, jint version, jint cipher, jbyteArray key, jbyteArray iv, jbyteArray salt, jbyteArray recSeq) {
+    // All struct tls12_crypto_info_* structures consist of the version and the cipher type followed by the iv, key,
+    // salt and rec_seq arrays without any padding, so we can fill them in generically.
+    unsigned char info[TLS_CRYPTO_INFO_MAX_SIZE];
+    uint16_t versionAndCipher[2];
+    versionAndCipher[0] = (uint16_t) version;
+    versionAndCipher[1] = (uint16_t) cipher;
+    memcpy(info, versionAndCipher, sizeof(versionAndCipher));
+
+    int len = sizeof(versionAndCipher);
+    len = copyTlsCryptoInfoBytes(env, iv, info, len);
+    len = copyTlsCryptoInfoBytes(env, key, info, len);
+    len = copyTlsCryptoInfoBytes(env, salt, info, len);
+    len = copyTlsCryptoInfoBytes(env, recSeq, info, len);
+
+    int res = setsockopt(fd, SOL_TLS, tx == JNI_TRUE ? TLS_TX : TLS_RX, info, len);
+    int err = errno;
+    // Do not leave the keys on the stack.
+    memset(info, 0, sizeof(info));
+    if (res < 0) {
+        return -err;
+    }
+    return 0;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_isSoZerocopy(JNIEnv* env, jclass clazz, jint fd) {
+    int optval;
+    if (getOption(env, fd, SOL_SOCKET, SO_ZEROCOPY, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval;
+}
+
 JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_isTcpNoDelay(JNIEnv* env, jclass clazz, jint fd) {
     int optval;
     if (getOption(env, fd, IPPROTO_TCP, TCP_NODELAY, &optval, sizeof(optval)) == -1) {
@@ -1517,6 +2006,34 @@ JNIEXPORT jboolean JNICALL Java_io_netty_channel_epoll_Native_isSupportingSendmm
     return JNI_FALSE;
 }
 
+JNIEXPORT jboolean JNICALL Java_io_netty_channel_epoll_Native_isSupportingRecvmmsg(JNIEnv* env, jclass clazz) {
+    if (recvmmsg) {
+        return JNI_TRUE;
+    }
+    return JNI_FALSE;
+}
+
+// Probe a throw-away socket as the option may be compiled in but unknown to the running kernel.
+static jboolean isSupportingUdpOption(int optname) {
+    int optval;
+    socklen_t optlen = sizeof(optval);
+    int fd = socket(AF_INET, SOCK_DGRAM, 0);
+    if (fd == -1) {
+        return JNI_FALSE;
+    }
+    int res = getsockopt(fd, SOL_UDP, optname, &optval, &optlen);
+    close(fd);
+    return res == 0 ? JNI_TRUE : JNI_FALSE;
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_channel_epoll_Native_isSupportingUdpSegment(JNIEnv* env, jclass clazz) {
+    return isSupportingUdpOption(UDP_SEGMENT);
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_channel_epoll_Native_isSupportingUdpGro(JNIEnv* env, jclass clazz) {
+    return isSupportingUdpOption(UDP_GRO);
+}
+
 JNIEXPORT jboolean JNICALL Java_io_netty_channel_epoll_Native_isSupportingTcpFastopen(JNIEnv* env, jclass clazz) {
     int fastopen = 0;
     getSysctlValue("/proc/sys/net/ipv4/tcp_fastopen", &fastopen);
@@ -1550,6 +2067,10 @@ JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_errnoEINPROGRESS(JNIEn
     return EINPROGRESS;
 }
 
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_errnoENOBUFS(JNIEnv* env, jclass clazz) {
+    return ENOBUFS;
+}
+
 JNIEXPORT jstring JNICALL Java_io_netty_channel_epoll_Native_strError(JNIEnv* env, jclass clazz, jint error) {
     char* err = strerror(error);
     return (*env)->NewStringUTF(env, err);
@@ -1593,6 +2114,30 @@ JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_bindDomainSocket(JNIEn
     return res;
 }
 
+JNIEXPORT jbyteArray JNICALL Java_io_netty_channel_epoll_Native_remoteDomainSocketAddress0(JNIEnv* env, jclass clazz, jint fd) {
+    struct sockaddr_un addr;
+    socklen_t len = sizeof(addr);
+
+    if (getpeername(fd, (struct sockaddr*) &addr, &len) == -1) {
+        // Not connected.
+        return NULL;
+    }
+
+    // Unnamed peers have no path and abstract ones start with a nul byte.
+    jint pathLen = 0;
+    if (len > offsetof(struct sockaddr_un, sun_path)) {
+        pathLen = len - offsetof(struct sockaddr_un, sun_path);
+        if (addr.sun_path[0] != '\0') {
+            pathLen = strnlen(addr.sun_path, pathLen);
+        }
+    }
+    jbyteArray path = (*env)->NewByteArray(env, pathLen);
+    if (path != NULL) {
+        (*env)->SetByteArrayRegion(env, path, 0, pathLen, (jbyte*) addr.sun_path);
+    }
+    return path;
+}
+
 JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_connectDomainSocket(JNIEnv* env, jclass clazz, jint fd, jbyteArray socketPath) {
     struct sockaddr_un addr;
     jint socket_path_len;
@@ -1705,6 +2250,191 @@ JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_sendFd0(JNIEnv* env, j
     return -1;
 }
 
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_socketDomainDatagram(JNIEnv* env, jclass clazz, jboolean seqPacket) {
+    int fd = socket(PF_UNIX, (seqPacket == JNI_TRUE ? SOCK_SEQPACKET : SOCK_DGRAM) | SOCK_NONBLOCK, 0);
+    if (fd == -1) {
+        return -errno;
+    }
+    return fd;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_socketPairDomainDatagram0(JNIEnv* env, jclass clazz, jboolean seqPacket, jintArray fds) {
+    int sv[2];
+    if (socketpair(PF_UNIX, (seqPacket == JNI_TRUE ? SOCK_SEQPACKET : SOCK_DGRAM) | SOCK_NONBLOCK, 0, sv) == -1) {
+        return -errno;
+    }
+    (*env)->SetIntArrayRegion(env, fds, 0, 2, (jint*) sv);
+    return 0;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_sendmmsgDomain0(JNIEnv* env, jclass clazz, jint fd, jlongArray iovAddresses, jintArray iovCounts, jobjectArray recipients, jintArray fds, jintArray fdOffsets, jint offset, jint len) {
+    struct mmsghdr msg[len];
+    struct sockaddr_un addr[len];
+    jlong iovs[len];
+    jint counts[len];
+    jint offsets[len + 1];
+    int i;
+
+    (*env)->GetLongArrayRegion(env, iovAddresses, offset, len, iovs);
+    (*env)->GetIntArrayRegion(env, iovCounts, offset, len, counts);
+    (*env)->GetIntArrayRegion(env, fdOffsets, offset, len + 1, offsets);
+
+    // The file descriptors of message i are fds[offsets[i]] to fds[offsets[i + 1] - 1].
+    jint numFds = offsets[len] - offsets[0];
+    jint fdValues[numFds > 0 ? numFds : 1];
+    size_t controlLen = 0;
+    if (numFds > 0) {
+        (*env)->GetIntArrayRegion(env, fds, offsets[0], numFds, fdValues);
+        for (i = 0; i < len; i++) {
+            jint n = offsets[i + 1] - offsets[i];
+            if (n > 0) {
+                controlLen += CMSG_SPACE(n * sizeof(int));
+            }
+        }
+    }
+    // Use size_t so the control messages are aligned.
+    size_t control[controlLen / sizeof(size_t) + 1];
+    char* nextControl = (char*) control;
+
+    memset(msg, 0, sizeof(msg));
+    memset(control, 0, sizeof(control));
+
+    for (i = 0; i < len; i++) {
+        jbyteArray recipient = (jbyteArray) (*env)->GetObjectArrayElement(env, recipients, i + offset);
+        if (recipient != NULL) {
+            jint pathLen = (*env)->GetArrayLength(env, recipient);
+            memset(&addr[i], 0, sizeof(addr[i]));
+            addr[i].sun_family = AF_UNIX;
+            if (pathLen > sizeof(addr[i].sun_path)) {
+                pathLen = sizeof(addr[i].sun_path);
+            }
+            (*env)->GetByteArrayRegion(env, recipient, 0, pathLen, (jbyte*) addr[i].sun_path);
+            (*env)->DeleteLocalRef(env, recipient);
+
+            msg[i].msg_hdr.msg_name = &addr[i];
+            msg[i].msg_hdr.msg_namelen = _UNIX_ADDR_LENGTH(pathLen);
+        }
+
+        msg[i].msg_hdr.msg_iov = (struct iovec*) (intptr_t) iovs[i];
+        msg[i].msg_hdr.msg_iovlen = counts[i];
+
+        jint n = offsets[i + 1] - offsets[i];
+        if (n > 0) {
+            struct cmsghdr* cm;
+            msg[i].msg_hdr.msg_control = nextControl;
+            msg[i].msg_hdr.msg_controllen = CMSG_SPACE(n * sizeof(int));
+            cm = CMSG_FIRSTHDR(&msg[i].msg_hdr);
+            cm->cmsg_level = SOL_SOCKET;
+            cm->cmsg_type = SCM_RIGHTS;
+            cm->cmsg_len = CMSG_LEN(n * sizeof(int));
+            memcpy(CMSG_DATA(cm), fdValues + (offsets[i] - offsets[0]), n * sizeof(int));
+            nextControl += msg[i].msg_hdr.msg_controllen;
+        }
+    }
+
+    ssize_t res;
+    int err;
+    do {
+       res = sendmmsg(fd, msg, len, 0);
+       // keep on writing if it was interrupted
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        return -err;
+    }
+    return (jint) res;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_recvmmsgDomain0(JNIEnv* env, jclass clazz, jint fd, jlongArray iovAddresses, jintArray iovCounts, jint len, jint maxFds, jintArray meta, jbyteArray senders) {
+    struct mmsghdr msg[len];
+    struct sockaddr_un addr[len];
+    jlong iovs[len];
+    jint counts[len];
+    // CMSG_SPACE(...) is a multiple of sizeof(size_t), so all control messages are aligned.
+    size_t controlSpace = CMSG_SPACE(maxFds * sizeof(int)) + CMSG_SPACE(sizeof(struct ucred));
+    size_t control[len][controlSpace / sizeof(size_t)];
+    // See Native.DOMAIN_DATAGRAM_META_SIZE for the layout.
+    jint stride = DOMAIN_DATAGRAM_META_SIZE + maxFds;
+    jint metaValues[stride];
+    jbyte senderValues[DOMAIN_DATAGRAM_ADDRESS_SIZE];
+    int i;
+
+    (*env)->GetLongArrayRegion(env, iovAddresses, 0, len, iovs);
+    (*env)->GetIntArrayRegion(env, iovCounts, 0, len, counts);
+
+    memset(msg, 0, sizeof(msg));
+
+    for (i = 0; i < len; i++) {
+        msg[i].msg_hdr.msg_name = &addr[i];
+        msg[i].msg_hdr.msg_namelen = sizeof(addr[i]);
+        msg[i].msg_hdr.msg_iov = (struct iovec*) (intptr_t) iovs[i];
+        msg[i].msg_hdr.msg_iovlen = counts[i];
+        msg[i].msg_hdr.msg_control = control[i];
+        msg[i].msg_hdr.msg_controllen = controlSpace;
+    }
+
+    ssize_t res;
+    int err;
+    do {
+       res = recvmmsg(fd, msg, len, MSG_CMSG_CLOEXEC, NULL);
+       // Keep on reading if we was interrupted
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        return -err;
+    }
+
+    for (i = 0; i < res; i++) {
+        struct cmsghdr* cm;
+        jint numFds = 0;
+
+        memset(metaValues, 0, sizeof(metaValues));
+        metaValues[0] = (jint) msg[i].msg_len;
+        metaValues[1] = (msg[i].msg_hdr.msg_flags & MSG_CTRUNC) != 0;
+        for (cm = CMSG_FIRSTHDR(&msg[i].msg_hdr); cm != NULL; cm = CMSG_NXTHDR(&msg[i].msg_hdr, cm)) {
+            if (cm->cmsg_level != SOL_SOCKET) {
+                continue;
+            }
+            if (cm->cmsg_type == SCM_RIGHTS) {
+                int n = (cm->cmsg_len - CMSG_LEN(0)) / sizeof(int);
+                int* received = (int*) CMSG_DATA(cm);
+                int j;
+                for (j = 0; j < n; j++) {
+                    if (numFds < maxFds) {
+                        metaValues[DOMAIN_DATAGRAM_META_SIZE + numFds++] = received[j];
+                    } else {
+                        // Should never happen as the control buffer can not hold more.
+                        close(received[j]);
+                        metaValues[1] = 1;
+                    }
+                }
+            } else if (cm->cmsg_type == SCM_CREDENTIALS) {
+                struct ucred credentials;
+                memcpy(&credentials, CMSG_DATA(cm), sizeof(credentials));
+                metaValues[2] = 1;
+                metaValues[3] = credentials.pid;
+                metaValues[4] = credentials.uid;
+                metaValues[5] = credentials.gid;
+            }
+        }
+        metaValues[6] = numFds;
+        (*env)->SetIntArrayRegion(env, meta, i * stride, stride, metaValues);
+
+        // Unnamed senders have no path and abstract ones start with a nul byte.
+        socklen_t pathLen = 0;
+        if (msg[i].msg_hdr.msg_namelen > offsetof(struct sockaddr_un, sun_path)) {
+            pathLen = msg[i].msg_hdr.msg_namelen - offsetof(struct sockaddr_un, sun_path);
+            if (addr[i].sun_path[0] != '\0') {
+                pathLen = strnlen(addr[i].sun_path, pathLen);
+            }
+        }
+        senderValues[0] = (jbyte) pathLen;
+        memcpy(senderValues + 1, addr[i].sun_path, pathLen);
+        (*env)->SetByteArrayRegion(env, senders, i * DOMAIN_DATAGRAM_ADDRESS_SIZE, pathLen + 1, senderValues);
+    }
+    return (jint) res;
+}
+
 JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_epollet(JNIEnv* env, jclass clazz) {
     return EPOLLET;
 }
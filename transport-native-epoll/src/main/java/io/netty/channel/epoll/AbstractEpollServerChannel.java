@@ -26,11 +26,14 @@ import io.netty.channel.RecvByteBufAllocator;
 import io.netty.channel.ServerChannel;
 import io.netty.channel.unix.FileDescriptor;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 
 public abstract class AbstractEpollServerChannel extends AbstractEpollChannel implements ServerChannel {
     private static final ChannelMetadata METADATA = new ChannelMetadata(false, 16);
+    // The maximal number of connections accepted with one call into the native code.
+    private static final int MAX_ACCEPT_BATCH = 16;
 
     protected AbstractEpollServerChannel(int fd) {
         super(fd, Native.EPOLLIN);
@@ -73,10 +76,10 @@ public abstract class AbstractEpollServerChannel extends AbstractEpollChannel im
     abstract Channel newChildChannel(int fd, byte[] remote, int offset, int len) throws Exception;
 
     final class EpollServerSocketUnsafe extends AbstractEpollUnsafe {
-        // Will hold the remote address after accept(...) was successful.
-        // We need 24 bytes for the address as maximum + 1 byte for storing the length.
-        // So use 26 bytes as it's a power of two.
-        private final byte[] acceptedAddress = new byte[26];
+        // Will hold the file descriptors and remote addresses after acceptBatch(...) was successful, with one more
+        // slot for the result of the accept call which stopped the batch.
+        private final int[] acceptedFds = new int[MAX_ACCEPT_BATCH + 1];
+        private final byte[] acceptedAddresses = new byte[MAX_ACCEPT_BATCH * Native.ACCEPTED_ADDRESS_SIZE];
 
         @Override
         public void connect(SocketAddress socketAddress, SocketAddress socketAddress2, ChannelPromise channelPromise) {
@@ -108,17 +111,18 @@ public abstract class AbstractEpollServerChannel extends AbstractEpollChannel im
             Throwable exception = null;
             try {
                 try {
+                    int accepted;
                     do {
-                        int socketFd = Native.accept(fd().intValue(), acceptedAddress);
-                        if (socketFd == -1) {
+                        accepted = Native.acceptBatch(fd().intValue(), acceptedFds, acceptedAddresses);
+                        if (accepted > 0) {
+                            readPending = false;
+                            fireAccepted(pipeline, allocHandle, accepted);
+                        }
+                        if (accepted < MAX_ACCEPT_BATCH) {
                             // this means everything was handled for now
+                            Native.checkAcceptBatchResult(acceptedFds[accepted]);
                             break;
                         }
-                        readPending = false;
-                        allocHandle.incMessagesRead(1);
-
-                        int len = acceptedAddress[0];
-                        pipeline.fireChannelRead(newChildChannel(socketFd, acceptedAddress, 1, len));
                     } while (allocHandle.continueReading());
                 } catch (Throwable t) {
                     exception = t;
@@ -142,5 +146,29 @@ public abstract class AbstractEpollServerChannel extends AbstractEpollChannel im
                 }
             }
         }
+
+        private void fireAccepted(ChannelPipeline pipeline, EpollRecvByteAllocatorHandle allocHandle, int accepted)
+                throws Exception {
+            int i = 0;
+            try {
+                while (i < accepted) {
+                    int offset = i * Native.ACCEPTED_ADDRESS_SIZE;
+                    Channel child = newChildChannel(
+                            acceptedFds[i], acceptedAddresses, offset + 1, acceptedAddresses[offset]);
+                    i++;
+                    allocHandle.incMessagesRead(1);
+                    pipeline.fireChannelRead(child);
+                }
+            } finally {
+                // Close the connections which were accepted but not handed over to a child channel.
+                for (; i < accepted; i++) {
+                    try {
+                        Native.close(acceptedFds[i]);
+                    } catch (IOException ignore) {
+                        // ignore
+                    }
+                }
+            }
+        }
     }
 }
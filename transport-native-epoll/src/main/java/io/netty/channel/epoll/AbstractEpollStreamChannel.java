@@ -25,6 +25,7 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelOutboundBuffer;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelProgressivePromise;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.ConnectTimeoutException;
 import io.netty.channel.DefaultFileRegion;
@@ -36,6 +37,7 @@ import io.netty.util.internal.MpscLinkedQueueNode;
 import io.netty.util.internal.OneTimeTask;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
@@ -43,9 +45,13 @@ import java.io.IOException;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
 import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
 
@@ -55,8 +61,20 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(AbstractEpollStreamChannel.class);
     static final ClosedChannelException CLOSED_CHANNEL_EXCEPTION = new ClosedChannelException();
 
+    // How long the memory of MSG_ZEROCOPY writes is kept after the channel was closed, while waiting for the kernel
+    // to report that it does not use it anymore.
+    private static final long ZEROCOPY_CLOSE_TIMEOUT_MILLIS;
+    private static final long ZEROCOPY_CLOSE_POLL_MILLIS = 10;
+    private static final AtomicLong ZEROCOPY_LEAKED_BYTES = new AtomicLong();
+
     static {
         CLOSED_CHANNEL_EXCEPTION.setStackTrace(EmptyArrays.EMPTY_STACK_TRACE);
+
+        ZEROCOPY_CLOSE_TIMEOUT_MILLIS = Math.max(0,
+                SystemPropertyUtil.getLong("io.netty.epoll.zerocopyCloseTimeoutMillis", 10000));
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.epoll.zerocopyCloseTimeoutMillis: {}", ZEROCOPY_CLOSE_TIMEOUT_MILLIS);
+        }
     }
 
     /**
@@ -74,6 +92,16 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
     private int pipeIn = -1;
     private int pipeOut = -1;
 
+    // Lazy init these if we need to write with MSG_ZEROCOPY. Only accessed from the EventLoop.
+    private ArrayDeque<ZerocopyWrite> zerocopyWrites;
+    private int[] zerocopyRange;
+    // The kernel numbers every send with MSG_ZEROCOPY, starting with 0.
+    private int zerocopyNextId;
+    // The message that is currently written with MSG_ZEROCOPY.
+    private ZerocopyWrite zerocopyCurrent;
+    // Set once the kernel reported that it copied the data anyway, which makes MSG_ZEROCOPY pure overhead.
+    private boolean zerocopyCopied;
+
     protected AbstractEpollStreamChannel(Channel parent, int fd) {
         super(parent, fd, Native.EPOLLIN, true);
         // Add EPOLLRDHUP so we are notified once the remote peer close the connection.
@@ -98,6 +126,26 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
         Native.shutdown(fd, true, true);
     }
 
+    /**
+     * Returns the number of bytes of memory of {@code MSG_ZEROCOPY} writes that was never given back to the allocator.
+     * <p>
+     * The kernel may still transmit from the memory of such a write after the channel was closed. The memory is kept
+     * until the kernel reports that it is done with it, but for at most
+     * {@code -Dio.netty.epoll.zerocopyCloseTimeoutMillis} (default {@code 10000}) milliseconds. After that it is not
+     * safe to reuse the memory, so it is leaked and counted here.
+     */
+    public static long zerocopyLeakedBytes() {
+        return ZEROCOPY_LEAKED_BYTES.get();
+    }
+
+    /**
+     * Returns the minimal number of bytes a direct buffer needs to have to be written with {@code MSG_ZEROCOPY}, or
+     * {@code -1} if {@code MSG_ZEROCOPY} is not used.
+     */
+    int zerocopyThreshold() {
+        return -1;
+    }
+
     @Override
     protected AbstractEpollUnsafe newUnsafe() {
         return new EpollStreamUnsafe();
@@ -112,8 +160,10 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
      * <ul>
      *   <li>both channels need to be registered to the same {@link EventLoop}, otherwise an
      *   {@link IllegalArgumentException} is thrown. </li>
-     *   <li>{@link EpollChannelConfig#getEpollMode()} must be {@link EpollMode#LEVEL_TRIGGERED} for this and the
-     *   target {@link AbstractEpollStreamChannel}</li>
+     *   <li>reading from this {@link AbstractEpollStreamChannel} is suspended via
+     *   {@link ChannelConfig#setAutoRead(boolean)} while the target can not accept the spliced data.</li>
+     *   <li>if the {@link ChannelPromise} is a {@link ChannelProgressivePromise} it is notified about the number of
+     *   bytes which were spliced to the target so far.</li>
      * </ul>
      *
      */
@@ -130,8 +180,10 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
      * <ul>
      *   <li>both channels need to be registered to the same {@link EventLoop}, otherwise an
      *   {@link IllegalArgumentException} is thrown. </li>
-     *   <li>{@link EpollChannelConfig#getEpollMode()} must be {@link EpollMode#LEVEL_TRIGGERED} for this and the
-     *   target {@link AbstractEpollStreamChannel}</li>
+     *   <li>reading from this {@link AbstractEpollStreamChannel} is suspended via
+     *   {@link ChannelConfig#setAutoRead(boolean)} while the target can not accept the spliced data.</li>
+     *   <li>if the {@link ChannelPromise} is a {@link ChannelProgressivePromise} it is notified about the number of
+     *   bytes which were spliced to the target so far.</li>
      * </ul>
      *
      */
@@ -143,10 +195,6 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
         if (len < 0) {
             throw new IllegalArgumentException("len: " + len + " (expected: >= 0)");
         }
-        if (ch.config().getEpollMode() != EpollMode.LEVEL_TRIGGERED
-                || config().getEpollMode() != EpollMode.LEVEL_TRIGGERED) {
-            throw new IllegalStateException("spliceTo() supported only when using " + EpollMode.LEVEL_TRIGGERED);
-        }
         checkNotNull(promise, "promise");
         if (!isOpen()) {
             promise.tryFailure(CLOSED_CHANNEL_EXCEPTION);
@@ -226,6 +274,22 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
         }
     }
 
+    /**
+     * Continue splicing once the target accepted all data that was spliced to it. When edge-triggered we will not be
+     * notified again about the data that is still left in the socket, so we need to do this ourselves.
+     */
+    private void resumeSpliceIn() {
+        eventLoop().execute(new OneTimeTask() {
+            @Override
+            public void run() {
+                // Only continue if reading was not suspended in the meantime.
+                if (isActive() && isFlagSet(Native.EPOLLIN) && spliceQueue.peek() != null) {
+                    ((AbstractEpollUnsafe) unsafe()).epollInReady();
+                }
+            }
+        });
+    }
+
     /**
      * Write bytes form the given {@link ByteBuf} to the underlying {@link java.nio.channels.Channel}.
      * @param buf           the {@link ByteBuf} from which the bytes should be written
@@ -237,6 +301,10 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
             return true;
         }
 
+        if (isZerocopyWrite(buf)) {
+            return writeBytesZerocopy(in, buf, writeSpinCount);
+        }
+
         if (buf.hasMemoryAddress() || buf.nioBufferCount() == 1) {
             int writtenBytes = doWriteBytes(buf, writeSpinCount);
             in.removeBytes(writtenBytes);
@@ -247,6 +315,184 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
         }
     }
 
+    private boolean isZerocopyWrite(Object msg) {
+        ZerocopyWrite current = zerocopyCurrent;
+        if (current != null && current.msg == msg) {
+            // Once we started to write a message with MSG_ZEROCOPY we need to finish it that way, as otherwise it
+            // may be released while the kernel still uses its memory.
+            return true;
+        }
+        if (zerocopyCopied || !(msg instanceof ByteBuf)) {
+            return false;
+        }
+        int threshold = zerocopyThreshold();
+        ByteBuf buf = (ByteBuf) msg;
+        return threshold >= 0 && buf.hasMemoryAddress() && buf.readableBytes() >= threshold;
+    }
+
+    /**
+     * Write bytes form the given {@link ByteBuf} with {@code MSG_ZEROCOPY}. Once written completely the buffer is
+     * removed from the {@link ChannelOutboundBuffer}, but it is only released and its {@link ChannelPromise} notified
+     * once the kernel reported that it does not use its memory anymore.
+     */
+    private boolean writeBytesZerocopy(ChannelOutboundBuffer in, ByteBuf buf, int writeSpinCount) throws Exception {
+        ZerocopyWrite write = zerocopyCurrent;
+        if (write == null || write.msg != buf) {
+            zerocopyCurrent = write = new ZerocopyWrite(buf, zerocopyNextId);
+        }
+        final int fd = fd().intValue();
+        final long memoryAddress = buf.memoryAddress();
+        final int writerIndex = buf.writerIndex();
+        int readerIndex = buf.readerIndex();
+        boolean done = false;
+        for (int i = writeSpinCount - 1; i >= 0; i--) {
+            int localFlushedAmount = Native.sendAddressZerocopy(fd, memoryAddress, readerIndex, writerIndex);
+            if (localFlushedAmount > 0) {
+                if (write.sends == 0) {
+                    // Track the write as soon as the first send was made, as the kernel may report it as
+                    // completed before the message was written completely.
+                    if (zerocopyWrites == null) {
+                        zerocopyWrites = new ArrayDeque<ZerocopyWrite>();
+                        zerocopyRange = new int[3];
+                    }
+                    zerocopyWrites.add(write);
+                }
+                write.sends++;
+                write.pending++;
+                zerocopyNextId++;
+            } else if (localFlushedAmount < 0) {
+                // The kernel was not able to pin the memory, so copy it this time.
+                localFlushedAmount = Native.writeAddress(fd, memoryAddress, readerIndex, writerIndex);
+            }
+            if (localFlushedAmount == 0) {
+                break;
+            }
+            in.progress(localFlushedAmount);
+            readerIndex += localFlushedAmount;
+            if (readerIndex == writerIndex) {
+                done = true;
+                break;
+            }
+        }
+        buf.readerIndex(readerIndex);
+        if (!done) {
+            return false;
+        }
+
+        zerocopyCurrent = null;
+        if (write.sends == 0) {
+            // Everything was copied, so there is nothing to wait for.
+            in.remove();
+        } else {
+            write.deferred = in.removeDeferred();
+            completeZerocopyWrites();
+        }
+        return true;
+    }
+
+    /**
+     * Read the {@code MSG_ZEROCOPY} completion notifications from the error queue of the socket and complete the
+     * writes for which the kernel does not use the memory anymore. The writes are completed in the order they were
+     * made, even if the notifications arrive out of order.
+     */
+    private void processZerocopyCompletions() throws IOException {
+        final int[] range = zerocopyRange;
+        final ArrayDeque<ZerocopyWrite> writes = zerocopyWrites;
+        final int fd = fd().intValue();
+        while (Native.recvZerocopyCompletion(fd, range)) {
+            if (range[2] != 0) {
+                zerocopyCopied = true;
+            }
+            zerocopySendsCompleted(writes, range);
+            completeZerocopyWrites();
+        }
+    }
+
+    /**
+     * Decrement the number of pending sends of the given writes by the sends in the given completion range.
+     */
+    private static void zerocopySendsCompleted(ArrayDeque<ZerocopyWrite> writes, int[] range) {
+        ZerocopyWrite head = writes.peek();
+        if (head == null) {
+            return;
+        }
+        // The numbers wrap around, so compare them relative to the first pending send.
+        final int base = head.firstId;
+        final int lo = range[0] - base;
+        final int hi = range[1] - base;
+        for (ZerocopyWrite write: writes) {
+            int first = write.firstId - base;
+            if (first > hi) {
+                break;
+            }
+            int overlap = Math.min(first + write.sends - 1, hi) - Math.max(first, lo) + 1;
+            if (overlap > 0) {
+                write.pending -= overlap;
+            }
+        }
+    }
+
+    private void completeZerocopyWrites() {
+        final ArrayDeque<ZerocopyWrite> writes = zerocopyWrites;
+        for (;;) {
+            ZerocopyWrite head = writes.peek();
+            // The deferred message is only set once the message was written completely.
+            if (head == null || head.deferred == null || head.pending > 0) {
+                break;
+            }
+            writes.remove();
+            head.deferred.success();
+        }
+    }
+
+    /**
+     * Fail the writes with {@code MSG_ZEROCOPY} that were not completed yet. Must only be called once the socket was
+     * closed.
+     * <p>
+     * The kernel may still transmit from the memory of these writes after the socket was closed. So the memory of
+     * every write that was not reported as completed is kept until the kernel reports the completion via the error
+     * queue of {@code errorQueueFd}, a duplicate of the file descriptor of the closed socket. If this takes too long
+     * the memory is leaked, see {@link #zerocopyLeakedBytes()}.
+     */
+    private void failZerocopyWrites(Throwable cause, int errorQueueFd) {
+        zerocopyCurrent = null;
+        final ArrayDeque<ZerocopyWrite> writes = zerocopyWrites;
+        ArrayDeque<ZerocopyWrite> pendingWrites = null;
+        if (writes != null) {
+            for (;;) {
+                ZerocopyWrite write = writes.poll();
+                if (write == null) {
+                    break;
+                }
+                if (write.pending > 0) {
+                    // Keep the memory, as the message is freed when it is failed below or by the
+                    // ChannelOutboundBuffer otherwise.
+                    write.msg.retain();
+                    if (pendingWrites == null) {
+                        pendingWrites = new ArrayDeque<ZerocopyWrite>();
+                    }
+                    pendingWrites.add(write);
+                }
+                if (write.deferred != null) {
+                    write.deferred.fail(cause);
+                }
+            }
+        }
+        if (pendingWrites != null) {
+            new ZerocopyReleaseTask(eventLoop(), errorQueueFd, pendingWrites).run();
+        } else if (errorQueueFd != -1) {
+            closeErrorQueueFd(errorQueueFd);
+        }
+    }
+
+    private static void closeErrorQueueFd(int fd) {
+        try {
+            Native.close(fd);
+        } catch (IOException e) {
+            logger.debug("Failed to close a file descriptor.", e);
+        }
+    }
+
     private boolean writeBytesMultiple(
             ChannelOutboundBuffer in, IovArray array, int writeSpinCount) throws IOException {
 
@@ -388,8 +634,10 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
                 return;
             }
 
-            // Do gathering write if the outbounf buffer entries start with more than one ByteBuf.
-            if (msgCount > 1 && in.current() instanceof ByteBuf) {
+            // Do gathering write if the outbounf buffer entries start with more than one ByteBuf, unless the first
+            // one is written with MSG_ZEROCOPY.
+            Object msg = in.current();
+            if (msgCount > 1 && msg instanceof ByteBuf && !isZerocopyWrite(msg)) {
                 if (!doWriteMultiple(in, writeSpinCount)) {
                     // Break the loop and so set EPOLLOUT flag.
                     break;
@@ -521,6 +769,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
 
     @Override
     protected void doClose() throws Exception {
+        int errorQueueFd = -1;
         try {
             ChannelPromise promise = connectPromise;
             if (promise != null) {
@@ -534,12 +783,30 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
                 future.cancel(false);
                 connectTimeoutFuture = null;
             }
+            if (zerocopyWrites != null && !zerocopyWrites.isEmpty() && isOpen()) {
+                // Complete what the kernel is done with already.
+                try {
+                    processZerocopyCompletions();
+                } catch (IOException ignore) {
+                    // We fail the rest anyway.
+                }
+                if (!zerocopyWrites.isEmpty()) {
+                    // Keep the socket and so its error queue after the channel was closed, so we still learn when
+                    // the kernel does not use the memory of the remaining writes anymore.
+                    try {
+                        errorQueueFd = Native.dup(fd().intValue());
+                    } catch (IOException e) {
+                        logger.debug("Failed to keep the error queue of {}.", this, e);
+                    }
+                }
+            }
             // Calling super.doClose() first so splceTo(...) will fail on next call.
             super.doClose();
         } finally {
             safeClosePipe(pipeIn);
             safeClosePipe(pipeOut);
             clearSpliceQueue();
+            failZerocopyWrites(CLOSED_CHANNEL_EXCEPTION, errorQueueFd);
         }
     }
 
@@ -723,6 +990,16 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
 
         @Override
         void epollOutReady() {
+            if (zerocopyRange != null) {
+                // The completion notifications of MSG_ZEROCOPY are signaled via EPOLLERR, so we also end up here.
+                try {
+                    processZerocopyCompletions();
+                } catch (IOException e) {
+                    pipeline().fireExceptionCaught(e);
+                    close(voidPromise());
+                    return;
+                }
+            }
             if (connectPromise != null) {
                 // pending connect which is now complete so handle it.
                 finishConnect();
@@ -861,10 +1138,14 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
     // Let it directly implement channelFutureListener as well to reduce object creation.
     private final class SpliceInChannelTask extends SpliceInTask implements ChannelFutureListener {
         private final AbstractEpollStreamChannel ch;
+        private final long total;
+        private long splicedOut;
 
         SpliceInChannelTask(AbstractEpollStreamChannel ch, int len, ChannelPromise promise) {
             super(len, promise);
             this.ch = ch;
+            // Integer.MAX_VALUE is a special value which will result in splice forever.
+            total = len == Integer.MAX_VALUE ? -1 : len;
         }
 
         @Override
@@ -874,6 +1155,13 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
             }
         }
 
+        void splicedOut(int splicedOut) {
+            this.splicedOut += splicedOut;
+            if (promise instanceof ChannelProgressivePromise) {
+                ((ChannelProgressivePromise) promise).tryProgress(this.splicedOut, total);
+            }
+        }
+
         @Override
         public boolean spliceIn(RecvByteBufAllocator.Handle handle) throws IOException {
             assert ch.eventLoop().inEventLoop();
@@ -893,8 +1181,16 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
                     pipeOut = ch.pipeOut = (int) fds;
                 }
 
-                int splicedIn = spliceIn(pipeOut, handle);
-                if (splicedIn > 0) {
+                // When edge-triggered we will not be notified again about the data that is left, so keep on splicing
+                // until everything was read or the target can not accept more data. In the latter case reading is
+                // suspended and resumed via setAutoRead(true) once the target accepted everything, which will
+                // notify us again if there is data left.
+                boolean edgeTriggered = isFlagSet(Native.EPOLLET);
+                do {
+                    int splicedIn = spliceIn(pipeOut, handle);
+                    if (splicedIn <= 0) {
+                        break;
+                    }
                     // Integer.MAX_VALUE is a special value which will result in splice forever.
                     if (len != Integer.MAX_VALUE) {
                         len -= splicedIn;
@@ -913,16 +1209,25 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
 
                     // Just call unsafe().write(...) and flush() as we not want to traverse the whole pipeline for this
                     // case.
-                    ch.unsafe().write(new SpliceOutTask(ch, splicedIn, autoRead), splicePromise);
+                    SpliceOutTask spliceOutTask = new SpliceOutTask(ch, this, splicedIn, autoRead);
+                    ch.unsafe().write(spliceOutTask, splicePromise);
                     ch.unsafe().flush();
-                    if (autoRead && !splicePromise.isDone()) {
-                        // Write was not done which means the target channel was not writable. In this case we need to
-                        // disable reading until we are done with splicing to the target channel because:
-                        //
-                        // - The user may want to to trigger another splice operation once the splicing was complete.
-                        config().setAutoRead(false);
+                    if (!splicePromise.isDone()) {
+                        if (autoRead) {
+                            // Write was not done which means the target channel was not writable. In this case we
+                            // need to disable reading until we are done with splicing to the target channel because:
+                            //
+                            // - The user may want to to trigger another splice operation once the splicing was
+                            //   complete.
+                            config().setAutoRead(false);
+                        } else if (edgeTriggered) {
+                            // As we are edge-triggered we will not be notified again about the data which is left,
+                            // so continue splicing once the target accepted everything.
+                            spliceOutTask.resumeSpliceIn = true;
+                        }
+                        break;
                     }
-                }
+                } while (edgeTriggered && len != 0 && isActive());
 
                 return len == 0;
             } catch (Throwable cause) {
@@ -932,13 +1237,94 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
         }
     }
 
+    private static final class ZerocopyWrite {
+        final int firstId;
+        final ByteBuf msg;
+        // Set once the message was written completely and so removed from the ChannelOutboundBuffer.
+        ChannelOutboundBuffer.DeferredMessage deferred;
+        int sends;
+        // The number of sends the kernel did not report as completed yet.
+        int pending;
+
+        ZerocopyWrite(ByteBuf msg, int firstId) {
+            this.msg = msg;
+            this.firstId = firstId;
+        }
+    }
+
+    /**
+     * Releases the memory of {@code MSG_ZEROCOPY} writes of a closed channel once the kernel reported their
+     * completion. As the file descriptor is not registered with epoll anymore the error queue is polled.
+     */
+    private static final class ZerocopyReleaseTask implements Runnable {
+        private final EventLoop loop;
+        private final int fd;
+        private final ArrayDeque<ZerocopyWrite> writes;
+        private final int[] range = new int[3];
+        private final long deadlineNanos =
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ZEROCOPY_CLOSE_TIMEOUT_MILLIS);
+
+        ZerocopyReleaseTask(EventLoop loop, int fd, ArrayDeque<ZerocopyWrite> writes) {
+            this.loop = loop;
+            this.fd = fd;
+            this.writes = writes;
+        }
+
+        @Override
+        public void run() {
+            boolean failed = fd == -1;
+            if (!failed) {
+                try {
+                    while (Native.recvZerocopyCompletion(fd, range)) {
+                        zerocopySendsCompleted(writes, range);
+                    }
+                } catch (IOException e) {
+                    logger.debug("Failed to read the MSG_ZEROCOPY completions of a closed channel.", e);
+                    failed = true;
+                }
+            }
+            for (Iterator<ZerocopyWrite> i = writes.iterator(); i.hasNext();) {
+                ZerocopyWrite write = i.next();
+                if (write.pending <= 0) {
+                    i.remove();
+                    write.msg.release();
+                }
+            }
+            if (!writes.isEmpty() && !failed && System.nanoTime() - deadlineNanos < 0) {
+                try {
+                    loop.schedule(this, ZEROCOPY_CLOSE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    return;
+                } catch (RejectedExecutionException ignore) {
+                    // The EventLoop was shut down, so we can not wait any longer.
+                }
+            }
+            if (!writes.isEmpty()) {
+                long leakedBytes = 0;
+                for (ZerocopyWrite write: writes) {
+                    leakedBytes += write.msg.capacity();
+                }
+                writes.clear();
+                ZEROCOPY_LEAKED_BYTES.addAndGet(leakedBytes);
+                logger.warn("Leaked {} bytes of MSG_ZEROCOPY writes whose completion the kernel did not report " +
+                        "after the channel was closed.", leakedBytes);
+            }
+            if (fd != -1) {
+                closeErrorQueueFd(fd);
+            }
+        }
+    }
+
     private final class SpliceOutTask {
         private final AbstractEpollStreamChannel ch;
+        private final SpliceInChannelTask task;
         private final boolean autoRead;
         private int len;
+        // Set if splicing in needs to be continued once all data was spliced out.
+        boolean resumeSpliceIn;
 
-        SpliceOutTask(AbstractEpollStreamChannel ch, int len, boolean autoRead) {
+        SpliceOutTask(AbstractEpollStreamChannel ch, SpliceInChannelTask task, int len, boolean autoRead) {
             this.ch = ch;
+            this.task = task;
             this.len = len;
             this.autoRead = autoRead;
         }
@@ -948,10 +1334,15 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
             try {
                 int splicedOut = Native.splice(ch.pipeIn, -1, ch.fd().intValue(), -1, len);
                 len -= splicedOut;
+                if (splicedOut > 0) {
+                    task.splicedOut(splicedOut);
+                }
                 if (len == 0) {
                     if (autoRead) {
                         // AutoRead was used and we spliced everything so start reading again
                         config().setAutoRead(true);
+                    } else if (resumeSpliceIn) {
+                        resumeSpliceIn();
                     }
                     return true;
                 }
@@ -21,6 +21,7 @@ import io.netty.channel.ChannelOption;
 import io.netty.channel.DefaultChannelConfig;
 import io.netty.channel.MessageSizeEstimator;
 import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.WriteBufferBudget;
 
 import java.io.IOException;
 import java.util.Map;
@@ -113,6 +114,12 @@ public class EpollChannelConfig extends DefaultChannelConfig {
         return this;
     }
 
+    @Override
+    public EpollChannelConfig setWriteBufferBudget(WriteBufferBudget budget) {
+        super.setWriteBufferBudget(budget);
+        return this;
+    }
+
     /**
      * Return the {@link EpollMode} used. Default is
      * {@link EpollMode#EDGE_TRIGGERED}. If you want to use {@link #isAutoRead()} {@code false} or
@@ -35,6 +35,15 @@ public final class EpollChannelOption {
     public static final ChannelOption<Map<InetAddress, byte[]>> TCP_MD5SIG = ChannelOption.valueOf(T, "TCP_MD5SIG");
     public static final ChannelOption<Boolean> IP_FREEBIND = ChannelOption.valueOf(T, "IP_FREEBIND");
     public static final ChannelOption<Integer> TCP_FASTOPEN = ChannelOption.valueOf(T, "TCP_FASTOPEN");
+    public static final ChannelOption<Integer> MAX_DATAGRAMS_PER_READ =
+            ChannelOption.valueOf(T, "MAX_DATAGRAMS_PER_READ");
+    public static final ChannelOption<Integer> UDP_SEGMENT = ChannelOption.valueOf(T, "UDP_SEGMENT");
+    public static final ChannelOption<Boolean> UDP_GRO = ChannelOption.valueOf(T, "UDP_GRO");
+    public static final ChannelOption<Integer> SO_BUSY_POLL = ChannelOption.valueOf(T, "SO_BUSY_POLL");
+    public static final ChannelOption<Integer> SO_INCOMING_CPU = ChannelOption.valueOf(T, "SO_INCOMING_CPU");
+    public static final ChannelOption<Boolean> SO_ZEROCOPY = ChannelOption.valueOf(T, "SO_ZEROCOPY");
+    public static final ChannelOption<Integer> ZEROCOPY_THRESHOLD = ChannelOption.valueOf(T, "ZEROCOPY_THRESHOLD");
+    public static final ChannelOption<Boolean> SO_PASSCRED = ChannelOption.valueOf(T, "SO_PASSCRED");
 
     public static final ChannelOption<DomainSocketReadMode> DOMAIN_SOCKET_READ_MODE =
             ChannelOption.valueOf(T, "DOMAIN_SOCKET_READ_MODE");
@@ -28,7 +28,6 @@ import io.netty.channel.ChannelPromise;
 import io.netty.channel.DefaultAddressedEnvelope;
 import io.netty.channel.RecvByteBufAllocator;
 import io.netty.channel.socket.DatagramChannel;
-import io.netty.channel.socket.DatagramChannelConfig;
 import io.netty.channel.socket.DatagramPacket;
 import io.netty.channel.unix.FileDescriptor;
 import io.netty.util.internal.PlatformDependent;
@@ -294,7 +293,8 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
 
             try {
                 // Check if sendmmsg(...) is supported which is only the case for GLIBC 2.14+
-                if (Native.IS_SUPPORTING_SENDMMSG && in.size() > 1) {
+                // A SegmentedDatagramPacket is always written via sendmmsg(...) as it needs a control message.
+                if (Native.IS_SUPPORTING_SENDMMSG && (in.size() > 1 || msg instanceof SegmentedDatagramPacket)) {
                     NativeDatagramPacketArray array = NativeDatagramPacketArray.getInstance(in);
                     int cnt = array.count();
 
@@ -392,6 +392,21 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
 
     @Override
     protected Object filterOutboundMessage(Object msg) {
+        if (msg instanceof SegmentedDatagramPacket) {
+            if (!SegmentedDatagramPacket.isSupported()) {
+                throw new UnsupportedOperationException(
+                        "unsupported message type: " + StringUtil.simpleClassName(msg) + EXPECTED_TYPES);
+            }
+            SegmentedDatagramPacket packet = (SegmentedDatagramPacket) msg;
+            ByteBuf content = packet.content();
+            if (content.hasMemoryAddress()) {
+                return msg;
+            }
+            // sendmmsg(...) can only handle buffers with memory address.
+            return new SegmentedDatagramPacket(
+                    newDirectBuffer(packet, content), packet.segmentSize(), packet.recipient());
+        }
+
         if (msg instanceof DatagramPacket) {
             DatagramPacket packet = (DatagramPacket) msg;
             ByteBuf content = packet.content();
@@ -519,7 +534,7 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
         @Override
         void epollInReady() {
             assert eventLoop().inEventLoop();
-            DatagramChannelConfig config = config();
+            EpollDatagramChannelConfig config = config();
             boolean edgeTriggered = isFlagSet(Native.EPOLLET);
 
             if (!readPending && !edgeTriggered && !config.isAutoRead()) {
@@ -530,8 +545,13 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
 
             final ChannelPipeline pipeline = pipeline();
             final ByteBufAllocator allocator = config.getAllocator();
-            final EpollRecvByteAllocatorHandle allocHandle = recvBufAllocHandle();
+            final EpollRecvByteAllocatorMessageHandle allocHandle =
+                    (EpollRecvByteAllocatorMessageHandle) recvBufAllocHandle();
             allocHandle.reset(config);
+            // recvmmsg(...) does not return the control messages that hold the size of the segments with UDP_GRO.
+            final boolean udpGro = config.isUdpGro();
+            final int maxDatagramsPerRead = Native.IS_SUPPORTING_RECVMMSG && !udpGro ?
+                    config.getMaxDatagramsPerRead() : 1;
 
             Throwable exception = null;
             try {
@@ -540,15 +560,30 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
                     do {
                         data = allocHandle.allocate(allocator);
                         allocHandle.attemptedBytesRead(data.writableBytes());
+                        if (maxDatagramsPerRead > 1 && data.hasMemoryAddress()) {
+                            // Ownership of the buffer is transferred.
+                            ByteBuf first = data;
+                            data = null;
+                            if (recvmmsg(allocHandle, allocator, first, maxDatagramsPerRead) == 0) {
+                                break;
+                            }
+                            readPending = false;
+                            continue;
+                        }
+
                         final DatagramSocketAddress remoteAddress;
                         if (data.hasMemoryAddress()) {
                             // has a memory address so use optimized call
-                            remoteAddress = Native.recvFromAddress(
-                                    fd().intValue(), data.memoryAddress(), data.writerIndex(), data.capacity());
+                            remoteAddress = udpGro ?
+                                    Native.recvFromAddressGro(fd().intValue(), data.memoryAddress(),
+                                            data.writerIndex(), data.capacity()) :
+                                    Native.recvFromAddress(fd().intValue(), data.memoryAddress(),
+                                            data.writerIndex(), data.capacity());
                         } else {
                             ByteBuffer nioData = data.internalNioBuffer(data.writerIndex(), data.writableBytes());
-                            remoteAddress = Native.recvFrom(
-                                    fd().intValue(), nioData, nioData.position(), nioData.limit());
+                            remoteAddress = udpGro ?
+                                    Native.recvFromGro(fd().intValue(), nioData, nioData.position(), nioData.limit()) :
+                                    Native.recvFrom(fd().intValue(), nioData, nioData.position(), nioData.limit());
                         }
 
                         if (remoteAddress == null) {
@@ -562,8 +597,15 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
                         data.writerIndex(data.writerIndex() + allocHandle.lastBytesRead());
                         readPending = false;
 
-                        readBuf.add(new DatagramPacket(data, (InetSocketAddress) localAddress(), remoteAddress));
-                        data = null;
+                        if (remoteAddress.segmentSize > 0 && remoteAddress.receivedAmount > remoteAddress.segmentSize) {
+                            // Ownership of the buffer is transferred.
+                            ByteBuf coalesced = data;
+                            data = null;
+                            addSegments(coalesced, remoteAddress);
+                        } else {
+                            readBuf.add(new DatagramPacket(data, (InetSocketAddress) localAddress(), remoteAddress));
+                            data = null;
+                        }
                     } while (allocHandle.continueReading());
                 } catch (Throwable t) {
                     if (data != null) {
@@ -597,6 +639,84 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
                 }
             }
         }
+
+        /**
+         * Split the datagrams that were coalesced into the given buffer because of UDP_GRO into one
+         * {@link DatagramPacket} per datagram, which all share the given buffer.
+         */
+        private void addSegments(ByteBuf coalesced, DatagramSocketAddress remoteAddress) {
+            try {
+                final InetSocketAddress localAddress = (InetSocketAddress) localAddress();
+                final int segmentSize = remoteAddress.segmentSize;
+                for (int i = coalesced.readerIndex(), end = coalesced.writerIndex(); i < end; i += segmentSize) {
+                    ByteBuf segment = coalesced.slice(i, Math.min(segmentSize, end - i)).retain();
+                    readBuf.add(new DatagramPacket(segment, localAddress, remoteAddress));
+                }
+            } finally {
+                coalesced.release();
+            }
+        }
+
+        /**
+         * Receive multiple datagrams with one recvmmsg(...) call, the first one into the given buffer and the others
+         * into buffers allocated via the {@link EpollRecvByteAllocatorMessageHandle}. The received datagrams are
+         * added to {@link #readBuf} and all buffers that were not used are released. Returns the number of received
+         * datagrams.
+         */
+        private int recvmmsg(EpollRecvByteAllocatorMessageHandle allocHandle, ByteBufAllocator allocator,
+                             ByteBuf first, int maxDatagramsPerRead) throws IOException {
+            final NativeDatagramPacketArray.NativeDatagramPacket[] packets =
+                    NativeDatagramPacketArray.getInstance().packets();
+            final int batchSize = allocHandle.datagramsPerBatch(maxDatagramsPerRead);
+            int count = 0;
+            int received = 0;
+            // The number of packets whose buffers were handed off to readBuf.
+            int handedOff = 0;
+            try {
+                ByteBuf data = first;
+                for (;;) {
+                    if (!packets[count].initForRead(data)) {
+                        data.release();
+                        break;
+                    }
+                    if (++ count == batchSize) {
+                        break;
+                    }
+                    data = allocHandle.allocate(allocator);
+                    if (!data.hasMemoryAddress()) {
+                        data.release();
+                        break;
+                    }
+                }
+                if (count == 0) {
+                    return 0;
+                }
+
+                received = Native.recvmmsg(fd().intValue(), packets, 0, count);
+                final InetSocketAddress localAddress = (InetSocketAddress) localAddress();
+                for (int i = 0; i < received; i ++) {
+                    NativeDatagramPacketArray.NativeDatagramPacket packet = packets[i];
+                    ByteBuf buf = packet.buffer();
+                    DatagramSocketAddress remoteAddress = packet.sender();
+
+                    allocHandle.incMessagesRead(1);
+                    allocHandle.lastBytesRead(remoteAddress.receivedAmount);
+                    buf.writerIndex(buf.writerIndex() + remoteAddress.receivedAmount);
+                    readBuf.add(new DatagramPacket(buf, localAddress, remoteAddress));
+                    packet.clearRead();
+                    handedOff ++;
+                }
+            } finally {
+                // Release all buffers which were not handed off, also if building a packet failed.
+                for (int i = handedOff; i < count; i ++) {
+                    NativeDatagramPacketArray.NativeDatagramPacket packet = packets[i];
+                    packet.buffer().release();
+                    packet.clearRead();
+                }
+            }
+            allocHandle.datagramsRead(received, count);
+            return received;
+        }
     }
 
     /**
@@ -610,9 +730,13 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
         // holds the amount of received bytes
         final int receivedAmount;
 
-        DatagramSocketAddress(String addr, int port, int receivedAmount) {
+        // holds the size of the coalesced datagrams if UDP_GRO is enabled, 0 otherwise
+        final int segmentSize;
+
+        DatagramSocketAddress(String addr, int port, int receivedAmount, int segmentSize) {
             super(addr, port);
             this.receivedAmount = receivedAmount;
+            this.segmentSize = segmentSize;
         }
     }
 }
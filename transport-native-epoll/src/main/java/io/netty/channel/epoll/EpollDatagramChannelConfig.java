@@ -20,6 +20,7 @@ import io.netty.channel.ChannelOption;
 import io.netty.channel.FixedRecvByteBufAllocator;
 import io.netty.channel.MessageSizeEstimator;
 import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.WriteBufferBudget;
 import io.netty.channel.socket.DatagramChannelConfig;
 
 import java.net.InetAddress;
@@ -30,6 +31,8 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
     private static final RecvByteBufAllocator DEFAULT_RCVBUF_ALLOCATOR = new FixedRecvByteBufAllocator(2048);
     private final EpollDatagramChannel datagramChannel;
     private boolean activeOnOpen;
+    private volatile int maxDatagramsPerRead = 1;
+    private volatile boolean udpGro;
 
     EpollDatagramChannelConfig(EpollDatagramChannel channel) {
         super(channel);
@@ -46,7 +49,9 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
                 ChannelOption.SO_REUSEADDR, ChannelOption.IP_MULTICAST_LOOP_DISABLED,
                 ChannelOption.IP_MULTICAST_ADDR, ChannelOption.IP_MULTICAST_IF, ChannelOption.IP_MULTICAST_TTL,
                 ChannelOption.IP_TOS, ChannelOption.DATAGRAM_CHANNEL_ACTIVE_ON_REGISTRATION,
-                EpollChannelOption.SO_REUSEPORT);
+                EpollChannelOption.SO_REUSEPORT, EpollChannelOption.MAX_DATAGRAMS_PER_READ,
+                EpollChannelOption.UDP_SEGMENT, EpollChannelOption.UDP_GRO,
+                EpollChannelOption.SO_BUSY_POLL, EpollChannelOption.SO_INCOMING_CPU);
     }
 
     @SuppressWarnings({ "unchecked", "deprecation" })
@@ -85,6 +90,21 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
         if (option == EpollChannelOption.SO_REUSEPORT) {
             return (T) Boolean.valueOf(isReusePort());
         }
+        if (option == EpollChannelOption.MAX_DATAGRAMS_PER_READ) {
+            return (T) Integer.valueOf(getMaxDatagramsPerRead());
+        }
+        if (option == EpollChannelOption.UDP_SEGMENT) {
+            return (T) Integer.valueOf(getUdpSegment());
+        }
+        if (option == EpollChannelOption.UDP_GRO) {
+            return (T) Boolean.valueOf(isUdpGro());
+        }
+        if (option == EpollChannelOption.SO_BUSY_POLL) {
+            return (T) Integer.valueOf(getSoBusyPoll());
+        }
+        if (option == EpollChannelOption.SO_INCOMING_CPU) {
+            return (T) Integer.valueOf(getSoIncomingCpu());
+        }
         return super.getOption(option);
     }
 
@@ -115,6 +135,16 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
             setActiveOnOpen((Boolean) value);
         } else if (option == EpollChannelOption.SO_REUSEPORT) {
             setReusePort((Boolean) value);
+        } else if (option == EpollChannelOption.MAX_DATAGRAMS_PER_READ) {
+            setMaxDatagramsPerRead((Integer) value);
+        } else if (option == EpollChannelOption.UDP_SEGMENT) {
+            setUdpSegment((Integer) value);
+        } else if (option == EpollChannelOption.UDP_GRO) {
+            setUdpGro((Boolean) value);
+        } else if (option == EpollChannelOption.SO_BUSY_POLL) {
+            setSoBusyPoll((Integer) value);
+        } else if (option == EpollChannelOption.SO_INCOMING_CPU) {
+            setSoIncomingCpu((Integer) value);
         } else {
             return super.setOption(option, value);
         }
@@ -135,6 +165,12 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
         return this;
     }
 
+    @Override
+    public EpollDatagramChannelConfig setWriteBufferBudget(WriteBufferBudget budget) {
+        super.setWriteBufferBudget(budget);
+        return this;
+    }
+
     @Override
     public EpollDatagramChannelConfig setWriteBufferLowWaterMark(int writeBufferLowWaterMark) {
         super.setWriteBufferLowWaterMark(writeBufferLowWaterMark);
@@ -303,4 +339,115 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
         Native.setReusePort(datagramChannel.fd().intValue(), reusePort ? 1 : 0);
         return this;
     }
+
+    /**
+     * Returns the maximal number of datagrams which are received with one
+     * <a href="http://man7.org/linux/man-pages/man2/recvmmsg.2.html">recvmmsg(...)</a> call.
+     */
+    public int getMaxDatagramsPerRead() {
+        return maxDatagramsPerRead;
+    }
+
+    /**
+     * Set the maximal number of datagrams which are received with one
+     * <a href="http://man7.org/linux/man-pages/man2/recvmmsg.2.html">recvmmsg(...)</a> call. Each datagram is
+     * received into its own buffer, which is allocated via the {@link RecvByteBufAllocator}. The number of datagrams
+     * per call adapts to the number of datagrams that were received by the previous calls, up to this maximum.
+     *
+     * The default is {@code 1}, which receives every datagram with its own {@code recvfrom(...)} call. Values
+     * greater than {@code 1} only have an effect if {@code recvmmsg(...)} is supported and the allocated buffers
+     * have a memory address, which is the case for direct buffers.
+     */
+    public EpollDatagramChannelConfig setMaxDatagramsPerRead(int maxDatagramsPerRead) {
+        if (maxDatagramsPerRead < 1) {
+            throw new IllegalArgumentException(
+                    "maxDatagramsPerRead: " + maxDatagramsPerRead + " (expected: > 0)");
+        }
+        this.maxDatagramsPerRead = Math.min(maxDatagramsPerRead, Native.UIO_MAX_IOV);
+        return this;
+    }
+
+    /**
+     * Returns the size of the segments all datagrams written to this channel are split into, or {@code 0} if
+     * the UDP_SEGMENT option is not set.
+     */
+    public int getUdpSegment() {
+        return Native.getUdpSegment(datagramChannel.fd().intValue());
+    }
+
+    /**
+     * Set the UDP_SEGMENT option on the underlying Channel. Every datagram that is written to this channel and
+     * is bigger than {@code segmentSize} is split into datagrams of {@code segmentSize} bytes by the kernel (or the
+     * NIC), as if it was written as a {@link SegmentedDatagramPacket}. {@code 0} disables segmentation.
+     *
+     * This needs linux 4.18+, see {@link SegmentedDatagramPacket#isSupported()}.
+     */
+    public EpollDatagramChannelConfig setUdpSegment(int segmentSize) {
+        if (segmentSize < 0 || segmentSize > 0xFFFF) {
+            throw new IllegalArgumentException("segmentSize: " + segmentSize + " (expected: 0-65535)");
+        }
+        Native.setUdpSegment(datagramChannel.fd().intValue(), segmentSize);
+        return this;
+    }
+
+    /**
+     * Returns {@code true} if the UDP_GRO option is set.
+     */
+    public boolean isUdpGro() {
+        return udpGro;
+    }
+
+    /**
+     * Set the UDP_GRO option on the underlying Channel. This allows the kernel to coalesce datagrams of the same
+     * flow into one buffer, which is split into one {@link io.netty.channel.socket.DatagramPacket} per datagram
+     * again before it is passed through the {@link io.netty.channel.ChannelPipeline}. This saves the per-datagram
+     * cost of the network stack when receiving many datagrams.
+     *
+     * The buffers allocated via the {@link RecvByteBufAllocator} must be big enough to hold the coalesced
+     * datagrams (up to 64KB), otherwise datagrams are truncated. While enabled every datagram is received with
+     * its own {@code recvmsg(...)} call, so {@link #setMaxDatagramsPerRead(int)} has no effect.
+     *
+     * This needs linux 5.0+.
+     */
+    public EpollDatagramChannelConfig setUdpGro(boolean udpGro) {
+        Native.setUdpGro(datagramChannel.fd().intValue(), udpGro ? 1 : 0);
+        this.udpGro = udpGro;
+        return this;
+    }
+
+    /**
+     * Get the {@code SO_BUSY_POLL} option of the datagram socket, which is the number of microseconds a receive busy
+     * polls the receive queue of the network device for new datagrams before it waits for them.
+     */
+    public int getSoBusyPoll() {
+        return Native.getSoBusyPoll(datagramChannel.fd().intValue());
+    }
+
+    /**
+     * Set the {@code SO_BUSY_POLL} option of the datagram socket. This lowers the latency of request/response
+     * protocols on top of UDP at the cost of CPU time. Raising it above {@code net.core.busy_read} requires
+     * {@code CAP_NET_ADMIN}. See {@code man 7 socket} for more details.
+     */
+    public EpollDatagramChannelConfig setSoBusyPoll(int microseconds) {
+        Native.setSoBusyPoll(datagramChannel.fd().intValue(), microseconds);
+        return this;
+    }
+
+    /**
+     * Get the {@code SO_INCOMING_CPU} option of the datagram socket, which is the CPU on which the network stack
+     * processed the last datagram received on it.
+     */
+    public int getSoIncomingCpu() {
+        return Native.getSoIncomingCpu(datagramChannel.fd().intValue());
+    }
+
+    /**
+     * Set the {@code SO_INCOMING_CPU} option of the datagram socket. If several datagram channels are bound to the
+     * same port with {@link EpollChannelOption#SO_REUSEPORT}, the kernel delivers a datagram preferably to the one
+     * whose option matches the CPU that processed the datagram. See {@code man 7 socket} for more details.
+     */
+    public EpollDatagramChannelConfig setSoIncomingCpu(int cpu) {
+        Native.setSoIncomingCpu(datagramChannel.fd().intValue(), cpu);
+        return this;
+    }
 }
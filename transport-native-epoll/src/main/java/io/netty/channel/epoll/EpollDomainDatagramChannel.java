@@ -0,0 +1,365 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.unix.DomainDatagramChannel;
+import io.netty.channel.unix.DomainDatagramPacket;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.util.internal.StringUtil;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link DomainDatagramChannel} implementation that uses linux EPOLL Edge-Triggered Mode for maximal performance.
+ * Datagrams are written and read in batches via {@code sendmmsg(...)} and {@code recvmmsg(...)}, and each
+ * {@link DomainDatagramPacket} may pass up to 16 {@link FileDescriptor}s.
+ *
+ * The channel uses a {@code SOCK_DGRAM} socket by default or a {@code SOCK_SEQPACKET} socket, which preserves
+ * message boundaries like {@code SOCK_DGRAM} but is connection oriented and reliable. A {@code SOCK_SEQPACKET}
+ * channel needs to be connected to a listening socket or created from a connected {@link FileDescriptor}, for
+ * example one of {@link Native#socketPairDomainDatagram(boolean)}. As an empty message can not be distinguished from
+ * the end of the stream, a {@code SOCK_SEQPACKET} channel is closed once it receives an empty message.
+ */
+public final class EpollDomainDatagramChannel extends AbstractEpollChannel implements DomainDatagramChannel {
+    // Disconnecting is not supported, so disconnect() closes the channel.
+    private static final ChannelMetadata METADATA = new ChannelMetadata(false);
+    private static final String EXPECTED_TYPES =
+            " (expected: " + StringUtil.simpleClassName(DomainDatagramPacket.class) + ", " +
+            StringUtil.simpleClassName(ByteBuf.class) + ')';
+
+    private final EpollDomainDatagramChannelConfig config = new EpollDomainDatagramChannelConfig(this);
+    private volatile DomainSocketAddress local;
+    private volatile DomainSocketAddress remote;
+    private volatile boolean connected;
+    private final boolean seqPacket;
+
+    /**
+     * Creates a new {@code SOCK_DGRAM} channel.
+     */
+    public EpollDomainDatagramChannel() {
+        this(false);
+    }
+
+    /**
+     * Creates a new {@code SOCK_SEQPACKET} channel if {@code seqPacket} is {@code true} and a new {@code SOCK_DGRAM}
+     * channel otherwise.
+     */
+    public EpollDomainDatagramChannel(boolean seqPacket) {
+        super(Native.socketDomainDatagramFd(seqPacket), Native.EPOLLIN);
+        this.seqPacket = seqPacket;
+    }
+
+    /**
+     * Create a new {@link EpollDomainDatagramChannel} from the given {@link FileDescriptor}, which needs to be bound
+     * or connected already.
+     */
+    public EpollDomainDatagramChannel(FileDescriptor fd) {
+        super(null, fd, Native.EPOLLIN, true);
+        seqPacket = Native.isSeqPacket(fd.intValue()) == 1;
+        remote = Native.remoteDomainSocketAddress(fd.intValue());
+        connected = remote != null;
+    }
+
+    @Override
+    public DomainSocketAddress remoteAddress() {
+        return (DomainSocketAddress) super.remoteAddress();
+    }
+
+    @Override
+    public DomainSocketAddress localAddress() {
+        return (DomainSocketAddress) super.localAddress();
+    }
+
+    @Override
+    protected DomainSocketAddress localAddress0() {
+        return local;
+    }
+
+    @Override
+    protected DomainSocketAddress remoteAddress0() {
+        return remote;
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    public boolean isActive() {
+        return fd().isOpen() && active;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public EpollDomainDatagramChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    protected void doBind(SocketAddress localAddress) throws Exception {
+        Native.bind(fd().intValue(), localAddress);
+        local = (DomainSocketAddress) localAddress;
+        active = true;
+    }
+
+    @Override
+    protected void doDisconnect() throws Exception {
+        doClose();
+    }
+
+    @Override
+    protected AbstractEpollUnsafe newUnsafe() {
+        return new EpollDomainDatagramChannelUnsafe();
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        for (;;) {
+            if (in.current() == null) {
+                // Wrote all messages.
+                clearFlag(Native.EPOLLOUT);
+                break;
+            }
+
+            try {
+                NativeDomainDatagramPacketArray array = NativeDomainDatagramPacketArray.getInstance(in);
+                int cnt = array.count();
+                if (cnt == 0) {
+                    // Should never happen as filterOutboundMessage(...) only lets messages through that fit.
+                    in.remove(new ChannelException("unable to write: " + in.current()));
+                    continue;
+                }
+
+                int offset = 0;
+                while (cnt > 0) {
+                    int send = array.send(fd().intValue(), offset, cnt);
+                    if (send == 0) {
+                        // Did not write all messages.
+                        setFlag(Native.EPOLLOUT);
+                        return;
+                    }
+                    for (int i = 0; i < send; i++) {
+                        in.remove();
+                    }
+                    cnt -= send;
+                    offset += send;
+                }
+            } catch (IOException e) {
+                // Continue on write error as the datagrams may be sent to multiple remote peers.
+                in.remove(e);
+            }
+        }
+    }
+
+    @Override
+    protected Object filterOutboundMessage(Object msg) {
+        if (msg instanceof DomainDatagramPacket) {
+            DomainDatagramPacket packet = (DomainDatagramPacket) msg;
+            FileDescriptor[] fileDescriptors = packet.fileDescriptors();
+            if (fileDescriptors.length > NativeDomainDatagramPacketArray.MAX_FILE_DESCRIPTORS) {
+                throw new IllegalArgumentException("fileDescriptors: " + fileDescriptors.length +
+                        " (expected: <= " + NativeDomainDatagramPacketArray.MAX_FILE_DESCRIPTORS + ')');
+            }
+            ByteBuf content = packet.content();
+            if (content.hasMemoryAddress()) {
+                return msg;
+            }
+            // sendmmsg(...) can only handle buffers with memory address.
+            return new DomainDatagramPacket(newDirectBuffer(packet, content), packet.recipient(), packet.sender(),
+                    fileDescriptors, null);
+        }
+
+        if (msg instanceof ByteBuf) {
+            ByteBuf buf = (ByteBuf) msg;
+            return buf.hasMemoryAddress() ? buf : newDirectBuffer(buf);
+        }
+
+        throw new UnsupportedOperationException(
+                "unsupported message type: " + StringUtil.simpleClassName(msg) + EXPECTED_TYPES);
+    }
+
+    final class EpollDomainDatagramChannelUnsafe extends AbstractEpollUnsafe {
+        private final List<Object> readBuf = new ArrayList<Object>();
+        private boolean endOfStream;
+
+        @Override
+        public void connect(SocketAddress remote, SocketAddress local, ChannelPromise channelPromise) {
+            if (!channelPromise.setUncancellable() || !ensureOpen(channelPromise)) {
+                return;
+            }
+            try {
+                boolean wasActive = isActive();
+                if (local != null) {
+                    doBind(local);
+                }
+                if (!Native.connect(fd().intValue(), remote)) {
+                    // Connecting to a Unix Domain Socket never blocks, but fails with EAGAIN if the backlog of the
+                    // listening socket is full.
+                    throw new IOException("connect(...) did not complete");
+                }
+                EpollDomainDatagramChannel.this.remote = (DomainSocketAddress) remote;
+                connected = true;
+                active = true;
+                channelPromise.setSuccess();
+
+                if (!wasActive && isActive()) {
+                    pipeline().fireChannelActive();
+                }
+            } catch (Throwable cause) {
+                channelPromise.setFailure(cause);
+                closeIfClosed();
+            }
+        }
+
+        @Override
+        protected EpollRecvByteAllocatorHandle newEpollHandle(RecvByteBufAllocator.Handle handle) {
+            return new EpollRecvByteAllocatorMessageHandle(handle, isFlagSet(Native.EPOLLET));
+        }
+
+        @Override
+        void epollInReady() {
+            assert eventLoop().inEventLoop();
+            EpollDomainDatagramChannelConfig config = config();
+            boolean edgeTriggered = isFlagSet(Native.EPOLLET);
+
+            if (!readPending && !edgeTriggered && !config.isAutoRead()) {
+                // ChannelConfig.setAutoRead(false) was called in the meantime
+                clearEpollIn0();
+                return;
+            }
+
+            final ChannelPipeline pipeline = pipeline();
+            final ByteBufAllocator allocator = config.getAllocator();
+            final EpollRecvByteAllocatorMessageHandle allocHandle =
+                    (EpollRecvByteAllocatorMessageHandle) recvBufAllocHandle();
+            allocHandle.reset(config);
+
+            Throwable exception = null;
+            try {
+                try {
+                    do {
+                        if (receive(allocHandle, allocator, config.getMaxDatagramsPerRead()) == 0 || endOfStream) {
+                            break;
+                        }
+                        readPending = false;
+                    } while (allocHandle.continueReading());
+                } catch (Throwable t) {
+                    exception = t;
+                }
+
+                int size = readBuf.size();
+                for (int i = 0; i < size; i ++) {
+                    pipeline.fireChannelRead(readBuf.get(i));
+                }
+                readBuf.clear();
+                allocHandle.readComplete();
+                pipeline.fireChannelReadComplete();
+
+                if (exception != null) {
+                    pipeline.fireExceptionCaught(exception);
+                    checkResetEpollIn(edgeTriggered);
+                }
+                if (endOfStream) {
+                    endOfStream = false;
+                    close(voidPromise());
+                }
+            } finally {
+                // Check if there is a readPending which was not processed yet.
+                // This could be for two reasons:
+                // * The user called Channel.read() or ChannelHandlerContext.read() in channelRead(...) method
+                // * The user called Channel.read() or ChannelHandlerContext.read() in channelReadComplete(...) method
+                //
+                // See https://github.com/netty/netty/issues/2254
+                if (!readPending && !config.isAutoRead()) {
+                    clearEpollIn();
+                }
+            }
+        }
+
+        /**
+         * Receive multiple datagrams with one recvmmsg(...) call into buffers allocated via the
+         * {@link EpollRecvByteAllocatorMessageHandle}. The received datagrams are added to {@link #readBuf} and all
+         * buffers that were not used are released. Returns the number of received datagrams.
+         */
+        private int receive(EpollRecvByteAllocatorMessageHandle allocHandle, ByteBufAllocator allocator,
+                            int maxDatagramsPerRead) throws IOException {
+            final NativeDomainDatagramPacketArray array = NativeDomainDatagramPacketArray.getInstance();
+            final int batchSize = allocHandle.datagramsPerBatch(maxDatagramsPerRead);
+            int count = 0;
+            int received = 0;
+            try {
+                do {
+                    ByteBuf data = allocHandle.allocate(allocator);
+                    if (!data.hasMemoryAddress()) {
+                        // recvmmsg(...) can only handle buffers with memory address.
+                        ByteBuf direct = allocator.directBuffer(data.writableBytes());
+                        data.release();
+                        data = direct;
+                    }
+                    if (count == 0) {
+                        allocHandle.attemptedBytesRead(data.writableBytes());
+                    }
+                    if (!array.addForRead(data)) {
+                        data.release();
+                        break;
+                    }
+                } while (++ count < batchSize);
+
+                received = array.receive(fd().intValue());
+                final DomainSocketAddress localAddress = local;
+                boolean truncated = false;
+                for (int i = 0; i < received; i ++) {
+                    if (seqPacket && array.isEmpty(i)) {
+                        // The remote peer closed the connection, the remaining datagrams are empty as well.
+                        endOfStream = true;
+                        received = i;
+                        break;
+                    }
+                    allocHandle.incMessagesRead(1);
+                    allocHandle.lastBytesRead(array.receivedBytes(i));
+                    truncated |= array.isTruncated(i);
+                    readBuf.add(array.packet(i, localAddress));
+                }
+                if (truncated) {
+                    throw new ChannelException("received more than " +
+                            NativeDomainDatagramPacketArray.MAX_FILE_DESCRIPTORS +
+                            " file descriptors with one datagram, the remaining ones were closed");
+                }
+            } finally {
+                array.releaseBuffers();
+            }
+            allocHandle.datagramsRead(received, count);
+            return received;
+        }
+    }
+}
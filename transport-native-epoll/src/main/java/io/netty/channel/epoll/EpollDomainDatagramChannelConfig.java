@@ -0,0 +1,208 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.MessageSizeEstimator;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.WriteBufferBudget;
+
+import java.util.Map;
+
+public final class EpollDomainDatagramChannelConfig extends EpollChannelConfig {
+    private static final RecvByteBufAllocator DEFAULT_RCVBUF_ALLOCATOR = new FixedRecvByteBufAllocator(2048);
+    private final EpollDomainDatagramChannel datagramChannel;
+    private volatile int maxDatagramsPerRead = 16;
+
+    EpollDomainDatagramChannelConfig(EpollDomainDatagramChannel channel) {
+        super(channel);
+        datagramChannel = channel;
+        setRecvByteBufAllocator(DEFAULT_RCVBUF_ALLOCATOR);
+    }
+
+    @Override
+    public Map<ChannelOption<?>, Object> getOptions() {
+        return getOptions(
+                super.getOptions(),
+                ChannelOption.SO_RCVBUF, ChannelOption.SO_SNDBUF,
+                EpollChannelOption.SO_PASSCRED, EpollChannelOption.MAX_DATAGRAMS_PER_READ);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T getOption(ChannelOption<T> option) {
+        if (option == ChannelOption.SO_RCVBUF) {
+            return (T) Integer.valueOf(getReceiveBufferSize());
+        }
+        if (option == ChannelOption.SO_SNDBUF) {
+            return (T) Integer.valueOf(getSendBufferSize());
+        }
+        if (option == EpollChannelOption.SO_PASSCRED) {
+            return (T) Boolean.valueOf(isPassCred());
+        }
+        if (option == EpollChannelOption.MAX_DATAGRAMS_PER_READ) {
+            return (T) Integer.valueOf(getMaxDatagramsPerRead());
+        }
+        return super.getOption(option);
+    }
+
+    @Override
+    public <T> boolean setOption(ChannelOption<T> option, T value) {
+        validate(option, value);
+
+        if (option == ChannelOption.SO_RCVBUF) {
+            setReceiveBufferSize((Integer) value);
+        } else if (option == ChannelOption.SO_SNDBUF) {
+            setSendBufferSize((Integer) value);
+        } else if (option == EpollChannelOption.SO_PASSCRED) {
+            setPassCred((Boolean) value);
+        } else if (option == EpollChannelOption.MAX_DATAGRAMS_PER_READ) {
+            setMaxDatagramsPerRead((Integer) value);
+        } else {
+            return super.setOption(option, value);
+        }
+
+        return true;
+    }
+
+    public int getSendBufferSize() {
+        return Native.getSendBufferSize(datagramChannel.fd().intValue());
+    }
+
+    public EpollDomainDatagramChannelConfig setSendBufferSize(int sendBufferSize) {
+        Native.setSendBufferSize(datagramChannel.fd().intValue(), sendBufferSize);
+        return this;
+    }
+
+    public int getReceiveBufferSize() {
+        return Native.getReceiveBufferSize(datagramChannel.fd().intValue());
+    }
+
+    public EpollDomainDatagramChannelConfig setReceiveBufferSize(int receiveBufferSize) {
+        Native.setReceiveBufferSize(datagramChannel.fd().intValue(), receiveBufferSize);
+        return this;
+    }
+
+    /**
+     * Returns {@code true} if the SO_PASSCRED option is set.
+     */
+    public boolean isPassCred() {
+        return Native.getSoPassCred(datagramChannel.fd().intValue()) == 1;
+    }
+
+    /**
+     * Set the SO_PASSCRED option on the underlying Channel. This will make the kernel attach the credentials of the
+     * sender to each received datagram, which are available via
+     * {@link io.netty.channel.unix.DomainDatagramPacket#credentials()}.
+     */
+    public EpollDomainDatagramChannelConfig setPassCred(boolean passCred) {
+        Native.setSoPassCred(datagramChannel.fd().intValue(), passCred ? 1 : 0);
+        return this;
+    }
+
+    /**
+     * Returns the maximal number of datagrams which are received with one
+     * <a href="http://man7.org/linux/man-pages/man2/recvmmsg.2.html">recvmmsg(...)</a> call.
+     */
+    public int getMaxDatagramsPerRead() {
+        return maxDatagramsPerRead;
+    }
+
+    /**
+     * Set the maximal number of datagrams which are received with one
+     * <a href="http://man7.org/linux/man-pages/man2/recvmmsg.2.html">recvmmsg(...)</a> call. Each datagram is
+     * received into its own buffer, which is allocated via the {@link RecvByteBufAllocator}. The number of datagrams
+     * per call adapts to the number of datagrams that were received by the previous calls, up to this maximum.
+     * The default is {@code 16}.
+     */
+    public EpollDomainDatagramChannelConfig setMaxDatagramsPerRead(int maxDatagramsPerRead) {
+        if (maxDatagramsPerRead < 1) {
+            throw new IllegalArgumentException(
+                    "maxDatagramsPerRead: " + maxDatagramsPerRead + " (expected: > 0)");
+        }
+        this.maxDatagramsPerRead = Math.min(maxDatagramsPerRead, Native.UIO_MAX_IOV);
+        return this;
+    }
+
+    @Override
+    @Deprecated
+    public EpollDomainDatagramChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead) {
+        super.setMaxMessagesPerRead(maxMessagesPerRead);
+        return this;
+    }
+
+    @Override
+    public EpollDomainDatagramChannelConfig setConnectTimeoutMillis(int connectTimeoutMillis) {
+        super.setConnectTimeoutMillis(connectTimeoutMillis);
+        return this;
+    }
+
+    @Override
+    public EpollDomainDatagramChannelConfig setWriteSpinCount(int writeSpinCount) {
+        super.setWriteSpinCount(writeSpinCount);
+        return this;
+    }
+
+    @Override
+    public EpollDomainDatagramChannelConfig setRecvByteBufAllocator(RecvByteBufAllocator allocator) {
+        super.setRecvByteBufAllocator(allocator);
+        return this;
+    }
+
+    @Override
+    public EpollDomainDatagramChannelConfig setAllocator(ByteBufAllocator allocator) {
+        super.setAllocator(allocator);
+        return this;
+    }
+
+    @Override
+    public EpollDomainDatagramChannelConfig setMessageSizeEstimator(MessageSizeEstimator estimator) {
+        super.setMessageSizeEstimator(estimator);
+        return this;
+    }
+
+    @Override
+    public EpollDomainDatagramChannelConfig setWriteBufferBudget(WriteBufferBudget budget) {
+        super.setWriteBufferBudget(budget);
+        return this;
+    }
+
+    @Override
+    public EpollDomainDatagramChannelConfig setWriteBufferLowWaterMark(int writeBufferLowWaterMark) {
+        super.setWriteBufferLowWaterMark(writeBufferLowWaterMark);
+        return this;
+    }
+
+    @Override
+    public EpollDomainDatagramChannelConfig setWriteBufferHighWaterMark(int writeBufferHighWaterMark) {
+        super.setWriteBufferHighWaterMark(writeBufferHighWaterMark);
+        return this;
+    }
+
+    @Override
+    public EpollDomainDatagramChannelConfig setAutoRead(boolean autoRead) {
+        super.setAutoRead(autoRead);
+        return this;
+    }
+
+    @Override
+    public EpollDomainDatagramChannelConfig setEpollMode(EpollMode mode) {
+        super.setEpollMode(mode);
+        return this;
+    }
+}
@@ -19,6 +19,7 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.MessageSizeEstimator;
 import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.WriteBufferBudget;
 import io.netty.channel.unix.DomainSocketChannelConfig;
 import io.netty.channel.unix.DomainSocketReadMode;
 
@@ -96,6 +97,12 @@ public final class EpollDomainSocketChannelConfig extends EpollChannelConfig
         return this;
     }
 
+    @Override
+    public EpollDomainSocketChannelConfig setWriteBufferBudget(WriteBufferBudget budget) {
+        super.setWriteBufferBudget(budget);
+        return this;
+    }
+
     @Override
     public EpollDomainSocketChannelConfig setWriteBufferLowWaterMark(int writeBufferLowWaterMark) {
         super.setWriteBufferLowWaterMark(writeBufferLowWaterMark);
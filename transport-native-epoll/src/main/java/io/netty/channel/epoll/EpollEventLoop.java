@@ -21,6 +21,7 @@ import io.netty.channel.SingleThreadEventLoop;
 import io.netty.channel.epoll.AbstractEpollChannel.AbstractEpollUnsafe;
 import io.netty.util.collection.IntObjectHashMap;
 import io.netty.util.collection.IntObjectMap;
+import io.netty.util.concurrent.ScheduledFuture;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
@@ -30,7 +31,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Queue;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A {@link SingleThreadEventLoop} implementation which uses <a href="http://en.wikipedia.org/wiki/Epoll">epoll</a>
@@ -51,12 +54,24 @@ final class EpollEventLoop extends SingleThreadEventLoop {
 
     private final int epollFd;
     private final int eventFd;
+    private final int timerFd;
     private final IntObjectMap<AbstractEpollChannel> channels = new IntObjectHashMap<AbstractEpollChannel>(4096);
     private final boolean allowGrowing;
     private final EpollEventArray events;
 
-    private volatile int wakenUp;
+    // 1 while the event loop does not block in epoll_wait(...), so submitting a task does not need to write to the
+    // eventfd as the task queue is checked again before blocking.
+    private volatile int wakenUp = 1;
     private volatile int ioRatio = 50;
+    private volatile long spinNanos;
+    private volatile int cpuAffinity = -1;
+    private final AtomicReference<ScheduledFuture<?>> tcpInfoSampling = new AtomicReference<ScheduledFuture<?>>();
+
+    // Only accessed from the EventLoop.
+    private Thread affinityThread;
+    private int affinityCpu = -1;
+    // The deadline of the scheduled task the timerFd is armed for, or -1 if it is not armed.
+    private long timerFdDeadlineNanos = -1;
 
     EpollEventLoop(EventLoopGroup parent, Executor executor, int maxEvents) {
         super(parent, executor, false);
@@ -70,6 +85,7 @@ final class EpollEventLoop extends SingleThreadEventLoop {
         boolean success = false;
         int epollFd = -1;
         int eventFd = -1;
+        int timerFd = -1;
         try {
             this.epollFd = epollFd = Native.epollCreate();
             this.eventFd = eventFd = Native.eventFd();
@@ -78,6 +94,12 @@ final class EpollEventLoop extends SingleThreadEventLoop {
             } catch (IOException e) {
                 throw new IllegalStateException("Unable to add eventFd filedescriptor to epoll", e);
             }
+            this.timerFd = timerFd = Native.timerFd();
+            try {
+                Native.epollCtlAdd(epollFd, timerFd, Native.EPOLLIN);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to add timerFd filedescriptor to epoll", e);
+            }
             success = true;
         } finally {
             if (!success) {
@@ -95,6 +117,13 @@ final class EpollEventLoop extends SingleThreadEventLoop {
                         // ignore
                     }
                 }
+                if (timerFd != -1) {
+                    try {
+                        Native.close(timerFd);
+                    } catch (Exception e) {
+                        // ignore
+                    }
+                }
             }
         }
     }
@@ -141,6 +170,15 @@ final class EpollEventLoop extends SingleThreadEventLoop {
         }
     }
 
+    /**
+     * Returns a copy of the channels which are registered to this {@link EventLoop}, so they may be closed while
+     * iterating over it.
+     */
+    Collection<AbstractEpollChannel> registeredChannels() {
+        assert inEventLoop();
+        return new ArrayList<AbstractEpollChannel>(channels.values());
+    }
+
     @Override
     protected Queue<Runnable> newTaskQueue() {
         // This event loop never calls takeTask()
@@ -165,10 +203,118 @@ final class EpollEventLoop extends SingleThreadEventLoop {
         this.ioRatio = ioRatio;
     }
 
-    private int epollWait(boolean oldWakenUp) throws IOException {
-        int selectCnt = 0;
+    /**
+     * Returns the number of nanoseconds the event loop polls for ready events and tasks before it blocks in
+     * {@code epoll_wait}.
+     */
+    public long getSpinNanos() {
+        return spinNanos;
+    }
+
+    /**
+     * Sets the number of nanoseconds the event loop polls for ready events and tasks before it blocks in
+     * {@code epoll_wait}. Spinning burns a CPU core, but saves the latency of waking up the thread for events and
+     * tasks that arrive within the given time. The default value is {@code 0}, which means the event loop blocks
+     * right away.
+     */
+    public void setSpinNanos(long spinNanos) {
+        if (spinNanos < 0) {
+            throw new IllegalArgumentException("spinNanos: " + spinNanos + " (expected: >= 0)");
+        }
+        this.spinNanos = spinNanos;
+    }
+
+    /**
+     * Returns the CPU the thread which runs this event loop is pinned to, or {@code -1} if it is not pinned.
+     */
+    public int getCpuAffinity() {
+        return cpuAffinity;
+    }
+
+    /**
+     * Pins the thread which runs this event loop to the given CPU, or {@code -1} to not pin it. As the
+     * {@link Executor} may run the event loop on another thread later, every new thread is pinned once it starts
+     * to run the event loop, so this works best with an {@link Executor} that dedicates a thread to each event
+     * loop. A thread that was pinned once is not unpinned again.
+     */
+    public void setCpuAffinity(int cpu) {
+        if (cpu < -1) {
+            throw new IllegalArgumentException("cpu: " + cpu + " (expected: >= -1)");
+        }
+        cpuAffinity = cpu;
+    }
+
+    /**
+     * Samples the {@link EpollTcpInfo} of all active {@link EpollSocketChannel}s of this event loop at the given
+     * interval and reports it to the given {@link EpollTcpInfoListener}, or stops sampling if the listener is
+     * {@code null}.
+     */
+    public void setTcpInfoSampling(long interval, TimeUnit unit, EpollTcpInfoListener listener) {
+        ScheduledFuture<?> future = null;
+        if (listener != null) {
+            if (interval <= 0) {
+                throw new IllegalArgumentException("interval: " + interval + " (expected: > 0)");
+            }
+            future = scheduleAtFixedRate(new EpollTcpInfoSampler(this, listener), interval, interval, unit);
+        }
+        ScheduledFuture<?> oldFuture = tcpInfoSampling.getAndSet(future);
+        if (oldFuture != null) {
+            oldFuture.cancel(false);
+        }
+    }
+
+    private void updateCpuAffinity() {
+        final int cpu = cpuAffinity;
+        final Thread thread = Thread.currentThread();
+        if (cpu == affinityCpu && thread == affinityThread) {
+            return;
+        }
+        affinityCpu = cpu;
+        affinityThread = thread;
+        if (cpu != -1) {
+            try {
+                Native.setCpuAffinity(cpu);
+            } catch (IOException e) {
+                logger.warn("Failed to pin the event loop thread to CPU {}.", cpu, e);
+            }
+        }
+    }
+
+    private int epollWait() throws IOException {
         long currentTimeNanos = System.nanoTime();
         long selectDeadLineNanos = currentTimeNanos + delayNanos(currentTimeNanos);
+        final long spinNanos = this.spinNanos;
+        if (spinNanos > 0) {
+            int ready = epollSpin(Math.min(currentTimeNanos + spinNanos, selectDeadLineNanos));
+            if (ready != 0 || hasTasks() || hasScheduledTasks()) {
+                return ready;
+            }
+            currentTimeNanos = System.nanoTime();
+        }
+
+        // From now on tasks which are submitted from other threads need to write to the eventfd to wake us up. As
+        // they add the task before they check wakenUp, we need to check the task queue again after resetting it, so
+        // either we see the task or they see that we may block.
+        wakenUp = 0;
+        try {
+            if (hasTasks()) {
+                return Native.epollWait(epollFd, events, 0);
+            }
+            if (!isShuttingDown()) {
+                return epollWaitTimerFd();
+            }
+            return epollWaitShuttingDown(currentTimeNanos, selectDeadLineNanos);
+        } finally {
+            // We are awake again and will check the task queue before blocking the next time.
+            wakenUp = 1;
+        }
+    }
+
+    private int epollWaitShuttingDown(long currentTimeNanos, long selectDeadLineNanos) throws IOException {
+        int selectCnt = 0;
+
+        // confirmShutdown() expects the event loop to come back within the quiet period, so fall back to a bounded
+        // epoll_wait(...) timeout while shutting down.
         for (;;) {
             long timeoutMillis = (selectDeadLineNanos - currentTimeNanos + 500000L) / 1000000L;
             if (timeoutMillis <= 0) {
@@ -184,7 +330,7 @@ final class EpollEventLoop extends SingleThreadEventLoop {
             int selectedKeys = Native.epollWait(epollFd, events, (int) timeoutMillis);
             selectCnt ++;
 
-            if (selectedKeys != 0 || oldWakenUp || wakenUp == 1 || hasTasks() || hasScheduledTasks()) {
+            if (selectedKeys != 0 || wakenUp == 1 || hasTasks() || hasScheduledTasks()) {
                 // - Selected something,
                 // - waken up by user, or
                 // - the task queue has a pending task.
@@ -196,48 +342,49 @@ final class EpollEventLoop extends SingleThreadEventLoop {
         return 0;
     }
 
+    /**
+     * Block in {@code epoll_wait} until an event is ready, {@link #wakeup(boolean)} writes to the eventfd or the
+     * timerfd fires for the next scheduled task. In contrast to an {@code epoll_wait} timeout the timerfd has
+     * nanosecond precision and is only re-armed when the next deadline changes.
+     */
+    private int epollWaitTimerFd() throws IOException {
+        if (hasScheduledTasks()) {
+            return Native.epollWait(epollFd, events, 0);
+        }
+        long deadlineNanos = nextScheduledTaskDeadlineNanos();
+        if (deadlineNanos != -1 && deadlineNanos != timerFdDeadlineNanos) {
+            // A delay of 0 would disarm the timer, so fire as soon as possible if the deadline was just reached.
+            Native.timerFdSetTime(timerFd, Math.max(1, deadlineNanos - nanoTime()));
+            timerFdDeadlineNanos = deadlineNanos;
+        }
+        // If the next scheduled task was cancelled the timerFd stays armed and just wakes us up once for nothing.
+        return Native.epollWait(epollFd, events, -1);
+    }
+
+    /**
+     * Poll for ready events without blocking until there are some, a task was submitted or the deadline is reached.
+     */
+    private int epollSpin(long spinDeadlineNanos) throws IOException {
+        // Tasks are polled directly while spinning and wakenUp is still set, which spares the submitting threads the
+        // write to the eventfd.
+        for (;;) {
+            int ready = Native.epollWait(epollFd, events, 0);
+            if (ready != 0 || hasTasks() || hasScheduledTasks() || System.nanoTime() - spinDeadlineNanos >= 0) {
+                return ready;
+            }
+        }
+    }
+
     @Override
     protected void run() {
-        boolean oldWakenUp = WAKEN_UP_UPDATER.getAndSet(this, 0) == 1;
+        updateCpuAffinity();
         try {
             int ready;
             if (hasTasks()) {
                 // Non blocking just return what is ready directly without block
                 ready = Native.epollWait(epollFd, events, 0);
             } else {
-                ready = epollWait(oldWakenUp);
-
-                // 'wakenUp.compareAndSet(false, true)' is always evaluated
-                // before calling 'selector.wakeup()' to reduce the wake-up
-                // overhead. (Selector.wakeup() is an expensive operation.)
-                //
-                // However, there is a race condition in this approach.
-                // The race condition is triggered when 'wakenUp' is set to
-                // true too early.
-                //
-                // 'wakenUp' is set to true too early if:
-                // 1) Selector is waken up between 'wakenUp.set(false)' and
-                //    'selector.select(...)'. (BAD)
-                // 2) Selector is waken up between 'selector.select(...)' and
-                //    'if (wakenUp.get()) { ... }'. (OK)
-                //
-                // In the first case, 'wakenUp' is set to true and the
-                // following 'selector.select(...)' will wake up immediately.
-                // Until 'wakenUp' is set to false again in the next round,
-                // 'wakenUp.compareAndSet(false, true)' will fail, and therefore
-                // any attempt to wake up the Selector will fail, too, causing
-                // the following 'selector.select(...)' call to block
-                // unnecessarily.
-                //
-                // To fix this problem, we wake up the selector again if wakenUp
-                // is true immediately after selector.select(...).
-                // It is inefficient in that it wakes up the selector for both
-                // the first case (BAD - wake-up required) and the second case
-                // (OK - no wake-up required).
-
-                if (wakenUp == 1) {
-                    Native.eventFdWrite(eventFd, 1L);
-                }
+                ready = epollWait();
             }
 
             final int ioRatio = this.ioRatio;
@@ -305,6 +452,10 @@ final class EpollEventLoop extends SingleThreadEventLoop {
             if (fd == eventFd) {
                 // consume wakeup event
                 Native.eventFdRead(eventFd);
+            } else if (fd == timerFd) {
+                // consume the timer event, the scheduled tasks are run by runAllTasks(...)
+                Native.timerFdRead(timerFd);
+                timerFdDeadlineNanos = -1;
             } else {
                 final long ev = events.events(i);
 
@@ -374,6 +525,11 @@ final class EpollEventLoop extends SingleThreadEventLoop {
             } catch (IOException e) {
                 logger.warn("Failed to close the event fd.", e);
             }
+            try {
+                Native.close(timerFd);
+            } catch (IOException e) {
+                logger.warn("Failed to close the timer fd.", e);
+            }
         } finally {
             // release native memory
             events.free();
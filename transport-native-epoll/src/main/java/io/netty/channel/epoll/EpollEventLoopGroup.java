@@ -21,7 +21,9 @@ import io.netty.channel.MultithreadEventLoopGroup;
 import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.ExecutorServiceFactory;
 
+import java.util.Arrays;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -134,6 +136,55 @@ public final class EpollEventLoopGroup extends MultithreadEventLoopGroup {
         }
     }
 
+    /**
+     * Sets the number of nanoseconds the child event loops poll for ready events and tasks before they block in
+     * {@code epoll_wait}. The default value is {@code 0}, which means the event loops block right away.
+     *
+     * @see EpollEventLoop#setSpinNanos(long)
+     */
+    public void setSpinNanos(long spinNanos) {
+        for (EventExecutor e: children()) {
+            ((EpollEventLoop) e).setSpinNanos(spinNanos);
+        }
+    }
+
+    /**
+     * Pins the threads of the child event loops to the given CPUs, one CPU per event loop in a round-robin
+     * fashion. Passing no CPUs stops pinning threads that run an event loop for the first time.
+     *
+     * @see EpollEventLoop#setCpuAffinity(int)
+     */
+    public void setCpuAffinity(int... cpus) {
+        if (cpus == null) {
+            throw new NullPointerException("cpus");
+        }
+        for (int cpu: cpus) {
+            if (cpu < 0) {
+                throw new IllegalArgumentException("cpus: " + Arrays.toString(cpus) + " (expected: >= 0)");
+            }
+        }
+        int i = 0;
+        for (EventExecutor e: children()) {
+            ((EpollEventLoop) e).setCpuAffinity(cpus.length == 0 ? -1 : cpus[i ++ % cpus.length]);
+        }
+    }
+
+    /**
+     * Samples the {@link EpollTcpInfo} of all active {@link EpollSocketChannel}s at the given interval and reports it
+     * to the given {@link EpollTcpInfoListener}, which is called once per channel and once per event loop with the
+     * aggregated {@link EpollTcpInfoMetrics}. Passing {@code null} as listener stops sampling.
+     *
+     * @see EpollEventLoop#setTcpInfoSampling(long, TimeUnit, EpollTcpInfoListener)
+     */
+    public void setTcpInfoSampling(long interval, TimeUnit unit, EpollTcpInfoListener listener) {
+        if (unit == null) {
+            throw new NullPointerException("unit");
+        }
+        for (EventExecutor e: children()) {
+            ((EpollEventLoop) e).setTcpInfoSampling(interval, unit, listener);
+        }
+    }
+
     @Override
     protected EventLoop newChild(Executor executor, Object... args) throws Exception {
         return new EpollEventLoop(this, executor, (Integer) args[0]);
@@ -21,10 +21,35 @@ import io.netty.channel.RecvByteBufAllocator;
  * Respects termination conditions for EPOLL message (aka packet) based protocols.
  */
 final class EpollRecvByteAllocatorMessageHandle extends EpollRecvByteAllocatorHandle {
+    private static final int MIN_DATAGRAMS_PER_BATCH = 2;
+
+    // The number of datagrams to read with the next recvmmsg(...) call. This is adjusted to the number of datagrams
+    // which were received by the previous calls, so we not allocate a lot of buffers that are not used.
+    private int datagramsPerBatch = MIN_DATAGRAMS_PER_BATCH;
+
     public EpollRecvByteAllocatorMessageHandle(RecvByteBufAllocator.Handle handle, boolean isEdgeTriggered) {
         super(handle, isEdgeTriggered);
     }
 
+    /**
+     * Returns the number of datagrams which should be read with the next recvmmsg(...) call.
+     */
+    int datagramsPerBatch(int maxDatagramsPerRead) {
+        return Math.min(datagramsPerBatch, maxDatagramsPerRead);
+    }
+
+    /**
+     * Notify the handle that a recvmmsg(...) call for {@code batchSize} datagrams returned {@code numDatagrams}.
+     */
+    void datagramsRead(int numDatagrams, int batchSize) {
+        if (numDatagrams == batchSize) {
+            datagramsPerBatch = Math.min(batchSize << 1, Native.UIO_MAX_IOV);
+        } else if (numDatagrams > 0 && numDatagrams < batchSize >>> 1) {
+            // Ignore empty reads as these are expected when reading until EAGAIN in edge-triggered mode.
+            datagramsPerBatch = Math.max(batchSize >>> 1, MIN_DATAGRAMS_PER_BATCH);
+        }
+    }
+
     @Override
     public boolean continueReading() {
         /**
@@ -20,6 +20,7 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.MessageSizeEstimator;
 import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.WriteBufferBudget;
 import io.netty.util.NetUtil;
 
 import java.net.InetAddress;
@@ -197,6 +198,12 @@ public class EpollServerChannelConfig extends EpollChannelConfig {
         return this;
     }
 
+    @Override
+    public EpollServerChannelConfig setWriteBufferBudget(WriteBufferBudget budget) {
+        super.setWriteBufferBudget(budget);
+        return this;
+    }
+
     @Override
     public EpollServerChannelConfig setEpollMode(EpollMode mode) {
         super.setEpollMode(mode);
@@ -19,6 +19,7 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.MessageSizeEstimator;
 import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.WriteBufferBudget;
 import io.netty.channel.socket.ServerSocketChannelConfig;
 
 import java.net.InetAddress;
@@ -38,7 +39,8 @@ public final class EpollServerSocketChannelConfig extends EpollServerChannelConf
 
     @Override
     public Map<ChannelOption<?>, Object> getOptions() {
-        return getOptions(super.getOptions(), EpollChannelOption.SO_REUSEPORT, EpollChannelOption.IP_FREEBIND);
+        return getOptions(super.getOptions(), EpollChannelOption.SO_REUSEPORT, EpollChannelOption.IP_FREEBIND,
+                EpollChannelOption.SO_BUSY_POLL, EpollChannelOption.SO_INCOMING_CPU);
     }
 
     @SuppressWarnings("unchecked")
@@ -50,6 +52,12 @@ public final class EpollServerSocketChannelConfig extends EpollServerChannelConf
         if (option == EpollChannelOption.IP_FREEBIND) {
             return (T) Boolean.valueOf(isFreeBind());
         }
+        if (option == EpollChannelOption.SO_BUSY_POLL) {
+            return (T) Integer.valueOf(getSoBusyPoll());
+        }
+        if (option == EpollChannelOption.SO_INCOMING_CPU) {
+            return (T) Integer.valueOf(getSoIncomingCpu());
+        }
         return super.getOption(option);
     }
 
@@ -65,6 +73,10 @@ public final class EpollServerSocketChannelConfig extends EpollServerChannelConf
             @SuppressWarnings("unchecked")
             final Map<InetAddress, byte[]> m = (Map<InetAddress, byte[]>) value;
             setTcpMd5Sig(m);
+        } else if (option == EpollChannelOption.SO_BUSY_POLL) {
+            setSoBusyPoll((Integer) value);
+        } else if (option == EpollChannelOption.SO_INCOMING_CPU) {
+            setSoIncomingCpu((Integer) value);
         } else {
             return super.setOption(option, value);
         }
@@ -150,6 +162,12 @@ public final class EpollServerSocketChannelConfig extends EpollServerChannelConf
         return this;
     }
 
+    @Override
+    public EpollServerSocketChannelConfig setWriteBufferBudget(WriteBufferBudget budget) {
+        super.setWriteBufferBudget(budget);
+        return this;
+    }
+
     /**
      * Set the {@code TCP_MD5SIG} option on the socket. See {@code linux/tcp.h} for more details.
      * Keys can only be set on, not read to prevent a potential leak, as they are confidential.
@@ -195,4 +213,41 @@ public final class EpollServerSocketChannelConfig extends EpollServerChannelConf
         Native.setIpFreeBind(channel.fd().intValue(), freeBind ? 1: 0);
         return this;
     }
+
+    /**
+     * Get the {@code SO_BUSY_POLL} option of the server socket, which is inherited by the accepted channels.
+     */
+    public int getSoBusyPoll() {
+        return Native.getSoBusyPoll(channel.fd().intValue());
+    }
+
+    /**
+     * Set the {@code SO_BUSY_POLL} option of the server socket, so all accepted channels busy poll the receive queue
+     * of the network device for the given number of microseconds before a read waits for new segments. Raising it
+     * above {@code net.core.busy_read} requires {@code CAP_NET_ADMIN}. See {@code man 7 socket} for more details.
+     */
+    public EpollServerSocketChannelConfig setSoBusyPoll(int microseconds) {
+        Native.setSoBusyPoll(channel.fd().intValue(), microseconds);
+        return this;
+    }
+
+    /**
+     * Get the {@code SO_INCOMING_CPU} option of the server socket, which is the CPU it prefers to receive connection
+     * requests from.
+     */
+    public int getSoIncomingCpu() {
+        return Native.getSoIncomingCpu(channel.fd().intValue());
+    }
+
+    /**
+     * Set the {@code SO_INCOMING_CPU} option of the server socket. If several server channels are bound to the same
+     * port with {@link EpollChannelOption#SO_REUSEPORT}, the kernel hands a connection request preferably to the one
+     * whose option matches the CPU that processed the request. Binding one server channel per CPU and setting this
+     * option to the CPU its {@link io.netty.channel.EventLoop} runs on keeps each connection on a single CPU.
+     * See {@code man 7 socket} for more details.
+     */
+    public EpollServerSocketChannelConfig setSoIncomingCpu(int cpu) {
+        Native.setSoIncomingCpu(channel.fd().intValue(), cpu);
+        return this;
+    }
 }
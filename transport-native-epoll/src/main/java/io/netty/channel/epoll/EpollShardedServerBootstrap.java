@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * Binds one {@link EpollServerSocketChannel} per {@link EventLoop} of an {@link EpollEventLoopGroup} to the same
+ * address via {@code SO_REUSEPORT}, so the kernel distributes the incoming connections between the event loops
+ * instead of a single event loop accepting all of them. The accepted channels are registered to the
+ * {@link EventLoop} of the {@link EpollServerSocketChannel} which accepted them.
+ *
+ * <pre>
+ * ServerBootstrap b = new ServerBootstrap().childHandler(...);
+ * List&lt;Channel&gt; channels = new EpollShardedServerBootstrap(group, b).bind(8080);
+ * </pre>
+ *
+ * By default the kernel selects the {@link EpollServerSocketChannel} by a hash of the connection. If the threads of
+ * the event loops are pinned to the CPUs {@code 0} to {@code n - 1} via
+ * {@link EpollEventLoopGroup#setCpuAffinity(int...)}, {@link #cpuSteering(boolean)} can be used to select the
+ * {@link EpollServerSocketChannel} of the event loop which runs on the CPU that received the connection request
+ * instead.
+ */
+public final class EpollShardedServerBootstrap {
+
+    private final EpollEventLoopGroup group;
+    private final ServerBootstrap bootstrap;
+    private volatile boolean cpuSteering;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param group         the {@link EpollEventLoopGroup} which is used for the server and the accepted channels
+     * @param bootstrap     the {@link ServerBootstrap} which holds the handlers and options, and has neither a group
+     *                      nor a channel type set. It is cloned for each {@link EventLoop}.
+     */
+    public EpollShardedServerBootstrap(EpollEventLoopGroup group, ServerBootstrap bootstrap) {
+        this.group = checkNotNull(group, "group");
+        this.bootstrap = checkNotNull(bootstrap, "bootstrap");
+        if (bootstrap.group() != null || bootstrap.childGroup() != null) {
+            throw new IllegalArgumentException("bootstrap must not have a group set");
+        }
+    }
+
+    /**
+     * Dispatch the connection requests to the {@link EpollServerSocketChannel} whose index matches the CPU which
+     * received them (modulo the number of event loops). Requires Linux 4.5 or later.
+     */
+    public EpollShardedServerBootstrap cpuSteering(boolean cpuSteering) {
+        this.cpuSteering = cpuSteering;
+        return this;
+    }
+
+    /**
+     * Binds the {@link EpollServerSocketChannel}s to the given port on the wildcard address.
+     *
+     * @see #bind(SocketAddress)
+     */
+    public List<Channel> bind(int inetPort) throws InterruptedException {
+        return bind(new InetSocketAddress(inetPort));
+    }
+
+    /**
+     * Binds one {@link EpollServerSocketChannel} per {@link EventLoop} to the given address and returns them in the
+     * order of {@link EpollEventLoopGroup#children()}. If the port of the address is {@code 0} all channels share the
+     * port which was picked for the first one. If any of the channels can not be bound, the ones which were bound
+     * already are closed again.
+     */
+    public List<Channel> bind(SocketAddress localAddress) throws InterruptedException {
+        checkNotNull(localAddress, "localAddress");
+        List<Channel> channels = new ArrayList<Channel>();
+        boolean success = false;
+        try {
+            SocketAddress address = localAddress;
+            for (EventLoop loop: group.<EventLoop>children()) {
+                ServerBootstrap b = bootstrap.clone()
+                        .group(loop, loop)
+                        .channel(EpollServerSocketChannel.class)
+                        .option(EpollChannelOption.SO_REUSEPORT, true);
+                Channel channel = b.bind(address).sync().channel();
+                channels.add(channel);
+                // All channels need to be bound to the same port.
+                address = channel.localAddress();
+            }
+            if (cpuSteering) {
+                EpollServerSocketChannel first = (EpollServerSocketChannel) channels.get(0);
+                try {
+                    Native.attachReusePortCpuSteering(first.fd().intValue(), channels.size());
+                } catch (IOException e) {
+                    throw new IllegalStateException("failed to attach the CPU steering program", e);
+                }
+            }
+            success = true;
+            return Collections.unmodifiableList(channels);
+        } finally {
+            if (!success) {
+                for (Channel channel: channels) {
+                    channel.close();
+                }
+            }
+        }
+    }
+}
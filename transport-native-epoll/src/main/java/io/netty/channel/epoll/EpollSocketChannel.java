@@ -17,6 +17,7 @@ package io.netty.channel.epoll;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelOutboundBuffer;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.EventLoop;
 import io.netty.channel.socket.ServerSocketChannel;
@@ -33,6 +34,8 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.Executor;
 
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
 /**
  * {@link SocketChannel} implementation that uses linux EPOLL Edge-Triggered Mode for
  * maximal performance.
@@ -44,6 +47,7 @@ public final class EpollSocketChannel extends AbstractEpollStreamChannel impleme
     private volatile InetSocketAddress local;
     private volatile InetSocketAddress remote;
     private volatile Collection<InetAddress> tcpMd5SigAddresses = Collections.emptyList();
+    private volatile boolean kernelTls;
 
     EpollSocketChannel(Channel parent, int fd, InetSocketAddress remote) {
         super(parent, fd);
@@ -133,6 +137,112 @@ public final class EpollSocketChannel extends AbstractEpollStreamChannel impleme
         return config;
     }
 
+    @Override
+    int zerocopyThreshold() {
+        // The kernel TLS implementation does not support MSG_ZEROCOPY.
+        return kernelTls ? -1 : config.zerocopyWriteThreshold();
+    }
+
+    /**
+     * Returns {@code true} if the kernel encrypts the data written to this channel, as kernel TLS was enabled via
+     * {@link #enableKernelTls(EpollTlsCryptoInfo, EpollTlsCryptoInfo)}.
+     */
+    public boolean isKernelTls() {
+        return kernelTls;
+    }
+
+    /**
+     * Enable kernel TLS (kTLS) for this channel, so the kernel encrypts everything written to it and decrypts
+     * everything read from it. Unlike with an {@link io.netty.handler.ssl.SslHandler} the data never needs to be
+     * copied into user space to be encrypted, so {@link io.netty.channel.DefaultFileRegion}s are still written via
+     * {@code sendfile}. See {@link #enableKernelTls(EpollTlsCryptoInfo, EpollTlsCryptoInfo, ChannelPromise)}.
+     */
+    public ChannelFuture enableKernelTls(EpollTlsCryptoInfo tx, EpollTlsCryptoInfo rx) {
+        return enableKernelTls(tx, rx, newPromise());
+    }
+
+    /**
+     * Enable kernel TLS (kTLS) for this channel, so the kernel encrypts everything written to it and decrypts
+     * everything read from it.
+     *
+     * Please note:
+     * <ul>
+     *   <li>the TLS handshake must be completed and all writes of it must be flushed. The keys and the sequence
+     *   numbers of the next records must be obtained from the TLS implementation which did the handshake, and once
+     *   the {@link ChannelFuture} succeeded the {@link io.netty.handler.ssl.SslHandler} must be removed from the
+     *   {@link io.netty.channel.ChannelPipeline} without writing anything else. When called from the
+     *   {@link EventLoop} the {@link ChannelFuture} is notified before this method returns.</li>
+     *   <li>{@code rx} may be {@code null} to only offload the encryption. If given, the kernel fails reads with an
+     *   {@link java.io.IOException} once it receives a record which is not application data, for example a TLS 1.3
+     *   {@code NewSessionTicket} or an alert.</li>
+     *   <li>the kernel does not send a {@code close_notify} alert when the channel is closed.</li>
+     *   <li>if the kernel does not support TLS, for example because the {@code tls} module is not loaded, the
+     *   {@link ChannelFuture} fails and the channel can still be used with an
+     *   {@link io.netty.handler.ssl.SslHandler}. If the keys were rejected after some of them were installed already
+     *   the channel is closed.</li>
+     * </ul>
+     */
+    public ChannelFuture enableKernelTls(final EpollTlsCryptoInfo tx, final EpollTlsCryptoInfo rx,
+                                         final ChannelPromise promise) {
+        checkNotNull(tx, "tx");
+        checkNotNull(promise, "promise");
+        EventLoop loop = eventLoop();
+        if (loop.inEventLoop()) {
+            enableKernelTls0(tx, rx, promise);
+        } else {
+            loop.execute(new OneTimeTask() {
+                @Override
+                public void run() {
+                    enableKernelTls0(tx, rx, promise);
+                }
+            });
+        }
+        return promise;
+    }
+
+    private void enableKernelTls0(EpollTlsCryptoInfo tx, EpollTlsCryptoInfo rx, ChannelPromise promise) {
+        if (!promise.setUncancellable()) {
+            return;
+        }
+        if (kernelTls) {
+            promise.setFailure(new IllegalStateException("kernel TLS enabled already"));
+            return;
+        }
+        if (!isActive()) {
+            promise.setFailure(new IllegalStateException("channel not active"));
+            return;
+        }
+        ChannelOutboundBuffer in = unsafe().outboundBuffer();
+        if (in == null || !in.isEmpty()) {
+            // Already encrypted records must not be encrypted again by the kernel.
+            promise.setFailure(new IllegalStateException("pending writes"));
+            return;
+        }
+
+        final int fd = fd().intValue();
+        try {
+            Native.setTcpUlpTls(fd);
+        } catch (Throwable cause) {
+            // Nothing changed, so the channel can still be used with a user space TLS implementation.
+            promise.setFailure(cause);
+            return;
+        }
+        try {
+            Native.setTlsCryptoInfo(fd, true, tx);
+            kernelTls = true;
+            if (rx != null) {
+                Native.setTlsCryptoInfo(fd, false, rx);
+            }
+            promise.setSuccess();
+        } catch (Throwable cause) {
+            promise.setFailure(cause);
+            if (kernelTls) {
+                // Only one direction is handled by the kernel now, so the connection is not usable anymore.
+                unsafe().close(unsafe().voidPromise());
+            }
+        }
+    }
+
     @Override
     public boolean isInputShutdown() {
         return isInputShutdown0();
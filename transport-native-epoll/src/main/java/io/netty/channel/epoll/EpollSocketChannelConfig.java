@@ -19,6 +19,7 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.MessageSizeEstimator;
 import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.WriteBufferBudget;
 import io.netty.channel.socket.SocketChannelConfig;
 import io.netty.util.internal.PlatformDependent;
 
@@ -29,8 +30,12 @@ import static io.netty.channel.ChannelOption.*;
 
 public final class EpollSocketChannelConfig extends EpollChannelConfig implements SocketChannelConfig {
     private static final long MAX_UINT32_T = 0xFFFFFFFFL;
+    // The kernel documentation states that MSG_ZEROCOPY is generally only effective for writes over around 10 KB.
+    private static final int DEFAULT_ZEROCOPY_THRESHOLD = 10 * 1024;
     private final EpollSocketChannel channel;
     private volatile boolean allowHalfClosure;
+    private volatile boolean soZerocopy;
+    private volatile int zerocopyThreshold = DEFAULT_ZEROCOPY_THRESHOLD;
 
     /**
      * Creates a new instance.
@@ -51,7 +56,9 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
                 SO_RCVBUF, SO_SNDBUF, TCP_NODELAY, SO_KEEPALIVE, SO_REUSEADDR, SO_LINGER, IP_TOS,
                 ALLOW_HALF_CLOSURE, EpollChannelOption.TCP_CORK, EpollChannelOption.TCP_NOTSENT_LOWAT,
                 EpollChannelOption.TCP_KEEPCNT, EpollChannelOption.TCP_KEEPIDLE, EpollChannelOption.TCP_KEEPINTVL,
-                EpollChannelOption.TCP_MD5SIG);
+                EpollChannelOption.TCP_MD5SIG, EpollChannelOption.SO_BUSY_POLL,
+                EpollChannelOption.SO_INCOMING_CPU, EpollChannelOption.SO_ZEROCOPY,
+                EpollChannelOption.ZEROCOPY_THRESHOLD);
     }
 
     @SuppressWarnings("unchecked")
@@ -99,6 +106,18 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
         if (option == EpollChannelOption.TCP_USER_TIMEOUT) {
             return (T) Integer.valueOf(getTcpUserTimeout());
         }
+        if (option == EpollChannelOption.SO_BUSY_POLL) {
+            return (T) Integer.valueOf(getSoBusyPoll());
+        }
+        if (option == EpollChannelOption.SO_INCOMING_CPU) {
+            return (T) Integer.valueOf(getSoIncomingCpu());
+        }
+        if (option == EpollChannelOption.SO_ZEROCOPY) {
+            return (T) Boolean.valueOf(isSoZerocopy());
+        }
+        if (option == EpollChannelOption.ZEROCOPY_THRESHOLD) {
+            return (T) Integer.valueOf(getZerocopyThreshold());
+        }
         return super.getOption(option);
     }
 
@@ -138,6 +157,14 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
             @SuppressWarnings("unchecked")
             final Map<InetAddress, byte[]> m = (Map<InetAddress, byte[]>) value;
             setTcpMd5Sig(m);
+        } else if (option == EpollChannelOption.SO_BUSY_POLL) {
+            setSoBusyPoll((Integer) value);
+        } else if (option == EpollChannelOption.SO_INCOMING_CPU) {
+            setSoIncomingCpu((Integer) value);
+        } else if (option == EpollChannelOption.SO_ZEROCOPY) {
+            setSoZerocopy((Boolean) value);
+        } else if (option == EpollChannelOption.ZEROCOPY_THRESHOLD) {
+            setZerocopyThreshold((Integer) value);
         } else {
             return super.setOption(option, value);
         }
@@ -399,9 +426,101 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
         return this;
     }
 
+    @Override
+    public EpollSocketChannelConfig setWriteBufferBudget(WriteBufferBudget budget) {
+        super.setWriteBufferBudget(budget);
+        return this;
+    }
+
     @Override
     public EpollSocketChannelConfig setEpollMode(EpollMode mode) {
         super.setEpollMode(mode);
         return this;
     }
+
+    /**
+     * Get the {@code SO_BUSY_POLL} option of the connection, which is the number of microseconds a read busy polls
+     * the receive queue of the network device for new segments before it waits for them.
+     */
+    public int getSoBusyPoll() {
+        return Native.getSoBusyPoll(channel.fd().intValue());
+    }
+
+    /**
+     * Set the {@code SO_BUSY_POLL} option of the connection. This lowers the latency of request/response traffic at
+     * the cost of CPU time. Raising it above {@code net.core.busy_read} requires {@code CAP_NET_ADMIN}.
+     * See {@code man 7 socket} for more details.
+     */
+    public EpollSocketChannelConfig setSoBusyPoll(int microseconds) {
+        Native.setSoBusyPoll(channel.fd().intValue(), microseconds);
+        return this;
+    }
+
+    /**
+     * Get the {@code SO_INCOMING_CPU} option of the connection, which is the CPU on which the network stack processed
+     * the last segment received on it. Serving the connection from an {@link io.netty.channel.EventLoop} which runs
+     * on this CPU keeps its data in the cache.
+     */
+    public int getSoIncomingCpu() {
+        return Native.getSoIncomingCpu(channel.fd().intValue());
+    }
+
+    /**
+     * Set the {@code SO_INCOMING_CPU} option of the connection. The kernel only uses this option to pick one of
+     * several listening sockets bound with {@code SO_REUSEPORT}, so setting it on a connected channel does not change
+     * on which CPU its segments are processed. Use {@link EpollServerSocketChannelConfig#setSoIncomingCpu(int)}
+     * instead. See {@code man 7 socket} for more details.
+     */
+    public EpollSocketChannelConfig setSoIncomingCpu(int cpu) {
+        Native.setSoIncomingCpu(channel.fd().intValue(), cpu);
+        return this;
+    }
+
+    /**
+     * Get the {@code SO_ZEROCOPY} option on the socket. See {@code man 7 socket} for more details.
+     */
+    public boolean isSoZerocopy() {
+        return Native.isSoZerocopy(channel.fd().intValue()) == 1;
+    }
+
+    /**
+     * Set the {@code SO_ZEROCOPY} option on the socket. If enabled, direct buffers of at least
+     * {@link #getZerocopyThreshold()} bytes are written with {@code MSG_ZEROCOPY}, which saves copying them into the
+     * kernel. As the kernel still uses their memory after the write returned, such a buffer is only released and its
+     * {@link io.netty.channel.ChannelPromise} notified once the kernel reported the completion. The channel falls back
+     * to copying once the kernel reported that it had to copy the data anyway, which is always the case for loopback
+     * connections. If the channel is closed before the completion was reported, the memory is kept until the kernel
+     * does not use it anymore, see {@link AbstractEpollStreamChannel#zerocopyLeakedBytes()}. Requires Linux 4.14 or
+     * later, see {@code Documentation/networking/msg_zerocopy.rst}.
+     */
+    public EpollSocketChannelConfig setSoZerocopy(boolean soZerocopy) {
+        Native.setSoZerocopy(channel.fd().intValue(), soZerocopy ? 1 : 0);
+        this.soZerocopy = soZerocopy;
+        return this;
+    }
+
+    /**
+     * Returns the minimal number of readable bytes of a direct buffer to be written with {@code MSG_ZEROCOPY} if
+     * {@link #isSoZerocopy()} is enabled.
+     */
+    public int getZerocopyThreshold() {
+        return zerocopyThreshold;
+    }
+
+    /**
+     * Sets the minimal number of readable bytes of a direct buffer to be written with {@code MSG_ZEROCOPY} if
+     * {@link #isSoZerocopy()} is enabled. Pinning the memory and handling the completion costs more than copying
+     * small buffers. The default value is {@code 10240}.
+     */
+    public EpollSocketChannelConfig setZerocopyThreshold(int zerocopyThreshold) {
+        if (zerocopyThreshold < 0) {
+            throw new IllegalArgumentException("zerocopyThreshold: " + zerocopyThreshold + " (expected: >= 0)");
+        }
+        this.zerocopyThreshold = zerocopyThreshold;
+        return this;
+    }
+
+    int zerocopyWriteThreshold() {
+        return soZerocopy ? zerocopyThreshold : -1;
+    }
 }
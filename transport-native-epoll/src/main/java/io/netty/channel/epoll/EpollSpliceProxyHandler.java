@@ -0,0 +1,128 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelProgressiveFuture;
+import io.netty.channel.ChannelProgressiveFutureListener;
+import io.netty.channel.ChannelProgressivePromise;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * Relays everything the {@link AbstractEpollStreamChannel} it is added to receives to another
+ * {@link AbstractEpollStreamChannel} via {@code splice}, so the data is never copied into user space. Add one
+ * instance to each of the two channels to get a TCP proxy:
+ *
+ * <pre>
+ * inbound.pipeline().addLast(new EpollSpliceProxyHandler(outbound));
+ * outbound.pipeline().addLast(new EpollSpliceProxyHandler(inbound));
+ * </pre>
+ *
+ * Please note:
+ * <ul>
+ *   <li>both channels need to be registered to the same {@link io.netty.channel.EventLoop} and have
+ *   {@link io.netty.channel.ChannelConfig#isAutoRead()} enabled. Reading is suspended while the other channel
+ *   can not keep up.</li>
+ *   <li>data which was read into a {@link ByteBuf} before splicing started is written to the other channel as
+ *   usual.</li>
+ *   <li>once the channel is closed the other channel is closed as well, after the relayed data was written.</li>
+ * </ul>
+ */
+public final class EpollSpliceProxyHandler extends ChannelInboundHandlerAdapter {
+
+    private final AbstractEpollStreamChannel peer;
+    private ChannelProgressivePromise splicePromise;
+    private long splicedBytes;
+    private long copiedBytes;
+    // Only written from the EventLoop.
+    private volatile long relayedBytes;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param peer  the {@link AbstractEpollStreamChannel} to relay the received data to
+     */
+    public EpollSpliceProxyHandler(AbstractEpollStreamChannel peer) {
+        this.peer = checkNotNull(peer, "peer");
+    }
+
+    /**
+     * Returns the number of bytes which were relayed to the other channel so far.
+     */
+    public long relayedBytes() {
+        return relayedBytes;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isActive()) {
+            startSplice(ctx);
+        }
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        startSplice(ctx);
+        ctx.fireChannelActive();
+    }
+
+    private void startSplice(final ChannelHandlerContext ctx) {
+        if (splicePromise != null) {
+            return;
+        }
+        splicePromise = ctx.newProgressivePromise();
+        splicePromise.addListener(new ChannelProgressiveFutureListener() {
+            @Override
+            public void operationProgressed(ChannelProgressiveFuture future, long progress, long total) {
+                splicedBytes = progress;
+                relayedBytes = splicedBytes + copiedBytes;
+            }
+
+            @Override
+            public void operationComplete(ChannelProgressiveFuture future) {
+                // Splicing forever only stops because of a failure, which is also reported if the channel was closed.
+                ctx.close();
+            }
+        });
+        ((AbstractEpollStreamChannel) ctx.channel()).spliceTo(peer, Integer.MAX_VALUE, splicePromise);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof ByteBuf) {
+            copiedBytes += ((ByteBuf) msg).readableBytes();
+            relayedBytes = splicedBytes + copiedBytes;
+        }
+        peer.writeAndFlush(msg).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        // Close the other channel once everything which was relayed to it was written.
+        peer.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        ctx.close();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+/**
+ * A histogram of the values of one {@link EpollTcpInfo} field over all sampled channels of an {@link EpollEventLoop}.
+ * The values are counted in buckets whose bounds are powers of two, so percentiles are accurate within a factor of
+ * two, which is enough to tell a slow peer from a fast one while recording is cheap.
+ */
+public final class EpollTcpInfoHistogram {
+
+    // Bucket 0 counts 0, bucket i counts [2^(i - 1), 2^i).
+    private final long[] buckets = new long[65];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    EpollTcpInfoHistogram() { }
+
+    void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value: " + value + " (expected: >= 0)");
+        }
+        buckets[64 - Long.numberOfLeadingZeros(value)]++;
+        count++;
+        sum += value;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Returns the number of recorded values.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the smallest recorded value or {@code 0} if nothing was recorded.
+     */
+    public long min() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * Returns the biggest recorded value or {@code 0} if nothing was recorded.
+     */
+    public long max() {
+        return count == 0 ? 0 : max;
+    }
+
+    /**
+     * Returns the mean of the recorded values or {@code 0} if nothing was recorded.
+     */
+    public double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Returns an upper bound of the given percentile of the recorded values, which is at most twice the exact
+     * percentile, or {@code 0} if nothing was recorded.
+     *
+     * @param percentile    the percentile between {@code 0} and {@code 100}
+     */
+    public long percentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile: " + percentile + " (expected: 0-100)");
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                // The upper bound of the bucket, but never more than the biggest value that was recorded.
+                return i == 0 ? 0 : i == 64 ? max : Math.min(max, (1L << i) - 1);
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "EpollTcpInfoHistogram(count: " + count() + ", min: " + min() + ", mean: " + mean() +
+                ", p99: " + percentile(99) + ", max: " + max() + ')';
+    }
+}
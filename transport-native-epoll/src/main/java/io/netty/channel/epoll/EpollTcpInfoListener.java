@@ -0,0 +1,46 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.channel.ChannelOutboundBuffer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Receives the {@link EpollTcpInfo} which is sampled periodically for the {@link EpollSocketChannel}s of an
+ * {@link EpollEventLoopGroup}.
+ *
+ * All methods are called from the event loop of the sampled channels, so they must not block.
+ *
+ * @see EpollEventLoopGroup#setTcpInfoSampling(long, TimeUnit, EpollTcpInfoListener)
+ */
+public interface EpollTcpInfoListener {
+
+    /**
+     * Called for each active {@link EpollSocketChannel}, for example to close slow peers.
+     *
+     * @param channel               the sampled channel
+     * @param info                  the {@link EpollTcpInfo} of the channel, which is reused for the next channel
+     * @param pendingOutboundBytes  the number of bytes which wait to be written in the {@link ChannelOutboundBuffer}
+     *                              of the channel
+     */
+    void tcpInfoSampled(EpollSocketChannel channel, EpollTcpInfo info, long pendingOutboundBytes);
+
+    /**
+     * Called after all active {@link EpollSocketChannel}s of an event loop were sampled.
+     */
+    void tcpInfoAggregated(EpollTcpInfoMetrics metrics);
+}
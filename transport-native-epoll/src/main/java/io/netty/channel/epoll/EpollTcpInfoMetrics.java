@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.EventLoop;
+
+/**
+ * The {@link EpollTcpInfo} of all active {@link EpollSocketChannel}s of one {@link EventLoop}, which were sampled at
+ * the same time and are reported to {@link EpollTcpInfoListener#tcpInfoAggregated(EpollTcpInfoMetrics)}.
+ */
+public final class EpollTcpInfoMetrics {
+
+    private final EventLoop eventLoop;
+    private final long timestampNanos;
+    private final EpollTcpInfoHistogram rtt = new EpollTcpInfoHistogram();
+    private final EpollTcpInfoHistogram retransmits = new EpollTcpInfoHistogram();
+    private final EpollTcpInfoHistogram congestionWindow = new EpollTcpInfoHistogram();
+    private final EpollTcpInfoHistogram unacked = new EpollTcpInfoHistogram();
+    private final EpollTcpInfoHistogram pendingOutboundBytes = new EpollTcpInfoHistogram();
+
+    EpollTcpInfoMetrics(EventLoop eventLoop, long timestampNanos) {
+        this.eventLoop = eventLoop;
+        this.timestampNanos = timestampNanos;
+    }
+
+    void record(EpollTcpInfo info, long pendingOutboundBytes) {
+        rtt.record(info.rtt());
+        retransmits.record(info.retrans());
+        congestionWindow.record(info.sndCwnd());
+        unacked.record(info.unacked());
+        this.pendingOutboundBytes.record(pendingOutboundBytes);
+    }
+
+    /**
+     * Returns the {@link EventLoop} the sampled channels are registered to.
+     */
+    public EventLoop eventLoop() {
+        return eventLoop;
+    }
+
+    /**
+     * Returns the value of {@link System#nanoTime()} when the channels were sampled.
+     */
+    public long timestampNanos() {
+        return timestampNanos;
+    }
+
+    /**
+     * Returns the number of sampled channels.
+     */
+    public long channels() {
+        return rtt.count();
+    }
+
+    /**
+     * Returns the smoothed round trip times in microseconds, as reported by {@link EpollTcpInfo#rtt()}.
+     */
+    public EpollTcpInfoHistogram rtt() {
+        return rtt;
+    }
+
+    /**
+     * Returns the number of segments which are retransmitted and not acknowledged yet, as reported by
+     * {@link EpollTcpInfo#retrans()}.
+     */
+    public EpollTcpInfoHistogram retransmits() {
+        return retransmits;
+    }
+
+    /**
+     * Returns the congestion windows in segments, as reported by {@link EpollTcpInfo#sndCwnd()}.
+     */
+    public EpollTcpInfoHistogram congestionWindow() {
+        return congestionWindow;
+    }
+
+    /**
+     * Returns the number of segments which were sent and not acknowledged yet, as reported by
+     * {@link EpollTcpInfo#unacked()}.
+     */
+    public EpollTcpInfoHistogram unacked() {
+        return unacked;
+    }
+
+    /**
+     * Returns the number of bytes which wait to be written in the {@link ChannelOutboundBuffer}s, as reported by
+     * {@link ChannelOutboundBuffer#totalPendingWriteBytes()}.
+     */
+    public EpollTcpInfoHistogram pendingOutboundBytes() {
+        return pendingOutboundBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "EpollTcpInfoMetrics(eventLoop: " + eventLoop + ", channels: " + channels() + ", rtt: " + rtt +
+                ", retransmits: " + retransmits + ", congestionWindow: " + congestionWindow +
+                ", unacked: " + unacked + ", pendingOutboundBytes: " + pendingOutboundBytes + ')';
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+/**
+ * Samples the {@link EpollTcpInfo} of all active {@link EpollSocketChannel}s of an {@link EpollEventLoop}. Runs as
+ * a periodic task of the {@link EpollEventLoop}.
+ */
+final class EpollTcpInfoSampler implements Runnable {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(EpollTcpInfoSampler.class);
+
+    private final EpollEventLoop loop;
+    private final EpollTcpInfoListener listener;
+    // Reused for all channels, as the listener must not keep it.
+    private final EpollTcpInfo info = new EpollTcpInfo();
+
+    EpollTcpInfoSampler(EpollEventLoop loop, EpollTcpInfoListener listener) {
+        this.loop = loop;
+        this.listener = listener;
+    }
+
+    @Override
+    public void run() {
+        EpollTcpInfoMetrics metrics = new EpollTcpInfoMetrics(loop, System.nanoTime());
+        for (AbstractEpollChannel ch: loop.registeredChannels()) {
+            if (!(ch instanceof EpollSocketChannel) || !ch.isActive()) {
+                continue;
+            }
+            EpollSocketChannel socket = (EpollSocketChannel) ch;
+            try {
+                Native.tcpInfo(socket.fd().intValue(), info);
+            } catch (ChannelException e) {
+                // The connection was reset in the meantime.
+                continue;
+            }
+            ChannelOutboundBuffer out = socket.unsafe().outboundBuffer();
+            long pendingOutboundBytes = out == null ? 0 : out.totalPendingWriteBytes();
+            metrics.record(info, pendingOutboundBytes);
+            try {
+                listener.tcpInfoSampled(socket, info, pendingOutboundBytes);
+            } catch (Throwable t) {
+                logger.warn("An exception was thrown by {}.tcpInfoSampled()", listener.getClass().getName(), t);
+            }
+        }
+        try {
+            listener.tcpInfoAggregated(metrics);
+        } catch (Throwable t) {
+            logger.warn("An exception was thrown by {}.tcpInfoAggregated()", listener.getClass().getName(), t);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * The keys of one direction of a TLS connection, which are installed into the kernel via
+ * {@link EpollSocketChannel#enableKernelTls(EpollTlsCryptoInfo, EpollTlsCryptoInfo)}. This mirrors the
+ * {@code struct tls12_crypto_info_*} structures of {@code linux/tls.h}.
+ */
+public final class EpollTlsCryptoInfo {
+
+    /**
+     * The TLS versions supported by the kernel.
+     */
+    public enum Version {
+        TLS_1_2(0x0303),
+        TLS_1_3(0x0304);
+
+        final int id;
+
+        Version(int id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * The ciphers supported by the kernel.
+     */
+    public enum Cipher {
+        AES_GCM_128(51, 16, 8, 4),
+        AES_GCM_256(52, 32, 8, 4),
+        CHACHA20_POLY1305(54, 32, 12, 0);
+
+        final int id;
+        final int keySize;
+        final int ivSize;
+        final int saltSize;
+
+        Cipher(int id, int keySize, int ivSize, int saltSize) {
+            this.id = id;
+            this.keySize = keySize;
+            this.ivSize = ivSize;
+            this.saltSize = saltSize;
+        }
+    }
+
+    static final int REC_SEQ_SIZE = 8;
+
+    private final Version version;
+    private final Cipher cipher;
+    private final byte[] key;
+    private final byte[] iv;
+    private final byte[] salt;
+    private final byte[] recordSequence;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param version           the negotiated TLS version
+     * @param cipher            the negotiated cipher
+     * @param key               the traffic key
+     * @param iv                the explicit part of the nonce, which is the whole static IV for
+     *                          {@link Cipher#CHACHA20_POLY1305}
+     * @param salt              the implicit part of the nonce, which is empty for {@link Cipher#CHACHA20_POLY1305}
+     * @param recordSequence    the big-endian sequence number of the next record
+     */
+    public EpollTlsCryptoInfo(Version version, Cipher cipher, byte[] key, byte[] iv, byte[] salt,
+                              byte[] recordSequence) {
+        this.version = checkNotNull(version, "version");
+        this.cipher = checkNotNull(cipher, "cipher");
+        this.key = checkSize(key, "key", cipher.keySize);
+        this.iv = checkSize(iv, "iv", cipher.ivSize);
+        this.salt = checkSize(salt, "salt", cipher.saltSize);
+        this.recordSequence = checkSize(recordSequence, "recordSequence", REC_SEQ_SIZE);
+    }
+
+    private static byte[] checkSize(byte[] bytes, String name, int expectedSize) {
+        checkNotNull(bytes, name);
+        if (bytes.length != expectedSize) {
+            throw new IllegalArgumentException(
+                    name + ".length: " + bytes.length + " (expected: " + expectedSize + ')');
+        }
+        return bytes.clone();
+    }
+
+    public Version version() {
+        return version;
+    }
+
+    public Cipher cipher() {
+        return cipher;
+    }
+
+    byte[] key() {
+        return key;
+    }
+
+    byte[] iv() {
+        return iv;
+    }
+
+    byte[] salt() {
+        return salt;
+    }
+
+    byte[] recordSequence() {
+        return recordSequence;
+    }
+}
@@ -38,8 +38,10 @@ import java.nio.ByteBuffer;
  * See also
  * <a href="http://rkennke.wordpress.com/2007/07/30/efficient-jni-programming-iv-wrapping-native-data-objects/"
  * >Efficient JNI programming IV: Wrapping native data objects</a>.
+ *
+ * <strong>Internal usage only!</strong>
  */
-final class IovArray implements MessageProcessor {
+public final class IovArray implements MessageProcessor {
 
     /** The size of an address which should be 8 for 64 bits and 4 for 32 bits. */
     private static final int ADDRESS_SIZE = PlatformDependent.addressSize();
@@ -60,11 +62,11 @@ final class IovArray implements MessageProcessor {
     private int count;
     private long size;
 
-    IovArray() {
+    public IovArray() {
         memoryAddress = PlatformDependent.allocateMemory(CAPACITY);
     }
 
-    void clear() {
+    public void clear() {
         count = 0;
         size = 0;
     }
@@ -92,6 +94,18 @@ final class IovArray implements MessageProcessor {
         return add(addr, offset, len);
     }
 
+    /**
+     * Try to add the writable bytes of the given {@link ByteBuf}, so data can be read into them.
+     * Returns {@code true} on success, {@code false} otherwise.
+     */
+    boolean addWritable(ByteBuf buf) {
+        if (count == Native.IOV_MAX) {
+            // No more room!
+            return false;
+        }
+        return add(buf.memoryAddress(), buf.writerIndex(), buf.writableBytes());
+    }
+
     private boolean add(long addr, int offset, int len) {
         if (len == 0) {
             // No need to add an empty buffer.
@@ -184,28 +198,28 @@ final class IovArray implements MessageProcessor {
     /**
      * Returns the number if iov entries.
      */
-    int count() {
+    public int count() {
         return count;
     }
 
     /**
      * Returns the size in bytes
      */
-    long size() {
+    public long size() {
         return size;
     }
 
     /**
      * Returns the {@code memoryAddress} for the given {@code offset}.
      */
-    long memoryAddress(int offset) {
+    public long memoryAddress(int offset) {
         return memoryAddress + IOV_SIZE * offset;
     }
 
     /**
      * Release the {@link IovArray}. Once release further using of it may crash the JVM!
      */
-    void release() {
+    public void release() {
         PlatformDependent.freeMemory(memoryAddress);
     }
 
@@ -19,6 +19,7 @@ package io.netty.channel.epoll;
 import io.netty.channel.ChannelException;
 import io.netty.channel.DefaultFileRegion;
 import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.channel.unix.FileDescriptor;
 import io.netty.util.CharsetUtil;
 import io.netty.util.internal.EmptyArrays;
 import io.netty.util.internal.NativeLibraryLoader;
@@ -61,10 +62,23 @@ public final class Native {
     public static final int IOV_MAX = iovMax();
     public static final int UIO_MAX_IOV = uioMaxIov();
     public static final boolean IS_SUPPORTING_SENDMMSG = isSupportingSendmmsg();
+    public static final boolean IS_SUPPORTING_RECVMMSG = isSupportingRecvmmsg();
     public static final boolean IS_SUPPORTING_TCP_FASTOPEN = isSupportingTcpFastopen();
+    public static final boolean IS_SUPPORTING_UDP_SEGMENT = isSupportingUdpSegment();
+    public static final boolean IS_SUPPORTING_UDP_GRO = isSupportingUdpGro();
     public static final long SSIZE_MAX = ssizeMax();
     public static final int TCP_MD5SIG_MAXKEYLEN = tcpMd5SigMaxKeyLen();
 
+    // 24 bytes for the largest address and 1 byte for its length, rounded up to an even number.
+    public static final int ACCEPTED_ADDRESS_SIZE = 26;
+
+    // The layout of the metadata of each datagram received via recvmmsgDomain(...): the number of received bytes,
+    // 1 if control messages were truncated, 1 if credentials were received, the pid, uid and gid of the sender, the
+    // number of received file descriptors and the file descriptors themselves.
+    public static final int DOMAIN_DATAGRAM_META_SIZE = 7;
+    // The length of sun_path and 1 byte for the length of the path.
+    public static final int DOMAIN_DATAGRAM_ADDRESS_SIZE = 109;
+
     private static final byte[] IPV4_MAPPED_IPV6_PREFIX = {
             0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, (byte) 0xff, (byte) 0xff };
 
@@ -75,6 +89,7 @@ public final class Native {
     private static final int ERRNO_EAGAIN_NEGATIVE = -errnoEAGAIN();
     private static final int ERRNO_EWOULDBLOCK_NEGATIVE = -errnoEWOULDBLOCK();
     private static final int ERRNO_EINPROGRESS_NEGATIVE = -errnoEINPROGRESS();
+    private static final int ERRNO_ENOBUFS_NEGATIVE = -errnoENOBUFS();
 
     /**
      * Holds the mappings for errno codes to String messages.
@@ -95,6 +110,7 @@ public final class Native {
     private static final IOException CONNECTION_RESET_EXCEPTION_SENDTO;
     private static final IOException CONNECTION_RESET_EXCEPTION_SENDMSG;
     private static final IOException CONNECTION_RESET_EXCEPTION_SENDMMSG;
+    private static final IOException CONNECTION_RESET_EXCEPTION_RECVMMSG;
     private static final IOException CONNECTION_RESET_EXCEPTION_SPLICE;
 
     static {
@@ -117,6 +133,8 @@ public final class Native {
                 ERRNO_EPIPE_NEGATIVE);
         CONNECTION_RESET_EXCEPTION_SENDMMSG = newConnectionResetException("syscall:sendmmsg(...)",
                 ERRNO_EPIPE_NEGATIVE);
+        CONNECTION_RESET_EXCEPTION_RECVMMSG = newConnectionResetException("syscall:recvmmsg(...)",
+                ERRNO_ECONNRESET_NEGATIVE);
         CONNECTION_RESET_EXCEPTION_SPLICE = newConnectionResetException("syscall:splice(...)",
                 ERRNO_EPIPE_NEGATIVE);
         CLOSED_CHANNEL_EXCEPTION = new ClosedChannelException();
@@ -149,9 +167,38 @@ public final class Native {
         throw newIOException(method, err);
     }
 
+    /**
+     * Pin the calling thread to the given CPU.
+     */
+    public static void setCpuAffinity(int cpu) throws IOException {
+        int res = setCpuAffinity0(cpu);
+        if (res < 0) {
+            throw newIOException("sched_setaffinity", res);
+        }
+    }
+
+    private static native int setCpuAffinity0(int cpu);
+
     public static native int eventFd();
     public static native void eventFdWrite(int fd, long value);
     public static native void eventFdRead(int fd);
+    public static native int timerFd();
+    public static native void timerFdRead(int fd);
+
+    /**
+     * Arms the timerfd to fire once after the given number of nanoseconds. A value of {@code 0} disarms it.
+     */
+    public static void timerFdSetTime(int fd, long delayNanos) {
+        long seconds = delayNanos / 1000000000L;
+        if (seconds > Integer.MAX_VALUE) {
+            // The timer will be re-armed when it fires anyway.
+            timerFdSetTime(fd, Integer.MAX_VALUE, 0);
+        } else {
+            timerFdSetTime(fd, (int) seconds, (int) (delayNanos % 1000000000L));
+        }
+    }
+
+    private static native void timerFdSetTime(int fd, int tvSec, int tvNsec);
     public static native int epollCreate();
     public static int epollWait(int efd, EpollEventArray events, int timeout) throws IOException {
         int ready = epollWait0(efd, events.memoryAddress(), events.length(), timeout);
@@ -193,6 +240,7 @@ public final class Native {
     private static native int errnoEAGAIN();
     private static native int errnoEWOULDBLOCK();
     private static native int errnoEINPROGRESS();
+    private static native int errnoENOBUFS();
     private static native String strError(int err);
 
     // File-descriptor operations
@@ -205,6 +253,20 @@ public final class Native {
 
     private static native int close0(int fd);
 
+    /**
+     * Returns a new file descriptor which refers to the same open file as the given one. The underlying file, for
+     * example a socket, is only released once all file descriptors that refer to it were closed.
+     */
+    public static int dup(int fd) throws IOException {
+        int res = dup0(fd);
+        if (res < 0) {
+            throw newIOException("dup", res);
+        }
+        return res;
+    }
+
+    private static native int dup0(int fd);
+
     public static int splice(int fd, long offIn, int fdOut, long offOut, long len) throws IOException {
         int res = splice0(fd, offIn, fdOut, offOut, len);
         if (res >= 0) {
@@ -245,6 +307,45 @@ public final class Native {
 
     private static native int writeAddress0(int fd, long address, int pos, int limit);
 
+    /**
+     * Write the bytes of the given memory region with {@code MSG_ZEROCOPY}, which requires {@code SO_ZEROCOPY} to be
+     * set on the socket. The memory must not be modified or freed until {@link #recvZerocopyCompletion(int, int[])}
+     * reported the send as completed. Returns the number of written bytes, {@code 0} if the socket is not writable
+     * or {@code -1} if the kernel could not pin the memory, in which case the bytes should be written without
+     * {@code MSG_ZEROCOPY}.
+     */
+    public static int sendAddressZerocopy(int fd, long address, int pos, int limit) throws IOException {
+        int res = sendAddressZerocopy0(fd, address, pos, limit);
+        if (res >= 0) {
+            return res;
+        }
+        if (res == ERRNO_ENOBUFS_NEGATIVE) {
+            return -1;
+        }
+        return ioResult("sendAddressZerocopy", res, CONNECTION_RESET_EXCEPTION_WRITE);
+    }
+
+    private static native int sendAddressZerocopy0(int fd, long address, int pos, int limit);
+
+    /**
+     * Read the next {@code MSG_ZEROCOPY} completion notification from the error queue of the socket. Each successful
+     * send with {@code MSG_ZEROCOPY} is numbered, starting with {@code 0}. If a notification was read {@code true} is
+     * returned and the given array is filled with the first and the last (inclusive) number of the completed sends,
+     * followed by {@code 1} if the kernel copied the data anyway or {@code 0} otherwise.
+     */
+    public static boolean recvZerocopyCompletion(int fd, int[] range) throws IOException {
+        int res = recvZerocopyCompletion0(fd, range);
+        if (res >= 0) {
+            return res == 1;
+        }
+        if (res == ERRNO_EAGAIN_NEGATIVE || res == ERRNO_EWOULDBLOCK_NEGATIVE) {
+            return false;
+        }
+        throw newIOException("recvZerocopyCompletion", res);
+    }
+
+    private static native int recvZerocopyCompletion0(int fd, int[] range);
+
     public static long writev(int fd, ByteBuffer[] buffers, int offset, int length) throws IOException {
         long res = writev0(fd, buffers, offset, length);
         if (res >= 0) {
@@ -386,6 +487,22 @@ public final class Native {
     public static native EpollDatagramChannel.DatagramSocketAddress recvFromAddress(
             int fd, long memoryAddress, int pos, int limit) throws IOException;
 
+    /**
+     * Same as {@link #recvFrom(int, ByteBuffer, int, int)} but also returns the size of the coalesced segments
+     * via {@link EpollDatagramChannel.DatagramSocketAddress#segmentSize} if {@code UDP_GRO} is enabled. Throws an
+     * {@link IOException} if the coalesced datagrams did not fit into the buffer and so were truncated.
+     */
+    public static native EpollDatagramChannel.DatagramSocketAddress recvFromGro(
+            int fd, ByteBuffer buf, int pos, int limit) throws IOException;
+
+    /**
+     * Same as {@link #recvFromAddress(int, long, int, int)} but also returns the size of the coalesced segments
+     * via {@link EpollDatagramChannel.DatagramSocketAddress#segmentSize} if {@code UDP_GRO} is enabled. Throws an
+     * {@link IOException} if the coalesced datagrams did not fit into the buffer and so were truncated.
+     */
+    public static native EpollDatagramChannel.DatagramSocketAddress recvFromAddressGro(
+            int fd, long memoryAddress, int pos, int limit) throws IOException;
+
     public static int sendmmsg(
             int fd, NativeDatagramPacketArray.NativeDatagramPacket[] msgs, int offset, int len) throws IOException {
         int res = sendmmsg0(fd, msgs, offset, len);
@@ -398,8 +515,29 @@ public final class Native {
     private static native int sendmmsg0(
             int fd, NativeDatagramPacketArray.NativeDatagramPacket[] msgs, int offset, int len);
 
+    /**
+     * Receive up to {@code len} datagrams with one
+     * <a href="http://man7.org/linux/man-pages/man2/recvmmsg.2.html">recvmmsg(...)</a> call into the
+     * {@link NativeDatagramPacketArray.NativeDatagramPacket}s, which must have been initialized for reading.
+     * Returns the number of received datagrams, or {@code 0} if there was nothing left to read.
+     */
+    public static int recvmmsg(
+            int fd, NativeDatagramPacketArray.NativeDatagramPacket[] msgs, int offset, int len) throws IOException {
+        int res = recvmmsg0(fd, msgs, offset, len);
+        if (res >= 0) {
+            return res;
+        }
+        return ioResult("recvmmsg", res, CONNECTION_RESET_EXCEPTION_RECVMMSG);
+    }
+
+    private static native int recvmmsg0(
+            int fd, NativeDatagramPacketArray.NativeDatagramPacket[] msgs, int offset, int len);
+
     private static native boolean isSupportingSendmmsg();
+    private static native boolean isSupportingRecvmmsg();
     private static native boolean isSupportingTcpFastopen();
+    private static native boolean isSupportingUdpSegment();
+    private static native boolean isSupportingUdpGro();
 
     // socket operations
     public static int socketStreamFd() {
@@ -514,6 +652,18 @@ public final class Native {
         return address(addr, 0, addr.length);
     }
 
+    /**
+     * Returns the address of the peer the given domain socket is connected to, or {@code null} if it is not
+     * connected. An unnamed peer, for example the other end of a socket pair, has an empty path.
+     */
+    public static DomainSocketAddress remoteDomainSocketAddress(int fd) {
+        byte[] path = remoteDomainSocketAddress0(fd);
+        if (path == null) {
+            return null;
+        }
+        return new DomainSocketAddress(new String(path, CharsetUtil.UTF_8));
+    }
+
     public static InetSocketAddress localAddress(int fd) {
         byte[] addr = localAddress0(fd);
         // addr may be null if getpeername failed.
@@ -567,6 +717,7 @@ public final class Native {
     }
 
     private static native byte[] remoteAddress0(int fd);
+    private static native byte[] remoteDomainSocketAddress0(int fd);
     private static native byte[] localAddress0(int fd);
 
     public static int accept(int fd, byte[] addr) throws IOException {
@@ -583,6 +734,43 @@ public final class Native {
 
     private static native int accept0(int fd, byte[] addr);
 
+    /**
+     * Accepts up to {@code acceptedFds.length - 1} connections with one call. The file descriptors of the accepted
+     * connections are stored in {@code acceptedFds} and their remote addresses in {@code acceptedAddresses}, using
+     * {@link #ACCEPTED_ADDRESS_SIZE} bytes per connection of which the first one holds the length of the address.
+     * If less connections than requested were accepted, the (negative) result of the {@code accept} call which
+     * failed is stored after the accepted file descriptors, so it can be checked via
+     * {@link #checkAcceptBatchResult(int)} once the accepted connections were handled.
+     *
+     * @return the number of accepted connections
+     */
+    public static int acceptBatch(int fd, int[] acceptedFds, byte[] acceptedAddresses) {
+        assert acceptedAddresses.length >= (acceptedFds.length - 1) * ACCEPTED_ADDRESS_SIZE;
+        return acceptBatch0(fd, acceptedFds, acceptedAddresses);
+    }
+
+    public static void checkAcceptBatchResult(int res) throws IOException {
+        if (res != ERRNO_EAGAIN_NEGATIVE && res != ERRNO_EWOULDBLOCK_NEGATIVE) {
+            throw newIOException("accept", res);
+        }
+    }
+
+    private static native int acceptBatch0(int fd, int[] acceptedFds, byte[] acceptedAddresses);
+
+    /**
+     * Attaches a classic BPF program to the {@code SO_REUSEPORT} group of the given socket, which dispatches each
+     * connection to the socket with the index {@code cpu % groupSize}, where {@code cpu} is the CPU which received
+     * the connection request.
+     */
+    public static void attachReusePortCpuSteering(int fd, int groupSize) throws IOException {
+        int res = attachReusePortCpuSteering0(fd, groupSize);
+        if (res < 0) {
+            throw newIOException("setsockopt", res);
+        }
+    }
+
+    private static native int attachReusePortCpuSteering0(int fd, int groupSize);
+
     public static int recvFd(int fd) throws IOException {
         int res = recvFd0(fd);
         if (res > 0) {
@@ -615,6 +803,72 @@ public final class Native {
 
     private static native int sendFd0(int socketFd, int fd);
 
+    public static int socketDomainDatagramFd(boolean seqPacket) {
+        int res = socketDomainDatagram(seqPacket);
+        if (res < 0) {
+            throw new ChannelException(newIOException("socketDomainDatagram", res));
+        }
+        return res;
+    }
+
+    private static native int socketDomainDatagram(boolean seqPacket);
+
+    /**
+     * Creates a pair of connected, datagram oriented Unix Domain Sockets, of type {@code SOCK_SEQPACKET} if
+     * {@code seqPacket} is {@code true} and of type {@code SOCK_DGRAM} otherwise.
+     */
+    public static FileDescriptor[] socketPairDomainDatagram(boolean seqPacket) throws IOException {
+        int[] fds = new int[2];
+        int res = socketPairDomainDatagram0(seqPacket, fds);
+        if (res < 0) {
+            throw newIOException("socketpair", res);
+        }
+        return new FileDescriptor[] { new FileDescriptor(fds[0]), new FileDescriptor(fds[1]) };
+    }
+
+    private static native int socketPairDomainDatagram0(boolean seqPacket, int[] fds);
+
+    /**
+     * Send the datagrams {@code offset} to {@code offset + len - 1} with one
+     * <a href="http://linux.die.net/man/2/sendmmsg">sendmmsg(...)</a> call via a Unix Domain Socket. Datagram
+     * {@code i} consists of the {@code iovCounts[i]} {@code struct iovec}s at {@code iovAddresses[i]}, is sent to
+     * the path {@code recipients[i]} (or the connected peer if it is {@code null}) and passes the file descriptors
+     * {@code fds[fdOffsets[i]]} to {@code fds[fdOffsets[i + 1] - 1]}. Returns the number of sent datagrams, or
+     * {@code 0} if the socket can not take more.
+     */
+    public static int sendmmsgDomain(int fd, long[] iovAddresses, int[] iovCounts, byte[][] recipients, int[] fds,
+                                     int[] fdOffsets, int offset, int len) throws IOException {
+        int res = sendmmsgDomain0(fd, iovAddresses, iovCounts, recipients, fds, fdOffsets, offset, len);
+        if (res >= 0) {
+            return res;
+        }
+        return ioResult("sendmmsg", res, CONNECTION_RESET_EXCEPTION_SENDMMSG);
+    }
+
+    private static native int sendmmsgDomain0(int fd, long[] iovAddresses, int[] iovCounts, byte[][] recipients,
+                                              int[] fds, int[] fdOffsets, int offset, int len);
+
+    /**
+     * Receive up to {@code len} datagrams with one
+     * <a href="http://man7.org/linux/man-pages/man2/recvmmsg.2.html">recvmmsg(...)</a> call via a Unix Domain Socket.
+     * Datagram {@code i} is received into the {@code iovCounts[i]} {@code struct iovec}s at {@code iovAddresses[i]},
+     * its metadata is stored at {@code meta[i * (DOMAIN_DATAGRAM_META_SIZE + maxFds)]} (see
+     * {@link #DOMAIN_DATAGRAM_META_SIZE}) and the path of its sender at
+     * {@code senders[i * DOMAIN_DATAGRAM_ADDRESS_SIZE]}, prefixed by its length. Returns the number of received
+     * datagrams, or {@code 0} if there was nothing left to read.
+     */
+    public static int recvmmsgDomain(int fd, long[] iovAddresses, int[] iovCounts, int len, int maxFds, int[] meta,
+                                     byte[] senders) throws IOException {
+        int res = recvmmsgDomain0(fd, iovAddresses, iovCounts, len, maxFds, meta, senders);
+        if (res >= 0) {
+            return res;
+        }
+        return ioResult("recvmmsg", res, CONNECTION_RESET_EXCEPTION_RECVMMSG);
+    }
+
+    private static native int recvmmsgDomain0(int fd, long[] iovAddresses, int[] iovCounts, int len, int maxFds,
+                                              int[] meta, byte[] senders);
+
     public static void shutdown(int fd, boolean read, boolean write) throws IOException {
         int res = shutdown0(fd, read, write);
         if (res < 0) {
@@ -630,6 +884,12 @@ public final class Native {
     public static native int isKeepAlive(int fd);
     public static native int isReuseAddress(int fd);
     public static native int isReusePort(int fd);
+    public static native int getUdpSegment(int fd);
+    public static native int getSoBusyPoll(int fd);
+    public static native int getSoIncomingCpu(int fd);
+    public static native int getSoPassCred(int fd);
+    public static native int isSeqPacket(int fd);
+    public static native int isSoZerocopy(int fd);
     public static native int isTcpNoDelay(int fd);
     public static native int isTcpCork(int fd);
     public static native int getTcpNotSentLowAt(int fd);
@@ -647,7 +907,40 @@ public final class Native {
     public static native void setReceiveBufferSize(int fd, int receiveBufferSize);
     public static native void setReuseAddress(int fd, int reuseAddress);
     public static native void setReusePort(int fd, int reuseAddress);
+    public static native void setUdpSegment(int fd, int segmentSize);
+    public static native void setUdpGro(int fd, int gro);
     public static native void setSendBufferSize(int fd, int sendBufferSize);
+    public static native void setSoBusyPoll(int fd, int microseconds);
+    public static native void setSoIncomingCpu(int fd, int cpu);
+    public static native void setSoPassCred(int fd, int passCred);
+    public static native void setSoZerocopy(int fd, int zerocopy);
+
+    /**
+     * Attach the {@code tls} upper layer protocol to the connected TCP socket, which is required before the keys can
+     * be installed via {@link #setTlsCryptoInfo(int, boolean, EpollTlsCryptoInfo)}.
+     */
+    public static void setTcpUlpTls(int fd) throws IOException {
+        int res = setTcpUlpTls0(fd);
+        if (res < 0) {
+            throw newIOException("setsockopt(TCP_ULP)", res);
+        }
+    }
+
+    private static native int setTcpUlpTls0(int fd);
+
+    /**
+     * Install the keys for sending ({@code TLS_TX}) or receiving ({@code TLS_RX}) into the kernel.
+     */
+    public static void setTlsCryptoInfo(int fd, boolean tx, EpollTlsCryptoInfo info) throws IOException {
+        int res = setTlsCryptoInfo0(fd, tx, info.version().id, info.cipher().id,
+                info.key(), info.iv(), info.salt(), info.recordSequence());
+        if (res < 0) {
+            throw newIOException(tx ? "setsockopt(TLS_TX)" : "setsockopt(TLS_RX)", res);
+        }
+    }
+
+    private static native int setTlsCryptoInfo0(int fd, boolean tx, int version, int cipher, byte[] key, byte[] iv,
+                                                byte[] salt, byte[] recSeq);
     public static native void setTcpNoDelay(int fd, int tcpNoDelay);
     public static native void setTcpCork(int fd, int tcpCork);
     public static native void setTcpFastopen(int fd, int tcpFastopenBacklog);
@@ -25,7 +25,8 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 
 /**
- * Support <a href="http://linux.die.net/man/2/sendmmsg">sendmmsg(...)</a> on linux with GLIBC 2.14+
+ * Support <a href="http://linux.die.net/man/2/sendmmsg">sendmmsg(...)</a> on linux with GLIBC 2.14+ and
+ * <a href="http://man7.org/linux/man-pages/man2/recvmmsg.2.html">recvmmsg(...)</a> on linux with GLIBC 2.12+
  */
 final class NativeDatagramPacketArray implements ChannelOutboundBuffer.MessageProcessor {
 
@@ -71,7 +72,9 @@ final class NativeDatagramPacketArray implements ChannelOutboundBuffer.MessagePr
         }
         NativeDatagramPacket p = packets[count];
         InetSocketAddress recipient = packet.recipient();
-        if (!p.init(content, recipient)) {
+        int segmentSize = packet instanceof SegmentedDatagramPacket ?
+                ((SegmentedDatagramPacket) packet).segmentSize() : 0;
+        if (!p.init(content, recipient, segmentSize)) {
             return false;
         }
 
@@ -109,6 +112,16 @@ final class NativeDatagramPacketArray implements ChannelOutboundBuffer.MessagePr
         return array;
     }
 
+    /**
+     * Returns an empty {@link NativeDatagramPacketArray} whose {@link NativeDatagramPacket}s can be initialized for
+     * reading via {@link NativeDatagramPacket#initForRead(ByteBuf)}.
+     */
+    static NativeDatagramPacketArray getInstance() {
+        NativeDatagramPacketArray array = ARRAY.get();
+        array.count = 0;
+        return array;
+    }
+
     /**
      * Used to pass needed data to JNI.
      */
@@ -127,14 +140,61 @@ final class NativeDatagramPacketArray implements ChannelOutboundBuffer.MessagePr
         private int scopeId;
         private int port;
 
+        // The size of the segments the content is split into via UDP_SEGMENT, or 0 to send a single datagram.
+        private int segmentSize;
+
+        // The buffer to read into and the sender of the received datagram, which is set by recvmmsg(...).
+        private ByteBuf buffer;
+        private EpollDatagramChannel.DatagramSocketAddress sender;
+
         private void release() {
             array.release();
         }
 
+        /**
+         * Init this instance so a datagram can be received into the writable bytes of the given {@link ByteBuf}, which
+         * must have a memory address. Returns {@code true} if the init was successful.
+         */
+        boolean initForRead(ByteBuf buf) {
+            array.clear();
+            if (!array.addWritable(buf)) {
+                return false;
+            }
+            memoryAddress = array.memoryAddress(0);
+            count = array.count();
+            buffer = buf;
+            sender = null;
+            segmentSize = 0;
+            return true;
+        }
+
+        /**
+         * Returns the {@link ByteBuf} which was given to {@link #initForRead(ByteBuf)}.
+         */
+        ByteBuf buffer() {
+            return buffer;
+        }
+
+        /**
+         * Returns the sender of the received datagram, which also holds the number of received bytes, or {@code null}
+         * if nothing was received.
+         */
+        EpollDatagramChannel.DatagramSocketAddress sender() {
+            return sender;
+        }
+
+        /**
+         * Drop the references to the buffer and the sender of the last read.
+         */
+        void clearRead() {
+            buffer = null;
+            sender = null;
+        }
+
         /**
          * Init this instance and return {@code true} if the init was successful.
          */
-        private boolean init(ByteBuf buf, InetSocketAddress recipient) {
+        private boolean init(ByteBuf buf, InetSocketAddress recipient, int segmentSize) {
             array.clear();
             if (!array.add(buf)) {
                 return false;
@@ -152,6 +212,7 @@ final class NativeDatagramPacketArray implements ChannelOutboundBuffer.MessagePr
                 scopeId = 0;
             }
             port = recipient.getPort();
+            this.segmentSize = segmentSize;
             return true;
         }
     }
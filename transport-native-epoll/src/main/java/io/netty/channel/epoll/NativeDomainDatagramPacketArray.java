@@ -0,0 +1,243 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.unix.DomainDatagramPacket;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.channel.unix.PeerCredentials;
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.internal.EmptyArrays;
+
+import java.io.IOException;
+
+/**
+ * Batches the datagrams of an {@link EpollDomainDatagramChannel} for
+ * <a href="http://linux.die.net/man/2/sendmmsg">sendmmsg(...)</a> and
+ * <a href="http://man7.org/linux/man-pages/man2/recvmmsg.2.html">recvmmsg(...)</a>, including the file descriptors
+ * which are passed via {@code SCM_RIGHTS} and the credentials of the sender.
+ */
+final class NativeDomainDatagramPacketArray implements ChannelOutboundBuffer.MessageProcessor {
+
+    /**
+     * The maximal number of file descriptors which are passed with one datagram.
+     */
+    static final int MAX_FILE_DESCRIPTORS = 16;
+
+    private static final FastThreadLocal<NativeDomainDatagramPacketArray> ARRAY =
+            new FastThreadLocal<NativeDomainDatagramPacketArray>() {
+                @Override
+                protected NativeDomainDatagramPacketArray initialValue() throws Exception {
+                    return new NativeDomainDatagramPacketArray();
+                }
+
+                @Override
+                protected void onRemoval(NativeDomainDatagramPacketArray value) throws Exception {
+                    value.iovArray.release();
+                }
+            };
+
+    // All datagrams share one IovArray, each one uses iovCounts[i] struct iovec starting at iovAddresses[i].
+    private final IovArray iovArray = new IovArray();
+    private final long[] iovAddresses = new long[Native.UIO_MAX_IOV];
+    private final int[] iovCounts = new int[Native.UIO_MAX_IOV];
+
+    // Only used for writing, the file descriptors of datagram i are fds[fdOffsets[i]] to fds[fdOffsets[i + 1] - 1].
+    private final byte[][] recipients = new byte[Native.UIO_MAX_IOV][];
+    private final int[] fdOffsets = new int[Native.UIO_MAX_IOV + 1];
+    private int[] fds = new int[MAX_FILE_DESCRIPTORS];
+
+    // Only used for reading.
+    private final ByteBuf[] buffers = new ByteBuf[Native.UIO_MAX_IOV];
+    private int[] meta = EmptyArrays.EMPTY_INTS;
+    private byte[] senders = EmptyArrays.EMPTY_BYTES;
+
+    private int count;
+
+    private NativeDomainDatagramPacketArray() { }
+
+    /**
+     * Returns a {@link NativeDomainDatagramPacketArray} which is filled with the flushed messages of
+     * {@link ChannelOutboundBuffer}.
+     */
+    static NativeDomainDatagramPacketArray getInstance(ChannelOutboundBuffer buffer) throws Exception {
+        NativeDomainDatagramPacketArray array = getInstance();
+        buffer.forEachFlushedMessage(array);
+        return array;
+    }
+
+    /**
+     * Returns an empty {@link NativeDomainDatagramPacketArray}.
+     */
+    static NativeDomainDatagramPacketArray getInstance() {
+        NativeDomainDatagramPacketArray array = ARRAY.get();
+        array.count = 0;
+        array.iovArray.clear();
+        return array;
+    }
+
+    @Override
+    public boolean processMessage(Object msg) throws Exception {
+        if (msg instanceof DomainDatagramPacket) {
+            DomainDatagramPacket packet = (DomainDatagramPacket) msg;
+            return add(packet.content(), packet.recipient(), packet.fileDescriptors());
+        }
+        return msg instanceof ByteBuf && add((ByteBuf) msg, null, null);
+    }
+
+    private boolean add(ByteBuf content, DomainSocketAddress recipient, FileDescriptor[] fileDescriptors) {
+        if (count == iovAddresses.length) {
+            return false;
+        }
+        int iovStart = iovArray.count();
+        if (!iovArray.add(content)) {
+            return false;
+        }
+        iovAddresses[count] = iovArray.memoryAddress(iovStart);
+        iovCounts[count] = iovArray.count() - iovStart;
+        recipients[count] = recipient == null ? null : recipient.path().getBytes(CharsetUtil.UTF_8);
+
+        int fdOffset = fdOffsets[count];
+        int numFds = fileDescriptors == null ? 0 : fileDescriptors.length;
+        if (fdOffset + numFds > fds.length) {
+            int[] newFds = new int[Math.max(fds.length << 1, fdOffset + numFds)];
+            System.arraycopy(fds, 0, newFds, 0, fdOffset);
+            fds = newFds;
+        }
+        for (int i = 0; i < numFds; i++) {
+            fds[fdOffset + i] = fileDescriptors[i].intValue();
+        }
+        fdOffsets[++count] = fdOffset + numFds;
+        return true;
+    }
+
+    /**
+     * Returns the number of datagrams.
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * Send the datagrams {@code offset} to {@code offset + len - 1}. Returns the number of sent datagrams.
+     */
+    int send(int fd, int offset, int len) throws IOException {
+        return Native.sendmmsgDomain(fd, iovAddresses, iovCounts, recipients, fds, fdOffsets, offset, len);
+    }
+
+    /**
+     * Add the given {@link ByteBuf}, which must have a memory address, so a datagram can be received into its
+     * writable bytes. Returns {@code false} if no more datagrams can be received with one call.
+     */
+    boolean addForRead(ByteBuf buf) {
+        if (count == buffers.length) {
+            return false;
+        }
+        int iovStart = iovArray.count();
+        if (!iovArray.addWritable(buf)) {
+            return false;
+        }
+        iovAddresses[count] = iovArray.memoryAddress(iovStart);
+        iovCounts[count] = iovArray.count() - iovStart;
+        buffers[count++] = buf;
+        return true;
+    }
+
+    /**
+     * Receive up to {@link #count()} datagrams into the buffers which were added via {@link #addForRead(ByteBuf)}.
+     * Returns the number of received datagrams, which can be obtained via {@link #packet(int, DomainSocketAddress)}.
+     */
+    int receive(int fd) throws IOException {
+        int metaLength = count * (Native.DOMAIN_DATAGRAM_META_SIZE + MAX_FILE_DESCRIPTORS);
+        if (meta.length < metaLength) {
+            meta = new int[metaLength];
+            senders = new byte[count * Native.DOMAIN_DATAGRAM_ADDRESS_SIZE];
+        }
+        return Native.recvmmsgDomain(fd, iovAddresses, iovCounts, count, MAX_FILE_DESCRIPTORS, meta, senders);
+    }
+
+    /**
+     * Returns the number of bytes of the received datagram {@code i}.
+     */
+    int receivedBytes(int i) {
+        return meta[i * (Native.DOMAIN_DATAGRAM_META_SIZE + MAX_FILE_DESCRIPTORS)];
+    }
+
+    /**
+     * Returns {@code true} if the received datagram {@code i} neither contains data nor file descriptors, which
+     * signals the end of the stream for a connected {@code SOCK_SEQPACKET} socket.
+     */
+    boolean isEmpty(int i) {
+        final int base = i * (Native.DOMAIN_DATAGRAM_META_SIZE + MAX_FILE_DESCRIPTORS);
+        return meta[base] == 0 && meta[base + 6] == 0;
+    }
+
+    /**
+     * Returns {@code true} if the kernel dropped file descriptors of the received datagram {@code i}, because more
+     * than {@link #MAX_FILE_DESCRIPTORS} were passed.
+     */
+    boolean isTruncated(int i) {
+        return meta[i * (Native.DOMAIN_DATAGRAM_META_SIZE + MAX_FILE_DESCRIPTORS) + 1] != 0;
+    }
+
+    /**
+     * Returns the received datagram {@code i}. The ownership of its buffer is transferred to the returned
+     * {@link DomainDatagramPacket}.
+     */
+    DomainDatagramPacket packet(int i, DomainSocketAddress localAddress) {
+        final int base = i * (Native.DOMAIN_DATAGRAM_META_SIZE + MAX_FILE_DESCRIPTORS);
+        ByteBuf buf = buffers[i];
+        buffers[i] = null;
+        buf.writerIndex(buf.writerIndex() + meta[base]);
+
+        PeerCredentials credentials = meta[base + 2] == 0 ? null :
+                new PeerCredentials(meta[base + 3], meta[base + 4], meta[base + 5]);
+
+        int numFds = meta[base + 6];
+        FileDescriptor[] fileDescriptors = null;
+        if (numFds > 0) {
+            fileDescriptors = new FileDescriptor[numFds];
+            for (int j = 0; j < numFds; j++) {
+                fileDescriptors[j] = new FileDescriptor(meta[base + Native.DOMAIN_DATAGRAM_META_SIZE + j]);
+            }
+        }
+
+        int senderBase = i * Native.DOMAIN_DATAGRAM_ADDRESS_SIZE;
+        int senderLength = senders[senderBase] & 0xFF;
+        // An unnamed sender, for example an unbound socket, has no address.
+        DomainSocketAddress sender = senderLength == 0 ? null :
+                new DomainSocketAddress(new String(senders, senderBase + 1, senderLength, CharsetUtil.UTF_8));
+        return new DomainDatagramPacket(buf, localAddress, sender, fileDescriptors, credentials);
+    }
+
+    /**
+     * Release the buffers which were added via {@link #addForRead(ByteBuf)} and not obtained via
+     * {@link #packet(int, DomainSocketAddress)}.
+     */
+    void releaseBuffers() {
+        for (int i = 0; i < count; i++) {
+            ByteBuf buf = buffers[i];
+            if (buf != null) {
+                buf.release();
+                buffers[i] = null;
+            }
+        }
+        count = 0;
+    }
+}
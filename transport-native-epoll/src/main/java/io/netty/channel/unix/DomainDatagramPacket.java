@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.unix;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+import io.netty.channel.AddressedEnvelope;
+import io.netty.util.internal.StringUtil;
+
+/**
+ * The message container that is used for {@link DomainDatagramChannel} to communicate with the remote peer. Besides
+ * the data a datagram may carry {@link FileDescriptor}s, which are duplicated into the receiving process, and the
+ * {@link PeerCredentials} of the sender.
+ */
+public final class DomainDatagramPacket
+        extends DefaultByteBufHolder implements AddressedEnvelope<ByteBuf, DomainSocketAddress> {
+
+    private static final FileDescriptor[] EMPTY_FILE_DESCRIPTORS = new FileDescriptor[0];
+
+    private final DomainSocketAddress recipient;
+    private final DomainSocketAddress sender;
+    private final FileDescriptor[] fileDescriptors;
+    private final PeerCredentials credentials;
+
+    /**
+     * Create a new instance with the specified packet {@code data}, {@code recipient} address and
+     * {@link FileDescriptor}s to pass. The {@code recipient} may be {@code null} if the channel is connected.
+     */
+    public DomainDatagramPacket(ByteBuf data, DomainSocketAddress recipient, FileDescriptor... fileDescriptors) {
+        this(data, recipient, null, fileDescriptors, null);
+    }
+
+    /**
+     * Create a new instance with the specified packet {@code data}, {@code recipient} address, {@code sender}
+     * address, passed {@link FileDescriptor}s and {@link PeerCredentials} of the sender. Both addresses may be
+     * {@code null}, for example if the channel is connected or the sender is not bound.
+     */
+    public DomainDatagramPacket(ByteBuf data, DomainSocketAddress recipient, DomainSocketAddress sender,
+                                FileDescriptor[] fileDescriptors, PeerCredentials credentials) {
+        super(data);
+        this.recipient = recipient;
+        this.sender = sender;
+        if (fileDescriptors == null || fileDescriptors.length == 0) {
+            this.fileDescriptors = EMPTY_FILE_DESCRIPTORS;
+        } else {
+            this.fileDescriptors = fileDescriptors.clone();
+            for (int i = 0; i < this.fileDescriptors.length; i++) {
+                if (this.fileDescriptors[i] == null) {
+                    throw new NullPointerException("fileDescriptors[" + i + ']');
+                }
+            }
+        }
+        this.credentials = credentials;
+    }
+
+    @Override
+    public DomainSocketAddress recipient() {
+        return recipient;
+    }
+
+    @Override
+    public DomainSocketAddress sender() {
+        return sender;
+    }
+
+    /**
+     * Returns the {@link FileDescriptor}s which are passed with the datagram. Received {@link FileDescriptor}s are
+     * owned by the receiver and need to be closed once they are not used anymore.
+     */
+    public FileDescriptor[] fileDescriptors() {
+        return fileDescriptors.length == 0 ? fileDescriptors : fileDescriptors.clone();
+    }
+
+    /**
+     * Returns the {@link PeerCredentials} of the sender, which are only known if the datagram was received with
+     * {@code SO_PASSCRED} enabled, or {@code null} otherwise.
+     */
+    public PeerCredentials credentials() {
+        return credentials;
+    }
+
+    @Override
+    public DomainDatagramPacket copy() {
+        return new DomainDatagramPacket(content().copy(), recipient(), sender(), fileDescriptors, credentials);
+    }
+
+    @Override
+    public DomainDatagramPacket duplicate() {
+        return new DomainDatagramPacket(content().duplicate(), recipient(), sender(), fileDescriptors, credentials);
+    }
+
+    @Override
+    public DomainDatagramPacket retain() {
+        super.retain();
+        return this;
+    }
+
+    @Override
+    public DomainDatagramPacket retain(int increment) {
+        super.retain(increment);
+        return this;
+    }
+
+    @Override
+    public DomainDatagramPacket touch() {
+        super.touch();
+        return this;
+    }
+
+    @Override
+    public DomainDatagramPacket touch(Object hint) {
+        super.touch(hint);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder(StringUtil.simpleClassName(this)).append('(');
+        if (sender != null) {
+            buf.append(sender).append(" => ");
+        }
+        if (recipient != null) {
+            buf.append(recipient).append(", ");
+        }
+        return buf.append(content()).append(", fileDescriptors: ").append(fileDescriptors.length)
+                  .append(", credentials: ").append(credentials).append(')').toString();
+    }
+}
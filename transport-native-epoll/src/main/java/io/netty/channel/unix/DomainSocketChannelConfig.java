@@ -19,6 +19,7 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelConfig;
 import io.netty.channel.MessageSizeEstimator;
 import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.WriteBufferBudget;
 
 /**
  * Special {@link ChannelConfig} for {@link DomainSocketChannel}s.
@@ -53,6 +54,9 @@ public interface DomainSocketChannelConfig extends ChannelConfig {
     @Override
     DomainSocketChannelConfig setMessageSizeEstimator(MessageSizeEstimator estimator);
 
+    @Override
+    DomainSocketChannelConfig setWriteBufferBudget(WriteBufferBudget budget);
+
     /**
      * Change the {@link DomainSocketReadMode} for the channel. The default is
      * {@link DomainSocketReadMode#BYTES} which means bytes will be read from the
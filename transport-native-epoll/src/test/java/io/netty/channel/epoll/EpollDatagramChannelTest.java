@@ -0,0 +1,271 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.DatagramPacket;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.BitSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class EpollDatagramChannelTest {
+
+    private static final int NUM_DATAGRAMS = 512;
+
+    @Test
+    public void testMaxDatagramsPerReadOption() throws Exception {
+        EpollDatagramChannel channel = new EpollDatagramChannel();
+        try {
+            assertEquals(1, (int) channel.config().getOption(EpollChannelOption.MAX_DATAGRAMS_PER_READ));
+            assertTrue(channel.config().setOption(EpollChannelOption.MAX_DATAGRAMS_PER_READ, 32));
+            assertEquals(32, channel.config().getMaxDatagramsPerRead());
+            channel.config().setMaxDatagramsPerRead(Integer.MAX_VALUE);
+            assertEquals(Native.UIO_MAX_IOV, channel.config().getMaxDatagramsPerRead());
+        } finally {
+            channel.fd().close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxDatagramsPerRead() throws Exception {
+        EpollDatagramChannel channel = new EpollDatagramChannel();
+        try {
+            channel.config().setMaxDatagramsPerRead(0);
+        } finally {
+            channel.fd().close();
+        }
+    }
+
+    @Test
+    public void testRecvmmsgEdgeTriggered() throws Throwable {
+        testRecvmmsg(EpollMode.EDGE_TRIGGERED);
+    }
+
+    @Test
+    public void testRecvmmsgLevelTriggered() throws Throwable {
+        testRecvmmsg(EpollMode.LEVEL_TRIGGERED);
+    }
+
+    @Test
+    public void testUdpGsoGro() throws Throwable {
+        assumeTrue(SegmentedDatagramPacket.isSupported() && Native.IS_SUPPORTING_UDP_GRO);
+
+        final int segmentSize = 100;
+        final int numSegments = 16;
+        // The last segment of every packet is smaller.
+        final int packetSize = segmentSize * (numSegments - 1) + 10;
+        final int numPackets = 32;
+        EventLoopGroup group = new EpollEventLoopGroup(1);
+        Channel sc = null;
+        Channel cc = null;
+        try {
+            final CountDownLatch latch = new CountDownLatch(numPackets * numSegments);
+            final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+            sc = new Bootstrap().group(group)
+                    .channel(EpollDatagramChannel.class)
+                    .option(ChannelOption.SO_RCVBUF, 4 * 1024 * 1024)
+                    .option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(65536))
+                    .option(EpollChannelOption.UDP_GRO, true)
+                    .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+                        @Override
+                        protected void messageReceived(ChannelHandlerContext ctx, DatagramPacket msg) {
+                            ByteBuf content = msg.content();
+                            int index = content.getByte(content.readerIndex());
+                            int expected = index == numSegments - 1 ? 10 : segmentSize;
+                            if (content.readableBytes() != expected) {
+                                error.compareAndSet(null, new AssertionError(msg));
+                            }
+                            latch.countDown();
+                        }
+                    }).bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+            assertTrue(((EpollDatagramChannelConfig) sc.config()).isUdpGro());
+
+            cc = new Bootstrap().group(group)
+                    .channel(EpollDatagramChannel.class)
+                    .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+                        @Override
+                        protected void messageReceived(ChannelHandlerContext ctx, DatagramPacket msg) {
+                            // Nothing will be sent to the client.
+                        }
+                    }).bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+
+            InetSocketAddress address = (InetSocketAddress) sc.localAddress();
+            for (int i = 0; i < numPackets; i ++) {
+                ByteBuf buf = Unpooled.directBuffer(packetSize);
+                for (int j = 0; j < packetSize; j ++) {
+                    // Every segment is filled with its index.
+                    buf.writeByte(j / segmentSize);
+                }
+                cc.write(new SegmentedDatagramPacket(buf, segmentSize, address));
+            }
+            cc.flush();
+
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertNull(error.get());
+        } finally {
+            if (cc != null) {
+                cc.close().sync();
+            }
+            if (sc != null) {
+                sc.close().sync();
+            }
+            group.shutdownGracefully().sync();
+        }
+    }
+
+    @Test
+    public void testUdpGroTruncated() throws Throwable {
+        assumeTrue(SegmentedDatagramPacket.isSupported() && Native.IS_SUPPORTING_UDP_GRO);
+
+        final int segmentSize = 100;
+        EventLoopGroup group = new EpollEventLoopGroup(1);
+        Channel sc = null;
+        Channel cc = null;
+        try {
+            final BlockingQueue<Object> received = new LinkedBlockingQueue<Object>();
+            sc = new Bootstrap().group(group)
+                    .channel(EpollDatagramChannel.class)
+                    // Too small for the coalesced datagrams.
+                    .option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(segmentSize * 4))
+                    .option(EpollChannelOption.UDP_GRO, true)
+                    .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+                        @Override
+                        protected void messageReceived(ChannelHandlerContext ctx, DatagramPacket msg) {
+                            received.add(msg.content().readableBytes());
+                        }
+
+                        @Override
+                        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                            received.add(cause);
+                        }
+                    }).bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+
+            cc = new Bootstrap().group(group)
+                    .channel(EpollDatagramChannel.class)
+                    .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+                        @Override
+                        protected void messageReceived(ChannelHandlerContext ctx, DatagramPacket msg) {
+                            // Nothing will be sent to the client.
+                        }
+                    }).bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+
+            InetSocketAddress address = (InetSocketAddress) sc.localAddress();
+            ByteBuf buf = Unpooled.directBuffer(segmentSize * 8).writeZero(segmentSize * 8);
+            cc.writeAndFlush(new SegmentedDatagramPacket(buf, segmentSize, address)).sync();
+
+            Object result = received.poll(10, TimeUnit.SECONDS);
+            // The kernel may also hand over the datagrams one by one, which do fit into the buffer.
+            assumeTrue(!(result instanceof Integer));
+            assertTrue(String.valueOf(result), result instanceof IOException);
+            assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+        } finally {
+            if (cc != null) {
+                cc.close().sync();
+            }
+            if (sc != null) {
+                sc.close().sync();
+            }
+            group.shutdownGracefully().sync();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSegmentSize() {
+        new SegmentedDatagramPacket(Unpooled.EMPTY_BUFFER, 0, new InetSocketAddress(0));
+    }
+
+    private static void testRecvmmsg(EpollMode mode) throws Throwable {
+        EventLoopGroup group = new EpollEventLoopGroup(1);
+        Channel sc = null;
+        Channel cc = null;
+        try {
+            final CountDownLatch latch = new CountDownLatch(NUM_DATAGRAMS);
+            final BitSet received = new BitSet(NUM_DATAGRAMS);
+            final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+            sc = new Bootstrap().group(group)
+                    .channel(EpollDatagramChannel.class)
+                    .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                    .option(ChannelOption.SO_RCVBUF, 4 * 1024 * 1024)
+                    .option(EpollChannelOption.EPOLL_MODE, mode)
+                    .option(EpollChannelOption.MAX_DATAGRAMS_PER_READ, 64)
+                    .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+                        @Override
+                        protected void messageReceived(ChannelHandlerContext ctx, DatagramPacket msg) {
+                            if (msg.content().readableBytes() != 8) {
+                                error.compareAndSet(null, new AssertionError(msg));
+                            }
+                            int index = msg.content().readInt();
+                            if (index != msg.content().readInt() || msg.sender().getPort() == 0) {
+                                error.compareAndSet(null, new AssertionError(msg));
+                            }
+                            received.set(index);
+                            latch.countDown();
+                        }
+                    }).bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+
+            cc = new Bootstrap().group(group)
+                    .channel(EpollDatagramChannel.class)
+                    .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+                        @Override
+                        protected void messageReceived(ChannelHandlerContext ctx, DatagramPacket msg) {
+                            // Nothing will be sent to the client.
+                        }
+                    }).bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+
+            InetSocketAddress address = (InetSocketAddress) sc.localAddress();
+            for (int i = 0; i < NUM_DATAGRAMS; i ++) {
+                cc.write(new DatagramPacket(Unpooled.buffer(8).writeInt(i).writeInt(i), address));
+                if ((i & 127) == 127) {
+                    cc.flush();
+                }
+            }
+            cc.flush();
+
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertNull(error.get());
+            assertEquals(NUM_DATAGRAMS, received.cardinality());
+        } finally {
+            if (cc != null) {
+                cc.close().sync();
+            }
+            if (sc != null) {
+                sc.close().sync();
+            }
+            group.shutdownGracefully().sync();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.unix.DomainDatagramPacket;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.util.CharsetUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EpollDomainDatagramChannelTest {
+
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void setUp() {
+        group = new EpollEventLoopGroup(1);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        group.shutdownGracefully();
+    }
+
+    @Test(timeout = 10000)
+    public void testBatch() throws Exception {
+        BlockingQueue<DomainDatagramPacket> received = new LinkedBlockingQueue<DomainDatagramPacket>();
+        Channel receiver = bind(EpollSocketTestPermutation.newSocketAddress(), received);
+        Channel sender = bind(EpollSocketTestPermutation.newSocketAddress(), received);
+        try {
+            int count = 64;
+            for (int i = 0; i < count; i++) {
+                sender.write(new DomainDatagramPacket(Unpooled.copiedBuffer(String.valueOf(i), CharsetUtil.US_ASCII),
+                        (DomainSocketAddress) receiver.localAddress()));
+            }
+            sender.flush();
+
+            for (int i = 0; i < count; i++) {
+                DomainDatagramPacket packet = received.take();
+                try {
+                    assertEquals(String.valueOf(i), packet.content().toString(CharsetUtil.US_ASCII));
+                    assertEquals(sender.localAddress(), packet.sender());
+                    assertEquals(receiver.localAddress(), packet.recipient());
+                    assertEquals(0, packet.fileDescriptors().length);
+                    assertNull(packet.credentials());
+                } finally {
+                    packet.release();
+                }
+            }
+        } finally {
+            sender.close().syncUninterruptibly();
+            receiver.close().syncUninterruptibly();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testFileDescriptorPassing() throws Exception {
+        BlockingQueue<DomainDatagramPacket> received = new LinkedBlockingQueue<DomainDatagramPacket>();
+        Channel receiver = bind(EpollSocketTestPermutation.newSocketAddress(), received);
+        Channel sender = bind(EpollSocketTestPermutation.newSocketAddress(), received);
+        File file = File.createTempFile("netty", ".tmp");
+        file.deleteOnExit();
+        FileDescriptor[] fds = new FileDescriptor[NativeDomainDatagramPacketArray.MAX_FILE_DESCRIPTORS];
+        for (int i = 0; i < fds.length; i++) {
+            fds[i] = FileDescriptor.from(file);
+        }
+        try {
+            sender.writeAndFlush(new DomainDatagramPacket(Unpooled.copiedBuffer("fds", CharsetUtil.US_ASCII),
+                    (DomainSocketAddress) receiver.localAddress(), fds)).syncUninterruptibly();
+
+            DomainDatagramPacket packet = received.take();
+            try {
+                assertEquals("fds", packet.content().toString(CharsetUtil.US_ASCII));
+                FileDescriptor[] passed = packet.fileDescriptors();
+                assertEquals(fds.length, passed.length);
+                for (FileDescriptor fd: passed) {
+                    assertEquals(file.getCanonicalPath(),
+                            new File("/proc/self/fd/" + fd.intValue()).getCanonicalPath());
+                    fd.close();
+                }
+            } finally {
+                packet.release();
+            }
+        } finally {
+            for (FileDescriptor fd: fds) {
+                fd.close();
+            }
+            sender.close().syncUninterruptibly();
+            receiver.close().syncUninterruptibly();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testPassCred() throws Exception {
+        BlockingQueue<DomainDatagramPacket> received = new LinkedBlockingQueue<DomainDatagramPacket>();
+        Channel receiver = bind(EpollSocketTestPermutation.newSocketAddress(), received);
+        Channel sender = bind(EpollSocketTestPermutation.newSocketAddress(), received);
+        try {
+            receiver.config().setOption(EpollChannelOption.SO_PASSCRED, true);
+            assertTrue(receiver.config().getOption(EpollChannelOption.SO_PASSCRED));
+
+            sender.writeAndFlush(new DomainDatagramPacket(Unpooled.copiedBuffer("creds", CharsetUtil.US_ASCII),
+                    (DomainSocketAddress) receiver.localAddress())).syncUninterruptibly();
+
+            DomainDatagramPacket packet = received.take();
+            try {
+                assertNotNull(packet.credentials());
+                assertTrue(packet.credentials().pid() > 0);
+            } finally {
+                packet.release();
+            }
+        } finally {
+            sender.close().syncUninterruptibly();
+            receiver.close().syncUninterruptibly();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testSeqPacketSocketPair() throws Exception {
+        BlockingQueue<DomainDatagramPacket> received = new LinkedBlockingQueue<DomainDatagramPacket>();
+        FileDescriptor[] pair = Native.socketPairDomainDatagram(true);
+        Channel first = register(new EpollDomainDatagramChannel(pair[0]), received);
+        Channel second = register(new EpollDomainDatagramChannel(pair[1]), received);
+        try {
+            assertTrue(first.isActive());
+            assertTrue(((EpollDomainDatagramChannel) first).isConnected());
+            assertEquals("", first.remoteAddress().toString());
+            first.write(Unpooled.copiedBuffer("first", CharsetUtil.US_ASCII));
+            first.write(Unpooled.copiedBuffer("second", CharsetUtil.US_ASCII));
+            first.flush();
+
+            // SOCK_SEQPACKET preserves the message boundaries.
+            assertContent("first", received.take());
+            assertContent("second", received.take());
+
+            // Closing one end is noticed as the end of the stream by the other one.
+            first.close().syncUninterruptibly();
+            second.closeFuture().syncUninterruptibly();
+            assertTrue(received.isEmpty());
+        } finally {
+            first.close().syncUninterruptibly();
+            second.close().syncUninterruptibly();
+        }
+    }
+
+    private static void assertContent(String expected, DomainDatagramPacket packet) {
+        try {
+            assertEquals(expected, packet.content().toString(CharsetUtil.US_ASCII));
+        } finally {
+            packet.release();
+        }
+    }
+
+    private static Channel bind(DomainSocketAddress address, BlockingQueue<DomainDatagramPacket> received) {
+        return new Bootstrap().group(group)
+                .channel(EpollDomainDatagramChannel.class)
+                .handler(new ReceiveHandler(received))
+                .bind(address).syncUninterruptibly().channel();
+    }
+
+    private static Channel register(EpollDomainDatagramChannel channel,
+                                    BlockingQueue<DomainDatagramPacket> received) {
+        channel.pipeline().addLast(new ReceiveHandler(received));
+        group.register(channel).syncUninterruptibly();
+        return channel;
+    }
+
+    private static final class ReceiveHandler extends SimpleChannelInboundHandler<DomainDatagramPacket> {
+        private final BlockingQueue<DomainDatagramPacket> received;
+
+        ReceiveHandler(BlockingQueue<DomainDatagramPacket> received) {
+            super(false);
+            this.received = received;
+        }
+
+        @Override
+        protected void messageReceived(ChannelHandlerContext ctx, DomainDatagramPacket msg) {
+            received.add(msg);
+        }
+    }
+}
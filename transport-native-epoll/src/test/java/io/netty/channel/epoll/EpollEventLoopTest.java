@@ -0,0 +1,176 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.AbstractEventExecutor;
+import io.netty.util.concurrent.Future;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class EpollEventLoopTest {
+
+    @Test(timeout = 10000)
+    public void testSpinRunsTasks() throws Exception {
+        EpollEventLoopGroup group = new EpollEventLoopGroup(1);
+        // Spin far longer than the test runs, so the tasks must be picked up while spinning.
+        group.setSpinNanos(TimeUnit.SECONDS.toNanos(60));
+        try {
+            EventLoop loop = group.next();
+            for (int i = 0; i < 100; i ++) {
+                final int value = i;
+                Future<Integer> future = loop.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        return value;
+                    }
+                });
+                assertEquals(value, (int) future.syncUninterruptibly().getNow());
+            }
+            Future<?> scheduled = loop.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            }, 10, TimeUnit.MILLISECONDS);
+            assertTrue(scheduled.await(5, TimeUnit.SECONDS));
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).syncUninterruptibly();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testScheduledTaskRearmsTimer() throws Exception {
+        EpollEventLoopGroup group = new EpollEventLoopGroup(1);
+        try {
+            EventLoop loop = group.next();
+            Future<?> late = loop.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            }, 5, TimeUnit.SECONDS);
+            // Make sure the event loop blocks with the timer armed for the first task before scheduling an earlier one.
+            Thread.sleep(100);
+            final long delayNanos = TimeUnit.MILLISECONDS.toNanos(50);
+            final long scheduledNanos = System.nanoTime();
+            Future<Long> early = loop.schedule(new Callable<Long>() {
+                @Override
+                public Long call() {
+                    return System.nanoTime();
+                }
+            }, delayNanos, TimeUnit.NANOSECONDS);
+            assertTrue(early.await(5, TimeUnit.SECONDS));
+            long elapsedNanos = early.getNow() - scheduledNanos;
+            assertTrue(elapsedNanos >= delayNanos);
+            // If the timer was not re-armed the task would only run once the first task is due.
+            assertTrue("elapsed: " + elapsedNanos, elapsedNanos < delayNanos + TimeUnit.SECONDS.toNanos(1));
+            assertFalse(late.isDone());
+            assertTrue(late.cancel(false));
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).syncUninterruptibly();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testShutdownWithQuietPeriod() throws Exception {
+        EpollEventLoopGroup group = new EpollEventLoopGroup(1);
+        EventLoop loop = group.next();
+        assertTrue(loop.submit(new Runnable() {
+            @Override
+            public void run() {
+                // NOOP
+            }
+        }).await(5, TimeUnit.SECONDS));
+        // The event loop must not block forever in epoll_wait(...) while waiting for the quiet period to pass.
+        assertTrue(group.shutdownGracefully(200, 5000, TimeUnit.MILLISECONDS).await(5, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 10000)
+    public void testLazyExecuteDoesNotWakeUp() throws Exception {
+        EpollEventLoopGroup group = new EpollEventLoopGroup(1);
+        try {
+            EpollEventLoop loop = (EpollEventLoop) group.next();
+            final CountDownLatch latch = new CountDownLatch(2);
+            assertTrue(loop.submit(new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            }).await(5, TimeUnit.SECONDS));
+            // Make sure the event loop blocks in epoll_wait(...) before submitting the lazy tasks.
+            Thread.sleep(100);
+            loop.lazyExecute(new Runnable() {
+                @Override
+                public void run() {
+                    latch.countDown();
+                }
+            });
+            loop.execute(new AbstractEventExecutor.LazyRunnable() {
+                @Override
+                public void run() {
+                    latch.countDown();
+                }
+            });
+            assertFalse(latch.await(200, TimeUnit.MILLISECONDS));
+
+            // Waking up the event loop runs the lazy tasks as well.
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            });
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).syncUninterruptibly();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeSpinNanos() {
+        EpollEventLoopGroup group = new EpollEventLoopGroup(1);
+        try {
+            group.setSpinNanos(-1);
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testCpuAffinity() throws Exception {
+        EpollEventLoopGroup group = new EpollEventLoopGroup(2);
+        group.setCpuAffinity(0);
+        try {
+            for (EventLoop loop: group.<EventLoop>children()) {
+                assertEquals(0, ((EpollEventLoop) loop).getCpuAffinity());
+                assertTrue(loop.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        // NOOP
+                    }
+                }).await(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).syncUninterruptibly();
+        }
+    }
+}
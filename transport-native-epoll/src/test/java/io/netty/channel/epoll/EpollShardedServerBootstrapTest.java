@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+public class EpollShardedServerBootstrapTest {
+
+    @Test
+    public void testChildrenStayOnAcceptingEventLoop() throws Exception {
+        testChildrenStayOnAcceptingEventLoop(false);
+    }
+
+    @Test
+    public void testChildrenStayOnAcceptingEventLoopWithCpuSteering() throws Exception {
+        testChildrenStayOnAcceptingEventLoop(true);
+    }
+
+    private static void testChildrenStayOnAcceptingEventLoop(boolean cpuSteering) throws Exception {
+        EpollEventLoopGroup group = new EpollEventLoopGroup(2);
+        EpollEventLoopGroup clientGroup = new EpollEventLoopGroup(1);
+        List<Channel> serverChannels = null;
+        List<Channel> clientChannels = new ArrayList<Channel>();
+        try {
+            final BlockingQueue<Channel> accepted = new LinkedBlockingQueue<Channel>();
+            ServerBootstrap sb = new ServerBootstrap().childHandler(new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel ch) {
+                    accepted.add(ch);
+                }
+            });
+            serverChannels = new EpollShardedServerBootstrap(group, sb).cpuSteering(cpuSteering)
+                    .bind(new InetSocketAddress(0));
+            assertEquals(2, serverChannels.size());
+            int port = ((InetSocketAddress) serverChannels.get(0).localAddress()).getPort();
+            assertEquals(port, ((InetSocketAddress) serverChannels.get(1).localAddress()).getPort());
+
+            Bootstrap b = new Bootstrap().group(clientGroup).channel(EpollSocketChannel.class)
+                    .handler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) {
+                            // Nothing to do.
+                        }
+                    });
+            int connections = 16;
+            for (int i = 0; i < connections; i++) {
+                clientChannels.add(b.connect(new InetSocketAddress("127.0.0.1", port)).sync().channel());
+            }
+            for (int i = 0; i < connections; i++) {
+                Channel child = accepted.poll(10, TimeUnit.SECONDS);
+                assertNotNull(child);
+                assertSame(child.parent().eventLoop().unwrap(), child.eventLoop().unwrap());
+            }
+        } finally {
+            for (Channel ch: clientChannels) {
+                ch.close().sync();
+            }
+            if (serverChannels != null) {
+                for (Channel ch: serverChannels) {
+                    ch.close().sync();
+                }
+            }
+            group.shutdownGracefully();
+            clientGroup.shutdownGracefully();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBootstrapWithGroup() {
+        EpollEventLoopGroup group = new EpollEventLoopGroup(1);
+        try {
+            new EpollShardedServerBootstrap(group, new ServerBootstrap().group(group));
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+}
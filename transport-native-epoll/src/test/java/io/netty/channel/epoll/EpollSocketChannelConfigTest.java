@@ -110,4 +110,42 @@ public class EpollSocketChannelConfigTest {
         ch.config().setTcpCork(true);
         assertTrue(ch.config().isTcpCork());
     }
+
+    @Test
+    public void testSoZerocopy() {
+        try {
+            ch.config().setSoZerocopy(true);
+        } catch (RuntimeException e) {
+            // SO_ZEROCOPY requires Linux 4.14 or later.
+            assumeNoException(e);
+        }
+        assertTrue(ch.config().isSoZerocopy());
+        ch.config().setSoZerocopy(false);
+        assertFalse(ch.config().isSoZerocopy());
+        ch.config().setZerocopyThreshold(0);
+        assertEquals(0, ch.config().getZerocopyThreshold());
+    }
+
+    @Test
+    public void testSoBusyPoll() {
+        try {
+            ch.config().setSoBusyPoll(50);
+        } catch (RuntimeException e) {
+            // Raising SO_BUSY_POLL requires CAP_NET_ADMIN and the kernel may not support busy polling at all.
+            assumeNoException(e);
+        }
+        assertEquals(50, ch.config().getSoBusyPoll());
+        ch.config().setSoBusyPoll(0);
+        assertEquals(0, ch.config().getSoBusyPoll());
+    }
+
+    @Test
+    public void testSoIncomingCpu() {
+        try {
+            ch.config().setSoIncomingCpu(0);
+        } catch (RuntimeException e) {
+            assumeNoException(e);
+        }
+        assertEquals(0, ch.config().getSoIncomingCpu());
+    }
 }
@@ -17,8 +17,10 @@ package io.netty.channel.epoll;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
@@ -26,18 +28,26 @@ import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
+import io.netty.util.CharsetUtil;
 import io.netty.util.ReferenceCountUtil;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNoException;
 
 public class EpollSocketChannelTest {
 
@@ -78,6 +88,56 @@ public class EpollSocketChannelTest {
         }
     }
 
+    @Test(timeout = 10000)
+    public void testTcpInfoSampling() throws Exception {
+        EpollEventLoopGroup group = new EpollEventLoopGroup(1);
+        Channel serverChannel = null;
+        Channel clientChannel = null;
+        try {
+            serverChannel = new ServerBootstrap().group(group)
+                    .channel(EpollServerSocketChannel.class)
+                    .childHandler(new ChannelInboundHandlerAdapter())
+                    .bind(new InetSocketAddress(0)).syncUninterruptibly().channel();
+            clientChannel = new Bootstrap().group(group)
+                    .channel(EpollSocketChannel.class)
+                    .handler(new ChannelInboundHandlerAdapter())
+                    .connect(serverChannel.localAddress()).syncUninterruptibly().channel();
+
+            final BlockingQueue<EpollSocketChannel> sampled = new LinkedBlockingQueue<EpollSocketChannel>();
+            final BlockingQueue<EpollTcpInfoMetrics> aggregated = new LinkedBlockingQueue<EpollTcpInfoMetrics>();
+            group.setTcpInfoSampling(10, TimeUnit.MILLISECONDS, new EpollTcpInfoListener() {
+                @Override
+                public void tcpInfoSampled(EpollSocketChannel channel, EpollTcpInfo info, long pendingOutboundBytes) {
+                    sampled.add(channel);
+                }
+
+                @Override
+                public void tcpInfoAggregated(EpollTcpInfoMetrics metrics) {
+                    aggregated.add(metrics);
+                }
+            });
+            EpollTcpInfoMetrics metrics;
+            do {
+                // Wait until the accepted channel is registered as well.
+                metrics = aggregated.take();
+            } while (metrics.channels() < 2);
+            group.setTcpInfoSampling(0, TimeUnit.MILLISECONDS, null);
+
+            assertEquals(2, metrics.channels());
+            assertTrue(metrics.congestionWindow().min() > 0);
+            assertEquals(0, metrics.pendingOutboundBytes().max());
+            assertTrue(sampled.contains(clientChannel));
+        } finally {
+            if (clientChannel != null) {
+                clientChannel.close().syncUninterruptibly();
+            }
+            if (serverChannel != null) {
+                serverChannel.close().syncUninterruptibly();
+            }
+            group.shutdownGracefully();
+        }
+    }
+
     private static void assertTcpInfo0(EpollTcpInfo info) throws Exception {
         Assert.assertNotNull(info);
 
@@ -115,6 +175,213 @@ public class EpollSocketChannelTest {
         Assert.assertTrue(info.totalRetrans() >= 0);
     }
 
+    @Test(timeout = 30000)
+    public void testZerocopyWrite() throws Exception {
+        final int bufferSize = 256 * 1024;
+        final int buffers = 16;
+        EventLoopGroup group = new EpollEventLoopGroup(2);
+        Channel serverChannel = null;
+        Channel clientChannel = null;
+        try {
+            final CountDownLatch received = new CountDownLatch(1);
+            ServerBootstrap sb = new ServerBootstrap();
+            sb.group(group)
+              .channel(EpollServerSocketChannel.class)
+              .childHandler(new ChannelInboundHandlerAdapter() {
+                  private long bytes;
+
+                  @Override
+                  public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                      bytes += ((ByteBuf) msg).readableBytes();
+                      ReferenceCountUtil.release(msg);
+                      if (bytes == (long) bufferSize * buffers) {
+                          received.countDown();
+                      }
+                  }
+              });
+            serverChannel = sb.bind(new InetSocketAddress(0)).syncUninterruptibly().channel();
+
+            Bootstrap b = new Bootstrap();
+            b.group(group)
+             .channel(EpollSocketChannel.class)
+             .handler(new ChannelInboundHandlerAdapter());
+            clientChannel = b.connect(serverChannel.localAddress()).syncUninterruptibly().channel();
+            try {
+                clientChannel.config().setOption(EpollChannelOption.SO_ZEROCOPY, true);
+            } catch (RuntimeException e) {
+                // SO_ZEROCOPY requires Linux 4.14 or later.
+                assumeNoException(e);
+            }
+
+            List<ByteBuf> bufs = new ArrayList<ByteBuf>(buffers);
+            List<ChannelFuture> futures = new ArrayList<ChannelFuture>(buffers);
+            for (int i = 0; i < buffers; i++) {
+                ByteBuf buf = Unpooled.directBuffer(bufferSize).writeZero(bufferSize);
+                bufs.add(buf);
+                futures.add(clientChannel.write(buf));
+            }
+            clientChannel.flush();
+            for (ChannelFuture future: futures) {
+                assertTrue(future.syncUninterruptibly().isSuccess());
+            }
+            // The buffers must be released once the kernel reported the completion.
+            for (ByteBuf buf: bufs) {
+                assertEquals(0, buf.refCnt());
+            }
+            assertTrue(received.await(10, TimeUnit.SECONDS));
+        } finally {
+            if (clientChannel != null) {
+                clientChannel.close().syncUninterruptibly();
+            }
+            if (serverChannel != null) {
+                serverChannel.close().syncUninterruptibly();
+            }
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testZerocopyWriteReleasedAfterClose() throws Exception {
+        final int bufferSize = 256 * 1024;
+        final int buffers = 16;
+        EventLoopGroup group = new EpollEventLoopGroup(2);
+        Channel serverChannel = null;
+        Channel clientChannel = null;
+        try {
+            final BlockingQueue<Channel> accepted = new LinkedBlockingQueue<Channel>();
+            ServerBootstrap sb = new ServerBootstrap();
+            sb.group(group)
+              .channel(EpollServerSocketChannel.class)
+              // Do not read, so the kernel can not complete the writes before the client is closed.
+              .childOption(ChannelOption.AUTO_READ, false)
+              .childHandler(new ChannelInboundHandlerAdapter() {
+                  @Override
+                  public void channelActive(ChannelHandlerContext ctx) {
+                      accepted.add(ctx.channel());
+                  }
+              });
+            serverChannel = sb.bind(new InetSocketAddress(0)).syncUninterruptibly().channel();
+
+            Bootstrap b = new Bootstrap();
+            b.group(group)
+             .channel(EpollSocketChannel.class)
+             .handler(new ChannelInboundHandlerAdapter());
+            clientChannel = b.connect(serverChannel.localAddress()).syncUninterruptibly().channel();
+            try {
+                clientChannel.config().setOption(EpollChannelOption.SO_ZEROCOPY, true);
+            } catch (RuntimeException e) {
+                // SO_ZEROCOPY requires Linux 4.14 or later.
+                assumeNoException(e);
+            }
+            Channel acceptedChannel = accepted.poll(10, TimeUnit.SECONDS);
+            assertNotNull(acceptedChannel);
+
+            long leakedBytes = AbstractEpollStreamChannel.zerocopyLeakedBytes();
+            List<ByteBuf> bufs = new ArrayList<ByteBuf>(buffers);
+            for (int i = 0; i < buffers; i++) {
+                ByteBuf buf = Unpooled.directBuffer(bufferSize).writeZero(bufferSize);
+                bufs.add(buf);
+                clientChannel.write(buf);
+            }
+            clientChannel.flush();
+            Thread.sleep(200);
+            clientChannel.close().syncUninterruptibly();
+
+            // Once the data was received the kernel reports the completions and the buffers must be released.
+            acceptedChannel.config().setAutoRead(true);
+            for (ByteBuf buf: bufs) {
+                while (buf.refCnt() != 0) {
+                    Thread.sleep(10);
+                }
+            }
+            assertEquals(leakedBytes, AbstractEpollStreamChannel.zerocopyLeakedBytes());
+        } finally {
+            if (clientChannel != null) {
+                clientChannel.close().syncUninterruptibly();
+            }
+            if (serverChannel != null) {
+                serverChannel.close().syncUninterruptibly();
+            }
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTlsCryptoInfoWrongKeySize() {
+        new EpollTlsCryptoInfo(EpollTlsCryptoInfo.Version.TLS_1_2, EpollTlsCryptoInfo.Cipher.AES_GCM_128,
+                new byte[32], new byte[8], new byte[4], new byte[8]);
+    }
+
+    @Test
+    public void testKernelTls() throws Exception {
+        // Both sides use the same keys so the server decrypts what the client encrypted.
+        final EpollTlsCryptoInfo info = new EpollTlsCryptoInfo(
+                EpollTlsCryptoInfo.Version.TLS_1_2, EpollTlsCryptoInfo.Cipher.AES_GCM_128,
+                new byte[16], new byte[8], new byte[4], new byte[8]);
+        EventLoopGroup group = new EpollEventLoopGroup(2);
+        Channel serverChannel = null;
+        Channel clientChannel = null;
+        try {
+            final BlockingQueue<Object> serverEvents = new LinkedBlockingQueue<Object>();
+            ServerBootstrap sb = new ServerBootstrap();
+            sb.group(group)
+              .channel(EpollServerSocketChannel.class)
+              .childOption(ChannelOption.AUTO_READ, false)
+              .childHandler(new ChannelInboundHandlerAdapter() {
+                  @Override
+                  public void channelActive(ChannelHandlerContext ctx) {
+                      ChannelFuture future = ((EpollSocketChannel) ctx.channel()).enableKernelTls(info, info);
+                      serverEvents.add(future);
+                      if (future.isSuccess()) {
+                          ctx.read();
+                      }
+                  }
+
+                  @Override
+                  public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                      serverEvents.add(((ByteBuf) msg).toString(CharsetUtil.US_ASCII));
+                      ReferenceCountUtil.release(msg);
+                  }
+              });
+            serverChannel = sb.bind(new InetSocketAddress(0)).syncUninterruptibly().channel();
+
+            Bootstrap b = new Bootstrap();
+            b.group(group)
+             .channel(EpollSocketChannel.class)
+             .handler(new ChannelInboundHandlerAdapter());
+            clientChannel = b.connect(serverChannel.localAddress()).syncUninterruptibly().channel();
+            EpollSocketChannel ch = (EpollSocketChannel) clientChannel;
+            ChannelFuture future = ch.enableKernelTls(info, null).awaitUninterruptibly();
+            if (!future.isSuccess()) {
+                // Kernel TLS requires Linux 4.13 or later and the tls module.
+                assertFalse(ch.isKernelTls());
+                assumeNoException(future.cause());
+            }
+            assertTrue(ch.isKernelTls());
+            ChannelFuture serverFuture = (ChannelFuture) serverEvents.poll(10, TimeUnit.SECONDS);
+            assertNotNull(serverFuture);
+            if (!serverFuture.isSuccess()) {
+                // Receiving with kernel TLS requires Linux 4.17 or later, while sending works since 4.13.
+                assumeNoException(serverFuture.cause());
+            }
+
+            clientChannel.writeAndFlush(Unpooled.copiedBuffer("kernel", CharsetUtil.US_ASCII)).syncUninterruptibly();
+            StringBuilder received = new StringBuilder();
+            while (received.length() < 6) {
+                received.append(serverEvents.poll(10, TimeUnit.SECONDS));
+            }
+            assertEquals("kernel", received.toString());
+        } finally {
+            if (clientChannel != null) {
+                clientChannel.close().syncUninterruptibly();
+            }
+            if (serverChannel != null) {
+                serverChannel.close().syncUninterruptibly();
+            }
+            group.shutdownGracefully();
+        }
+    }
+
     @Test
     public void testExceptionHandlingDoesNotInfiniteLoop() throws InterruptedException {
         EventLoopGroup group = new EpollEventLoopGroup();
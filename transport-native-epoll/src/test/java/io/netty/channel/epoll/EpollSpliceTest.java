@@ -24,6 +24,7 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.unix.FileDescriptor;
@@ -35,6 +36,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertEquals;
@@ -189,6 +191,168 @@ public class EpollSpliceTest {
         }
     }
 
+    @Test
+    public void spliceProxyHandlerEdgeTriggered() throws Throwable {
+        final EchoHandler sh = new EchoHandler();
+        final EchoHandler ch = new EchoHandler();
+        final AtomicReference<EpollSpliceProxyHandler> inboundHandler =
+                new AtomicReference<EpollSpliceProxyHandler>();
+        final AtomicReference<EpollSpliceProxyHandler> outboundHandler =
+                new AtomicReference<EpollSpliceProxyHandler>();
+
+        EventLoopGroup group = new EpollEventLoopGroup(1);
+        ServerBootstrap bs = new ServerBootstrap();
+        bs.channel(EpollServerSocketChannel.class);
+        bs.group(group).childHandler(sh);
+        final Channel sc = bs.bind(new InetSocketAddress(0)).syncUninterruptibly().channel();
+
+        ServerBootstrap bs2 = new ServerBootstrap();
+        bs2.channel(EpollServerSocketChannel.class);
+        bs2.childOption(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+        bs2.childOption(ChannelOption.AUTO_READ, false);
+        bs2.group(group).childHandler(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelActive(final ChannelHandlerContext ctx) throws Exception {
+                Bootstrap bs = new Bootstrap();
+                bs.option(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+                bs.channel(EpollSocketChannel.class);
+                bs.group(ctx.channel().eventLoop()).handler(new ChannelInboundHandlerAdapter());
+                bs.connect(sc.localAddress()).addListener(new ChannelFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelFuture future) throws Exception {
+                        if (!future.isSuccess()) {
+                            ctx.close();
+                            return;
+                        }
+                        EpollSocketChannel inbound = (EpollSocketChannel) ctx.channel();
+                        EpollSocketChannel outbound = (EpollSocketChannel) future.channel();
+                        inboundHandler.set(new EpollSpliceProxyHandler(outbound));
+                        outboundHandler.set(new EpollSpliceProxyHandler(inbound));
+                        inbound.pipeline().addLast(inboundHandler.get());
+                        outbound.pipeline().addLast(outboundHandler.get());
+                        inbound.config().setAutoRead(true);
+                    }
+                });
+            }
+        });
+        Channel pc = bs2.bind(new InetSocketAddress(0)).syncUninterruptibly().channel();
+
+        Bootstrap cb = new Bootstrap();
+        cb.group(group);
+        cb.channel(EpollSocketChannel.class);
+        cb.handler(ch);
+        Channel cc = cb.connect(pc.localAddress()).syncUninterruptibly().channel();
+
+        for (int i = 0; i < data.length;) {
+            int length = Math.min(random.nextInt(1024 * 64), data.length - i);
+            ByteBuf buf = Unpooled.wrappedBuffer(data, i, length);
+            cc.writeAndFlush(buf);
+            i += length;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (ch.counter < data.length && System.nanoTime() < deadline) {
+            if (sh.exception.get() != null || ch.exception.get() != null) {
+                break;
+            }
+            Thread.sleep(50);
+        }
+
+        cc.close().sync();
+        // Closing the client closes both proxied channels and so the server side.
+        sh.channel.closeFuture().sync();
+        sc.close().sync();
+        pc.close().sync();
+        group.shutdownGracefully();
+
+        if (sh.exception.get() != null) {
+            throw sh.exception.get();
+        }
+        if (ch.exception.get() != null) {
+            throw ch.exception.get();
+        }
+        assertEquals(data.length, sh.counter);
+        assertEquals(data.length, ch.counter);
+        assertEquals(data.length, inboundHandler.get().relayedBytes());
+        assertEquals(data.length, outboundHandler.get().relayedBytes());
+    }
+
+    @Test(timeout = 30000)
+    public void spliceToSocketEdgeTriggeredWithoutAutoRead() throws Throwable {
+        final EchoHandler sh = new EchoHandler();
+        final AtomicReference<Channel> proxyChannel = new AtomicReference<Channel>();
+        final AtomicReference<ChannelFuture> spliceFuture = new AtomicReference<ChannelFuture>();
+
+        EventLoopGroup group = new EpollEventLoopGroup(1);
+        ServerBootstrap bs = new ServerBootstrap();
+        bs.channel(EpollServerSocketChannel.class);
+        // Do not read at first and use small buffers, so the target of the splice becomes unwritable.
+        bs.childOption(ChannelOption.AUTO_READ, false);
+        bs.childOption(ChannelOption.SO_RCVBUF, 4096);
+        bs.group(group).childHandler(sh);
+        final Channel sc = bs.bind(new InetSocketAddress(0)).syncUninterruptibly().channel();
+
+        ServerBootstrap bs2 = new ServerBootstrap();
+        bs2.channel(EpollServerSocketChannel.class);
+        bs2.childOption(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+        bs2.childOption(ChannelOption.AUTO_READ, false);
+        bs2.group(group).childHandler(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelActive(final ChannelHandlerContext ctx) throws Exception {
+                Bootstrap bs = new Bootstrap();
+                bs.option(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+                bs.option(ChannelOption.SO_SNDBUF, 4096);
+                bs.channel(EpollSocketChannel.class);
+                bs.group(ctx.channel().eventLoop()).handler(new ChannelInboundHandlerAdapter());
+                bs.connect(sc.localAddress()).addListener(new ChannelFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelFuture future) throws Exception {
+                        if (!future.isSuccess()) {
+                            ctx.close();
+                            return;
+                        }
+                        EpollSocketChannel ch = (EpollSocketChannel) ctx.channel();
+                        spliceFuture.set(ch.spliceTo((EpollSocketChannel) future.channel(), data.length));
+                        proxyChannel.set(ch);
+                    }
+                });
+            }
+        });
+        Channel pc = bs2.bind(new InetSocketAddress(0)).syncUninterruptibly().channel();
+
+        Bootstrap cb = new Bootstrap();
+        cb.group(group);
+        cb.channel(EpollSocketChannel.class);
+        cb.handler(new ChannelInboundHandlerAdapter());
+        Channel cc = cb.connect(pc.localAddress()).syncUninterruptibly().channel();
+        while (proxyChannel.get() == null || sh.channel == null) {
+            Thread.sleep(10);
+        }
+
+        // Wait until all data was received, so there will be no further edge once splicing stalls.
+        cc.writeAndFlush(Unpooled.wrappedBuffer(data)).sync();
+        Thread.sleep(200);
+        // Only request a read once, the splicing must go on by itself.
+        proxyChannel.get().read();
+        Thread.sleep(200);
+        sh.channel.config().setAutoRead(true);
+
+        while (sh.counter < data.length) {
+            if (sh.exception.get() != null) {
+                throw sh.exception.get();
+            }
+            Thread.sleep(50);
+        }
+        assertEquals(data.length, sh.counter);
+        Assert.assertTrue(spliceFuture.get().await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(spliceFuture.get().isSuccess());
+
+        cc.close().sync();
+        sc.close().sync();
+        pc.close().sync();
+        group.shutdownGracefully();
+    }
+
     @Test
     public void spliceToFile() throws Throwable {
         EventLoopGroup group = new EpollEventLoopGroup(1);
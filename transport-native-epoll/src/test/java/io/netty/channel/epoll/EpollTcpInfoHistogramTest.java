@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class EpollTcpInfoHistogramTest {
+
+    @Test
+    public void testEmpty() {
+        EpollTcpInfoHistogram histogram = new EpollTcpInfoHistogram();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.min());
+        assertEquals(0, histogram.max());
+        assertEquals(0, histogram.mean(), 0);
+        assertEquals(0, histogram.percentile(99));
+    }
+
+    @Test
+    public void testPercentile() {
+        EpollTcpInfoHistogram histogram = new EpollTcpInfoHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals(100, histogram.count());
+        assertEquals(1, histogram.min());
+        assertEquals(100, histogram.max());
+        assertEquals(50.5, histogram.mean(), 0);
+        // 50 is counted in [32, 64).
+        assertEquals(63, histogram.percentile(50));
+        // 99 is counted in [64, 128), which is capped by the biggest value.
+        assertEquals(100, histogram.percentile(99));
+        assertEquals(1, histogram.percentile(0));
+    }
+
+    @Test
+    public void testZeroAndBigValues() {
+        EpollTcpInfoHistogram histogram = new EpollTcpInfoHistogram();
+        histogram.record(0);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(0, histogram.percentile(50));
+        assertEquals(Long.MAX_VALUE, histogram.percentile(100));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeValue() {
+        new EpollTcpInfoHistogram().record(-1);
+    }
+}
@@ -0,0 +1,546 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+#define _GNU_SOURCE
+#include <jni.h>
+#include <stdlib.h>
+#include <string.h>
+#include <errno.h>
+#include <fcntl.h>
+#include <unistd.h>
+#include <stdint.h>
+#include <poll.h>
+#include <netinet/in.h>
+#include <sys/types.h>
+#include <sys/socket.h>
+#include <sys/uio.h>
+#include <sys/mman.h>
+#include <sys/syscall.h>
+#include <linux/io_uring.h> // needs the headers of linux 5.7 or later
+#include "io_netty_channel_uring_Native.h"
+
+// syscall numbers of io_uring, which are the same on all architectures. We define these here as older libc headers
+// may not have them.
+#ifndef __NR_io_uring_setup
+#define __NR_io_uring_setup 425
+#endif
+#ifndef __NR_io_uring_enter
+#define __NR_io_uring_enter 426
+#endif
+#ifndef __NR_io_uring_register
+#define __NR_io_uring_register 427
+#endif
+
+/**
+ * The state of one io_uring instance. The submission and completion queues are shared with the kernel via mmap(...).
+ */
+struct netty_io_uring {
+    int fd;
+
+    unsigned* sqHead;
+    unsigned* sqTail;
+    unsigned* sqMask;
+    unsigned* sqEntries;
+    unsigned* sqArray;
+    struct io_uring_sqe* sqes;
+    // The tail including all the entries that were prepared but not published to the kernel yet.
+    unsigned sqLocalTail;
+
+    unsigned* cqHead;
+    unsigned* cqTail;
+    unsigned* cqMask;
+    struct io_uring_cqe* cqes;
+
+    void* sqRing;
+    size_t sqRingSize;
+    void* cqRing;
+    size_t cqRingSize;
+    size_t sqesSize;
+
+    // Used by IORING_OP_TIMEOUT. The kernel copies it on submission (IORING_FEAT_SUBMIT_STABLE), so only one timeout
+    // may be prepared between two calls of ringEnter(...).
+    struct __kernel_timespec timeout;
+};
+
+/**
+ * The memory that is used by one IORING_OP_RECVMSG or IORING_OP_SENDMSG operation. It must not be touched until the
+ * operation completes.
+ */
+struct netty_msghdr_block {
+    struct msghdr hdr;
+    struct iovec iov;
+    struct sockaddr_storage addr;
+};
+
+// The operations that must be supported by the kernel to be able to use the transport.
+static const int requiredOps[] = {
+    IORING_OP_READ, IORING_OP_WRITE, IORING_OP_WRITEV, IORING_OP_RECVMSG, IORING_OP_SENDMSG, IORING_OP_ACCEPT,
+    IORING_OP_CONNECT, IORING_OP_POLL_ADD, IORING_OP_TIMEOUT, IORING_OP_TIMEOUT_REMOVE, IORING_OP_ASYNC_CANCEL
+};
+
+// util methods
+static inline struct netty_io_uring* toRing(jlong ring) {
+    return (struct netty_io_uring*) (intptr_t) ring;
+}
+
+static void unmapRing(struct netty_io_uring* ring) {
+    if (ring->sqes != NULL && ring->sqes != MAP_FAILED) {
+        munmap(ring->sqes, ring->sqesSize);
+    }
+    if (ring->cqRing != NULL && ring->cqRing != MAP_FAILED && ring->cqRing != ring->sqRing) {
+        munmap(ring->cqRing, ring->cqRingSize);
+    }
+    if (ring->sqRing != NULL && ring->sqRing != MAP_FAILED) {
+        munmap(ring->sqRing, ring->sqRingSize);
+    }
+}
+
+/**
+ * Returns the next free submission queue entry or {@code NULL} if the submission queue is full.
+ */
+static inline struct io_uring_sqe* nextSqe(struct netty_io_uring* ring) {
+    unsigned head = __atomic_load_n(ring->sqHead, __ATOMIC_ACQUIRE);
+    if (ring->sqLocalTail - head >= *ring->sqEntries) {
+        return NULL;
+    }
+    unsigned index = ring->sqLocalTail & *ring->sqMask;
+    struct io_uring_sqe* sqe = &ring->sqes[index];
+    ring->sqArray[index] = index;
+    ring->sqLocalTail++;
+    memset(sqe, 0, sizeof(*sqe));
+    return sqe;
+}
+
+static inline jboolean prep(jlong ringAddress, int op, int fd, uint64_t addr, uint32_t len, uint64_t off,
+                            jlong userData) {
+    struct io_uring_sqe* sqe = nextSqe(toRing(ringAddress));
+    if (sqe == NULL) {
+        return JNI_FALSE;
+    }
+    sqe->opcode = op;
+    sqe->fd = fd;
+    sqe->addr = addr;
+    sqe->len = len;
+    sqe->off = off;
+    sqe->user_data = (uint64_t) userData;
+    return JNI_TRUE;
+}
+
+static int socketDomain(int fd) {
+    int domain;
+    socklen_t len = sizeof(domain);
+    if (getsockopt(fd, SOL_SOCKET, SO_DOMAIN, &domain, &len) == -1) {
+        return -1;
+    }
+    return domain;
+}
+
+/**
+ * Fill the sockaddr for the given socket. The address is always passed as 16 bytes, IPv4 addresses are IPv4-mapped.
+ * Returns the length of the sockaddr or -errno.
+ */
+static int initSockaddr(JNIEnv* env, int fd, jbyteArray address, jint scopeId, jint jport,
+                        struct sockaddr_storage* addr) {
+    int domain = socketDomain(fd);
+    if (domain == -1) {
+        return -errno;
+    }
+    uint16_t port = htons((uint16_t) jport);
+    jbyte addressBytes[16];
+    (*env)->GetByteArrayRegion(env, address, 0, 16, addressBytes);
+
+    memset(addr, 0, sizeof(struct sockaddr_storage));
+    if (domain == AF_INET6) {
+        struct sockaddr_in6* ip6addr = (struct sockaddr_in6*) addr;
+        ip6addr->sin6_family = AF_INET6;
+        ip6addr->sin6_port = port;
+        ip6addr->sin6_scope_id = (uint32_t) scopeId;
+        memcpy(&(ip6addr->sin6_addr.s6_addr), addressBytes, 16);
+        return sizeof(struct sockaddr_in6);
+    }
+    struct sockaddr_in* ipaddr = (struct sockaddr_in*) addr;
+    ipaddr->sin_family = AF_INET;
+    ipaddr->sin_port = port;
+    memcpy(&(ipaddr->sin_addr.s_addr), addressBytes + 12, 4);
+    return sizeof(struct sockaddr_in);
+}
+
+/**
+ * Encode the given sockaddr the same way as io.netty.channel.epoll.Native does: 4 bytes of address and 4 bytes of
+ * port for IPv4 (and IPv4-mapped) addresses, 16 bytes of address, 4 bytes of scope id and 4 bytes of port for IPv6.
+ */
+static jbyteArray createInetSocketAddressArray(JNIEnv* env, const struct sockaddr_storage* addr) {
+    unsigned char bytes[24];
+    int len;
+    uint32_t port;
+    if (addr->ss_family == AF_INET) {
+        struct sockaddr_in* s = (struct sockaddr_in*) addr;
+        port = ntohs(s->sin_port);
+        memcpy(bytes, &s->sin_addr.s_addr, 4);
+        len = 8;
+    } else if (addr->ss_family == AF_INET6) {
+        struct sockaddr_in6* s = (struct sockaddr_in6*) addr;
+        port = ntohs(s->sin6_port);
+        if (IN6_IS_ADDR_V4MAPPED(&s->sin6_addr)) {
+            memcpy(bytes, &(s->sin6_addr.s6_addr[12]), 4);
+            len = 8;
+        } else {
+            uint32_t scopeId = s->sin6_scope_id;
+            memcpy(bytes, &(s->sin6_addr.s6_addr), 16);
+            bytes[16] = scopeId >> 24;
+            bytes[17] = scopeId >> 16;
+            bytes[18] = scopeId >> 8;
+            bytes[19] = scopeId;
+            len = 24;
+        }
+    } else {
+        return NULL;
+    }
+    bytes[len - 4] = port >> 24;
+    bytes[len - 3] = port >> 16;
+    bytes[len - 2] = port >> 8;
+    bytes[len - 1] = port;
+
+    jbyteArray array = (*env)->NewByteArray(env, len);
+    if (array != NULL) {
+        (*env)->SetByteArrayRegion(env, array, 0, len, (jbyte*) bytes);
+    }
+    return array;
+}
+// util methods end
+
+jint JNI_OnLoad(JavaVM* vm, void* reserved) {
+    JNIEnv* env;
+    if ((*vm)->GetEnv(vm, (void**) &env, JNI_VERSION_1_6) != JNI_OK) {
+        return JNI_ERR;
+    }
+    return JNI_VERSION_1_6;
+}
+
+JNIEXPORT jlong JNICALL Java_io_netty_channel_uring_Native_ringCreate0(JNIEnv* env, jclass clazz, jint entries) {
+    struct io_uring_params params;
+    memset(&params, 0, sizeof(params));
+
+    int fd = syscall(__NR_io_uring_setup, entries, &params);
+    if (fd < 0) {
+        return -errno;
+    }
+    if ((params.features & IORING_FEAT_NODROP) == 0 || (params.features & IORING_FEAT_SUBMIT_STABLE) == 0 ||
+            (params.features & IORING_FEAT_FAST_POLL) == 0) {
+        // We depend on completions never being dropped and on the kernel copying everything on submission.
+        // As all file descriptors are in blocking mode we also need the kernel to wait for them to become ready via
+        // its internal poll, otherwise every operation would park an io-wq worker and could not always be cancelled.
+        close(fd);
+        return -ENOSYS;
+    }
+
+    struct netty_io_uring* ring = calloc(1, sizeof(struct netty_io_uring));
+    if (ring == NULL) {
+        close(fd);
+        return -ENOMEM;
+    }
+    ring->fd = fd;
+    ring->sqRingSize = params.sq_off.array + params.sq_entries * sizeof(unsigned);
+    ring->cqRingSize = params.cq_off.cqes + params.cq_entries * sizeof(struct io_uring_cqe);
+    if (params.features & IORING_FEAT_SINGLE_MMAP) {
+        if (ring->cqRingSize > ring->sqRingSize) {
+            ring->sqRingSize = ring->cqRingSize;
+        }
+        ring->cqRingSize = ring->sqRingSize;
+    }
+
+    ring->sqRing = mmap(NULL, ring->sqRingSize, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE, fd,
+                        IORING_OFF_SQ_RING);
+    if (ring->sqRing == MAP_FAILED) {
+        goto error;
+    }
+    if (params.features & IORING_FEAT_SINGLE_MMAP) {
+        ring->cqRing = ring->sqRing;
+    } else {
+        ring->cqRing = mmap(NULL, ring->cqRingSize, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE, fd,
+                            IORING_OFF_CQ_RING);
+        if (ring->cqRing == MAP_FAILED) {
+            goto error;
+        }
+    }
+    ring->sqesSize = params.sq_entries * sizeof(struct io_uring_sqe);
+    ring->sqes = mmap(NULL, ring->sqesSize, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE, fd, IORING_OFF_SQES);
+    if (ring->sqes == MAP_FAILED) {
+        goto error;
+    }
+
+    ring->sqHead = (unsigned*) ((char*) ring->sqRing + params.sq_off.head);
+    ring->sqTail = (unsigned*) ((char*) ring->sqRing + params.sq_off.tail);
+    ring->sqMask = (unsigned*) ((char*) ring->sqRing + params.sq_off.ring_mask);
+    ring->sqEntries = (unsigned*) ((char*) ring->sqRing + params.sq_off.ring_entries);
+    ring->sqArray = (unsigned*) ((char*) ring->sqRing + params.sq_off.array);
+    ring->sqLocalTail = *ring->sqTail;
+
+    ring->cqHead = (unsigned*) ((char*) ring->cqRing + params.cq_off.head);
+    ring->cqTail = (unsigned*) ((char*) ring->cqRing + params.cq_off.tail);
+    ring->cqMask = (unsigned*) ((char*) ring->cqRing + params.cq_off.ring_mask);
+    ring->cqes = (struct io_uring_cqe*) ((char*) ring->cqRing + params.cq_off.cqes);
+    return (jlong) (intptr_t) ring;
+error:
+    {
+        int err = errno;
+        unmapRing(ring);
+        close(fd);
+        free(ring);
+        return -err;
+    }
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_uring_Native_ringDestroy(JNIEnv* env, jclass clazz, jlong ringAddress) {
+    struct netty_io_uring* ring = toRing(ringAddress);
+    unmapRing(ring);
+    close(ring->fd);
+    free(ring);
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_channel_uring_Native_ringSupportsRequiredOps(JNIEnv* env, jclass clazz, jlong ringAddress) {
+    const int maxOps = 256;
+    struct io_uring_probe* probe = calloc(1, sizeof(struct io_uring_probe) + maxOps * sizeof(struct io_uring_probe_op));
+    if (probe == NULL) {
+        return JNI_FALSE;
+    }
+    jboolean supported = JNI_FALSE;
+    if (syscall(__NR_io_uring_register, toRing(ringAddress)->fd, IORING_REGISTER_PROBE, probe, maxOps) == 0) {
+        int i;
+        supported = JNI_TRUE;
+        for (i = 0; i < sizeof(requiredOps) / sizeof(requiredOps[0]); i++) {
+            int op = requiredOps[i];
+            if (op > probe->last_op || (probe->ops[op].flags & IO_URING_OP_SUPPORTED) == 0) {
+                supported = JNI_FALSE;
+                break;
+            }
+        }
+    }
+    free(probe);
+    return supported;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_ringEnter0(JNIEnv* env, jclass clazz, jlong ringAddress, jint minComplete) {
+    struct netty_io_uring* ring = toRing(ringAddress);
+    // Publish all the prepared entries. Entries the kernel did not consume on a previous call are submitted again.
+    __atomic_store_n(ring->sqTail, ring->sqLocalTail, __ATOMIC_RELEASE);
+    unsigned toSubmit = ring->sqLocalTail - __atomic_load_n(ring->sqHead, __ATOMIC_ACQUIRE);
+    if (toSubmit == 0 && minComplete <= 0) {
+        return 0;
+    }
+    unsigned flags = minComplete > 0 ? IORING_ENTER_GETEVENTS : 0;
+    for (;;) {
+        int res = syscall(__NR_io_uring_enter, ring->fd, toSubmit, minComplete > 0 ? minComplete : 0, flags, NULL, 0);
+        if (res >= 0) {
+            return res;
+        }
+        int err = errno;
+        if (err == EINTR) {
+            if (minComplete > 0) {
+                // Let the caller process the completions and tasks.
+                return 0;
+            }
+            continue;
+        }
+        if (err == EAGAIN || err == EBUSY) {
+            // The kernel is out of resources or the completion queue overflowed, the caller needs to process the
+            // completions before we can submit more.
+            return 0;
+        }
+        return -err;
+    }
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_ringCompletions(JNIEnv* env, jclass clazz, jlong ringAddress, jlongArray userData, jintArray results, jint max) {
+    struct netty_io_uring* ring = toRing(ringAddress);
+    unsigned head = *ring->cqHead;
+    unsigned tail = __atomic_load_n(ring->cqTail, __ATOMIC_ACQUIRE);
+    if (head == tail) {
+        return 0;
+    }
+    // Use GetPrimitiveArrayCritical as we only copy memory and do not call back into the VM.
+    jlong* userDataArray = (*env)->GetPrimitiveArrayCritical(env, userData, 0);
+    if (userDataArray == NULL) {
+        return 0;
+    }
+    jint* resultsArray = (*env)->GetPrimitiveArrayCritical(env, results, 0);
+    if (resultsArray == NULL) {
+        (*env)->ReleasePrimitiveArrayCritical(env, userData, userDataArray, 0);
+        return 0;
+    }
+    unsigned mask = *ring->cqMask;
+    int count = 0;
+    while (head != tail && count < max) {
+        struct io_uring_cqe* cqe = &ring->cqes[head & mask];
+        userDataArray[count] = (jlong) cqe->user_data;
+        resultsArray[count] = cqe->res;
+        count++;
+        head++;
+    }
+    // Hand the consumed entries back to the kernel.
+    __atomic_store_n(ring->cqHead, head, __ATOMIC_RELEASE);
+
+    (*env)->ReleasePrimitiveArrayCritical(env, results, resultsArray, 0);
+    (*env)->ReleasePrimitiveArrayCritical(env, userData, userDataArray, 0);
+    return count;
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_channel_uring_Native_prepRead(JNIEnv* env, jclass clazz, jlong ring, jint fd, jlong address, jint len, jlong userData) {
+    // Use -1 as offset so the current file position is used, which is what we want for sockets and pipes.
+    return prep(ring, IORING_OP_READ, fd, (uint64_t) address, (uint32_t) len, (uint64_t) -1, userData);
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_channel_uring_Native_prepWrite(JNIEnv* env, jclass clazz, jlong ring, jint fd, jlong address, jint len, jlong userData) {
+    return prep(ring, IORING_OP_WRITE, fd, (uint64_t) address, (uint32_t) len, (uint64_t) -1, userData);
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_channel_uring_Native_prepWritev(JNIEnv* env, jclass clazz, jlong ring, jint fd, jlong iovAddress, jint iovCount, jlong userData) {
+    return prep(ring, IORING_OP_WRITEV, fd, (uint64_t) iovAddress, (uint32_t) iovCount, (uint64_t) -1, userData);
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_channel_uring_Native_prepRecvmsg(JNIEnv* env, jclass clazz, jlong ring, jint fd, jlong msgHdr, jlong userData) {
+    return prep(ring, IORING_OP_RECVMSG, fd, (uint64_t) msgHdr, 1, 0, userData);
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_channel_uring_Native_prepSendmsg(JNIEnv* env, jclass clazz, jlong ring, jint fd, jlong msgHdr, jlong userData) {
+    return prep(ring, IORING_OP_SENDMSG, fd, (uint64_t) msgHdr, 1, 0, userData);
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_channel_uring_Native_prepAccept(JNIEnv* env, jclass clazz, jlong ringAddress, jint fd, jlong userData) {
+    struct io_uring_sqe* sqe = nextSqe(toRing(ringAddress));
+    if (sqe == NULL) {
+        return JNI_FALSE;
+    }
+    sqe->opcode = IORING_OP_ACCEPT;
+    sqe->fd = fd;
+    // The remote address is obtained via getpeername(...) once the channel is created.
+    sqe->addr = 0;
+    sqe->addr2 = 0;
+    sqe->accept_flags = SOCK_CLOEXEC;
+    sqe->user_data = (uint64_t) userData;
+    return JNI_TRUE;
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_channel_uring_Native_prepConnect(JNIEnv* env, jclass clazz, jlong ring, jint fd, jlong sockAddress, jint sockAddressLen, jlong userData) {
+    // The length of the sockaddr is passed via the offset.
+    return prep(ring, IORING_OP_CONNECT, fd, (uint64_t) sockAddress, 0, (uint64_t) sockAddressLen, userData);
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_channel_uring_Native_prepPollIn(JNIEnv* env, jclass clazz, jlong ringAddress, jint fd, jlong userData) {
+    struct io_uring_sqe* sqe = nextSqe(toRing(ringAddress));
+    if (sqe == NULL) {
+        return JNI_FALSE;
+    }
+    sqe->opcode = IORING_OP_POLL_ADD;
+    sqe->fd = fd;
+    sqe->poll_events = POLLIN;
+    sqe->user_data = (uint64_t) userData;
+    return JNI_TRUE;
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_channel_uring_Native_prepTimeout(JNIEnv* env, jclass clazz, jlong ringAddress, jlong nanos, jlong userData) {
+    struct netty_io_uring* ring = toRing(ringAddress);
+    struct io_uring_sqe* sqe = nextSqe(ring);
+    if (sqe == NULL) {
+        return JNI_FALSE;
+    }
+    ring->timeout.tv_sec = nanos / 1000000000L;
+    ring->timeout.tv_nsec = nanos % 1000000000L;
+    sqe->opcode = IORING_OP_TIMEOUT;
+    sqe->fd = -1;
+    sqe->addr = (uint64_t) (intptr_t) &ring->timeout;
+    sqe->len = 1;
+    // Only complete because of the timeout and not because of other completions.
+    sqe->off = 0;
+    sqe->user_data = (uint64_t) userData;
+    return JNI_TRUE;
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_channel_uring_Native_prepTimeoutRemove(JNIEnv* env, jclass clazz, jlong ring, jlong target, jlong userData) {
+    return prep(ring, IORING_OP_TIMEOUT_REMOVE, -1, (uint64_t) target, 0, 0, userData);
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_channel_uring_Native_prepCancel(JNIEnv* env, jclass clazz, jlong ring, jlong target, jlong userData) {
+    return prep(ring, IORING_OP_ASYNC_CANCEL, -1, (uint64_t) target, 0, 0, userData);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_sizeofSockaddrStorage(JNIEnv* env, jclass clazz) {
+    return sizeof(struct sockaddr_storage);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_sockAddressInit0(JNIEnv* env, jclass clazz, jlong memory, jint fd, jbyteArray address, jint scopeId, jint port) {
+    return initSockaddr(env, fd, address, scopeId, port, (struct sockaddr_storage*) (intptr_t) memory);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_sizeofMsgHdrBlock(JNIEnv* env, jclass clazz) {
+    return sizeof(struct netty_msghdr_block);
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_uring_Native_msgHdrInitRecv(JNIEnv* env, jclass clazz, jlong blockAddress, jlong address, jint len) {
+    struct netty_msghdr_block* block = (struct netty_msghdr_block*) (intptr_t) blockAddress;
+    memset(block, 0, sizeof(struct netty_msghdr_block));
+    block->iov.iov_base = (void*) (intptr_t) address;
+    block->iov.iov_len = (size_t) len;
+    block->hdr.msg_name = &block->addr;
+    block->hdr.msg_namelen = sizeof(struct sockaddr_storage);
+    block->hdr.msg_iov = &block->iov;
+    block->hdr.msg_iovlen = 1;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_msgHdrInitSend0(JNIEnv* env, jclass clazz, jlong blockAddress, jint fd, jlong address, jint len, jbyteArray remoteAddress, jint scopeId, jint port) {
+    struct netty_msghdr_block* block = (struct netty_msghdr_block*) (intptr_t) blockAddress;
+    memset(block, 0, sizeof(struct netty_msghdr_block));
+    block->iov.iov_base = (void*) (intptr_t) address;
+    block->iov.iov_len = (size_t) len;
+    block->hdr.msg_iov = &block->iov;
+    block->hdr.msg_iovlen = 1;
+    if (remoteAddress != NULL) {
+        int addrLen = initSockaddr(env, fd, remoteAddress, scopeId, port, &block->addr);
+        if (addrLen < 0) {
+            return addrLen;
+        }
+        block->hdr.msg_name = &block->addr;
+        block->hdr.msg_namelen = addrLen;
+    }
+    return 0;
+}
+
+JNIEXPORT jbyteArray JNICALL Java_io_netty_channel_uring_Native_msgHdrAddress0(JNIEnv* env, jclass clazz, jlong blockAddress) {
+    struct netty_msghdr_block* block = (struct netty_msghdr_block*) (intptr_t) blockAddress;
+    if (block->hdr.msg_namelen == 0) {
+        return NULL;
+    }
+    return createInetSocketAddressArray(env, &block->addr);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_configureBlocking0(JNIEnv* env, jclass clazz, jint fd, jboolean blocking) {
+    int flags = fcntl(fd, F_GETFL, 0);
+    if (flags == -1) {
+        return -errno;
+    }
+    flags = blocking ? (flags & ~O_NONBLOCK) : (flags | O_NONBLOCK);
+    if (fcntl(fd, F_SETFL, flags) == -1) {
+        return -errno;
+    }
+    return 0;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_errnoECANCELED(JNIEnv* env, jclass clazz) {
+    return ECANCELED;
+}
+
+JNIEXPORT jstring JNICALL Java_io_netty_channel_uring_Native_strError(JNIEnv* env, jclass clazz, jint error) {
+    return (*env)->NewStringUTF(env, strerror(error));
+}
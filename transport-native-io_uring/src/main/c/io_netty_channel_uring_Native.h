@@ -0,0 +1,45 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+#include <jni.h>
+
+jlong Java_io_netty_channel_uring_Native_ringCreate0(JNIEnv* env, jclass clazz, jint entries);
+void Java_io_netty_channel_uring_Native_ringDestroy(JNIEnv* env, jclass clazz, jlong ring);
+jboolean Java_io_netty_channel_uring_Native_ringSupportsRequiredOps(JNIEnv* env, jclass clazz, jlong ring);
+jint Java_io_netty_channel_uring_Native_ringEnter0(JNIEnv* env, jclass clazz, jlong ring, jint minComplete);
+jint Java_io_netty_channel_uring_Native_ringCompletions(JNIEnv* env, jclass clazz, jlong ring, jlongArray userData, jintArray results, jint max);
+
+jboolean Java_io_netty_channel_uring_Native_prepRead(JNIEnv* env, jclass clazz, jlong ring, jint fd, jlong address, jint len, jlong userData);
+jboolean Java_io_netty_channel_uring_Native_prepWrite(JNIEnv* env, jclass clazz, jlong ring, jint fd, jlong address, jint len, jlong userData);
+jboolean Java_io_netty_channel_uring_Native_prepWritev(JNIEnv* env, jclass clazz, jlong ring, jint fd, jlong iovAddress, jint iovCount, jlong userData);
+jboolean Java_io_netty_channel_uring_Native_prepRecvmsg(JNIEnv* env, jclass clazz, jlong ring, jint fd, jlong msgHdr, jlong userData);
+jboolean Java_io_netty_channel_uring_Native_prepSendmsg(JNIEnv* env, jclass clazz, jlong ring, jint fd, jlong msgHdr, jlong userData);
+jboolean Java_io_netty_channel_uring_Native_prepAccept(JNIEnv* env, jclass clazz, jlong ring, jint fd, jlong userData);
+jboolean Java_io_netty_channel_uring_Native_prepConnect(JNIEnv* env, jclass clazz, jlong ring, jint fd, jlong sockAddress, jint sockAddressLen, jlong userData);
+jboolean Java_io_netty_channel_uring_Native_prepPollIn(JNIEnv* env, jclass clazz, jlong ring, jint fd, jlong userData);
+jboolean Java_io_netty_channel_uring_Native_prepTimeout(JNIEnv* env, jclass clazz, jlong ring, jlong nanos, jlong userData);
+jboolean Java_io_netty_channel_uring_Native_prepTimeoutRemove(JNIEnv* env, jclass clazz, jlong ring, jlong target, jlong userData);
+jboolean Java_io_netty_channel_uring_Native_prepCancel(JNIEnv* env, jclass clazz, jlong ring, jlong target, jlong userData);
+
+jint Java_io_netty_channel_uring_Native_sizeofSockaddrStorage(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_sockAddressInit0(JNIEnv* env, jclass clazz, jlong memory, jint fd, jbyteArray address, jint scopeId, jint port);
+jint Java_io_netty_channel_uring_Native_sizeofMsgHdrBlock(JNIEnv* env, jclass clazz);
+void Java_io_netty_channel_uring_Native_msgHdrInitRecv(JNIEnv* env, jclass clazz, jlong block, jlong address, jint len);
+jint Java_io_netty_channel_uring_Native_msgHdrInitSend0(JNIEnv* env, jclass clazz, jlong block, jint fd, jlong address, jint len, jbyteArray remoteAddress, jint scopeId, jint port);
+jbyteArray Java_io_netty_channel_uring_Native_msgHdrAddress0(JNIEnv* env, jclass clazz, jlong block);
+
+jint Java_io_netty_channel_uring_Native_configureBlocking0(JNIEnv* env, jclass clazz, jint fd, jboolean blocking);
+jint Java_io_netty_channel_uring_Native_errnoECANCELED(JNIEnv* env, jclass clazz);
+jstring Java_io_netty_channel_uring_Native_strError(JNIEnv* env, jclass clazz, jint error);
@@ -0,0 +1,388 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.AbstractChannel;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.socket.ChannelInputShutdownEvent;
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.channel.unix.UnixChannel;
+import io.netty.util.ReferenceCountUtil;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.UnresolvedAddressException;
+
+abstract class AbstractIOUringChannel extends AbstractChannel implements UnixChannel {
+    private static final ChannelMetadata METADATA = new ChannelMetadata(false);
+
+    // The operations a channel may have in flight, stored in the lower 8 bits of the user_data.
+    static final int OP_READ = 1;
+    static final int OP_WRITE = 2;
+    static final int OP_CONNECT = 3;
+
+    private final FileDescriptor fileDescriptor;
+
+    protected volatile boolean active;
+    private volatile boolean inputShutdown;
+
+    // Only accessed from the EventLoop.
+    private int id;
+    private boolean ioRegistered;
+    private int inFlight;
+    private boolean resourcesReleased;
+
+    AbstractIOUringChannel(Channel parent, FileDescriptor fd, boolean active) {
+        super(parent);
+        if (fd == null) {
+            throw new NullPointerException("fd");
+        }
+        this.active = active;
+        fileDescriptor = fd;
+        try {
+            // io_uring completes an operation on a non-blocking file descriptor with EAGAIN instead of waiting
+            // for it to become ready, so use blocking mode and let the kernel park the operation. As we require
+            // IORING_FEAT_FAST_POLL the kernel waits via its internal poll and not by blocking an io-wq worker.
+            Native.configureBlocking(fd.intValue(), true);
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public final FileDescriptor fd() {
+        return fileDescriptor;
+    }
+
+    @Override
+    public boolean isActive() {
+        return active;
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return fileDescriptor.isOpen();
+    }
+
+    @Override
+    protected boolean isCompatible(EventLoop loop) {
+        return loop instanceof IOUringEventLoop;
+    }
+
+    final IOUringEventLoop ioUringEventLoop() {
+        return (IOUringEventLoop) eventLoop().unwrap();
+    }
+
+    final IOUringRing ring() {
+        return ioUringEventLoop().ring();
+    }
+
+    /**
+     * Returns the {@code user_data} which identifies the given operation of this channel.
+     */
+    final long userData(int op) {
+        return (long) id << 32 | op;
+    }
+
+    /**
+     * Must be called once an operation was added to the ring.
+     */
+    final void submitted(int op) {
+        inFlight |= 1 << op;
+    }
+
+    final boolean isInFlight(int op) {
+        return (inFlight & 1 << op) != 0;
+    }
+
+    private void completed(int op) {
+        inFlight &= ~(1 << op);
+    }
+
+    private void checkIdle() {
+        if (inFlight == 0) {
+            if (!ioRegistered) {
+                // All operations of a deregistered channel are done, so it will not receive any more completions.
+                ioUringEventLoop().remove(id);
+            }
+            if (!isOpen()) {
+                releaseResources0();
+            }
+        }
+    }
+
+    private void cancelInFlight() {
+        IOUringEventLoop loop = ioUringEventLoop();
+        for (int op = OP_READ; op <= OP_CONNECT; op ++) {
+            if (isInFlight(op)) {
+                loop.cancel(userData(op));
+            }
+        }
+    }
+
+    @Override
+    protected void doRegister() throws Exception {
+        if (inFlight != 0) {
+            throw new IllegalStateException("operations of the previous registration are still in flight");
+        }
+        id = ioUringEventLoop().add(this);
+        ioRegistered = true;
+    }
+
+    @Override
+    protected void doDeregister() throws Exception {
+        if (!ioRegistered) {
+            return;
+        }
+        ioRegistered = false;
+        if (inFlight == 0) {
+            ioUringEventLoop().remove(id);
+        } else {
+            // Stay known to the EventLoop until all the cancelled operations completed.
+            cancelInFlight();
+        }
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        boolean active = this.active;
+        this.active = false;
+        FileDescriptor fd = fileDescriptor;
+        try {
+            if (ioRegistered && inFlight != 0 && eventLoop().inEventLoop()) {
+                // Submit the cancellations before the file descriptor is closed and its number may be reused.
+                cancelInFlight();
+                ring().submit();
+            }
+            if (active) {
+                shutdown(fd.intValue());
+            }
+        } finally {
+            // Ensure the file descriptor is closed in all cases.
+            fd.close();
+            if (inFlight == 0) {
+                releaseResources0();
+            }
+        }
+    }
+
+    private void releaseResources0() {
+        if (!resourcesReleased) {
+            resourcesReleased = true;
+            releaseResources();
+        }
+    }
+
+    /**
+     * Called once the channel is closed and none of its operations is in flight anymore, so memory that was handed
+     * to the kernel can be freed. This implementation does nothing.
+     */
+    protected void releaseResources() {
+        // NOOP
+    }
+
+    /**
+     * Called on {@link #doClose()} before the actual {@link FileDescriptor} is closed.
+     * This implementation does nothing.
+     */
+    protected void shutdown(int fd) throws IOException {
+        // NOOP
+    }
+
+    @Override
+    protected void doDisconnect() throws Exception {
+        doClose();
+    }
+
+    @Override
+    protected void doBeginRead() throws Exception {
+        // Channel.read() or ChannelHandlerContext.read() was called
+        AbstractIOUringUnsafe unsafe = (AbstractIOUringUnsafe) unsafe();
+        unsafe.readPending = true;
+        if (!isInFlight(OP_READ)) {
+            unsafe.scheduleRead();
+        }
+    }
+
+    protected final boolean isInputShutdown0() {
+        return inputShutdown;
+    }
+
+    @Override
+    protected abstract AbstractIOUringUnsafe newUnsafe();
+
+    /**
+     * Returns an off-heap copy of the specified {@link ByteBuf}, and releases the original one.
+     */
+    protected final ByteBuf newDirectBuffer(ByteBuf buf) {
+        return newDirectBuffer(buf, buf);
+    }
+
+    /**
+     * Returns an off-heap copy of the specified {@link ByteBuf}, and releases the specified holder.
+     * The caller must ensure that the holder releases the original {@link ByteBuf} when the holder is released by
+     * this method.
+     */
+    protected final ByteBuf newDirectBuffer(Object holder, ByteBuf buf) {
+        final int readableBytes = buf.readableBytes();
+        if (readableBytes == 0) {
+            ReferenceCountUtil.safeRelease(holder);
+            return Unpooled.EMPTY_BUFFER;
+        }
+
+        final ByteBufAllocator alloc = alloc();
+        if (alloc.isDirectBufferPooled()) {
+            return newDirectBuffer0(holder, buf, alloc, readableBytes);
+        }
+
+        final ByteBuf directBuf = ByteBufUtil.threadLocalDirectBuffer();
+        if (directBuf == null) {
+            return newDirectBuffer0(holder, buf, alloc, readableBytes);
+        }
+
+        directBuf.writeBytes(buf, buf.readerIndex(), readableBytes);
+        ReferenceCountUtil.safeRelease(holder);
+        return directBuf;
+    }
+
+    private static ByteBuf newDirectBuffer0(Object holder, ByteBuf buf, ByteBufAllocator alloc, int capacity) {
+        final ByteBuf directBuf = alloc.directBuffer(capacity);
+        directBuf.writeBytes(buf, buf.readerIndex(), capacity);
+        ReferenceCountUtil.safeRelease(holder);
+        return directBuf;
+    }
+
+    /**
+     * Allocate the buffer for the next read. As the kernel writes into it directly it must have a memory address.
+     */
+    protected final ByteBuf allocateReadBuffer(ByteBufAllocator allocator) {
+        ByteBuf byteBuf = unsafe().recvBufAllocHandle().allocate(allocator);
+        if (!byteBuf.hasMemoryAddress()) {
+            int capacity = byteBuf.capacity();
+            byteBuf.release();
+            byteBuf = allocator.directBuffer(capacity);
+        }
+        return byteBuf;
+    }
+
+    protected static void checkResolvable(InetSocketAddress addr) {
+        if (addr.isUnresolved()) {
+            throw new UnresolvedAddressException();
+        }
+    }
+
+    protected abstract class AbstractIOUringUnsafe extends AbstractUnsafe {
+        protected boolean readPending;
+
+        /**
+         * Add the next read (or accept) operation to the ring.
+         */
+        abstract void scheduleRead();
+
+        /**
+         * Called once the operation {@code op} completed with the result {@code res}, which is {@code -errno} on
+         * failure.
+         */
+        final void complete(int op, int res) {
+            completed(op);
+            try {
+                switch (op) {
+                    case OP_READ:
+                        readComplete(res);
+                        break;
+                    case OP_WRITE:
+                        writeComplete(res);
+                        break;
+                    case OP_CONNECT:
+                        connectComplete(res);
+                        break;
+                    default:
+                        throw new Error();
+                }
+            } finally {
+                // The handling may have added new operations, so check this last.
+                checkIdle();
+            }
+        }
+
+        abstract void readComplete(int res);
+
+        void writeComplete(int res) {
+            throw new Error();
+        }
+
+        void connectComplete(int res) {
+            throw new Error();
+        }
+
+        /**
+         * Schedule the next read if the channel still wants to read and there is none in flight.
+         */
+        protected final void scheduleReadIfNeeded() {
+            if ((readPending || config().isAutoRead()) && isActive() && ioRegistered && !isInputShutdown0()) {
+                if (!isInFlight(OP_READ)) {
+                    scheduleRead();
+                }
+            }
+        }
+
+        /**
+         * Shutdown the input side of the channel.
+         */
+        void shutdownInput() {
+            if (!inputShutdown) { // Best effort check on volatile variable to prevent multiple shutdowns
+                inputShutdown = true;
+                if (isOpen()) {
+                    if (Boolean.TRUE.equals(config().getOption(ChannelOption.ALLOW_HALF_CLOSURE))) {
+                        pipeline().fireUserEventTriggered(ChannelInputShutdownEvent.INSTANCE);
+                    } else {
+                        close(voidPromise());
+                    }
+                }
+            }
+        }
+
+        @Override
+        protected void flush0() {
+            // Flush immediately only when there's no write in flight.
+            // Otherwise the completion of that write will call forceFlush() later.
+            if (isInFlight(OP_WRITE)) {
+                return;
+            }
+            super.flush0();
+        }
+
+        /**
+         * Called once a write completed to continue with the rest of the outbound buffer.
+         */
+        final void forceFlush() {
+            super.flush0();
+        }
+    }
+}
@@ -0,0 +1,450 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.epoll.IovArray;
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.util.internal.EmptyArrays;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.StringUtil;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+abstract class AbstractIOUringStreamChannel extends AbstractIOUringChannel {
+
+    private static final String EXPECTED_TYPES =
+            " (expected: " + StringUtil.simpleClassName(ByteBuf.class) + ')';
+    static final ClosedChannelException CLOSED_CHANNEL_EXCEPTION = new ClosedChannelException();
+
+    static {
+        CLOSED_CHANNEL_EXCEPTION.setStackTrace(EmptyArrays.EMPTY_STACK_TRACE);
+    }
+
+    /**
+     * The future of the current connection attempt.  If not null, subsequent
+     * connection attempts will fail.
+     */
+    private ChannelPromise connectPromise;
+    private ScheduledFuture<?> connectTimeoutFuture;
+    private SocketAddress requestedRemoteAddress;
+    // Holds the sockaddr of the connect operation until it completed.
+    private long connectAddressMemory;
+
+    // The buffer of the read operation that is in flight.
+    private ByteBuf readBuffer;
+    // The iovecs of the write operation that is in flight, if it is a gathering write.
+    private IovArray writeIovArray;
+    // The buffers of the write operation that is in flight. They are retained until the write completed as the
+    // ChannelOutboundBuffer releases them once the channel is closed, while the kernel may still read from them.
+    private final List<ByteBuf> writeBuffers = new ArrayList<ByteBuf>();
+    private final WriteBufferRetainer writeBufferRetainer = new WriteBufferRetainer();
+    // The failure of the last write operation, rethrown by doWrite(...) to fail the flushed messages.
+    private Throwable writeError;
+
+    private volatile boolean outputShutdown;
+
+    AbstractIOUringStreamChannel(Channel parent, FileDescriptor fd, boolean active) {
+        super(parent, fd, active);
+    }
+
+    @Override
+    protected void shutdown(int fd) throws IOException {
+        io.netty.channel.epoll.Native.shutdown(fd, true, true);
+    }
+
+    @Override
+    protected AbstractIOUringUnsafe newUnsafe() {
+        return new IOUringStreamUnsafe();
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        Throwable writeError = this.writeError;
+        if (writeError != null) {
+            this.writeError = null;
+            PlatformDependent.throwException(writeError);
+        }
+
+        for (;;) {
+            final int msgCount = in.size();
+            if (msgCount == 0) {
+                // Wrote all messages.
+                return;
+            }
+
+            ByteBuf buf = (ByteBuf) in.current();
+            if (msgCount > 1 || buf instanceof CompositeByteBuf) {
+                IovArray array = ioUringEventLoop().acquireIovArray();
+                writeBufferRetainer.array = array;
+                try {
+                    in.forEachFlushedMessage(writeBufferRetainer);
+                } finally {
+                    writeBufferRetainer.array = null;
+                }
+                int cnt = array.count();
+                if (cnt == 0) {
+                    // The outbound buffer contained empty buffers only.
+                    ioUringEventLoop().releaseIovArray(array);
+                    releaseWriteBuffers();
+                    in.removeBytes(0);
+                    continue;
+                }
+                writeIovArray = array;
+                ring().addWritev(fd().intValue(), array.memoryAddress(0), cnt, userData(OP_WRITE));
+            } else {
+                int readableBytes = buf.readableBytes();
+                if (readableBytes == 0) {
+                    in.remove();
+                    continue;
+                }
+                ring().addWrite(fd().intValue(), buf.memoryAddress() + buf.readerIndex(), readableBytes,
+                        userData(OP_WRITE));
+                writeBuffers.add(buf.retain());
+            }
+            // Only one write is in flight at a time, the rest is written once it completed.
+            submitted(OP_WRITE);
+            return;
+        }
+    }
+
+    private void releaseWriteBuffers() {
+        for (int i = 0; i < writeBuffers.size(); i ++) {
+            writeBuffers.get(i).release();
+        }
+        writeBuffers.clear();
+    }
+
+    @Override
+    protected void releaseResources() {
+        releaseWriteBuffers();
+    }
+
+    @Override
+    protected Object filterOutboundMessage(Object msg) {
+        if (msg instanceof ByteBuf) {
+            ByteBuf buf = (ByteBuf) msg;
+            if (!buf.hasMemoryAddress()) {
+                if (buf instanceof CompositeByteBuf) {
+                    // Special handling of CompositeByteBuf to reduce memory copies if some of the Components
+                    // in the CompositeByteBuf are backed by a memoryAddress.
+                    CompositeByteBuf comp = (CompositeByteBuf) buf;
+                    if (!comp.isDirect() || comp.nioBufferCount() > io.netty.channel.epoll.Native.IOV_MAX) {
+                        // more then 1024 buffers for gathering writes so just do a memory copy.
+                        buf = newDirectBuffer(buf);
+                        assert buf.hasMemoryAddress();
+                    }
+                } else {
+                    // We can only handle buffers with memory address so we need to copy if a non direct is
+                    // passed to write.
+                    buf = newDirectBuffer(buf);
+                    assert buf.hasMemoryAddress();
+                }
+            }
+            return buf;
+        }
+
+        throw new UnsupportedOperationException(
+                "unsupported message type: " + StringUtil.simpleClassName(msg) + EXPECTED_TYPES);
+    }
+
+    protected boolean isOutputShutdown0() {
+        return outputShutdown || !isActive();
+    }
+
+    protected void shutdownOutput0(final ChannelPromise promise) {
+        try {
+            io.netty.channel.epoll.Native.shutdown(fd().intValue(), false, true);
+            outputShutdown = true;
+            promise.setSuccess();
+        } catch (Throwable cause) {
+            promise.setFailure(cause);
+        }
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        ChannelPromise promise = connectPromise;
+        if (promise != null) {
+            // Use tryFailure() instead of setFailure() to avoid the race against cancel().
+            promise.tryFailure(CLOSED_CHANNEL_EXCEPTION);
+            connectPromise = null;
+        }
+
+        ScheduledFuture<?> future = connectTimeoutFuture;
+        if (future != null) {
+            future.cancel(false);
+            connectTimeoutFuture = null;
+        }
+        super.doClose();
+    }
+
+    private void freeConnectAddress() {
+        if (connectAddressMemory != 0) {
+            PlatformDependent.freeMemory(connectAddressMemory);
+            connectAddressMemory = 0;
+        }
+    }
+
+    /**
+     * Connect to the remote peer. The connect always completes asynchronously.
+     */
+    protected void doConnect(SocketAddress remoteAddress, SocketAddress localAddress) throws Exception {
+        if (localAddress != null) {
+            io.netty.channel.epoll.Native.bind(fd().intValue(), localAddress);
+        }
+
+        boolean success = false;
+        try {
+            connectAddressMemory = PlatformDependent.allocateMemory(Native.SIZEOF_SOCKADDR_STORAGE);
+            int len = Native.sockAddressInit(connectAddressMemory, fd().intValue(), (InetSocketAddress) remoteAddress);
+            ring().addConnect(fd().intValue(), connectAddressMemory, len, userData(OP_CONNECT));
+            submitted(OP_CONNECT);
+            success = true;
+        } finally {
+            if (!success) {
+                freeConnectAddress();
+                doClose();
+            }
+        }
+    }
+
+    /**
+     * Called once the connect operation succeeded. This implementation does nothing.
+     */
+    protected void doFinishConnect() throws Exception {
+        // NOOP
+    }
+
+    /**
+     * Adds the flushed messages to an {@link IovArray} and retains them, so they stay valid until the write
+     * completed.
+     */
+    private final class WriteBufferRetainer implements ChannelOutboundBuffer.MessageProcessor {
+        IovArray array;
+
+        @Override
+        public boolean processMessage(Object msg) throws Exception {
+            writeBuffers.add(((ByteBuf) msg).retain());
+            return array.processMessage(msg);
+        }
+    }
+
+    final class IOUringStreamUnsafe extends AbstractIOUringUnsafe {
+
+        @Override
+        public void connect(
+                final SocketAddress remoteAddress, final SocketAddress localAddress, final ChannelPromise promise) {
+            if (!promise.setUncancellable() || !ensureOpen(promise)) {
+                return;
+            }
+
+            try {
+                if (connectPromise != null || isInFlight(OP_CONNECT)) {
+                    throw new IllegalStateException("connection attempt already made");
+                }
+
+                doConnect(remoteAddress, localAddress);
+                connectPromise = promise;
+                requestedRemoteAddress = remoteAddress;
+
+                // Schedule connect timeout.
+                int connectTimeoutMillis = config().getConnectTimeoutMillis();
+                if (connectTimeoutMillis > 0) {
+                    connectTimeoutFuture = eventLoop().schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            ChannelPromise connectPromise = AbstractIOUringStreamChannel.this.connectPromise;
+                            ConnectTimeoutException cause =
+                                    new ConnectTimeoutException("connection timed out: " + remoteAddress);
+                            if (connectPromise != null && connectPromise.tryFailure(cause)) {
+                                close(voidPromise());
+                            }
+                        }
+                    }, connectTimeoutMillis, TimeUnit.MILLISECONDS);
+                }
+
+                promise.addListener(new ChannelFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelFuture future) throws Exception {
+                        if (future.isCancelled()) {
+                            if (connectTimeoutFuture != null) {
+                                connectTimeoutFuture.cancel(false);
+                            }
+                            connectPromise = null;
+                            close(voidPromise());
+                        }
+                    }
+                });
+            } catch (Throwable t) {
+                closeIfClosed();
+                promise.tryFailure(annotateConnectException(t, remoteAddress));
+            }
+        }
+
+        @Override
+        void connectComplete(int res) {
+            freeConnectAddress();
+            if (connectPromise == null) {
+                // Closed, cancelled or timed out in the meantime, so the promise has been notified already.
+                return;
+            }
+
+            try {
+                if (res < 0) {
+                    throw Native.newConnectException("connect", res);
+                }
+                boolean wasActive = isActive();
+                doFinishConnect();
+                fulfillConnectPromise(connectPromise, wasActive);
+            } catch (Throwable t) {
+                fulfillConnectPromise(connectPromise, annotateConnectException(t, requestedRemoteAddress));
+            } finally {
+                // Check for null as the connectTimeoutFuture is only created if a connectTimeoutMillis > 0 is used
+                // See https://github.com/netty/netty/issues/1770
+                if (connectTimeoutFuture != null) {
+                    connectTimeoutFuture.cancel(false);
+                }
+                connectPromise = null;
+            }
+        }
+
+        private void fulfillConnectPromise(ChannelPromise promise, boolean wasActive) {
+            if (promise == null) {
+                // Closed via cancellation and the promise has been notified already.
+                return;
+            }
+            active = true;
+
+            // trySuccess() will return false if a user cancelled the connection attempt.
+            boolean promiseSet = promise.trySuccess();
+
+            // Regardless if the connection attempt was cancelled, channelActive() event should be triggered,
+            // because what happened is what happened.
+            if (!wasActive && isActive()) {
+                pipeline().fireChannelActive();
+            }
+
+            // If a user cancelled the connection attempt, close the channel, which is followed by channelInactive().
+            if (!promiseSet) {
+                close(voidPromise());
+            }
+        }
+
+        private void fulfillConnectPromise(ChannelPromise promise, Throwable cause) {
+            if (promise == null) {
+                // Closed via cancellation and the promise has been notified already.
+                return;
+            }
+
+            // Use tryFailure() instead of setFailure() to avoid the race against cancel().
+            promise.tryFailure(cause);
+            closeIfClosed();
+        }
+
+        @Override
+        void scheduleRead() {
+            final ChannelConfig config = config();
+            final RecvByteBufAllocator.Handle allocHandle = recvBufAllocHandle();
+            allocHandle.reset(config);
+
+            ByteBuf byteBuf = allocateReadBuffer(config.getAllocator());
+            int writableBytes = byteBuf.writableBytes();
+            allocHandle.attemptedBytesRead(writableBytes);
+            readBuffer = byteBuf;
+            ring().addRead(fd().intValue(), byteBuf.memoryAddress() + byteBuf.writerIndex(), writableBytes,
+                    userData(OP_READ));
+            submitted(OP_READ);
+        }
+
+        @Override
+        void readComplete(int res) {
+            final ByteBuf byteBuf = readBuffer;
+            readBuffer = null;
+            if (res == Native.ERRNO_ECANCELED_NEGATIVE || !isOpen()) {
+                // Cancelled because the channel was closed or deregistered.
+                byteBuf.release();
+                return;
+            }
+
+            final ChannelPipeline pipeline = pipeline();
+            final RecvByteBufAllocator.Handle allocHandle = recvBufAllocHandle();
+            allocHandle.lastBytesRead(res);
+            if (res > 0) {
+                byteBuf.writerIndex(byteBuf.writerIndex() + res);
+                readPending = false;
+                allocHandle.incMessagesRead(1);
+                pipeline.fireChannelRead(byteBuf);
+                allocHandle.readComplete();
+                pipeline.fireChannelReadComplete();
+                scheduleReadIfNeeded();
+                return;
+            }
+
+            byteBuf.release();
+            allocHandle.readComplete();
+            pipeline.fireChannelReadComplete();
+            if (res < 0) {
+                pipeline.fireExceptionCaught(Native.newIOException("read", res));
+            }
+            // Either EOF or the connection is broken.
+            shutdownInput();
+        }
+
+        @Override
+        void writeComplete(int res) {
+            IovArray array = writeIovArray;
+            if (array != null) {
+                writeIovArray = null;
+                ioUringEventLoop().releaseIovArray(array);
+            }
+            // The kernel does not access the buffers anymore.
+            releaseWriteBuffers();
+            if (res == Native.ERRNO_ECANCELED_NEGATIVE || !isOpen()) {
+                // Cancelled because the channel was closed or deregistered.
+                return;
+            }
+
+            ChannelOutboundBuffer in = outboundBuffer();
+            if (res >= 0) {
+                in.removeBytes(res);
+                forceFlush();
+            } else {
+                // Fail the flushed messages via doWrite(...) and close as the connection is broken.
+                writeError = Native.newIOException("write", res);
+                forceFlush();
+                close(voidPromise());
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.epoll.Epoll;
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Tells if {@code netty-transport-native-io_uring} is supported. Callers should check {@link #isAvailable()} and
+ * fall back to {@code netty-transport-native-epoll} or NIO if it returns {@code false}.
+ */
+public final class IOUring {
+
+    private static final Throwable UNAVAILABILITY_CAUSE;
+
+    static  {
+        Throwable cause = null;
+        if (!Epoll.isAvailable()) {
+            // Sockets, options and the eventfd are shared with the epoll transport.
+            cause = Epoll.unavailabilityCause();
+        } else if (!PlatformDependent.hasUnsafe()) {
+            cause = new UnsupportedOperationException("io_uring requires sun.misc.Unsafe");
+        } else {
+            long ring = 0;
+            try {
+                ring = Native.ringCreate(8);
+                if (!Native.ringSupportsRequiredOps(ring)) {
+                    cause = new UnsupportedOperationException("io_uring does not support all required operations");
+                }
+            } catch (Throwable t) {
+                cause = t;
+            } finally {
+                if (ring != 0) {
+                    Native.ringDestroy(ring);
+                }
+            }
+        }
+
+        UNAVAILABILITY_CAUSE = cause;
+    }
+
+    /**
+     * Returns {@code true} if and only if {@code netty-transport-native-io_uring} is available.
+     */
+    public static boolean isAvailable() {
+        return UNAVAILABILITY_CAUSE == null;
+    }
+
+    /**
+     * Ensure that {@code netty-transport-native-io_uring} is available.
+     *
+     * @throws UnsatisfiedLinkError if unavailable
+     */
+    public static void ensureAvailability() {
+        if (UNAVAILABILITY_CAUSE != null) {
+            throw (Error) new UnsatisfiedLinkError(
+                    "failed to load the required native library").initCause(UNAVAILABILITY_CAUSE);
+        }
+    }
+
+    /**
+     * Returns the cause of unavailability of {@code netty-transport-native-io_uring}.
+     *
+     * @return the cause if unavailable. {@code null} if available.
+     */
+    public static Throwable unavailabilityCause() {
+        return UNAVAILABILITY_CAUSE;
+    }
+
+    private IOUring() { }
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SingleThreadEventLoop;
+import io.netty.channel.epoll.IovArray;
+import io.netty.channel.uring.AbstractIOUringChannel.AbstractIOUringUnsafe;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A {@link SingleThreadEventLoop} implementation which uses <a href="https://kernel.dk/io_uring.pdf">io_uring</a>
+ * under the covers. The operations of all its channels are queued in one submission queue and submitted with a
+ * single {@code io_uring_enter(...)} call per iteration. This {@link EventLoop} works only on Linux systems!
+ */
+final class IOUringEventLoop extends SingleThreadEventLoop {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(IOUringEventLoop.class);
+    private static final AtomicIntegerFieldUpdater<IOUringEventLoop> WAKEN_UP_UPDATER;
+    private static final int DEFAULT_RING_SIZE;
+    private static final int MAX_CACHED_IOV_ARRAYS = 16;
+
+    // Operations of the event loop itself use the channel id 0.
+    private static final int OP_EVENTFD_POLL = 1;
+    private static final int OP_TIMEOUT = 2;
+    private static final int OP_TIMEOUT_REMOVE = 3;
+    private static final int OP_CANCEL = 4;
+
+    static {
+        AtomicIntegerFieldUpdater<IOUringEventLoop> updater =
+                PlatformDependent.newAtomicIntegerFieldUpdater(IOUringEventLoop.class, "wakenUp");
+        if (updater == null) {
+            updater = AtomicIntegerFieldUpdater.newUpdater(IOUringEventLoop.class, "wakenUp");
+        }
+        WAKEN_UP_UPDATER = updater;
+
+        DEFAULT_RING_SIZE = Math.max(64, SystemPropertyUtil.getInt("io.netty.uring.ringSize", 4096));
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.uring.ringSize: {}", DEFAULT_RING_SIZE);
+        }
+    }
+
+    private final IOUringRing ring;
+    private final int eventFd;
+    private final IntObjectMap<AbstractIOUringChannel> channels =
+            new IntObjectHashMap<AbstractIOUringChannel>(4096);
+    private final long[] completionUserData;
+    private final int[] completionResults;
+    private final Queue<IovArray> iovArrays = new ArrayDeque<IovArray>();
+    private int nextChannelId = 1;
+
+    private boolean timeoutArmed;
+    private long timeoutDeadlineNanos;
+    private long timeoutUserData;
+    private int timeoutSequence;
+
+    private volatile int wakenUp;
+    private volatile int ioRatio = 50;
+
+    IOUringEventLoop(EventLoopGroup parent, Executor executor, int ringSize) {
+        super(parent, executor, false);
+        if (ringSize == 0) {
+            ringSize = DEFAULT_RING_SIZE;
+        }
+        completionUserData = new long[ringSize];
+        completionResults = new int[ringSize];
+
+        boolean success = false;
+        IOUringRing ring = null;
+        int eventFd = -1;
+        try {
+            this.ring = ring = new IOUringRing(ringSize);
+            this.eventFd = eventFd = io.netty.channel.epoll.Native.eventFd();
+            ring.addPollIn(eventFd, OP_EVENTFD_POLL);
+            success = true;
+        } finally {
+            if (!success) {
+                if (ring != null) {
+                    ring.destroy();
+                }
+                if (eventFd != -1) {
+                    try {
+                        io.netty.channel.epoll.Native.close(eventFd);
+                    } catch (Exception e) {
+                        // ignore
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void wakeup(boolean inEventLoop) {
+        if (!inEventLoop && WAKEN_UP_UPDATER.compareAndSet(this, 0, 1)) {
+            // write to the evfd which will then complete the pending poll and so wake-up io_uring_enter(...)
+            io.netty.channel.epoll.Native.eventFdWrite(eventFd, 1L);
+        }
+    }
+
+    IOUringRing ring() {
+        return ring;
+    }
+
+    /**
+     * Register the given channel with this {@link EventLoop} and return the id that must be used in the upper
+     * 32 bits of the {@code user_data} of all its operations.
+     */
+    int add(AbstractIOUringChannel ch) {
+        assert inEventLoop();
+        int id;
+        do {
+            id = nextChannelId++;
+        } while (id == 0 || channels.get(id) != null);
+        channels.put(id, ch);
+        return id;
+    }
+
+    /**
+     * Remove the given channel from this {@link EventLoop}. Must only be called once none of its operations is in
+     * flight anymore.
+     */
+    void remove(int id) {
+        assert inEventLoop();
+        channels.remove(id);
+    }
+
+    /**
+     * Cancel the operation with the given {@code user_data}. The outcome is reported to the operation itself.
+     */
+    void cancel(long userData) {
+        ring.addCancel(userData, OP_CANCEL);
+    }
+
+    /**
+     * Returns an {@link IovArray} which must be given back via {@link #releaseIovArray(IovArray)} once the
+     * operation that uses it completed.
+     */
+    IovArray acquireIovArray() {
+        IovArray array = iovArrays.poll();
+        if (array == null) {
+            return new IovArray();
+        }
+        array.clear();
+        return array;
+    }
+
+    void releaseIovArray(IovArray array) {
+        if (iovArrays.size() < MAX_CACHED_IOV_ARRAYS) {
+            iovArrays.add(array);
+        } else {
+            array.release();
+        }
+    }
+
+    @Override
+    protected Queue<Runnable> newTaskQueue() {
+        // This event loop never calls takeTask()
+        return PlatformDependent.newMpscQueue();
+    }
+
+    /**
+     * Returns the percentage of the desired amount of time spent for I/O in the event loop.
+     */
+    public int getIoRatio() {
+        return ioRatio;
+    }
+
+    /**
+     * Sets the percentage of the desired amount of time spent for I/O in the event loop.  The default value is
+     * {@code 50}, which means the event loop will try to spend the same amount of time for I/O as for non-I/O tasks.
+     */
+    public void setIoRatio(int ioRatio) {
+        if (ioRatio <= 0 || ioRatio > 100) {
+            throw new IllegalArgumentException("ioRatio: " + ioRatio + " (expected: 0 < ioRatio <= 100)");
+        }
+        this.ioRatio = ioRatio;
+    }
+
+    /**
+     * Make sure a timeout completes no later than {@code delayNanos} from now. An already pending timeout is kept if
+     * it expires earlier, so in the common case no extra operation is submitted.
+     */
+    private void armTimeout(long delayNanos) {
+        long deadlineNanos = System.nanoTime() + delayNanos;
+        if (timeoutArmed) {
+            if (timeoutDeadlineNanos - deadlineNanos <= 0) {
+                return;
+            }
+            ring.addTimeoutRemove(timeoutUserData, OP_TIMEOUT_REMOVE);
+        }
+        timeoutSequence = (timeoutSequence + 1) & 0xFFFFFF;
+        timeoutUserData = (long) timeoutSequence << 8 | OP_TIMEOUT;
+        timeoutDeadlineNanos = deadlineNanos;
+        timeoutArmed = true;
+        ring.addTimeout(delayNanos, timeoutUserData);
+    }
+
+    @Override
+    protected void run() {
+        boolean oldWakenUp = WAKEN_UP_UPDATER.getAndSet(this, 0) == 1;
+        try {
+            if (hasTasks() || oldWakenUp) {
+                // Non blocking just submit what was queued and process what is ready without waiting.
+                ring.submit();
+            } else {
+                long delayNanos = delayNanos(System.nanoTime());
+                if (delayNanos <= 0) {
+                    ring.submit();
+                } else {
+                    armTimeout(delayNanos);
+                    ring.enter(1);
+                }
+
+                // See EpollEventLoop.run() for why we need to wake up again if wakenUp was set in the meantime.
+                if (wakenUp == 1) {
+                    io.netty.channel.epoll.Native.eventFdWrite(eventFd, 1L);
+                }
+            }
+
+            final int ioRatio = this.ioRatio;
+            if (ioRatio == 100) {
+                processCompletions();
+                runAllTasks();
+            } else {
+                final long ioStartTime = System.nanoTime();
+
+                processCompletions();
+
+                final long ioTime = System.nanoTime() - ioStartTime;
+                runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
+            }
+            if (isShuttingDown()) {
+                closeAll();
+                if (confirmShutdown()) {
+                    cleanupAndTerminate(true);
+                    return;
+                }
+            }
+        } catch (Throwable t) {
+            logger.warn("Unexpected exception in the io_uring loop.", t);
+
+            // Prevent possible consecutive immediate failures that lead to
+            // excessive CPU consumption.
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                // Ignore.
+            }
+        }
+
+        scheduleExecution();
+    }
+
+    private void closeAll() {
+        ring.submit();
+        processCompletions();
+
+        Collection<AbstractIOUringChannel> array = new ArrayList<AbstractIOUringChannel>(channels.size());
+
+        for (AbstractIOUringChannel channel: channels.values()) {
+            if (channel.isOpen()) {
+                array.add(channel);
+            }
+        }
+
+        for (AbstractIOUringChannel ch: array) {
+            ch.unsafe().close(ch.unsafe().voidPromise());
+        }
+    }
+
+    private void processCompletions() {
+        final long[] userData = completionUserData;
+        final int[] results = completionResults;
+        for (;;) {
+            int ready = ring.completions(userData, results);
+            for (int i = 0; i < ready; i ++) {
+                final long data = userData[i];
+                final int res = results[i];
+                final int op = (int) data & 0xFF;
+                final int id = (int) (data >>> 32);
+                if (id == 0) {
+                    processLoopCompletion(op, data, res);
+                } else {
+                    AbstractIOUringChannel ch = channels.get(id);
+                    if (ch != null) {
+                        ((AbstractIOUringUnsafe) ch.unsafe()).complete(op, res);
+                    }
+                }
+            }
+            if (ready < userData.length) {
+                // Drained the completion queue.
+                return;
+            }
+        }
+    }
+
+    private void processLoopCompletion(int op, long data, int res) {
+        switch (op) {
+            case OP_EVENTFD_POLL:
+                if (res >= 0) {
+                    // consume wakeup event and wait for the next one
+                    io.netty.channel.epoll.Native.eventFdRead(eventFd);
+                    ring.addPollIn(eventFd, OP_EVENTFD_POLL);
+                }
+                break;
+            case OP_TIMEOUT:
+                if (data == timeoutUserData) {
+                    timeoutArmed = false;
+                }
+                break;
+            default:
+                // OP_TIMEOUT_REMOVE and OP_CANCEL, nothing to do.
+                break;
+        }
+    }
+
+    @Override
+    protected void cleanup() {
+        try {
+            // Give the operations which were cancelled while closing the channels the chance to complete, so the
+            // memory they use is released.
+            for (int i = 0; i < 8 && !channels.isEmpty(); i ++) {
+                armTimeout(TimeUnit.MILLISECONDS.toNanos(10));
+                ring.enter(1);
+                processCompletions();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to drain the io_uring.", e);
+        } finally {
+            ring.destroy();
+            try {
+                io.netty.channel.epoll.Native.close(eventFd);
+            } catch (IOException e) {
+                logger.warn("Failed to close the event fd.", e);
+            }
+            for (;;) {
+                IovArray array = iovArrays.poll();
+                if (array == null) {
+                    break;
+                }
+                array.release();
+            }
+        }
+    }
+}
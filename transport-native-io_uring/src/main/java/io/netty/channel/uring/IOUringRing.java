@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.ChannelException;
+
+import java.io.IOException;
+
+/**
+ * A submission / completion queue pair. Operations are only queued by the {@code add*} methods and handed to the
+ * kernel in one go by the next {@link #submit()} or {@link #enter(int)}, so a single {@code io_uring_enter(...)}
+ * call covers all the channels of an {@link IOUringEventLoop}. If the submission queue is full it is flushed first.
+ *
+ * Must only be used from the {@link IOUringEventLoop}.
+ */
+final class IOUringRing {
+    private final long ring;
+
+    IOUringRing(int entries) {
+        ring = Native.ringCreate(entries);
+    }
+
+    void addRead(int fd, long address, int len, long userData) {
+        while (!Native.prepRead(ring, fd, address, len, userData)) {
+            submit();
+        }
+    }
+
+    void addWrite(int fd, long address, int len, long userData) {
+        while (!Native.prepWrite(ring, fd, address, len, userData)) {
+            submit();
+        }
+    }
+
+    void addWritev(int fd, long iovAddress, int iovCount, long userData) {
+        while (!Native.prepWritev(ring, fd, iovAddress, iovCount, userData)) {
+            submit();
+        }
+    }
+
+    void addRecvmsg(int fd, long msgHdr, long userData) {
+        while (!Native.prepRecvmsg(ring, fd, msgHdr, userData)) {
+            submit();
+        }
+    }
+
+    void addSendmsg(int fd, long msgHdr, long userData) {
+        while (!Native.prepSendmsg(ring, fd, msgHdr, userData)) {
+            submit();
+        }
+    }
+
+    void addAccept(int fd, long userData) {
+        while (!Native.prepAccept(ring, fd, userData)) {
+            submit();
+        }
+    }
+
+    void addConnect(int fd, long sockAddress, int sockAddressLen, long userData) {
+        while (!Native.prepConnect(ring, fd, sockAddress, sockAddressLen, userData)) {
+            submit();
+        }
+    }
+
+    void addPollIn(int fd, long userData) {
+        while (!Native.prepPollIn(ring, fd, userData)) {
+            submit();
+        }
+    }
+
+    /**
+     * Add a timeout that completes after {@code nanos}. Only one timeout may be added per {@link #submit()} as they
+     * share the same native {@code timespec}.
+     */
+    void addTimeout(long nanos, long userData) {
+        while (!Native.prepTimeout(ring, nanos, userData)) {
+            submit();
+        }
+    }
+
+    void addTimeoutRemove(long target, long userData) {
+        while (!Native.prepTimeoutRemove(ring, target, userData)) {
+            submit();
+        }
+    }
+
+    void addCancel(long target, long userData) {
+        while (!Native.prepCancel(ring, target, userData)) {
+            submit();
+        }
+    }
+
+    /**
+     * Submit all queued operations without waiting for any completion.
+     */
+    void submit() {
+        try {
+            Native.ringEnter(ring, 0);
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * Submit all queued operations and wait until at least {@code minComplete} completions are ready.
+     */
+    void enter(int minComplete) throws IOException {
+        Native.ringEnter(ring, minComplete);
+    }
+
+    /**
+     * Copy up to {@code userData.length} completions into the given arrays and return how many were copied.
+     */
+    int completions(long[] userData, int[] results) {
+        return Native.ringCompletions(ring, userData, results, userData.length);
+    }
+
+    void destroy() {
+        Native.ringDestroy(ring);
+    }
+}
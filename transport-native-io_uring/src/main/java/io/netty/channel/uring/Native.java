@@ -0,0 +1,199 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.ChannelException;
+import io.netty.util.internal.NativeLibraryLoader;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.SystemPropertyUtil;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.Locale;
+
+/**
+ * Native helper methods for <a href="https://kernel.dk/io_uring.pdf">io_uring</a>. Everything else (sockets, options,
+ * eventfd) is shared with {@code io.netty.channel.epoll.Native}.
+ */
+final class Native {
+
+    static {
+        String name = SystemPropertyUtil.get("os.name").toLowerCase(Locale.UK).trim();
+        if (!name.startsWith("linux")) {
+            throw new IllegalStateException("Only supported on Linux");
+        }
+        NativeLibraryLoader.load("netty-transport-native-io_uring", PlatformDependent.getClassLoader(Native.class));
+    }
+
+    // As all our JNI methods return -errno on error we need to compare with the negative errno codes.
+    static final int ERRNO_ECANCELED_NEGATIVE = -errnoECANCELED();
+
+    static final int SIZEOF_SOCKADDR_STORAGE = sizeofSockaddrStorage();
+    static final int SIZEOF_MSGHDR_BLOCK = sizeofMsgHdrBlock();
+
+    private static final byte[] IPV4_MAPPED_IPV6_PREFIX = {
+            0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, (byte) 0xff, (byte) 0xff };
+
+    static IOException newIOException(String method, int err) {
+        return new IOException(method + "() failed: " + strError(-err));
+    }
+
+    static ConnectException newConnectException(String method, int err) {
+        return new ConnectException(method + "() failed: " + strError(-err));
+    }
+
+    // Ring operations. The ring is referenced by the address of its native state.
+    static long ringCreate(int entries) {
+        long ring = ringCreate0(entries);
+        if (ring < 0) {
+            throw new ChannelException(newIOException("io_uring_setup", (int) ring));
+        }
+        return ring;
+    }
+
+    private static native long ringCreate0(int entries);
+    static native void ringDestroy(long ring);
+    static native boolean ringSupportsRequiredOps(long ring);
+
+    static int ringEnter(long ring, int minComplete) throws IOException {
+        int res = ringEnter0(ring, minComplete);
+        if (res < 0) {
+            throw newIOException("io_uring_enter", res);
+        }
+        return res;
+    }
+
+    private static native int ringEnter0(long ring, int minComplete);
+    static native int ringCompletions(long ring, long[] userData, int[] results, int max);
+
+    // Submission queue entries. All of these return false if the submission queue is full.
+    static native boolean prepRead(long ring, int fd, long address, int len, long userData);
+    static native boolean prepWrite(long ring, int fd, long address, int len, long userData);
+    static native boolean prepWritev(long ring, int fd, long iovAddress, int iovCount, long userData);
+    static native boolean prepRecvmsg(long ring, int fd, long msgHdr, long userData);
+    static native boolean prepSendmsg(long ring, int fd, long msgHdr, long userData);
+    static native boolean prepAccept(long ring, int fd, long userData);
+    static native boolean prepConnect(long ring, int fd, long sockAddress, int sockAddressLen, long userData);
+    static native boolean prepPollIn(long ring, int fd, long userData);
+    static native boolean prepTimeout(long ring, long nanos, long userData);
+    static native boolean prepTimeoutRemove(long ring, long target, long userData);
+    static native boolean prepCancel(long ring, long target, long userData);
+
+    // Native memory that must stay valid until an operation completes.
+    static int sockAddressInit(long memory, int fd, InetSocketAddress address) throws IOException {
+        InetAddress inetAddress = address.getAddress();
+        int scopeId = inetAddress instanceof Inet6Address ? ((Inet6Address) inetAddress).getScopeId() : 0;
+        int res = sockAddressInit0(memory, fd, ipv6Address(inetAddress), scopeId, address.getPort());
+        if (res < 0) {
+            throw newIOException("connect", res);
+        }
+        return res;
+    }
+
+    private static native int sockAddressInit0(long memory, int fd, byte[] address, int scopeId, int port);
+    private static native int sizeofSockaddrStorage();
+    private static native int sizeofMsgHdrBlock();
+    static native void msgHdrInitRecv(long block, long address, int len);
+
+    static void msgHdrInitSend(long block, int fd, long address, int len, InetSocketAddress remote)
+            throws IOException {
+        int res;
+        if (remote == null) {
+            res = msgHdrInitSend0(block, fd, address, len, null, 0, 0);
+        } else {
+            InetAddress inetAddress = remote.getAddress();
+            int scopeId = inetAddress instanceof Inet6Address ? ((Inet6Address) inetAddress).getScopeId() : 0;
+            res = msgHdrInitSend0(block, fd, address, len, ipv6Address(inetAddress), scopeId, remote.getPort());
+        }
+        if (res < 0) {
+            throw newIOException("sendmsg", res);
+        }
+    }
+
+    private static native int msgHdrInitSend0(
+            long block, int fd, long address, int len, byte[] remoteAddress, int scopeId, int port);
+
+    static InetSocketAddress msgHdrAddress(long block) {
+        byte[] addr = msgHdrAddress0(block);
+        if (addr == null) {
+            return null;
+        }
+        return address(addr);
+    }
+
+    private static native byte[] msgHdrAddress0(long block);
+
+    static void configureBlocking(int fd, boolean blocking) throws IOException {
+        int res = configureBlocking0(fd, blocking);
+        if (res < 0) {
+            throw newIOException("fcntl", res);
+        }
+    }
+
+    private static native int configureBlocking0(int fd, boolean blocking);
+
+    private static native int errnoECANCELED();
+    private static native String strError(int err);
+
+    private static byte[] ipv6Address(InetAddress address) {
+        if (address instanceof Inet6Address) {
+            return address.getAddress();
+        }
+        // convert to ipv4 mapped ipv6 address;
+        byte[] ipv4 = address.getAddress();
+        byte[] ipv6 = new byte[16];
+        System.arraycopy(IPV4_MAPPED_IPV6_PREFIX, 0, ipv6, 0, IPV4_MAPPED_IPV6_PREFIX.length);
+        System.arraycopy(ipv4, 0, ipv6, 12, ipv4.length);
+        return ipv6;
+    }
+
+    private static InetSocketAddress address(byte[] addr) {
+        // The last 4 bytes are always the port
+        final int len = addr.length;
+        final int port = decodeInt(addr, len - 4);
+        final InetAddress address;
+
+        try {
+            if (len == 8) {
+                byte[] ipv4 = new byte[4];
+                System.arraycopy(addr, 0, ipv4, 0, 4);
+                address = InetAddress.getByAddress(ipv4);
+            } else {
+                byte[] ipv6 = new byte[16];
+                System.arraycopy(addr, 0, ipv6, 0, 16);
+                address = Inet6Address.getByAddress(null, ipv6, decodeInt(addr, len - 8));
+            }
+            return new InetSocketAddress(address, port);
+        } catch (UnknownHostException e) {
+            throw new Error("Should never happen", e);
+        }
+    }
+
+    private static int decodeInt(byte[] addr, int index) {
+        return  (addr[index]     & 0xff) << 24 |
+                (addr[index + 1] & 0xff) << 16 |
+                (addr[index + 2] & 0xff) <<  8 |
+                addr[index + 3] & 0xff;
+    }
+
+    private Native() {
+        // utility
+    }
+}
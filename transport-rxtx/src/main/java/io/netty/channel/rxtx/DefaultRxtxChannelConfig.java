@@ -20,6 +20,7 @@ import io.netty.channel.ChannelOption;
 import io.netty.channel.DefaultChannelConfig;
 import io.netty.channel.MessageSizeEstimator;
 import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.WriteBufferBudget;
 
 import java.util.Map;
 
@@ -259,4 +260,10 @@ final class DefaultRxtxChannelConfig extends DefaultChannelConfig implements Rxt
         super.setMessageSizeEstimator(estimator);
         return this;
     }
+
+    @Override
+    public RxtxChannelConfig setWriteBufferBudget(WriteBufferBudget budget) {
+        super.setWriteBufferBudget(budget);
+        return this;
+    }
 }
@@ -23,6 +23,7 @@ import io.netty.channel.ChannelOption;
 import io.netty.channel.DefaultChannelConfig;
 import io.netty.channel.MessageSizeEstimator;
 import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.WriteBufferBudget;
 import io.netty.util.internal.PlatformDependent;
 
 import java.io.IOException;
@@ -228,4 +229,10 @@ public class DefaultSctpChannelConfig extends DefaultChannelConfig implements Sc
         super.setMessageSizeEstimator(estimator);
         return this;
     }
+
+    @Override
+    public SctpChannelConfig setWriteBufferBudget(WriteBufferBudget budget) {
+        super.setWriteBufferBudget(budget);
+        return this;
+    }
 }
@@ -24,6 +24,7 @@ import io.netty.channel.ChannelOption;
 import io.netty.channel.DefaultChannelConfig;
 import io.netty.channel.MessageSizeEstimator;
 import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.WriteBufferBudget;
 import io.netty.util.NetUtil;
 
 import java.io.IOException;
@@ -210,4 +211,10 @@ public class DefaultSctpServerChannelConfig extends DefaultChannelConfig impleme
         super.setMessageSizeEstimator(estimator);
         return this;
     }
+
+    @Override
+    public SctpServerChannelConfig setWriteBufferBudget(WriteBufferBudget budget) {
+        super.setWriteBufferBudget(budget);
+        return this;
+    }
 }
@@ -21,6 +21,7 @@ import io.netty.channel.ChannelConfig;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.MessageSizeEstimator;
 import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.WriteBufferBudget;
 
 /**
  * A {@link ChannelConfig} for a {@link SctpChannel}.
@@ -125,4 +126,7 @@ public interface SctpChannelConfig extends ChannelConfig {
 
     @Override
     SctpChannelConfig setMessageSizeEstimator(MessageSizeEstimator estimator);
+
+    @Override
+    SctpChannelConfig setWriteBufferBudget(WriteBufferBudget budget);
 }
@@ -23,6 +23,7 @@ import io.netty.channel.ChannelOption;
 import io.netty.channel.DefaultChannelConfig;
 import io.netty.channel.MessageSizeEstimator;
 import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.WriteBufferBudget;
 
 import java.io.IOException;
 import java.util.Map;
@@ -294,4 +295,10 @@ public class DefaultUdtChannelConfig extends DefaultChannelConfig implements
         super.setMessageSizeEstimator(estimator);
         return this;
     }
+
+    @Override
+    public UdtChannelConfig setWriteBufferBudget(WriteBufferBudget budget) {
+        super.setWriteBufferBudget(budget);
+        return this;
+    }
 }
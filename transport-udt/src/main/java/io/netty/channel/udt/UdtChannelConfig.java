@@ -23,6 +23,7 @@ import io.netty.channel.ChannelException;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.MessageSizeEstimator;
 import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.WriteBufferBudget;
 
 /**
  * A {@link ChannelConfig} for a {@link UdtChannel}.
@@ -140,6 +141,9 @@ public interface UdtChannelConfig extends ChannelConfig {
     @Override
     UdtChannelConfig setMessageSizeEstimator(MessageSizeEstimator estimator);
 
+    @Override
+    UdtChannelConfig setWriteBufferBudget(WriteBufferBudget budget);
+
     /**
      * Sets {@link OptionUDT#Protocol_Receive_Buffer_Size}
      */
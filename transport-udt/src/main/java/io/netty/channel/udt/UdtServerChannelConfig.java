@@ -23,6 +23,7 @@ import io.netty.channel.ChannelException;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.MessageSizeEstimator;
 import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.WriteBufferBudget;
 
 /**
  * A {@link ChannelConfig} for a {@link UdtServerChannel}.
@@ -97,4 +98,7 @@ public interface UdtServerChannelConfig extends UdtChannelConfig {
 
     @Override
     UdtServerChannelConfig setMessageSizeEstimator(MessageSizeEstimator estimator);
+
+    @Override
+    UdtServerChannelConfig setWriteBufferBudget(WriteBufferBudget budget);
 }
@@ -53,6 +53,8 @@ import java.util.Map;
  * <td>{@link ChannelOption#ALLOCATOR}</td><td>{@link #setAllocator(ByteBufAllocator)}</td>
  * </tr><tr>
  * <td>{@link ChannelOption#AUTO_READ}</td><td>{@link #setAutoRead(boolean)}</td>
+ * </tr><tr>
+ * <td>{@link ChannelOption#WRITE_BUFFER_BUDGET}</td><td>{@link #setWriteBufferBudget(WriteBufferBudget)}</td>
  * </tr>
  * </table>
  * <p>
@@ -235,4 +237,17 @@ public interface ChannelConfig {
      * to detect the size of a message.
      */
     ChannelConfig setMessageSizeEstimator(MessageSizeEstimator estimator);
+
+    /**
+     * Returns the {@link WriteBufferBudget} the pending outbound bytes of the channel are accounted to or
+     * {@code null} if none is used.
+     */
+    WriteBufferBudget getWriteBufferBudget();
+
+    /**
+     * Set the {@link WriteBufferBudget} the pending outbound bytes of the channel are accounted to. Share the same
+     * instance between many channels (for example all channels of an {@link EventLoopGroup}) to limit the memory
+     * used by all their outbound buffers. The budget can only be changed while no writes are pending.
+     */
+    ChannelConfig setWriteBufferBudget(WriteBufferBudget budget);
 }
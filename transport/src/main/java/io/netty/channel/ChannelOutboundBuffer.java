@@ -43,6 +43,8 @@ import java.util.concurrent.atomic.AtomicLongFieldUpdater;
  * <li>{@link #size()} and {@link #isEmpty()}</li>
  * <li>{@link #isWritable()}</li>
  * <li>{@link #getUserDefinedWritability(int)} and {@link #setUserDefinedWritability(int, boolean)}</li>
+ * <li>{@link #setUserDefinedWritabilityWaterMark(int, long, long)} and
+ *     {@link #removeUserDefinedWritabilityWaterMark(int)}</li>
  * </ul>
  * </p>
  */
@@ -57,6 +59,8 @@ public final class ChannelOutboundBuffer {
         }
     };
 
+    private static final UserDefinedWaterMark[] EMPTY_WATER_MARKS = new UserDefinedWaterMark[0];
+
     private final Channel channel;
 
     // Entry(flushedEntry) --> ... Entry(unflushedEntry) --> ... Entry(tailEntry)
@@ -87,6 +91,8 @@ public final class ChannelOutboundBuffer {
 
     private volatile Runnable fireChannelWritabilityChangedTask;
 
+    private volatile UserDefinedWaterMark[] userDefinedWaterMarks = EMPTY_WATER_MARKS;
+
     static {
         AtomicIntegerFieldUpdater<ChannelOutboundBuffer> unwritableUpdater =
                 PlatformDependent.newAtomicIntegerFieldUpdater(ChannelOutboundBuffer.class, "unwritable");
@@ -174,9 +180,20 @@ public final class ChannelOutboundBuffer {
         }
 
         long newWriteBufferSize = TOTAL_PENDING_SIZE_UPDATER.addAndGet(this, size);
-        if (newWriteBufferSize >= channel.config().getWriteBufferHighWaterMark()) {
+        ChannelConfig config = channel.config();
+        if (newWriteBufferSize >= config.getWriteBufferHighWaterMark()) {
             setUnwritable(invokeLater);
         }
+        for (UserDefinedWaterMark waterMark: userDefinedWaterMarks) {
+            if (newWriteBufferSize >= waterMark.high) {
+                clearWritabilityMask(waterMark.mask, invokeLater);
+            }
+        }
+
+        WriteBufferBudget budget = config.getWriteBufferBudget();
+        if (budget != null) {
+            budget.incrementPendingOutboundBytes(this, size);
+        }
     }
 
     /**
@@ -193,9 +210,21 @@ public final class ChannelOutboundBuffer {
         }
 
         long newWriteBufferSize = TOTAL_PENDING_SIZE_UPDATER.addAndGet(this, -size);
-        if (notifyWritability && (newWriteBufferSize == 0
-            || newWriteBufferSize <= channel.config().getWriteBufferLowWaterMark())) {
-            setWritable(invokeLater);
+        ChannelConfig config = channel.config();
+        if (notifyWritability) {
+            if (newWriteBufferSize == 0 || newWriteBufferSize <= config.getWriteBufferLowWaterMark()) {
+                setWritable(invokeLater);
+            }
+            for (UserDefinedWaterMark waterMark: userDefinedWaterMarks) {
+                if (newWriteBufferSize <= waterMark.low) {
+                    setWritabilityMask(waterMark.mask, invokeLater);
+                }
+            }
+        }
+
+        WriteBufferBudget budget = config.getWriteBufferBudget();
+        if (budget != null) {
+            budget.decrementPendingOutboundBytes(size);
         }
     }
 
@@ -305,6 +334,31 @@ public final class ChannelOutboundBuffer {
         return true;
     }
 
+    /**
+     * Will remove the current message like {@link #remove()}, but neither release it nor notify its
+     * {@link ChannelPromise}. This is left to the returned {@link DeferredMessage}, which allows a transport to
+     * complete a write only once the operating system does not access the memory of the message anymore. Until then
+     * the message still counts towards {@link #totalPendingWriteBytes()} and so the writability of the
+     * {@link Channel}. If no flushed message exists at the time this method is called it will return {@code null}.
+     */
+    public DeferredMessage removeDeferred() {
+        Entry e = flushedEntry;
+        if (e == null) {
+            clearNioBuffers();
+            return null;
+        }
+        // A cancelled entry was released and notified already, so there is nothing left to defer.
+        DeferredMessage deferred = e.cancelled ? new DeferredMessage(this, null, null, 0)
+                : new DeferredMessage(this, e.msg, e.promise, e.pendingSize);
+
+        removeEntry(e);
+
+        // recycle the entry
+        e.recycle();
+
+        return deferred;
+    }
+
     private void removeEntry(Entry e) {
         if (-- flushed == 0) {
             // processed everything
@@ -505,34 +559,125 @@ public final class ChannelOutboundBuffer {
      */
     public void setUserDefinedWritability(int index, boolean writable) {
         if (writable) {
-            setUserDefinedWritability(index);
+            setWritabilityMask(writabilityMask(index), true);
         } else {
-            clearUserDefinedWritability(index);
+            clearWritabilityMask(writabilityMask(index), true);
+        }
+    }
+
+    /**
+     * Lets the user-defined writability flag at the specified index follow the
+     * {@linkplain #totalPendingWriteBytes() total number of pending bytes}: the flag is set to {@code false} once the
+     * number of pending bytes reaches {@code highWaterMark} and to {@code true} again once it dropped to
+     * {@code lowWaterMark}. This allows to signal different levels of backpressure, each with its own thresholds.
+     */
+    public void setUserDefinedWritabilityWaterMark(int index, long lowWaterMark, long highWaterMark) {
+        if (lowWaterMark < 0) {
+            throw new IllegalArgumentException("lowWaterMark: " + lowWaterMark + " (expected: >= 0)");
+        }
+        if (highWaterMark < lowWaterMark) {
+            throw new IllegalArgumentException(
+                    "highWaterMark cannot be less than lowWaterMark (" + lowWaterMark + "): " + highWaterMark);
+        }
+        UserDefinedWaterMark waterMark = new UserDefinedWaterMark(writabilityMask(index), lowWaterMark, highWaterMark);
+        synchronized (this) {
+            UserDefinedWaterMark[] oldWaterMarks = userDefinedWaterMarks;
+            int i = indexOf(oldWaterMarks, waterMark.mask);
+            UserDefinedWaterMark[] newWaterMarks;
+            if (i < 0) {
+                newWaterMarks = Arrays.copyOf(oldWaterMarks, oldWaterMarks.length + 1);
+                newWaterMarks[oldWaterMarks.length] = waterMark;
+            } else {
+                newWaterMarks = oldWaterMarks.clone();
+                newWaterMarks[i] = waterMark;
+            }
+            userDefinedWaterMarks = newWaterMarks;
+        }
+
+        long pendingSize = totalPendingSize;
+        if (pendingSize >= highWaterMark) {
+            clearWritabilityMask(waterMark.mask, true);
+        } else if (pendingSize <= lowWaterMark) {
+            setWritabilityMask(waterMark.mask, true);
+        }
+    }
+
+    /**
+     * Stops to update the user-defined writability flag at the specified index with the number of pending bytes.
+     * The flag itself keeps its current value.
+     *
+     * @see #setUserDefinedWritabilityWaterMark(int, long, long)
+     */
+    public void removeUserDefinedWritabilityWaterMark(int index) {
+        int mask = writabilityMask(index);
+        synchronized (this) {
+            UserDefinedWaterMark[] oldWaterMarks = userDefinedWaterMarks;
+            int i = indexOf(oldWaterMarks, mask);
+            if (i < 0) {
+                return;
+            }
+            UserDefinedWaterMark[] newWaterMarks = new UserDefinedWaterMark[oldWaterMarks.length - 1];
+            System.arraycopy(oldWaterMarks, 0, newWaterMarks, 0, i);
+            System.arraycopy(oldWaterMarks, i + 1, newWaterMarks, i, newWaterMarks.length - i);
+            userDefinedWaterMarks = newWaterMarks;
+        }
+    }
+
+    private static int indexOf(UserDefinedWaterMark[] waterMarks, int mask) {
+        for (int i = 0; i < waterMarks.length; i++) {
+            if (waterMarks[i].mask == mask) {
+                return i;
+            }
         }
+        return -1;
     }
 
-    private void setUserDefinedWritability(int index) {
-        final int mask = ~writabilityMask(index);
+    /**
+     * Clears the user-defined writability flag at the specified index and returns {@code true} if it was set before.
+     */
+    boolean clearWritabilityIfSet(int index) {
+        final int mask = writabilityMask(index);
         for (;;) {
             final int oldValue = unwritable;
-            final int newValue = oldValue & mask;
+            if ((oldValue & mask) != 0) {
+                return false;
+            }
+            final int newValue = oldValue | mask;
             if (UNWRITABLE_UPDATER.compareAndSet(this, oldValue, newValue)) {
-                if (oldValue != 0 && newValue == 0) {
+                if (oldValue == 0) {
                     fireChannelWritabilityChanged(true);
                 }
+                return true;
+            }
+        }
+    }
+
+    private void setWritabilityMask(int mask, boolean invokeLater) {
+        for (;;) {
+            final int oldValue = unwritable;
+            final int newValue = oldValue & ~mask;
+            if (oldValue == newValue) {
+                break;
+            }
+            if (UNWRITABLE_UPDATER.compareAndSet(this, oldValue, newValue)) {
+                if (oldValue != 0 && newValue == 0) {
+                    fireChannelWritabilityChanged(invokeLater);
+                }
                 break;
             }
         }
     }
 
-    private void clearUserDefinedWritability(int index) {
-        final int mask = writabilityMask(index);
+    private void clearWritabilityMask(int mask, boolean invokeLater) {
         for (;;) {
             final int oldValue = unwritable;
             final int newValue = oldValue | mask;
+            if (oldValue == newValue) {
+                break;
+            }
             if (UNWRITABLE_UPDATER.compareAndSet(this, oldValue, newValue)) {
                 if (oldValue == 0 && newValue != 0) {
-                    fireChannelWritabilityChanged(true);
+                    fireChannelWritabilityChanged(invokeLater);
                 }
                 break;
             }
@@ -655,6 +800,12 @@ public final class ChannelOutboundBuffer {
                 // Just decrease; do not trigger any events via decrementPendingOutboundBytes()
                 int size = e.pendingSize;
                 TOTAL_PENDING_SIZE_UPDATER.addAndGet(this, -size);
+                if (size != 0) {
+                    WriteBufferBudget budget = channel.config().getWriteBufferBudget();
+                    if (budget != null) {
+                        budget.decrementPendingOutboundBytes(size);
+                    }
+                }
 
                 if (!e.cancelled) {
                     ReferenceCountUtil.safeRelease(e.msg);
@@ -748,6 +899,67 @@ public final class ChannelOutboundBuffer {
         return e != null && e != unflushedEntry;
     }
 
+    /**
+     * A message that was removed via {@link #removeDeferred()}, but is not released and notified yet.
+     */
+    public static final class DeferredMessage {
+        private final ChannelOutboundBuffer buffer;
+        private final ChannelPromise promise;
+        private final int pendingSize;
+        private Object msg;
+        private boolean done;
+
+        DeferredMessage(ChannelOutboundBuffer buffer, Object msg, ChannelPromise promise, int pendingSize) {
+            this.buffer = buffer;
+            this.msg = msg;
+            this.promise = promise;
+            this.pendingSize = pendingSize;
+            done = promise == null;
+        }
+
+        /**
+         * Release the message and mark its {@link ChannelPromise} as success. Must be called from the
+         * {@link EventLoop} of the {@link Channel}.
+         */
+        public void success() {
+            if (done) {
+                return;
+            }
+            done = true;
+            ReferenceCountUtil.safeRelease(msg);
+            msg = null;
+            safeSuccess(promise);
+            buffer.decrementPendingOutboundBytes(pendingSize, false, true);
+        }
+
+        /**
+         * Release the message and mark its {@link ChannelPromise} as failure using the given {@link Throwable}.
+         * Must be called from the {@link EventLoop} of the {@link Channel}.
+         */
+        public void fail(Throwable cause) {
+            if (done) {
+                return;
+            }
+            done = true;
+            ReferenceCountUtil.safeRelease(msg);
+            msg = null;
+            safeFail(promise, cause);
+            buffer.decrementPendingOutboundBytes(pendingSize, false, true);
+        }
+    }
+
+    private static final class UserDefinedWaterMark {
+        final int mask;
+        final long low;
+        final long high;
+
+        UserDefinedWaterMark(int mask, long low, long high) {
+            this.mask = mask;
+            this.low = low;
+            this.high = high;
+        }
+    }
+
     public interface MessageProcessor {
         /**
          * Will be called for each flushed message until it either there are no more flushed messages or this
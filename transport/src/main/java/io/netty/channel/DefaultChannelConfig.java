@@ -30,6 +30,7 @@ import static io.netty.channel.ChannelOption.CONNECT_TIMEOUT_MILLIS;
 import static io.netty.channel.ChannelOption.MAX_MESSAGES_PER_READ;
 import static io.netty.channel.ChannelOption.MESSAGE_SIZE_ESTIMATOR;
 import static io.netty.channel.ChannelOption.RCVBUF_ALLOCATOR;
+import static io.netty.channel.ChannelOption.WRITE_BUFFER_BUDGET;
 import static io.netty.channel.ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK;
 import static io.netty.channel.ChannelOption.WRITE_BUFFER_LOW_WATER_MARK;
 import static io.netty.channel.ChannelOption.WRITE_SPIN_COUNT;
@@ -66,6 +67,7 @@ public class DefaultChannelConfig implements ChannelConfig {
     private volatile int autoRead = 1;
     private volatile int writeBufferHighWaterMark = 64 * 1024;
     private volatile int writeBufferLowWaterMark = 32 * 1024;
+    private volatile WriteBufferBudget writeBufferBudget;
 
     public DefaultChannelConfig(Channel channel) {
         if (channel == null) {
@@ -80,7 +82,7 @@ public class DefaultChannelConfig implements ChannelConfig {
                 null,
                 CONNECT_TIMEOUT_MILLIS, MAX_MESSAGES_PER_READ, WRITE_SPIN_COUNT,
                 ALLOCATOR, AUTO_READ, RCVBUF_ALLOCATOR, WRITE_BUFFER_HIGH_WATER_MARK,
-                WRITE_BUFFER_LOW_WATER_MARK, MESSAGE_SIZE_ESTIMATOR);
+                WRITE_BUFFER_LOW_WATER_MARK, MESSAGE_SIZE_ESTIMATOR, WRITE_BUFFER_BUDGET);
     }
 
     protected Map<ChannelOption<?>, Object> getOptions(
@@ -145,6 +147,9 @@ public class DefaultChannelConfig implements ChannelConfig {
         if (option == MESSAGE_SIZE_ESTIMATOR) {
             return (T) getMessageSizeEstimator();
         }
+        if (option == WRITE_BUFFER_BUDGET) {
+            return (T) getWriteBufferBudget();
+        }
         return null;
     }
 
@@ -170,6 +175,8 @@ public class DefaultChannelConfig implements ChannelConfig {
             setWriteBufferLowWaterMark((Integer) value);
         } else if (option == MESSAGE_SIZE_ESTIMATOR) {
             setMessageSizeEstimator((MessageSizeEstimator) value);
+        } else if (option == WRITE_BUFFER_BUDGET) {
+            setWriteBufferBudget((WriteBufferBudget) value);
         } else {
             return false;
         }
@@ -384,4 +391,20 @@ public class DefaultChannelConfig implements ChannelConfig {
         msgSizeEstimator = estimator;
         return this;
     }
+
+    @Override
+    public WriteBufferBudget getWriteBufferBudget() {
+        return writeBufferBudget;
+    }
+
+    @Override
+    public ChannelConfig setWriteBufferBudget(WriteBufferBudget budget) {
+        ChannelOutboundBuffer buffer = channel.unsafe().outboundBuffer();
+        if (buffer != null && buffer.totalPendingWriteBytes() != 0) {
+            // The pending bytes that were already accounted to the old budget would never be released otherwise.
+            throw new IllegalStateException("writeBufferBudget can only be changed while no writes are pending");
+        }
+        writeBufferBudget = budget;
+        return this;
+    }
 }
@@ -20,15 +20,19 @@ import io.netty.buffer.ByteBufHolder;
 
 /**
  * Default {@link MessageSizeEstimator} implementation which supports the estimation of the size of
- * {@link ByteBuf}, {@link ByteBufHolder} and {@link FileRegion}.
+ * {@link ByteBuf}, {@link ByteBufHolder} and {@link FileRegion}. The size of all other messages can be estimated by
+ * an additional {@link MessageSizeEstimator}, so that writes of such messages are also taken into account by the
+ * write watermarks of a {@link Channel}.
  */
 public final class DefaultMessageSizeEstimator implements MessageSizeEstimator {
 
     private static final class HandleImpl implements Handle {
         private final int unknownSize;
+        private final Handle unknownMessageHandle;
 
-        private HandleImpl(int unknownSize) {
+        private HandleImpl(int unknownSize, Handle unknownMessageHandle) {
             this.unknownSize = unknownSize;
+            this.unknownMessageHandle = unknownMessageHandle;
         }
 
         @Override
@@ -42,6 +46,12 @@ public final class DefaultMessageSizeEstimator implements MessageSizeEstimator {
             if (msg instanceof FileRegion) {
                 return 0;
             }
+            if (unknownMessageHandle != null) {
+                int size = unknownMessageHandle.size(msg);
+                if (size >= 0) {
+                    return size;
+                }
+            }
             return unknownSize;
         }
     }
@@ -51,6 +61,8 @@ public final class DefaultMessageSizeEstimator implements MessageSizeEstimator {
      */
     public static final MessageSizeEstimator DEFAULT = new DefaultMessageSizeEstimator(0);
 
+    private final int unknownSize;
+    private final MessageSizeEstimator unknownMessageEstimator;
     private final Handle handle;
 
     /**
@@ -59,14 +71,33 @@ public final class DefaultMessageSizeEstimator implements MessageSizeEstimator {
      * @param unknownSize       The size which is returned for unknown messages.
      */
     public DefaultMessageSizeEstimator(int unknownSize) {
+        this(unknownSize, null);
+    }
+
+    /**
+     * Create a new instance
+     *
+     * @param unknownSize               The size which is returned for unknown messages if
+     *                                  {@code unknownMessageEstimator} returns a negative size for them.
+     * @param unknownMessageEstimator   The {@link MessageSizeEstimator} which is used to estimate the size of all
+     *                                  messages which are not a {@link ByteBuf}, {@link ByteBufHolder} or
+     *                                  {@link FileRegion}. May be {@code null}.
+     */
+    public DefaultMessageSizeEstimator(int unknownSize, MessageSizeEstimator unknownMessageEstimator) {
         if (unknownSize < 0) {
             throw new IllegalArgumentException("unknownSize: " + unknownSize + " (expected: >= 0)");
         }
-        handle = new HandleImpl(unknownSize);
+        this.unknownSize = unknownSize;
+        this.unknownMessageEstimator = unknownMessageEstimator;
+        // The handle can only be shared if there is no other estimator whose handles may be stateful.
+        handle = unknownMessageEstimator == null ? new HandleImpl(unknownSize, null) : null;
     }
 
     @Override
     public Handle newHandle() {
-        return handle;
+        if (handle != null) {
+            return handle;
+        }
+        return new HandleImpl(unknownSize, unknownMessageEstimator.newHandle());
     }
 }
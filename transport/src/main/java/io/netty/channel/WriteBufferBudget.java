@@ -0,0 +1,121 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A budget for the number of pending outbound bytes which is shared by many {@link Channel}s, for example all
+ * {@link Channel}s of an {@link EventLoopGroup}. This allows to limit the memory that is used by the outbound buffers
+ * of thousands of connections even if every single one of them stays below its own
+ * {@linkplain ChannelConfig#getWriteBufferHighWaterMark() write buffer high water mark}.
+ * <p>
+ * Once the number of pending bytes of all {@link Channel}s that use the budget reaches the {@code highWaterMark},
+ * every {@link Channel} that tries to add more bytes to its {@link ChannelOutboundBuffer} gets the
+ * {@linkplain ChannelOutboundBuffer#setUserDefinedWritability(int, boolean) user-defined writability flag} at
+ * {@code writabilityIndex} cleared, and so {@link Channel#isWritable()} returns {@code false}. The flag is set again on
+ * all these {@link Channel}s once the number of pending bytes dropped to the {@code lowWaterMark}.
+ * <p>
+ * Use {@link ChannelOption#WRITE_BUFFER_BUDGET} to assign the budget to {@link Channel}s.
+ */
+public final class WriteBufferBudget {
+
+    private final int writabilityIndex;
+    private final long lowWaterMark;
+    private final long highWaterMark;
+    private final AtomicLong totalPendingBytes = new AtomicLong();
+    private final Queue<ChannelOutboundBuffer> exhaustedBuffers = new ConcurrentLinkedQueue<ChannelOutboundBuffer>();
+
+    /**
+     * Create a new instance.
+     *
+     * @param writabilityIndex  the index of the user-defined writability flag which is used to signal that the budget
+     *                          is exhausted. This flag must not be used for anything else.
+     * @param lowWaterMark      the number of pending bytes at which the {@link Channel}s become writable again
+     * @param highWaterMark     the number of pending bytes at which the {@link Channel}s become unwritable
+     */
+    public WriteBufferBudget(int writabilityIndex, long lowWaterMark, long highWaterMark) {
+        if (writabilityIndex < 1 || writabilityIndex > 31) {
+            throw new IllegalArgumentException("writabilityIndex: " + writabilityIndex + " (expected: 1~31)");
+        }
+        if (lowWaterMark < 0) {
+            throw new IllegalArgumentException("lowWaterMark: " + lowWaterMark + " (expected: >= 0)");
+        }
+        if (highWaterMark < lowWaterMark) {
+            throw new IllegalArgumentException(
+                    "highWaterMark cannot be less than lowWaterMark (" + lowWaterMark + "): " + highWaterMark);
+        }
+        this.writabilityIndex = writabilityIndex;
+        this.lowWaterMark = lowWaterMark;
+        this.highWaterMark = highWaterMark;
+    }
+
+    /**
+     * Returns the index of the user-defined writability flag which is cleared when the budget is exhausted.
+     */
+    public int writabilityIndex() {
+        return writabilityIndex;
+    }
+
+    /**
+     * Returns the number of pending bytes at which the {@link Channel}s become writable again.
+     */
+    public long lowWaterMark() {
+        return lowWaterMark;
+    }
+
+    /**
+     * Returns the number of pending bytes at which the {@link Channel}s become unwritable.
+     */
+    public long highWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * Returns the number of pending outbound bytes of all {@link Channel}s that use this budget.
+     */
+    public long totalPendingBytes() {
+        return totalPendingBytes.get();
+    }
+
+    void incrementPendingOutboundBytes(ChannelOutboundBuffer buffer, long size) {
+        if (totalPendingBytes.addAndGet(size) >= highWaterMark && buffer.clearWritabilityIfSet(writabilityIndex)) {
+            exhaustedBuffers.add(buffer);
+            // The budget may have been replenished before the buffer was added to the queue.
+            if (totalPendingBytes.get() <= lowWaterMark) {
+                replenish();
+            }
+        }
+    }
+
+    void decrementPendingOutboundBytes(long size) {
+        if (totalPendingBytes.addAndGet(-size) <= lowWaterMark && !exhaustedBuffers.isEmpty()) {
+            replenish();
+        }
+    }
+
+    private void replenish() {
+        for (;;) {
+            ChannelOutboundBuffer buffer = exhaustedBuffers.poll();
+            if (buffer == null) {
+                break;
+            }
+            buffer.setUserDefinedWritability(writabilityIndex, true);
+        }
+    }
+}
@@ -101,9 +101,11 @@ public final class NioEventLoop extends SingleThreadEventLoop {
      * Boolean that controls determines if a blocked Selector.select should
      * break out of its selection process. In our case we use a timeout for
      * the select method and the select method will block for that time unless
-     * waken up.
+     * waken up. It is {@code true} while the event loop does not block in
+     * select, so submitting a task does not need to call {@link Selector#wakeup()}
+     * as the task queue is checked again before blocking.
      */
-    private final AtomicBoolean wakenUp = new AtomicBoolean();
+    private final AtomicBoolean wakenUp = new AtomicBoolean(true);
 
     private volatile int ioRatio = 50;
     private int cancelledKeys;
@@ -299,44 +301,11 @@ public final class NioEventLoop extends SingleThreadEventLoop {
 
     @Override
     protected void run() {
-        boolean oldWakenUp = wakenUp.getAndSet(false);
         try {
             if (hasTasks()) {
                 selectNow();
             } else {
-                select(oldWakenUp);
-
-                // 'wakenUp.compareAndSet(false, true)' is always evaluated
-                // before calling 'selector.wakeup()' to reduce the wake-up
-                // overhead. (Selector.wakeup() is an expensive operation.)
-                //
-                // However, there is a race condition in this approach.
-                // The race condition is triggered when 'wakenUp' is set to
-                // true too early.
-                //
-                // 'wakenUp' is set to true too early if:
-                // 1) Selector is waken up between 'wakenUp.set(false)' and
-                //    'selector.select(...)'. (BAD)
-                // 2) Selector is waken up between 'selector.select(...)' and
-                //    'if (wakenUp.get()) { ... }'. (OK)
-                //
-                // In the first case, 'wakenUp' is set to true and the
-                // following 'selector.select(...)' will wake up immediately.
-                // Until 'wakenUp' is set to false again in the next round,
-                // 'wakenUp.compareAndSet(false, true)' will fail, and therefore
-                // any attempt to wake up the Selector will fail, too, causing
-                // the following 'selector.select(...)' call to block
-                // unnecessarily.
-                //
-                // To fix this problem, we wake up the selector again if wakenUp
-                // is true immediately after selector.select(...).
-                // It is inefficient in that it wakes up the selector for both
-                // the first case (BAD - wake-up required) and the second case
-                // (OK - no wake-up required).
-
-                if (wakenUp.get()) {
-                    selector.wakeup();
-                }
+                select();
             }
 
             cancelledKeys = 0;
@@ -596,17 +565,29 @@ public final class NioEventLoop extends SingleThreadEventLoop {
     }
 
     void selectNow() throws IOException {
+        // A wakeup() that is consumed here does not need to be restored, as the task queue is checked again before
+        // the next select(...) may block.
+        selector.selectNow();
+    }
+
+    private void select() throws IOException {
+        // From now on tasks which are submitted from other threads need to call selector.wakeup(). As they add the
+        // task (or change the state when shutting down) before they check wakenUp, we need to check again after
+        // resetting it, so either we see the task or they see that we may block.
+        wakenUp.set(false);
         try {
-            selector.selectNow();
-        } finally {
-            // restore wakup state if needed
-            if (wakenUp.get()) {
-                selector.wakeup();
+            if (hasTasks() || isShuttingDown()) {
+                selector.selectNow();
+            } else {
+                select0();
             }
+        } finally {
+            // We are awake again and will check the task queue before blocking the next time.
+            wakenUp.set(true);
         }
     }
 
-    private void select(boolean oldWakenUp) throws IOException {
+    private void select0() throws IOException {
         Selector selector = this.selector;
         try {
             int selectCnt = 0;
@@ -625,7 +606,7 @@ public final class NioEventLoop extends SingleThreadEventLoop {
                 int selectedKeys = selector.select(timeoutMillis);
                 selectCnt ++;
 
-                if (selectedKeys != 0 || oldWakenUp || wakenUp.get() || hasTasks() || hasScheduledTasks()) {
+                if (selectedKeys != 0 || wakenUp.get() || hasTasks() || hasScheduledTasks()) {
                     // - Selected something,
                     // - waken up by user, or
                     // - the task queue has a pending task.
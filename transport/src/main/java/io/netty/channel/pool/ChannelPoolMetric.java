@@ -0,0 +1,58 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.channel.Channel;
+
+/**
+ * Expose metrics for a {@link ChannelPool}. The metrics of an acquire are updated by a listener of the
+ * {@link io.netty.util.concurrent.Future} it returned, so they may not include it yet while the other listeners of
+ * this {@link io.netty.util.concurrent.Future} are notified or a thread that waited for it wakes up.
+ */
+public interface ChannelPoolMetric {
+
+    /**
+     * Returns the number of {@link Channel}s which are in the pool and not acquired.
+     */
+    int numIdleChannels();
+
+    /**
+     * Returns the number of acquires which wait for a {@link Channel} to be released.
+     */
+    int numPendingAcquires();
+
+    /**
+     * Returns the number of successful acquires.
+     */
+    long numAcquires();
+
+    /**
+     * Returns the number of failed acquires.
+     */
+    long numFailedAcquires();
+
+    /**
+     * Returns the sum of the time (in nanoseconds) the successful acquires took, including the time they waited
+     * for a {@link Channel}. Divide it by {@link #numAcquires()} to get the mean acquire latency.
+     */
+    long totalAcquireTimeNanos();
+
+    /**
+     * Returns the number of {@link Channel}s which were closed by the pool because they were idle or open for too
+     * long or turned out to be unhealthy.
+     */
+    long numEvictions();
+}
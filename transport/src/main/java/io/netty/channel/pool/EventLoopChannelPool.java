@@ -0,0 +1,523 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.internal.EmptyArrays;
+import io.netty.util.internal.OneTimeTask;
+import io.netty.util.internal.PlatformDependent;
+
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.netty.util.internal.ObjectUtil.*;
+
+/**
+ * {@link ChannelPool} implementation which keeps a sub-pool per {@link EventLoop} of the {@link EventLoopGroup} of
+ * the {@link Bootstrap}, so an acquired {@link Channel} is registered on the {@link EventLoop} of the caller whenever
+ * possible and writes to it do not need to hop threads.
+ *
+ * A {@link Channel} is acquired in the following order:
+ * <ol>
+ *     <li>The last released {@link Channel} of the sub-pool of the caller.</li>
+ *     <li>A new {@link Channel} on the {@link EventLoop} of the caller, if less than {@code maxConnections} are
+ *     open.</li>
+ *     <li>The least recently released {@link Channel} of another sub-pool.</li>
+ *     <li>The next {@link Channel} which is released or can be created once another one is closed.</li>
+ * </ol>
+ * The caller is the {@link EventLoop} which calls {@link #acquire()}, or the next {@link EventLoop} of the
+ * {@link EventLoopGroup} if it is called from outside. Released {@link Channel}s are always returned to the sub-pool
+ * of their own {@link EventLoop}. The sub-pools and the {@code maxConnections} bound are maintained with lock-free
+ * data structures only.
+ */
+public final class EventLoopChannelPool implements ChannelPool {
+    private static final AttributeKey<EventLoopChannelPool> POOL_KEY =
+            AttributeKey.newInstance("eventLoopChannelPool");
+    private static final IllegalStateException CLOSED_EXCEPTION = new IllegalStateException("ChannelPool closed");
+    private static final IllegalStateException UNHEALTHY_NON_OFFERED_TO_POOL =
+            new IllegalStateException("Channel is unhealthy not offering it back to pool");
+    static {
+        CLOSED_EXCEPTION.setStackTrace(EmptyArrays.EMPTY_STACK_TRACE);
+        UNHEALTHY_NON_OFFERED_TO_POOL.setStackTrace(EmptyArrays.EMPTY_STACK_TRACE);
+    }
+
+    private final Bootstrap bootstrap;
+    private final ChannelPoolHandler handler;
+    private final ChannelHealthChecker healthCheck;
+    private final int maxConnections;
+    private final SubPool[] subPools;
+    // Only modified in the constructor, so it is safe to read it from any thread.
+    private final Map<EventLoop, SubPool> subPoolsByLoop = new IdentityHashMap<EventLoop, SubPool>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger pendingAcquires = new AtomicInteger();
+    private final ChannelFutureListener closeListener = new ChannelFutureListener() {
+        @Override
+        public void operationComplete(ChannelFuture future) throws Exception {
+            Channel ch = future.channel();
+            SubPool pool = subPool(ch);
+            pool.idle.remove(ch);
+            connections.decrementAndGet();
+            notifyPendingAcquire(pool);
+        }
+    };
+    private volatile boolean closed;
+
+    /**
+     * Creates a new instance using the {@link ChannelHealthChecker#ACTIVE} which does not limit the number of
+     * connections.
+     *
+     * @param bootstrap         the {@link Bootstrap} that is used for connections
+     * @param handler           the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     */
+    public EventLoopChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler) {
+        this(bootstrap, handler, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new instance using the {@link ChannelHealthChecker#ACTIVE}.
+     *
+     * @param bootstrap         the {@link Bootstrap} that is used for connections
+     * @param handler           the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param maxConnections    the number of maximal open connections of all sub-pools, once this is reached new
+     *                          tries to acquire a {@link Channel} will be delayed until a connection is returned to
+     *                          the pool again.
+     */
+    public EventLoopChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler, int maxConnections) {
+        this(bootstrap, handler, ChannelHealthChecker.ACTIVE, maxConnections);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bootstrap         the {@link Bootstrap} that is used for connections
+     * @param handler           the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param healthCheck       the {@link ChannelHealthChecker} that will be used to check if a {@link Channel} is
+     *                          still healthy when obtained from or released to the {@link ChannelPool}
+     * @param maxConnections    the number of maximal open connections of all sub-pools, once this is reached new
+     *                          tries to acquire a {@link Channel} will be delayed until a connection is returned to
+     *                          the pool again.
+     */
+    public EventLoopChannelPool(Bootstrap bootstrap, final ChannelPoolHandler handler,
+                                ChannelHealthChecker healthCheck, int maxConnections) {
+        this.handler = checkNotNull(handler, "handler");
+        this.healthCheck = checkNotNull(healthCheck, "healthCheck");
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("maxConnections: " + maxConnections + " (expected: >= 1)");
+        }
+        this.maxConnections = maxConnections;
+        // Clone the original Bootstrap as we want to set our own handler
+        this.bootstrap = checkNotNull(bootstrap, "bootstrap").clone();
+        this.bootstrap.handler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) throws Exception {
+                assert ch.eventLoop().inEventLoop();
+                handler.channelCreated(ch);
+            }
+        });
+
+        EventLoopGroup group = checkNotNull(bootstrap.group(), "bootstrap.group()");
+        Set<EventLoop> loops = group.children();
+        subPools = new SubPool[loops.size()];
+        int i = 0;
+        for (EventLoop loop: loops) {
+            SubPool pool = new SubPool(loop, i);
+            subPools[i++] = pool;
+            subPoolsByLoop.put(loop, pool);
+        }
+    }
+
+    @Override
+    public Future<Channel> acquire() {
+        SubPool pool = callerSubPool();
+        return acquire(pool, pool.loop.<Channel>newPromise());
+    }
+
+    @Override
+    public Future<Channel> acquire(Promise<Channel> promise) {
+        checkNotNull(promise, "promise");
+        return acquire(callerSubPool(), promise);
+    }
+
+    private Future<Channel> acquire(final SubPool pool, final Promise<Channel> promise) {
+        try {
+            if (pool.loop.inEventLoop()) {
+                acquire0(pool, promise);
+            } else {
+                pool.loop.execute(new OneTimeTask() {
+                    @Override
+                    public void run() {
+                        acquire0(pool, promise);
+                    }
+                });
+            }
+        } catch (Throwable cause) {
+            promise.setFailure(cause);
+        }
+        return promise;
+    }
+
+    private void acquire0(SubPool pool, Promise<Channel> promise) {
+        assert pool.loop.inEventLoop();
+
+        if (closed) {
+            promise.setFailure(CLOSED_EXCEPTION);
+            return;
+        }
+        Channel ch = pool.idle.pollLast();
+        if (ch != null) {
+            healthCheck(pool, ch, promise);
+            return;
+        }
+        if (reserveConnection()) {
+            connect(pool, promise);
+            return;
+        }
+        ch = steal(pool);
+        if (ch != null) {
+            healthCheck(pool, ch, promise);
+            return;
+        }
+
+        pool.pending.add(promise);
+        pendingAcquires.incrementAndGet();
+        // A Channel may have been released or closed before the acquire was added to the pending ones, in which
+        // case the pending acquire would not be notified.
+        if (closed) {
+            failPendingAcquires();
+        } else if (connections.get() < maxConnections || hasIdleChannel()) {
+            notifyPendingAcquire(pool);
+        }
+    }
+
+    private boolean reserveConnection() {
+        for (;;) {
+            int current = connections.get();
+            if (current >= maxConnections) {
+                return false;
+            }
+            if (connections.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private Channel steal(SubPool pool) {
+        for (int i = 1; i < subPools.length; i++) {
+            SubPool sibling = subPools[(pool.index + i) % subPools.length];
+            Channel ch = sibling.idle.pollFirst();
+            if (ch != null) {
+                return ch;
+            }
+        }
+        return null;
+    }
+
+    private boolean hasIdleChannel() {
+        for (SubPool pool: subPools) {
+            if (!pool.idle.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void connect(final SubPool pool, final Promise<Channel> promise) {
+        ChannelFuture f;
+        try {
+            f = bootstrap.clone(pool.loop).connect();
+        } catch (Throwable cause) {
+            connectFailed(pool, cause, promise);
+            return;
+        }
+        if (f.isDone()) {
+            notifyConnect(pool, f, promise);
+        } else {
+            f.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) throws Exception {
+                    notifyConnect(pool, future, promise);
+                }
+            });
+        }
+    }
+
+    private void notifyConnect(SubPool pool, ChannelFuture future, Promise<Channel> promise) {
+        if (future.isSuccess()) {
+            Channel ch = future.channel();
+            // Free the connection once the Channel is closed, no matter if it is acquired or idle at this time.
+            ch.closeFuture().addListener(closeListener);
+            // Like SimpleChannelPool the ChannelPoolHandler is only notified about channelCreated(...) for a new
+            // Channel.
+            ch.attr(POOL_KEY).set(this);
+            if (!promise.trySuccess(ch)) {
+                closeChannel(ch);
+            }
+        } else {
+            connectFailed(pool, future.cause(), promise);
+        }
+    }
+
+    private void connectFailed(SubPool pool, Throwable cause, Promise<Channel> promise) {
+        connections.decrementAndGet();
+        promise.setFailure(cause);
+        notifyPendingAcquire(pool);
+    }
+
+    private void healthCheck(final SubPool pool, final Channel ch, final Promise<Channel> promise) {
+        EventLoop loop = ch.eventLoop();
+        if (loop.inEventLoop()) {
+            doHealthCheck(pool, ch, promise);
+        } else {
+            // The Channel was stolen from another sub-pool.
+            try {
+                loop.execute(new OneTimeTask() {
+                    @Override
+                    public void run() {
+                        doHealthCheck(pool, ch, promise);
+                    }
+                });
+            } catch (Throwable cause) {
+                ch.close();
+                promise.setFailure(cause);
+            }
+        }
+    }
+
+    private void doHealthCheck(final SubPool pool, final Channel ch, final Promise<Channel> promise) {
+        assert ch.eventLoop().inEventLoop();
+
+        Future<Boolean> f = healthCheck.isHealthy(ch);
+        if (f.isDone()) {
+            notifyHealthCheck(pool, f, ch, promise);
+        } else {
+            f.addListener(new FutureListener<Boolean>() {
+                @Override
+                public void operationComplete(Future<Boolean> future) throws Exception {
+                    notifyHealthCheck(pool, future, ch, promise);
+                }
+            });
+        }
+    }
+
+    private void notifyHealthCheck(SubPool pool, Future<Boolean> future, Channel ch, Promise<Channel> promise) {
+        if (future.isSuccess() && future.getNow() == Boolean.TRUE) {
+            acquired(ch, promise);
+        } else {
+            // Closing the Channel frees its connection, so try again which may create a new Channel.
+            ch.close();
+            acquire(pool, promise);
+        }
+    }
+
+    private void acquired(Channel ch, Promise<Channel> promise) {
+        assert ch.eventLoop().inEventLoop();
+        try {
+            ch.attr(POOL_KEY).set(this);
+            handler.channelAcquired(ch);
+            promise.setSuccess(ch);
+        } catch (Throwable cause) {
+            closeChannel(ch);
+            promise.setFailure(cause);
+        }
+    }
+
+    @Override
+    public Future<Void> release(Channel channel) {
+        return release(channel, channel.eventLoop().<Void>newPromise());
+    }
+
+    @Override
+    public Future<Void> release(final Channel channel, final Promise<Void> promise) {
+        checkNotNull(channel, "channel");
+        checkNotNull(promise, "promise");
+        try {
+            EventLoop loop = channel.eventLoop();
+            if (loop.inEventLoop()) {
+                doReleaseChannel(channel, promise);
+            } else {
+                loop.execute(new OneTimeTask() {
+                    @Override
+                    public void run() {
+                        doReleaseChannel(channel, promise);
+                    }
+                });
+            }
+        } catch (Throwable cause) {
+            closeAndFail(channel, cause, promise);
+        }
+        return promise;
+    }
+
+    private void doReleaseChannel(final Channel channel, final Promise<Void> promise) {
+        assert channel.eventLoop().inEventLoop();
+        // Remove the POOL_KEY attribute from the Channel and check if it was acquired from this pool, if not fail.
+        if (channel.attr(POOL_KEY).getAndSet(null) != this) {
+            closeAndFail(channel,
+                         // Better include a stracktrace here as this is an user error.
+                         new IllegalArgumentException(
+                                 "Channel " + channel + " was not acquired from this ChannelPool"),
+                         promise);
+            return;
+        }
+        try {
+            Future<Boolean> f = healthCheck.isHealthy(channel);
+            if (f.isDone()) {
+                releaseAndOfferIfHealthy(channel, promise, f);
+            } else {
+                f.addListener(new FutureListener<Boolean>() {
+                    @Override
+                    public void operationComplete(Future<Boolean> future) throws Exception {
+                        releaseAndOfferIfHealthy(channel, promise, future);
+                    }
+                });
+            }
+        } catch (Throwable cause) {
+            closeAndFail(channel, cause, promise);
+        }
+    }
+
+    private void releaseAndOfferIfHealthy(Channel channel, Promise<Void> promise, Future<Boolean> future)
+            throws Exception {
+        handler.channelReleased(channel);
+        if (!future.isSuccess() || future.getNow() != Boolean.TRUE) {
+            closeAndFail(channel, UNHEALTHY_NON_OFFERED_TO_POOL, promise);
+        } else if (closed) {
+            closeAndFail(channel, CLOSED_EXCEPTION, promise);
+        } else {
+            SubPool pool = subPool(channel);
+            pool.idle.offerLast(channel);
+            promise.setSuccess(null);
+            notifyPendingAcquire(pool);
+        }
+    }
+
+    /**
+     * Let one pending acquire try again, preferring the ones of the given sub-pool.
+     */
+    private void notifyPendingAcquire(SubPool pool) {
+        if (pendingAcquires.get() == 0) {
+            return;
+        }
+        for (int i = 0; i < subPools.length; i++) {
+            SubPool candidate = subPools[(pool.index + i) % subPools.length];
+            Promise<Channel> promise = candidate.pending.poll();
+            if (promise != null) {
+                pendingAcquires.decrementAndGet();
+                acquire(candidate, promise);
+                return;
+            }
+        }
+    }
+
+    private void failPendingAcquires() {
+        for (SubPool pool: subPools) {
+            for (;;) {
+                Promise<Channel> promise = pool.pending.poll();
+                if (promise == null) {
+                    break;
+                }
+                pendingAcquires.decrementAndGet();
+                promise.tryFailure(CLOSED_EXCEPTION);
+            }
+        }
+    }
+
+    private SubPool callerSubPool() {
+        for (SubPool pool: subPools) {
+            if (pool.loop.inEventLoop()) {
+                return pool;
+            }
+        }
+        return subPoolsByLoop.get(bootstrap.group().next());
+    }
+
+    private SubPool subPool(Channel ch) {
+        SubPool pool = subPoolsByLoop.get(ch.eventLoop().unwrap());
+        assert pool != null;
+        return pool;
+    }
+
+    private static void closeChannel(Channel channel) {
+        channel.attr(POOL_KEY).getAndSet(null);
+        channel.close();
+    }
+
+    private static void closeAndFail(Channel channel, Throwable cause, Promise<?> promise) {
+        closeChannel(channel);
+        promise.setFailure(cause);
+    }
+
+    /**
+     * Returns the number of open connections of all sub-pools, including the ones which are currently connecting.
+     */
+    public int connections() {
+        return connections.get();
+    }
+
+    /**
+     * Returns the number of {@link Channel}s in the sub-pool of the given {@link EventLoop}, which are not acquired.
+     */
+    public int idleChannels(EventLoop loop) {
+        SubPool pool = subPoolsByLoop.get(checkNotNull(loop, "loop").unwrap());
+        if (pool == null) {
+            throw new IllegalArgumentException("loop " + loop + " is not part of " + bootstrap.group());
+        }
+        return pool.idle.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        failPendingAcquires();
+        for (SubPool pool: subPools) {
+            for (;;) {
+                Channel channel = pool.idle.pollLast();
+                if (channel == null) {
+                    break;
+                }
+                channel.close();
+            }
+        }
+    }
+
+    private static final class SubPool {
+        final EventLoop loop;
+        final int index;
+        // Polled from the last by the own EventLoop and from the first by others.
+        final Deque<Channel> idle = PlatformDependent.newConcurrentDeque();
+        final Queue<Promise<Channel>> pending = new ConcurrentLinkedQueue<Promise<Channel>>();
+
+        SubPool(EventLoop loop, int index) {
+            this.loop = loop;
+            this.index = index;
+        }
+    }
+}
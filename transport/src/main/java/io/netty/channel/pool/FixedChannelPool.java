@@ -68,7 +68,8 @@ public final class FixedChannelPool extends SimpleChannelPool {
     private final int maxConnections;
     private final int maxPendingAcquires;
     private int acquiredChannelCount;
-    private int pendingAcquireCount;
+    // Volatile as it is also read by numPendingAcquires().
+    private volatile int pendingAcquireCount;
 
     /**
      * Creates a new instance using the {@link ChannelHealthChecker#ACTIVE}.
@@ -182,7 +183,7 @@ public final class FixedChannelPool extends SimpleChannelPool {
                         // create a new connetion.
                         task.acquired();
 
-                        FixedChannelPool.super.acquire(task.promise);
+                        acquireHealthyFromPoolOrNew(task.promise);
                     }
                 };
                 break;
@@ -197,6 +198,7 @@ public final class FixedChannelPool extends SimpleChannelPool {
 
     @Override
     public Future<Channel> acquire(final Promise<Channel> promise) {
+        recordAcquire(promise);
         try {
             if (executor.inEventLoop()) {
                 acquire0(promise);
@@ -226,7 +228,7 @@ public final class FixedChannelPool extends SimpleChannelPool {
             AcquireListener l = new AcquireListener(promise);
             l.acquired();
             p.addListener(l);
-            super.acquire(p);
+            acquireHealthyFromPoolOrNew(p);
         } else {
             if (pendingAcquireCount >= maxPendingAcquires) {
                 promise.setFailure(FULL_EXCEPTION);
@@ -301,7 +303,7 @@ public final class FixedChannelPool extends SimpleChannelPool {
             --pendingAcquireCount;
             task.acquired();
 
-            super.acquire(task.promise);
+            acquireHealthyFromPoolOrNew(task.promise);
         }
 
         // We should never have a negative value.
@@ -381,6 +383,11 @@ public final class FixedChannelPool extends SimpleChannelPool {
         }
     }
 
+    @Override
+    public int numPendingAcquires() {
+        return pendingAcquireCount;
+    }
+
     @Override
     public void close() {
         executor.execute(new OneTimeTask() {
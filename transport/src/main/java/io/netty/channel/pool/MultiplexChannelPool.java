@@ -0,0 +1,470 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelInitializer;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.EmptyArrays;
+import io.netty.util.internal.OneTimeTask;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.util.internal.ObjectUtil.*;
+
+/**
+ * {@link ChannelPool} implementation for protocols which can serve multiple requests on one connection at the same
+ * time, like HTTP/2 or pipelined protocols. Instead of acquiring a {@link Channel} exclusively, every acquire leases
+ * one of the concurrent streams of a {@link Channel}, so the same {@link Channel} may be acquired multiple times
+ * before it is released. Every successful acquire must be followed by exactly one release.
+ * <p>
+ * A new connection is only opened if the streams of all open connections are leased and no connection which is
+ * being opened could serve the acquire. Acquires are served by the {@link Channel} with the most leased streams that
+ * is not saturated, so the remaining ones become idle and are closed after {@code idleTimeoutMillis}.
+ * <p>
+ * The number of concurrent streams of a {@link Channel} can be updated at any time via
+ * {@link #maxConcurrentStreams(Channel, int)}, for example once the SETTINGS_MAX_CONCURRENT_STREAMS of the remote
+ * peer are known. All state is maintained by one {@link EventExecutor} of the {@link Bootstrap}.
+ */
+public final class MultiplexChannelPool implements ChannelPool {
+    private static final AttributeKey<Connection> CONNECTION_KEY = AttributeKey.newInstance("multiplexChannelPool");
+    private static final IllegalStateException FULL_EXCEPTION =
+            new IllegalStateException("Too many outstanding acquire operations");
+
+    static {
+        FULL_EXCEPTION.setStackTrace(EmptyArrays.EMPTY_STACK_TRACE);
+    }
+
+    private final Bootstrap bootstrap;
+    private final ChannelPoolHandler handler;
+    private final EventExecutor executor;
+    private final int defaultMaxConcurrentStreams;
+    private final int maxConnections;
+    private final int maxPendingAcquires;
+    private final long idleTimeoutNanos;
+
+    // There is no need to worry about synchronization as everything that modifies the connections or the queue is
+    // done by the above EventExecutor.
+    private final List<Connection> connections = new ArrayList<Connection>();
+    private final Queue<Promise<Channel>> pendingAcquireQueue = new ArrayDeque<Promise<Channel>>();
+    private int connecting;
+    private boolean closed;
+    private ScheduledFuture<?> idleFuture;
+
+    /**
+     * Creates a new instance which does not close idle connections.
+     *
+     * @param bootstrap             the {@link Bootstrap} that is used for connections
+     * @param handler               the {@link ChannelPoolHandler} that will be notified for the different pool
+     *                              actions
+     * @param maxConcurrentStreams  the number of streams which can be leased on a new connection at the same time
+     * @param maxConnections        the number of maximal open connections, once this is reached and all streams are
+     *                              leased new tries to acquire a {@link Channel} will be delayed until a stream is
+     *                              released
+     */
+    public MultiplexChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler,
+                                int maxConcurrentStreams, int maxConnections) {
+        this(bootstrap, handler, maxConcurrentStreams, maxConnections, Integer.MAX_VALUE, -1);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bootstrap             the {@link Bootstrap} that is used for connections
+     * @param handler               the {@link ChannelPoolHandler} that will be notified for the different pool
+     *                              actions
+     * @param maxConcurrentStreams  the number of streams which can be leased on a new connection at the same time
+     * @param maxConnections        the number of maximal open connections, once this is reached and all streams are
+     *                              leased new tries to acquire a {@link Channel} will be delayed until a stream is
+     *                              released
+     * @param maxPendingAcquires    the maximum number of pending acquires. Once this is exceed acquire tries will
+     *                              be failed.
+     * @param idleTimeoutMillis     the time (in milliseconds) after which a connection without leased streams is
+     *                              closed or {@code -1} if idle connections should not be closed.
+     */
+    public MultiplexChannelPool(Bootstrap bootstrap, final ChannelPoolHandler handler,
+                                int maxConcurrentStreams, int maxConnections, int maxPendingAcquires,
+                                long idleTimeoutMillis) {
+        this.handler = checkNotNull(handler, "handler");
+        if (maxConcurrentStreams < 1) {
+            throw new IllegalArgumentException(
+                    "maxConcurrentStreams: " + maxConcurrentStreams + " (expected: >= 1)");
+        }
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("maxConnections: " + maxConnections + " (expected: >= 1)");
+        }
+        if (maxPendingAcquires < 1) {
+            throw new IllegalArgumentException("maxPendingAcquires: " + maxPendingAcquires + " (expected: >= 1)");
+        }
+        if (idleTimeoutMillis <= 0 && idleTimeoutMillis != -1) {
+            throw new IllegalArgumentException(
+                    "idleTimeoutMillis: " + idleTimeoutMillis + " (expected: >= 1 or -1)");
+        }
+        defaultMaxConcurrentStreams = maxConcurrentStreams;
+        this.maxConnections = maxConnections;
+        this.maxPendingAcquires = maxPendingAcquires;
+        idleTimeoutNanos = idleTimeoutMillis == -1 ? -1 : TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+
+        // Clone the original Bootstrap as we want to set our own handler
+        this.bootstrap = checkNotNull(bootstrap, "bootstrap").clone();
+        this.bootstrap.handler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) throws Exception {
+                assert ch.eventLoop().inEventLoop();
+                handler.channelCreated(ch);
+            }
+        });
+        executor = bootstrap.group().next();
+    }
+
+    @Override
+    public Future<Channel> acquire() {
+        return acquire(executor.<Channel>newPromise());
+    }
+
+    @Override
+    public Future<Channel> acquire(final Promise<Channel> promise) {
+        checkNotNull(promise, "promise");
+        try {
+            if (executor.inEventLoop()) {
+                acquire0(promise);
+            } else {
+                executor.execute(new OneTimeTask() {
+                    @Override
+                    public void run() {
+                        acquire0(promise);
+                    }
+                });
+            }
+        } catch (Throwable cause) {
+            promise.setFailure(cause);
+        }
+        return promise;
+    }
+
+    private void acquire0(Promise<Channel> promise) {
+        assert executor.inEventLoop();
+
+        if (closed) {
+            promise.setFailure(new ClosedChannelException());
+            return;
+        }
+        if (pendingAcquireQueue.size() >= maxPendingAcquires) {
+            promise.setFailure(FULL_EXCEPTION);
+            return;
+        }
+        pendingAcquireQueue.add(promise);
+        runTaskQueue();
+    }
+
+    /**
+     * Lease streams to the pending acquires and open new connections for the ones which can not be served.
+     */
+    private void runTaskQueue() {
+        assert executor.inEventLoop();
+
+        for (;;) {
+            Promise<Channel> promise = pendingAcquireQueue.peek();
+            if (promise == null) {
+                break;
+            }
+            Connection connection = connectionToLease();
+            if (connection != null) {
+                pendingAcquireQueue.remove();
+                lease(connection, promise);
+                continue;
+            }
+            // Each connection which is being opened will serve defaultMaxConcurrentStreams pending acquires.
+            if (connections.size() + connecting < maxConnections &&
+                    (long) connecting * defaultMaxConcurrentStreams < pendingAcquireQueue.size()) {
+                connect();
+                continue;
+            }
+            break;
+        }
+    }
+
+    /**
+     * Returns the not saturated {@link Connection} with the most leased streams, or {@code null} if all are
+     * saturated.
+     */
+    private Connection connectionToLease() {
+        Connection best = null;
+        for (int i = 0; i < connections.size(); i++) {
+            Connection connection = connections.get(i);
+            if (connection.leased < connection.maxConcurrentStreams && connection.channel.isActive() &&
+                    (best == null || connection.leased > best.leased)) {
+                best = connection;
+            }
+        }
+        return best;
+    }
+
+    private void lease(Connection connection, final Promise<Channel> promise) {
+        if (!promise.setUncancellable()) {
+            // The acquire was cancelled in the meantime.
+            return;
+        }
+        connection.leased++;
+        final Channel ch = connection.channel;
+        ch.eventLoop().execute(new OneTimeTask() {
+            @Override
+            public void run() {
+                try {
+                    handler.channelAcquired(ch);
+                } catch (Throwable cause) {
+                    promise.setFailure(cause);
+                    release(ch);
+                    return;
+                }
+                promise.setSuccess(ch);
+            }
+        });
+    }
+
+    private void connect() {
+        connecting++;
+        ChannelFuture f;
+        try {
+            f = bootstrap.clone().connect();
+        } catch (Throwable cause) {
+            connectFailed(cause);
+            return;
+        }
+        f.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(final ChannelFuture future) throws Exception {
+                if (executor.inEventLoop()) {
+                    notifyConnect(future);
+                } else {
+                    executor.execute(new OneTimeTask() {
+                        @Override
+                        public void run() {
+                            notifyConnect(future);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    private void notifyConnect(ChannelFuture future) {
+        assert executor.inEventLoop();
+
+        if (!future.isSuccess()) {
+            connectFailed(future.cause());
+            return;
+        }
+        connecting--;
+        final Channel ch = future.channel();
+        if (closed) {
+            ch.close();
+            return;
+        }
+        final Connection connection = new Connection(this, ch, defaultMaxConcurrentStreams);
+        ch.attr(CONNECTION_KEY).set(connection);
+        connections.add(connection);
+        ch.closeFuture().addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                executor.execute(new OneTimeTask() {
+                    @Override
+                    public void run() {
+                        connections.remove(connection);
+                        runTaskQueue();
+                    }
+                });
+            }
+        });
+        scheduleIdleCheck();
+        runTaskQueue();
+    }
+
+    private void connectFailed(Throwable cause) {
+        connecting--;
+        // Fail one pending acquire, as otherwise they would try to connect again and again.
+        Promise<Channel> promise = pendingAcquireQueue.poll();
+        if (promise != null) {
+            promise.tryFailure(cause);
+        }
+        runTaskQueue();
+    }
+
+    @Override
+    public Future<Void> release(Channel channel) {
+        return release(channel, channel.eventLoop().<Void>newPromise());
+    }
+
+    @Override
+    public Future<Void> release(final Channel channel, final Promise<Void> promise) {
+        checkNotNull(channel, "channel");
+        checkNotNull(promise, "promise");
+        try {
+            if (executor.inEventLoop()) {
+                release0(channel, promise);
+            } else {
+                executor.execute(new OneTimeTask() {
+                    @Override
+                    public void run() {
+                        release0(channel, promise);
+                    }
+                });
+            }
+        } catch (Throwable cause) {
+            promise.setFailure(cause);
+        }
+        return promise;
+    }
+
+    private void release0(final Channel channel, final Promise<Void> promise) {
+        assert executor.inEventLoop();
+
+        Connection connection = channel.attr(CONNECTION_KEY).get();
+        if (connection == null || connection.pool != this || connection.leased == 0) {
+            // Better include a stracktrace here as this is an user error.
+            promise.setFailure(new IllegalArgumentException(
+                    "Channel " + channel + " was not acquired from this ChannelPool"));
+            return;
+        }
+        if (--connection.leased == 0) {
+            connection.idleSinceNanos = System.nanoTime();
+            if (closed) {
+                channel.close();
+            }
+        }
+        runTaskQueue();
+
+        channel.eventLoop().execute(new OneTimeTask() {
+            @Override
+            public void run() {
+                try {
+                    handler.channelReleased(channel);
+                    promise.setSuccess(null);
+                } catch (Throwable cause) {
+                    promise.setFailure(cause);
+                }
+            }
+        });
+    }
+
+    /**
+     * Update the number of streams which can be leased on the given {@link Channel} at the same time, for example
+     * once the remote peer announced its SETTINGS_MAX_CONCURRENT_STREAMS. Lowering the number does not affect the
+     * streams which are already leased.
+     */
+    public Future<Void> maxConcurrentStreams(final Channel channel, final int maxConcurrentStreams) {
+        checkNotNull(channel, "channel");
+        if (maxConcurrentStreams < 0) {
+            throw new IllegalArgumentException(
+                    "maxConcurrentStreams: " + maxConcurrentStreams + " (expected: >= 0)");
+        }
+        final Promise<Void> promise = executor.newPromise();
+        executor.execute(new OneTimeTask() {
+            @Override
+            public void run() {
+                Connection connection = channel.attr(CONNECTION_KEY).get();
+                if (connection == null || connection.pool != MultiplexChannelPool.this) {
+                    promise.setFailure(new IllegalArgumentException(
+                            "Channel " + channel + " was not created by this ChannelPool"));
+                    return;
+                }
+                connection.maxConcurrentStreams = maxConcurrentStreams;
+                runTaskQueue();
+                promise.setSuccess(null);
+            }
+        });
+        return promise;
+    }
+
+    private void scheduleIdleCheck() {
+        if (idleTimeoutNanos == -1 || idleFuture != null) {
+            return;
+        }
+        idleFuture = executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                closeIdleConnections();
+            }
+        }, idleTimeoutNanos, idleTimeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void closeIdleConnections() {
+        assert executor.inEventLoop();
+
+        long nanoTime = System.nanoTime();
+        for (int i = 0; i < connections.size(); i++) {
+            Connection connection = connections.get(i);
+            // Compare nanoTime as descripted in the javadocs of System.nanoTime()
+            if (connection.leased == 0 && nanoTime - connection.idleSinceNanos >= idleTimeoutNanos) {
+                // The closeFuture listener removes the connection.
+                connection.channel.close();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.execute(new OneTimeTask() {
+            @Override
+            public void run() {
+                closed = true;
+                if (idleFuture != null) {
+                    idleFuture.cancel(false);
+                }
+                for (;;) {
+                    Promise<Channel> promise = pendingAcquireQueue.poll();
+                    if (promise == null) {
+                        break;
+                    }
+                    promise.tryFailure(new ClosedChannelException());
+                }
+                // Connections with leased streams are closed once the last one is released.
+                for (int i = 0; i < connections.size(); i++) {
+                    Connection connection = connections.get(i);
+                    if (connection.leased == 0) {
+                        connection.channel.close();
+                    }
+                }
+            }
+        });
+    }
+
+    private static final class Connection {
+        final MultiplexChannelPool pool;
+        final Channel channel;
+        int maxConcurrentStreams;
+        int leased;
+        long idleSinceNanos = System.nanoTime();
+
+        Connection(MultiplexChannelPool pool, Channel channel, int maxConcurrentStreams) {
+            this.pool = pool;
+            this.channel = channel;
+            this.maxConcurrentStreams = maxConcurrentStreams;
+        }
+    }
+}
@@ -22,14 +22,20 @@ import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.EventLoop;
 import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.FutureListener;
 import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
 import io.netty.util.internal.EmptyArrays;
+import io.netty.util.internal.LongCounter;
 import io.netty.util.internal.OneTimeTask;
 import io.netty.util.internal.PlatformDependent;
 
 import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static io.netty.util.internal.ObjectUtil.*;
 
@@ -39,9 +45,14 @@ import static io.netty.util.internal.ObjectUtil.*;
  *
  * This implementation uses LIFO order for {@link Channel}s in the {@link ChannelPool}.
  *
+ * The {@link Channel}s in the pool can be validated in the background and evicted once they were idle or open for
+ * too long via {@link #scheduleMaintenance(long, long, long, TimeUnit)}, and {@link #warmUp(int)} fills the pool
+ * ahead of traffic.
  */
-public class SimpleChannelPool implements ChannelPool {
+public class SimpleChannelPool implements ChannelPool, ChannelPoolMetric {
     private static final AttributeKey<SimpleChannelPool> POOL_KEY = AttributeKey.newInstance("channelPool");
+    private static final AttributeKey<Long> CREATED_KEY = AttributeKey.newInstance("channelPoolCreated");
+    private static final AttributeKey<Long> IDLE_SINCE_KEY = AttributeKey.newInstance("channelPoolIdleSince");
     private static final IllegalStateException FULL_EXCEPTION = new IllegalStateException("ChannelPool full");
     private static final IllegalStateException UNHEALTHY_NON_OFFERED_TO_POOL =
             new IllegalStateException("Channel is unhealthy not offering it back to pool");
@@ -55,6 +66,17 @@ public class SimpleChannelPool implements ChannelPool {
     private final Bootstrap bootstrap;
     private final boolean releaseHealthCheck;
 
+    // Metrics, the idle channels are counted here as pollChannel() and offerChannel() may be overridden.
+    private final AtomicInteger idleChannels = new AtomicInteger();
+    private final LongCounter acquires = PlatformDependent.newLongCounter();
+    private final LongCounter failedAcquires = PlatformDependent.newLongCounter();
+    private final LongCounter acquireTimeNanos = PlatformDependent.newLongCounter();
+    private final LongCounter evictions = PlatformDependent.newLongCounter();
+
+    private final AtomicReference<ScheduledFuture<?>> maintenanceFuture = new AtomicReference<ScheduledFuture<?>>();
+    private volatile long maxIdleNanos;
+    private volatile long maxLifetimeNanos;
+
     /**
      * Creates a new instance using the {@link ChannelHealthChecker#ACTIVE}.
      *
@@ -98,6 +120,7 @@ public class SimpleChannelPool implements ChannelPool {
             @Override
             protected void initChannel(Channel ch) throws Exception {
                 assert ch.eventLoop().inEventLoop();
+                ch.attr(CREATED_KEY).set(System.nanoTime());
                 handler.channelCreated(ch);
             }
         });
@@ -111,17 +134,40 @@ public class SimpleChannelPool implements ChannelPool {
     @Override
     public Future<Channel> acquire(final Promise<Channel> promise) {
         checkNotNull(promise, "promise");
+        recordAcquire(promise);
         return acquireHealthyFromPoolOrNew(promise);
     }
 
+    /**
+     * Record the time until the given acquire {@link Promise} is notified in the metrics.
+     */
+    final void recordAcquire(Promise<Channel> promise) {
+        final long start = System.nanoTime();
+        promise.addListener(new FutureListener<Channel>() {
+            @Override
+            public void operationComplete(Future<Channel> future) throws Exception {
+                if (future.isSuccess()) {
+                    acquireTimeNanos.add(System.nanoTime() - start);
+                    acquires.increment();
+                } else {
+                    failedAcquires.increment();
+                }
+            }
+        });
+    }
+
     /**
      * Tries to retrieve healthy channel from the pool if any or creates a new channel otherwise.
      * @param promise the promise to provide acquire result.
      * @return future for acquiring a channel.
      */
-    private Future<Channel> acquireHealthyFromPoolOrNew(final Promise<Channel> promise) {
+    final Future<Channel> acquireHealthyFromPoolOrNew(final Promise<Channel> promise) {
         try {
-            final Channel ch = pollChannel();
+            final Channel ch = pollIdleChannel();
+            if (ch != null && isExpired(ch, System.nanoTime())) {
+                evict(ch);
+                return acquireHealthyFromPoolOrNew(promise);
+            }
             if (ch == null) {
                 // No Channel left in the pool bootstrap a new Channel
                 Bootstrap bs = bootstrap.clone();
@@ -193,11 +239,11 @@ public class SimpleChannelPool implements ChannelPool {
                     closeAndFail(ch, cause, promise);
                 }
             } else {
-                closeChannel(ch);
+                evict(ch);
                 acquireHealthyFromPoolOrNew(promise);
             }
         } else {
-            closeChannel(ch);
+            evict(ch);
             acquireHealthyFromPoolOrNew(promise);
         }
     }
@@ -293,7 +339,12 @@ public class SimpleChannelPool implements ChannelPool {
     }
 
     private void releaseAndOffer(Channel channel, Promise<Void> promise) throws Exception {
-        if (offerChannel(channel)) {
+        long nanoTime = System.nanoTime();
+        if (isLifetimeExceeded(channel, nanoTime)) {
+            handler.channelReleased(channel);
+            evict(channel);
+            promise.setSuccess(null);
+        } else if (offerIdleChannel(channel, nanoTime)) {
             handler.channelReleased(channel);
             promise.setSuccess(null);
         } else {
@@ -301,6 +352,219 @@ public class SimpleChannelPool implements ChannelPool {
         }
     }
 
+    private Channel pollIdleChannel() {
+        Channel ch = pollChannel();
+        if (ch != null) {
+            idleChannels.decrementAndGet();
+        }
+        return ch;
+    }
+
+    private boolean offerIdleChannel(Channel channel, long idleSinceNanos) {
+        channel.attr(IDLE_SINCE_KEY).set(idleSinceNanos);
+        if (offerChannel(channel)) {
+            idleChannels.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean isExpired(Channel channel, long nanoTime) {
+        if (isLifetimeExceeded(channel, nanoTime)) {
+            return true;
+        }
+        long maxIdleNanos = this.maxIdleNanos;
+        Long idleSince = channel.attr(IDLE_SINCE_KEY).get();
+        return maxIdleNanos > 0 && idleSince != null && nanoTime - idleSince >= maxIdleNanos;
+    }
+
+    private boolean isLifetimeExceeded(Channel channel, long nanoTime) {
+        long maxLifetimeNanos = this.maxLifetimeNanos;
+        Long created = channel.attr(CREATED_KEY).get();
+        return maxLifetimeNanos > 0 && created != null && nanoTime - created >= maxLifetimeNanos;
+    }
+
+    private void evict(Channel channel) {
+        evictions.increment();
+        closeChannel(channel);
+    }
+
+    /**
+     * Validate the {@link Channel}s in the pool every {@code interval} in the background, so stale {@link Channel}s
+     * are closed before they are acquired. A {@link Channel} is closed if it is not healthy anymore according to the
+     * {@link ChannelHealthChecker}, was not acquired for {@code maxIdleTime} or was opened {@code maxLifetime} ago.
+     * {@link Channel}s which exceed their lifetime while being acquired are closed once released. A previous
+     * schedule is replaced.
+     * <p>
+     * The {@link Channel}s are validated while they stay in the pool, so only the internal storage is covered.
+     * Sub-classes which override {@link #pollChannel()} and {@link #offerChannel(Channel)} need to validate their
+     * {@link Channel}s themselves.
+     *
+     * @param interval      the time between two validations
+     * @param maxIdleTime   the time after which an idle {@link Channel} is closed or {@code 0} to disable
+     * @param maxLifetime   the time after which a {@link Channel} is closed or {@code 0} to disable
+     * @param unit          the {@link TimeUnit} of all times
+     */
+    public final void scheduleMaintenance(long interval, long maxIdleTime, long maxLifetime, TimeUnit unit) {
+        checkNotNull(unit, "unit");
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval: " + interval + " (expected: > 0)");
+        }
+        if (maxIdleTime < 0) {
+            throw new IllegalArgumentException("maxIdleTime: " + maxIdleTime + " (expected: >= 0)");
+        }
+        if (maxLifetime < 0) {
+            throw new IllegalArgumentException("maxLifetime: " + maxLifetime + " (expected: >= 0)");
+        }
+        maxIdleNanos = unit.toNanos(maxIdleTime);
+        maxLifetimeNanos = unit.toNanos(maxLifetime);
+        ScheduledFuture<?> future = bootstrap.group().next().scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                validateIdleChannels();
+            }
+        }, interval, interval, unit);
+        ScheduledFuture<?> old = maintenanceFuture.getAndSet(future);
+        if (old != null) {
+            old.cancel(false);
+        }
+    }
+
+    private void validateIdleChannels() {
+        // Check the Channels in place, so they can still be acquired while they are validated and only the stale ones
+        // are removed.
+        long nanoTime = System.nanoTime();
+        for (final Channel ch: deque) {
+            if (isExpired(ch, nanoTime)) {
+                removeAndEvict(ch);
+                continue;
+            }
+            EventLoop loop = ch.eventLoop();
+            if (loop.inEventLoop()) {
+                validateIdleChannel(ch);
+            } else {
+                loop.execute(new OneTimeTask() {
+                    @Override
+                    public void run() {
+                        validateIdleChannel(ch);
+                    }
+                });
+            }
+        }
+    }
+
+    private void validateIdleChannel(final Channel ch) {
+        assert ch.eventLoop().inEventLoop();
+        try {
+            Future<Boolean> f = healthCheck.isHealthy(ch);
+            if (f.isDone()) {
+                evictIfUnhealthy(ch, f);
+            } else {
+                f.addListener(new FutureListener<Boolean>() {
+                    @Override
+                    public void operationComplete(Future<Boolean> future) throws Exception {
+                        evictIfUnhealthy(ch, future);
+                    }
+                });
+            }
+        } catch (Throwable cause) {
+            removeAndEvict(ch);
+        }
+    }
+
+    private void evictIfUnhealthy(Channel ch, Future<Boolean> future) {
+        if (!future.isSuccess() || future.getNow() != Boolean.TRUE) {
+            removeAndEvict(ch);
+        }
+    }
+
+    private void removeAndEvict(Channel ch) {
+        // If the Channel was acquired in the meantime it is validated by the acquire already.
+        if (deque.remove(ch)) {
+            idleChannels.decrementAndGet();
+            evict(ch);
+        }
+    }
+
+    /**
+     * Open {@code connections} new {@link Channel}s and add them to the pool, so they do not need to be opened when
+     * they are acquired the first time. The returned {@link Future} is notified once all {@link Channel}s were
+     * added, or failed with the first cause if a {@link Channel} could not be opened.
+     */
+    public Future<Void> warmUp(int connections) {
+        if (connections < 1) {
+            throw new IllegalArgumentException("connections: " + connections + " (expected: >= 1)");
+        }
+        final EventExecutor executor = bootstrap.group().next();
+        final Promise<Void> promise = executor.newPromise();
+        final AtomicInteger remaining = new AtomicInteger(connections);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        ChannelFutureListener listener = new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (future.isSuccess()) {
+                    Channel ch = future.channel();
+                    if (!offerIdleChannel(ch, System.nanoTime())) {
+                        ch.close();
+                        failure.compareAndSet(null, FULL_EXCEPTION);
+                    }
+                } else {
+                    failure.compareAndSet(null, future.cause());
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    Throwable cause = failure.get();
+                    if (cause == null) {
+                        promise.setSuccess(null);
+                    } else {
+                        promise.setFailure(cause);
+                    }
+                }
+            }
+        };
+        for (int i = 0; i < connections; i++) {
+            try {
+                connectChannel(bootstrap.clone()).addListener(listener);
+            } catch (Throwable cause) {
+                failure.compareAndSet(null, cause);
+                if (remaining.addAndGet(i - connections) == 0) {
+                    promise.setFailure(cause);
+                }
+                break;
+            }
+        }
+        return promise;
+    }
+
+    @Override
+    public int numIdleChannels() {
+        return idleChannels.get();
+    }
+
+    @Override
+    public int numPendingAcquires() {
+        return 0;
+    }
+
+    @Override
+    public long numAcquires() {
+        return acquires.value();
+    }
+
+    @Override
+    public long numFailedAcquires() {
+        return failedAcquires.value();
+    }
+
+    @Override
+    public long totalAcquireTimeNanos() {
+        return acquireTimeNanos.value();
+    }
+
+    @Override
+    public long numEvictions() {
+        return evictions.value();
+    }
+
     private static void closeChannel(Channel channel) {
         channel.attr(POOL_KEY).getAndSet(null);
         channel.close();
@@ -335,8 +599,12 @@ public class SimpleChannelPool implements ChannelPool {
 
     @Override
     public void close() {
+        ScheduledFuture<?> future = maintenanceFuture.getAndSet(null);
+        if (future != null) {
+            future.cancel(false);
+        }
         for (;;) {
-            Channel channel = pollChannel();
+            Channel channel = pollIdleChannel();
             if (channel == null) {
                 break;
             }
@@ -19,6 +19,7 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.MessageSizeEstimator;
 import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.WriteBufferBudget;
 import io.netty.channel.socket.ServerSocketChannelConfig;
 
 
@@ -90,4 +91,7 @@ public interface OioServerSocketChannelConfig extends ServerSocketChannelConfig
 
     @Override
     OioServerSocketChannelConfig setMessageSizeEstimator(MessageSizeEstimator estimator);
+
+    @Override
+    OioServerSocketChannelConfig setWriteBufferBudget(WriteBufferBudget budget);
 }
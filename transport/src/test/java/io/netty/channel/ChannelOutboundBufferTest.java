@@ -19,6 +19,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.ImmediateEventExecutor;
 import org.junit.Test;
 
 import java.net.SocketAddress;
@@ -126,6 +127,36 @@ public class ChannelOutboundBufferTest {
         }
     }
 
+    @Test
+    public void testRemoveDeferred() {
+        TestChannel channel = new TestChannel();
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+        ByteBuf buf = copiedBuffer("buf1", CharsetUtil.US_ASCII);
+        ChannelPromise promise = new DefaultChannelPromise(channel, ImmediateEventExecutor.INSTANCE);
+        buffer.addMessage(buf, buf.readableBytes(), promise);
+        buffer.addFlush();
+
+        ChannelOutboundBuffer.DeferredMessage deferred = buffer.removeDeferred();
+        assertNotNull(deferred);
+        assertTrue(buffer.isEmpty());
+        assertNull(buffer.removeDeferred());
+        // Neither released nor notified yet, and still counted as pending.
+        assertEquals(1, buf.refCnt());
+        assertFalse(promise.isDone());
+        assertEquals(4, buffer.totalPendingWriteBytes());
+
+        deferred.success();
+        assertEquals(0, buf.refCnt());
+        assertTrue(promise.isSuccess());
+        assertEquals(0, buffer.totalPendingWriteBytes());
+
+        // Completing it again is a no-op.
+        deferred.fail(new Exception());
+        assertTrue(promise.isSuccess());
+        assertEquals(0, buffer.totalPendingWriteBytes());
+        release(buffer);
+    }
+
     private static final class TestChannel extends AbstractChannel {
         private final ChannelConfig config = new DefaultChannelConfig(this);
 
@@ -351,6 +382,121 @@ public class ChannelOutboundBufferTest {
         safeClose(ch);
     }
 
+    @Test
+    public void testUserDefinedWritabilityWaterMark() {
+        final StringBuilder buf = new StringBuilder();
+        EmbeddedChannel ch = new EmbeddedChannel(new ChannelHandlerAdapter() {
+            @Override
+            public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+                buf.append(ctx.channel().isWritable());
+                buf.append(' ');
+            }
+        });
+
+        ch.config().setWriteBufferLowWaterMark(128);
+        ch.config().setWriteBufferHighWaterMark(256);
+
+        ChannelOutboundBuffer cob = ch.unsafe().outboundBuffer();
+        cob.setUserDefinedWritabilityWaterMark(1, 32, 64);
+
+        // Ensure exceeding the high watermark of the user-defined writability flag makes channel unwritable.
+        ch.write(buffer().writeZero(32));
+        assertThat(buf.toString(), is(""));
+        ch.write(buffer().writeZero(32));
+        assertThat(cob.getUserDefinedWritability(1), is(false));
+        assertThat(buf.toString(), is("false "));
+
+        // Ensure going down to the low watermark of the user-defined writability flag makes channel writable again.
+        cob.addFlush();
+        assertThat(cob.remove(), is(true));
+        assertThat(cob.getUserDefinedWritability(1), is(true));
+        assertThat(buf.toString(), is("false true "));
+
+        // Ensure the user-defined writability flag does not follow the pending bytes anymore once removed.
+        cob.removeUserDefinedWritabilityWaterMark(1);
+        ch.write(buffer().writeZero(64));
+        assertThat(cob.getUserDefinedWritability(1), is(true));
+        assertThat(buf.toString(), is("false true "));
+
+        safeClose(ch);
+    }
+
+    @Test
+    public void testWriteBufferBudget() {
+        WriteBufferBudget budget = new WriteBufferBudget(1, 64, 128);
+        EmbeddedChannel ch1 = new EmbeddedChannel();
+        EmbeddedChannel ch2 = new EmbeddedChannel();
+        ch1.config().setWriteBufferBudget(budget);
+        ch2.config().setWriteBufferBudget(budget);
+
+        // Ensure every channel stays writable as long as the budget is not exhausted.
+        ch1.write(buffer().writeZero(100));
+        ch1.runPendingTasks();
+        assertThat(ch1.isWritable(), is(true));
+
+        // Ensure exhausting the budget makes the channel unwritable that tries to add more bytes.
+        ch2.write(buffer().writeZero(100));
+        ch2.runPendingTasks();
+        assertThat(budget.totalPendingBytes(), is(200L));
+        assertThat(ch2.isWritable(), is(false));
+        assertThat(ch1.isWritable(), is(true));
+        ch1.write(buffer().writeZero(10));
+        ch1.runPendingTasks();
+        assertThat(ch1.isWritable(), is(false));
+
+        // Ensure the channels stay unwritable until the budget dropped to the low watermark.
+        ch2.flush();
+        assertThat(budget.totalPendingBytes(), is(110L));
+        assertThat(ch1.isWritable(), is(false));
+        assertThat(ch2.isWritable(), is(false));
+
+        ch1.flush();
+        ch1.runPendingTasks();
+        ch2.runPendingTasks();
+        assertThat(budget.totalPendingBytes(), is(0L));
+        assertThat(ch1.isWritable(), is(true));
+        assertThat(ch2.isWritable(), is(true));
+
+        safeClose(ch1);
+        safeClose(ch2);
+    }
+
+    @Test
+    public void testWritabilityOfUnknownMessages() {
+        final StringBuilder buf = new StringBuilder();
+        EmbeddedChannel ch = new EmbeddedChannel(new ChannelHandlerAdapter() {
+            @Override
+            public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+                buf.append(ctx.channel().isWritable());
+                buf.append(' ');
+            }
+        });
+
+        ch.config().setWriteBufferLowWaterMark(128);
+        ch.config().setWriteBufferHighWaterMark(256);
+        ch.config().setMessageSizeEstimator(new DefaultMessageSizeEstimator(0, new MessageSizeEstimator() {
+            @Override
+            public Handle newHandle() {
+                return new Handle() {
+                    @Override
+                    public int size(Object msg) {
+                        return msg instanceof String ? ((String) msg).length() : -1;
+                    }
+                };
+            }
+        }));
+
+        // Ensure the estimated size of a message that is not a ByteBuf is taken into account.
+        ch.write(new String(new char[256]));
+        assertThat(ch.unsafe().outboundBuffer().totalPendingWriteBytes(), is(256L));
+        assertThat(buf.toString(), is("false "));
+
+        ch.flush();
+        assertThat(buf.toString(), is("false true "));
+        assertThat(ch.finish(), is(true));
+        assertThat(ch.readOutbound(), is(instanceOf(String.class)));
+    }
+
     private static void safeClose(EmbeddedChannel ch) {
         ch.finish();
         for (;;) {
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class EventLoopChannelPoolTest {
+    private static final String LOCAL_ADDR_ID = "test.id";
+
+    private EventLoopGroup group;
+    private EventLoop loop1;
+    private EventLoop loop2;
+    private Bootstrap cb;
+    private Channel sc;
+
+    @Before
+    public void setUp() {
+        group = new DefaultEventLoopGroup(2);
+        Iterator<EventLoop> loops = group.<EventLoop>children().iterator();
+        loop1 = loops.next();
+        loop2 = loops.next();
+
+        LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+        cb = new Bootstrap();
+        cb.remoteAddress(addr);
+        cb.group(group)
+          .channel(LocalChannel.class);
+
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group)
+          .channel(LocalServerChannel.class)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelHandlerAdapter());
+              }
+          });
+
+        // Start server
+        sc = sb.bind(addr).syncUninterruptibly().channel();
+    }
+
+    @After
+    public void tearDown() {
+        sc.close().syncUninterruptibly();
+        group.shutdownGracefully();
+    }
+
+    @Test
+    public void testAcquirePrefersCallerEventLoop() throws Exception {
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        EventLoopChannelPool pool = new EventLoopChannelPool(cb, handler);
+
+        Channel channel1 = acquire(pool, loop1);
+        Channel channel2 = acquire(pool, loop2);
+        assertSame(loop1, channel1.eventLoop().unwrap());
+        assertSame(loop2, channel2.eventLoop().unwrap());
+
+        pool.release(channel1).syncUninterruptibly();
+        pool.release(channel2).syncUninterruptibly();
+        assertEquals(1, pool.idleChannels(loop1));
+        assertEquals(1, pool.idleChannels(loop2));
+
+        // Each EventLoop gets the Channel of its own sub-pool back.
+        assertSame(channel2, acquire(pool, loop2));
+        assertSame(channel1, acquire(pool, loop1));
+
+        assertEquals(2, handler.channelCount());
+        assertEquals(2, handler.acquiredCount());
+        assertEquals(2, handler.releasedCount());
+        pool.close();
+        channel1.close().syncUninterruptibly();
+        channel2.close().syncUninterruptibly();
+    }
+
+    @Test
+    public void testStealIfMaxConnectionsReached() throws Exception {
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        EventLoopChannelPool pool = new EventLoopChannelPool(cb, handler, 1);
+
+        Channel channel = acquire(pool, loop1);
+        pool.release(channel).syncUninterruptibly();
+
+        assertSame(channel, acquire(pool, loop2));
+        assertEquals(1, handler.channelCount());
+        assertEquals(1, pool.connections());
+        pool.close();
+        channel.close().syncUninterruptibly();
+    }
+
+    @Test
+    public void testPendingAcquireNotifiedOnRelease() throws Exception {
+        EventLoopChannelPool pool = new EventLoopChannelPool(cb, new CountingChannelPoolHandler(), 1);
+
+        Channel channel = acquire(pool, loop1);
+        Future<Channel> future = acquireFuture(pool, loop2);
+        assertFalse(future.await(100, TimeUnit.MILLISECONDS));
+
+        pool.release(channel).syncUninterruptibly();
+        assertSame(channel, future.syncUninterruptibly().getNow());
+        pool.close();
+        channel.close().syncUninterruptibly();
+    }
+
+    @Test
+    public void testPendingAcquireNotifiedOnClose() throws Exception {
+        EventLoopChannelPool pool = new EventLoopChannelPool(cb, new CountingChannelPoolHandler(), 1);
+
+        Channel channel = acquire(pool, loop1);
+        Future<Channel> future = acquireFuture(pool, loop2);
+        assertFalse(future.await(100, TimeUnit.MILLISECONDS));
+
+        // Closing the Channel frees the connection, so the pending acquire creates a new Channel on its EventLoop.
+        channel.close().syncUninterruptibly();
+        Channel channel2 = future.syncUninterruptibly().getNow();
+        assertNotSame(channel, channel2);
+        assertSame(loop2, channel2.eventLoop().unwrap());
+        assertEquals(1, pool.connections());
+        pool.close();
+        channel2.close().syncUninterruptibly();
+    }
+
+    @Test
+    public void testCloseFailsPendingAcquire() throws Exception {
+        EventLoopChannelPool pool = new EventLoopChannelPool(cb, new CountingChannelPoolHandler(), 1);
+
+        Channel channel = acquire(pool, loop1);
+        Future<Channel> future = acquireFuture(pool, loop1);
+        assertFalse(future.await(100, TimeUnit.MILLISECONDS));
+
+        pool.close();
+        assertTrue(future.await(1, TimeUnit.SECONDS));
+        assertTrue(future.cause() instanceof IllegalStateException);
+        channel.close().syncUninterruptibly();
+    }
+
+    private static Channel acquire(EventLoopChannelPool pool, EventLoop loop) throws Exception {
+        return acquireFuture(pool, loop).syncUninterruptibly().getNow();
+    }
+
+    private static Future<Channel> acquireFuture(final EventLoopChannelPool pool, EventLoop loop) throws Exception {
+        return loop.submit(new Callable<Future<Channel>>() {
+            @Override
+            public Future<Channel> call() throws Exception {
+                return pool.acquire();
+            }
+        }).syncUninterruptibly().getNow();
+    }
+}
@@ -269,4 +269,44 @@ public class FixedChannelPoolTest {
             // NOOP
         }
     }
+
+    @Test
+    public void testMetrics() throws Exception {
+        EventLoopGroup group = new DefaultEventLoopGroup();
+        LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+        Bootstrap cb = new Bootstrap();
+        cb.remoteAddress(addr);
+        cb.group(group)
+          .channel(LocalChannel.class);
+
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group)
+          .channel(LocalServerChannel.class)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelHandlerAdapter());
+              }
+          });
+
+        // Start server
+        Channel sc = sb.bind(addr).syncUninterruptibly().channel();
+        FixedChannelPool pool = new FixedChannelPool(cb, new CountingChannelPoolHandler(), 1);
+
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        Future<Channel> future = pool.acquire();
+        assertFalse(future.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(1, pool.numPendingAcquires());
+
+        pool.release(channel).syncUninterruptibly();
+        assertSame(channel, SimpleChannelPoolTest.syncListeners(future));
+        assertEquals(0, pool.numPendingAcquires());
+        assertEquals(2, pool.numAcquires());
+        // The time the second acquire waited for the Channel is included.
+        assertTrue(pool.totalAcquireTimeNanos() >= TimeUnit.MILLISECONDS.toNanos(100));
+
+        sc.close().syncUninterruptibly();
+        channel.close().syncUninterruptibly();
+        group.shutdownGracefully();
+    }
 }
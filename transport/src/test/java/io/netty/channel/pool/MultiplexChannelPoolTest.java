@@ -0,0 +1,161 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MultiplexChannelPoolTest {
+    private static final String LOCAL_ADDR_ID = "test.id";
+
+    private EventLoopGroup group;
+    private Bootstrap cb;
+    private Channel sc;
+
+    @Before
+    public void setUp() {
+        group = new DefaultEventLoopGroup();
+        LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+        cb = new Bootstrap();
+        cb.remoteAddress(addr);
+        cb.group(group)
+          .channel(LocalChannel.class);
+
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group)
+          .channel(LocalServerChannel.class)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelHandlerAdapter());
+              }
+          });
+
+        // Start server
+        sc = sb.bind(addr).syncUninterruptibly().channel();
+    }
+
+    @After
+    public void tearDown() {
+        sc.close().syncUninterruptibly();
+        group.shutdownGracefully();
+    }
+
+    @Test
+    public void testLeaseStreamsOfSameChannel() throws Exception {
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        MultiplexChannelPool pool = new MultiplexChannelPool(cb, handler, 2, 4);
+
+        Channel channel1 = pool.acquire().syncUninterruptibly().getNow();
+        Channel channel2 = pool.acquire().syncUninterruptibly().getNow();
+        assertSame(channel1, channel2);
+
+        // All streams of the first connection are leased.
+        Channel channel3 = pool.acquire().syncUninterruptibly().getNow();
+        assertNotSame(channel1, channel3);
+        assertEquals(2, handler.channelCount());
+        assertEquals(3, handler.acquiredCount());
+
+        pool.release(channel1).syncUninterruptibly();
+        pool.release(channel2).syncUninterruptibly();
+        pool.release(channel3).syncUninterruptibly();
+        assertEquals(3, handler.releasedCount());
+
+        pool.close();
+        channel1.closeFuture().syncUninterruptibly();
+        channel3.closeFuture().syncUninterruptibly();
+    }
+
+    @Test
+    public void testPendingAcquireNotifiedOnRelease() throws Exception {
+        MultiplexChannelPool pool = new MultiplexChannelPool(cb, new CountingChannelPoolHandler(), 1, 1);
+
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        Future<Channel> future = pool.acquire();
+        assertFalse(future.await(100, TimeUnit.MILLISECONDS));
+
+        pool.release(channel).syncUninterruptibly();
+        assertSame(channel, future.syncUninterruptibly().getNow());
+        pool.release(channel).syncUninterruptibly();
+        pool.close();
+        channel.closeFuture().syncUninterruptibly();
+    }
+
+    @Test
+    public void testMaxConcurrentStreams() throws Exception {
+        MultiplexChannelPool pool = new MultiplexChannelPool(cb, new CountingChannelPoolHandler(), 1, 1);
+
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        Future<Channel> future = pool.acquire();
+        assertFalse(future.await(100, TimeUnit.MILLISECONDS));
+
+        // Raising the limit lets the pending acquire lease the second stream.
+        pool.maxConcurrentStreams(channel, 2).syncUninterruptibly();
+        assertSame(channel, future.syncUninterruptibly().getNow());
+
+        pool.release(channel).syncUninterruptibly();
+        pool.release(channel).syncUninterruptibly();
+        pool.close();
+        channel.closeFuture().syncUninterruptibly();
+    }
+
+    @Test
+    public void testIdleConnectionIsClosed() throws Exception {
+        MultiplexChannelPool pool = new MultiplexChannelPool(
+                cb, new CountingChannelPoolHandler(), 2, 1, Integer.MAX_VALUE, 100);
+
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        assertFalse(channel.closeFuture().await(300, TimeUnit.MILLISECONDS));
+
+        pool.release(channel).syncUninterruptibly();
+        assertTrue(channel.closeFuture().await(1, TimeUnit.SECONDS));
+
+        // A new connection is opened once the idle one was closed.
+        Channel channel2 = pool.acquire().syncUninterruptibly().getNow();
+        assertNotSame(channel, channel2);
+        pool.release(channel2).syncUninterruptibly();
+        pool.close();
+    }
+
+    @Test
+    public void testReleaseMoreThanAcquired() throws Exception {
+        MultiplexChannelPool pool = new MultiplexChannelPool(cb, new CountingChannelPoolHandler(), 2, 1);
+
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        pool.release(channel).syncUninterruptibly();
+        Future<Void> future = pool.release(channel).await();
+        assertTrue(future.cause() instanceof IllegalArgumentException);
+
+        pool.close();
+        channel.closeFuture().syncUninterruptibly();
+    }
+}
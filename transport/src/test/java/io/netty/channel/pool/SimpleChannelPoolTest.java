@@ -26,13 +26,16 @@ import io.netty.channel.local.LocalAddress;
 import io.netty.channel.local.LocalChannel;
 import io.netty.channel.local.LocalServerChannel;
 import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
 import org.hamcrest.CoreMatchers;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -239,4 +242,177 @@ public class SimpleChannelPoolTest {
         channel2.close().syncUninterruptibly();
         group.shutdownGracefully();
     }
+
+    @Test
+    public void testWarmUp() throws Exception {
+        EventLoopGroup group = new DefaultEventLoopGroup();
+        LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+        Bootstrap cb = new Bootstrap();
+        cb.remoteAddress(addr);
+        cb.group(group)
+          .channel(LocalChannel.class);
+
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group)
+          .channel(LocalServerChannel.class)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelHandlerAdapter());
+              }
+          });
+
+        // Start server
+        Channel sc = sb.bind(addr).syncUninterruptibly().channel();
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        SimpleChannelPool pool = new SimpleChannelPool(cb, handler);
+        pool.warmUp(3).syncUninterruptibly();
+        assertEquals(3, handler.channelCount());
+        assertEquals(3, pool.numIdleChannels());
+
+        Channel channel = syncListeners(pool.acquire());
+        assertEquals(3, handler.channelCount());
+        assertEquals(2, pool.numIdleChannels());
+        assertEquals(1, pool.numAcquires());
+        assertEquals(0, pool.numFailedAcquires());
+        assertTrue(pool.totalAcquireTimeNanos() > 0);
+
+        pool.release(channel).syncUninterruptibly();
+        assertEquals(3, pool.numIdleChannels());
+        pool.close();
+        sc.close().syncUninterruptibly();
+        group.shutdownGracefully();
+    }
+
+    @Test
+    public void testMaintenanceEvictsIdleChannels() throws Exception {
+        EventLoopGroup group = new DefaultEventLoopGroup();
+        LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+        Bootstrap cb = new Bootstrap();
+        cb.remoteAddress(addr);
+        cb.group(group)
+          .channel(LocalChannel.class);
+
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group)
+          .channel(LocalServerChannel.class)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelHandlerAdapter());
+              }
+          });
+
+        // Start server
+        Channel sc = sb.bind(addr).syncUninterruptibly().channel();
+        SimpleChannelPool pool = new SimpleChannelPool(cb, new CountingChannelPoolHandler());
+        pool.warmUp(2).syncUninterruptibly();
+        pool.scheduleMaintenance(50, 100, 0, TimeUnit.MILLISECONDS);
+
+        waitForEvictions(pool, 2);
+        assertEquals(0, pool.numIdleChannels());
+        pool.close();
+        sc.close().syncUninterruptibly();
+        group.shutdownGracefully();
+    }
+
+    @Test
+    public void testMaintenanceEvictsUnhealthyChannels() throws Exception {
+        EventLoopGroup group = new DefaultEventLoopGroup();
+        LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+        Bootstrap cb = new Bootstrap();
+        cb.remoteAddress(addr);
+        cb.group(group)
+          .channel(LocalChannel.class);
+
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group)
+          .channel(LocalServerChannel.class)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelHandlerAdapter());
+              }
+          });
+
+        // Start server
+        Channel sc = sb.bind(addr).syncUninterruptibly().channel();
+        SimpleChannelPool pool = new SimpleChannelPool(cb, new CountingChannelPoolHandler());
+        Channel channel1 = pool.acquire().syncUninterruptibly().getNow();
+        Channel channel2 = pool.acquire().syncUninterruptibly().getNow();
+        pool.release(channel1).syncUninterruptibly();
+        pool.release(channel2).syncUninterruptibly();
+        channel1.close().syncUninterruptibly();
+        pool.scheduleMaintenance(50, 0, 0, TimeUnit.MILLISECONDS);
+
+        // Only the closed Channel is evicted, the healthy one is kept in the pool.
+        waitForEvictions(pool, 1);
+        Channel channel3 = pool.acquire().syncUninterruptibly().getNow();
+        assertSame(channel2, channel3);
+        pool.release(channel3).syncUninterruptibly();
+        pool.close();
+        sc.close().syncUninterruptibly();
+        group.shutdownGracefully();
+    }
+
+    @Test
+    public void testMaxLifetimeEvictsOnRelease() throws Exception {
+        EventLoopGroup group = new DefaultEventLoopGroup();
+        LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+        Bootstrap cb = new Bootstrap();
+        cb.remoteAddress(addr);
+        cb.group(group)
+          .channel(LocalChannel.class);
+
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group)
+          .channel(LocalServerChannel.class)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelHandlerAdapter());
+              }
+          });
+
+        // Start server
+        Channel sc = sb.bind(addr).syncUninterruptibly().channel();
+        SimpleChannelPool pool = new SimpleChannelPool(cb, new CountingChannelPoolHandler());
+        // Only check the lifetime on release, as the interval is too long for the background validation.
+        pool.scheduleMaintenance(TimeUnit.HOURS.toMillis(1), 0, 50, TimeUnit.MILLISECONDS);
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        Thread.sleep(100);
+
+        pool.release(channel).syncUninterruptibly();
+        channel.closeFuture().syncUninterruptibly();
+        assertEquals(1, pool.numEvictions());
+        assertEquals(0, pool.numIdleChannels());
+        pool.close();
+        sc.close().syncUninterruptibly();
+        group.shutdownGracefully();
+    }
+
+    private static void waitForEvictions(SimpleChannelPool pool, long evictions) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pool.numEvictions() < evictions) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+        assertEquals(evictions, pool.numEvictions());
+    }
+
+    /**
+     * Wait until the listeners of the given acquire {@link Future} were notified, so the metrics of the pool
+     * include it.
+     */
+    static <T> T syncListeners(Future<T> future) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        future.addListener(new FutureListener<T>() {
+            @Override
+            public void operationComplete(Future<T> future) {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        return future.getNow();
+    }
 }